@@ -1,15 +1,26 @@
 package com.elastisys.scale.cloudpool.api;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
+import com.elastisys.scale.cloudpool.api.changes.PoolChangeFeed;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
 import com.elastisys.scale.cloudpool.api.restapi.CloudPoolRestApi;
+import com.elastisys.scale.cloudpool.api.types.BatchOperationResult;
 import com.elastisys.scale.cloudpool.api.types.CloudPoolStatus;
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachinePoolDiff;
 import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
 import com.elastisys.scale.cloudpool.api.types.PoolSizeSummary;
+import com.elastisys.scale.cloudpool.api.types.ProvisioningLatencies;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.google.gson.JsonObject;
 
@@ -132,6 +143,31 @@ public interface CloudPool {
      */
     MachinePool getMachinePool() throws CloudPoolException, NotStartedException;
 
+    /**
+     * Returns a list of the members of the cloud pool, as observed less than
+     * {@code maxStalenessMillis} ago. Implementations that cache their view of
+     * the pool can use this to serve a recent enough cached observation, and
+     * only fetch the pool from the cloud API when their view is too old. A
+     * {@code maxStalenessMillis} of zero requests a fresh observation.
+     * <p/>
+     * The default implementation calls {@link #getMachinePool()}.
+     *
+     * @param maxStalenessMillis
+     *            The maximum age, in milliseconds, of the returned
+     *            {@link MachinePool} observation.
+     * @return A list of cloud pool members.
+     * @throws IllegalArgumentException
+     *             If {@code maxStalenessMillis} is negative.
+     * @throws CloudPoolException
+     *             If the operation could not be completed.
+     * @throws NotStartedException
+     *             If the {@link CloudPool} is not started.
+     */
+    default MachinePool getMachinePool(long maxStalenessMillis)
+            throws IllegalArgumentException, CloudPoolException, NotStartedException {
+        return getMachinePool();
+    }
+
     /**
      * Returns the current size of the {@link MachinePool} -- both in terms of
      * the desired size and the actual size (as these may differ at any time).
@@ -198,6 +234,80 @@ public interface CloudPool {
     void terminateMachine(String machineId, boolean decrementDesiredSize)
             throws NotFoundException, NotEvictableException, CloudPoolException, NotStartedException;
 
+    /**
+     * Asynchronous version of {@link #terminateMachine(String, boolean)}. The
+     * request is checked (pool membership, evictability) before this method
+     * returns, but the termination may be carried out after it has returned.
+     * The method returns a {@link Future} that the caller can use if it needs
+     * to wait for the termination to complete.
+     * <p/>
+     * The default implementation terminates the machine before returning.
+     *
+     * @param machineId
+     *            The machine to terminate.
+     * @param decrementDesiredSize
+     *            If the desired pool size should be decremented ({@code true})
+     *            or left at its current size ({@code false}).
+     * @return A {@link Future} that completes when the machine has been
+     *         terminated.
+     * @throws NotFoundException
+     *             If the specified machine is not a member of the pool.
+     * @throws NotEvictableException
+     *             If the specified machine has a {@link MembershipStatus} that
+     *             prevents it from being removed.
+     * @throws CloudPoolException
+     *             If the operation could not be started.
+     * @throws NotStartedException
+     *             If the {@link CloudPool} is not started.
+     */
+    default Future<?> terminateMachineAsync(String machineId, boolean decrementDesiredSize)
+            throws NotFoundException, NotEvictableException, CloudPoolException, NotStartedException {
+        terminateMachine(machineId, decrementDesiredSize);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Terminates a batch of machine pool members. The outcome is reported per
+     * machine: a machine that is not a pool member, that is protected from
+     * removal, or whose termination fails is reported as failed without
+     * affecting the rest of the batch. If {@code decrementDesiredSize} is
+     * {@code true}, the desired size is decremented once for every machine
+     * that was terminated.
+     * <p/>
+     * The default implementation calls
+     * {@link #terminateMachine(String, boolean)} once per machine.
+     * Implementations are encouraged to carry out the batch with a single
+     * call to the cloud API.
+     *
+     * @param machineIds
+     *            The machines to terminate.
+     * @param decrementDesiredSize
+     *            If the desired pool size should be decremented ({@code true})
+     *            or left at its current size ({@code false}).
+     * @return The outcome for each machine.
+     * @throws CloudPoolException
+     *             If the operation could not be carried out at all (for
+     *             example, because the cloud pool is unreachable).
+     * @throws NotStartedException
+     *             If the {@link CloudPool} is not started.
+     */
+    default BatchOperationResult terminateMachines(List<String> machineIds, boolean decrementDesiredSize)
+            throws CloudPoolException, NotStartedException {
+        List<String> succeeded = new ArrayList<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (String machineId : new LinkedHashSet<>(machineIds)) {
+            try {
+                terminateMachine(machineId, decrementDesiredSize);
+                succeeded.add(machineId);
+            } catch (NotStartedException e) {
+                throw e;
+            } catch (CloudPoolException e) {
+                failed.put(machineId, e.getMessage());
+            }
+        }
+        return new BatchOperationResult(succeeded, failed);
+    }
+
     /**
      * Sets the service state of a given machine pool member. Setting the
      * service state does not have any functional implications on the pool
@@ -255,6 +365,33 @@ public interface CloudPool {
      */
     void attachMachine(String machineId) throws NotFoundException, CloudPoolException, NotStartedException;
 
+    /**
+     * Asynchronous version of {@link #attachMachine(String)}. The attach may
+     * be carried out after this method has returned. The method returns a
+     * {@link Future} that the caller can use if it needs to wait for the
+     * attach to complete.
+     * <p/>
+     * The default implementation attaches the machine before returning.
+     *
+     * @param machineId
+     *            The identifier of the machine to attach to the pool.
+     * @return A {@link Future} that completes when the machine has been
+     *         attached. An implementation that cannot tell if the machine
+     *         exists before carrying out the attach fails the {@link Future}
+     *         with a {@link NotFoundException} instead of throwing it.
+     * @throws NotFoundException
+     *             If the specified machine does not exist.
+     * @throws CloudPoolException
+     *             If the operation could not be started.
+     * @throws NotStartedException
+     *             If the {@link CloudPool} is not started.
+     */
+    default Future<?> attachMachineAsync(String machineId)
+            throws NotFoundException, CloudPoolException, NotStartedException {
+        attachMachine(machineId);
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Removes a member from the pool without terminating it. The machine keeps
      * running but is no longer considered a pool member and, therefore, needs
@@ -283,4 +420,111 @@ public interface CloudPool {
      */
     void detachMachine(String machineId, boolean decrementDesiredSize)
             throws NotFoundException, NotEvictableException, CloudPoolException, NotStartedException;
+
+    /**
+     * Asynchronous version of {@link #detachMachine(String, boolean)}. The
+     * request is checked (pool membership, evictability) before this method
+     * returns, but the detach may be carried out after it has returned. The
+     * method returns a {@link Future} that the caller can use if it needs to
+     * wait for the detach to complete.
+     * <p/>
+     * The default implementation detaches the machine before returning.
+     *
+     * @param machineId
+     *            The identifier of the machine to detach from the pool.
+     * @param decrementDesiredSize
+     *            If the desired pool size should be decremented ({@code true})
+     *            or left at its current size ({@code false}).
+     * @return A {@link Future} that completes when the machine has been
+     *         detached.
+     * @throws NotFoundException
+     *             If the specified machine is not a member of the pool.
+     * @throws NotEvictableException
+     *             If the specified machine has a {@link MembershipStatus} that
+     *             prevents it from being removed.
+     * @throws CloudPoolException
+     *             If the operation could not be started.
+     * @throws NotStartedException
+     *             If the {@link CloudPool} is not started.
+     */
+    default Future<?> detachMachineAsync(String machineId, boolean decrementDesiredSize)
+            throws NotFoundException, NotEvictableException, CloudPoolException, NotStartedException {
+        detachMachine(machineId, decrementDesiredSize);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Detaches a batch of machine pool members. The outcome is reported per
+     * machine, just like for {@link #terminateMachines(List, boolean)}.
+     * <p/>
+     * The default implementation calls {@link #detachMachine(String, boolean)}
+     * once per machine.
+     *
+     * @param machineIds
+     *            The machines to detach from the pool.
+     * @param decrementDesiredSize
+     *            If the desired pool size should be decremented ({@code true})
+     *            or left at its current size ({@code false}).
+     * @return The outcome for each machine.
+     * @throws CloudPoolException
+     *             If the operation could not be carried out at all (for
+     *             example, because the cloud pool is unreachable).
+     * @throws NotStartedException
+     *             If the {@link CloudPool} is not started.
+     */
+    default BatchOperationResult detachMachines(List<String> machineIds, boolean decrementDesiredSize)
+            throws CloudPoolException, NotStartedException {
+        List<String> succeeded = new ArrayList<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (String machineId : new LinkedHashSet<>(machineIds)) {
+            try {
+                detachMachine(machineId, decrementDesiredSize);
+                succeeded.add(machineId);
+            } catch (NotStartedException e) {
+                throw e;
+            } catch (CloudPoolException e) {
+                failed.put(machineId, e.getMessage());
+            }
+        }
+        return new BatchOperationResult(succeeded, failed);
+    }
+
+    /**
+     * Returns the {@link PoolChangeFeed} on which this {@link CloudPool}
+     * publishes {@link MachinePoolDiff}s between consecutive pool
+     * observations, if it supports change tracking.
+     * <p/>
+     * The default implementation returns {@link Optional#empty()}.
+     *
+     * @return
+     */
+    default Optional<PoolChangeFeed> getChangeFeed() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the {@link MetricRegistry} in which this {@link CloudPool}
+     * records operational metrics (such as cloud API latencies and error
+     * counts), if it is instrumented.
+     * <p/>
+     * The default implementation returns {@link Optional#empty()}.
+     *
+     * @return
+     */
+    default Optional<MetricRegistry> getMetrics() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a summary of the observed durations of machine state transitions
+     * (such as from {@link MachineState#REQUESTED} to
+     * {@link MachineState#RUNNING}), if this {@link CloudPool} tracks them.
+     * <p/>
+     * The default implementation returns {@link Optional#empty()}.
+     *
+     * @return
+     */
+    default Optional<ProvisioningLatencies> getProvisioningLatencies() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,149 @@
+package com.elastisys.scale.cloudpool.api.changes;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.elastisys.scale.cloudpool.api.CloudPool;
+import com.elastisys.scale.cloudpool.api.types.MachinePoolDiff;
+import com.elastisys.scale.cloudpool.api.types.PoolChangeEvent;
+import com.elastisys.scale.cloudpool.api.types.PoolChanges;
+
+/**
+ * A bounded, in-memory feed of {@link MachinePoolDiff}s observed by a
+ * {@link CloudPool}. Every published diff is assigned a sequence number, which
+ * clients use as a cursor to read the changes that followed it.
+ * <p/>
+ * Only the most recent events (up to the feed's capacity) are retained. A
+ * client whose cursor refers to an evicted event is told to resync (see
+ * {@link PoolChanges#isResyncRequired()}).
+ * <p/>
+ * Readers can block in {@link #await(long, long, TimeUnit)} until new events
+ * are published, which allows changes to be served to clients through
+ * long-polling.
+ */
+public class PoolChangeFeed {
+    /** Default maximum number of retained {@link PoolChangeEvent}s. */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    /** Maximum number of retained {@link PoolChangeEvent}s. */
+    private final int capacity;
+    /** Retained {@link PoolChangeEvent}s, oldest first. */
+    private final Deque<PoolChangeEvent> events;
+    /** Sequence number of the most recently published event. */
+    private long latestSequence;
+
+    /**
+     * Creates a {@link PoolChangeFeed} with {@link #DEFAULT_CAPACITY}.
+     */
+    public PoolChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a {@link PoolChangeFeed}.
+     *
+     * @param capacity
+     *            Maximum number of retained {@link PoolChangeEvent}s.
+     */
+    public PoolChangeFeed(int capacity) {
+        checkArgument(capacity > 0, "capacity must be positive");
+        this.capacity = capacity;
+        this.events = new ArrayDeque<>(Math.min(capacity, 64));
+        this.latestSequence = 0;
+    }
+
+    /**
+     * Publishes a {@link MachinePoolDiff} on the feed and wakes up any readers
+     * waiting for new events.
+     *
+     * @param diff
+     * @return The published {@link PoolChangeEvent}.
+     */
+    public synchronized PoolChangeEvent publish(MachinePoolDiff diff) {
+        requireNonNull(diff, "diff cannot be null");
+        PoolChangeEvent event = new PoolChangeEvent(++this.latestSequence, diff);
+        this.events.addLast(event);
+        if (this.events.size() > this.capacity) {
+            this.events.removeFirst();
+        }
+        notifyAll();
+        return event;
+    }
+
+    /**
+     * Returns the sequence number of the most recently published event (
+     * <code>0</code> if no event has been published).
+     *
+     * @return
+     */
+    public synchronized long getLatestSequence() {
+        return this.latestSequence;
+    }
+
+    /**
+     * Returns the events published after a given cursor, without blocking.
+     *
+     * @param cursor
+     *            A sequence number previously returned by the feed, or
+     *            <code>0</code> to read from the start of the feed.
+     * @return
+     */
+    public synchronized PoolChanges since(long cursor) {
+        if (cursor > this.latestSequence || cursor < oldestRetainedSequence() - 1) {
+            return new PoolChanges(this.latestSequence, true, Collections.emptyList());
+        }
+        List<PoolChangeEvent> newer = new ArrayList<>();
+        for (PoolChangeEvent event : this.events) {
+            if (event.getSequence() > cursor) {
+                newer.add(event);
+            }
+        }
+        return new PoolChanges(this.latestSequence, false, newer);
+    }
+
+    /**
+     * Returns the events published after a given cursor, waiting up to a
+     * given time for new events if there are none yet.
+     *
+     * @param cursor
+     *            A sequence number previously returned by the feed, or
+     *            <code>0</code> to read from the start of the feed.
+     * @param timeout
+     *            Maximum time to wait for new events.
+     * @param unit
+     *            Unit of the timeout.
+     * @return The events following the cursor. Empty if the timeout expired
+     *         without any new events being published.
+     * @throws InterruptedException
+     */
+    public synchronized PoolChanges await(long cursor, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (cursor == this.latestSequence) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                break;
+            }
+            wait(remainingMillis);
+        }
+        return since(cursor);
+    }
+
+    /**
+     * Returns the sequence number of the oldest retained event.
+     *
+     * @return
+     */
+    private long oldestRetainedSequence() {
+        if (this.events.isEmpty()) {
+            return this.latestSequence + 1;
+        }
+        return this.events.peekFirst().getSequence();
+    }
+}
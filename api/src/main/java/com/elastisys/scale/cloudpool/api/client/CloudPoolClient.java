@@ -3,9 +3,12 @@ package com.elastisys.scale.cloudpool.api.client;
 import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
 import static java.lang.String.format;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.core.Response.Status;
 
@@ -22,13 +25,18 @@ import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.NotStartedException;
 import com.elastisys.scale.cloudpool.api.restapi.types.AttachMachineRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachineRequest;
+import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachinesRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetDesiredSizeRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetMembershipStatusRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetServiceStateRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.TerminateMachineRequest;
+import com.elastisys.scale.cloudpool.api.restapi.types.TerminateMachinesRequest;
+import com.elastisys.scale.cloudpool.api.types.BatchOperationResult;
 import com.elastisys.scale.cloudpool.api.types.CloudPoolStatus;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.PoolMutationStatus;
+import com.elastisys.scale.cloudpool.api.types.PoolMutationStatus.State;
 import com.elastisys.scale.cloudpool.api.types.PoolSizeSummary;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.commons.json.JsonUtils;
@@ -41,6 +49,17 @@ import com.google.gson.JsonObject;
  * A {@link CloudPool} REST API client.
  */
 public class CloudPoolClient implements CloudPool {
+    /**
+     * The default longest time (in milliseconds) that a terminate, detach or
+     * attach call follows a pool mutation that the cloud pool is still
+     * carrying out.
+     */
+    public static final long DEFAULT_POOL_MUTATION_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    /**
+     * The time (in milliseconds) between polls of a pool mutation that the
+     * cloud pool is still carrying out.
+     */
+    static final long POOL_MUTATION_POLL_INTERVAL_MILLIS = 500;
 
     /**
      * The {@link AuthenticatedHttpClient} used to communicate over the REST
@@ -51,6 +70,12 @@ public class CloudPoolClient implements CloudPool {
     private final String cloudPoolHost;
     /** The port on which the {@link CloudPool} server is listening. */
     private final int cloudPoolPort;
+    /**
+     * The longest time (in milliseconds) that a terminate, detach or attach
+     * call follows a pool mutation that the cloud pool is still carrying out,
+     * before failing with a {@link CloudPoolException}.
+     */
+    private final long poolMutationWaitMillis;
 
     /**
      * Constructs a {@link CloudPoolClient} for a given {@link CloudPool}
@@ -66,9 +91,34 @@ public class CloudPoolClient implements CloudPool {
      *            The port on which the {@link CloudPool} server is listening.
      */
     public CloudPoolClient(AuthenticatedHttpClient httpClient, String cloudPoolHost, int cloudPoolPort) {
+        this(httpClient, cloudPoolHost, cloudPoolPort, DEFAULT_POOL_MUTATION_WAIT_MILLIS);
+    }
+
+    /**
+     * Constructs a {@link CloudPoolClient} for a given {@link CloudPool}
+     * endpoint, using a given {@link AuthenticatedHttpClient} for
+     * communication.
+     *
+     * @param httpClient
+     *            The {@link AuthenticatedHttpClient} used to communicate over
+     *            the REST API.
+     * @param cloudPoolHost
+     *            Host/IP address of the {@link CloudPool}.
+     * @param cloudPoolPort
+     *            The port on which the {@link CloudPool} server is listening.
+     * @param poolMutationWaitMillis
+     *            The longest time (in milliseconds) that a terminate, detach
+     *            or attach call follows a pool mutation that the cloud pool is
+     *            still carrying out, before failing with a
+     *            {@link CloudPoolException}.
+     */
+    public CloudPoolClient(AuthenticatedHttpClient httpClient, String cloudPoolHost, int cloudPoolPort,
+            long poolMutationWaitMillis) {
+        checkArgument(poolMutationWaitMillis >= 0, "poolMutationWaitMillis cannot be negative");
         this.httpClient = httpClient;
         this.cloudPoolHost = cloudPoolHost;
         this.cloudPoolPort = cloudPoolPort;
+        this.poolMutationWaitMillis = poolMutationWaitMillis;
     }
 
     @Override
@@ -151,7 +201,16 @@ public class CloudPoolClient implements CloudPool {
 
     @Override
     public MachinePool getMachinePool() throws CloudPoolException, NotStartedException {
-        String url = fullUrl("/pool");
+        return getMachinePool(fullUrl("/pool"));
+    }
+
+    @Override
+    public MachinePool getMachinePool(long maxStalenessMillis) throws CloudPoolException, NotStartedException {
+        checkArgument(maxStalenessMillis >= 0, "maxStalenessMillis cannot be negative");
+        return getMachinePool(fullUrl("/pool?maxStaleness=" + maxStalenessMillis));
+    }
+
+    private MachinePool getMachinePool(String url) throws CloudPoolException {
         try {
             HttpGet request = new HttpGet(url);
             HttpRequestResponse response = this.httpClient.execute(request);
@@ -202,13 +261,14 @@ public class CloudPoolClient implements CloudPool {
     public void terminateMachine(String machineId, boolean decrementDesiredSize)
             throws NotFoundException, CloudPoolException, NotStartedException {
         String url = fullUrl("/pool/terminate");
+        HttpRequestResponse response;
         try {
             HttpPost request = new HttpPost(url);
             request.setEntity(new StringEntity(
                     JsonUtils.toPrettyString(
                             JsonUtils.toJson(new TerminateMachineRequest(machineId, decrementDesiredSize))),
                     ContentType.APPLICATION_JSON));
-            this.httpClient.execute(request);
+            response = this.httpClient.execute(request);
         } catch (HttpResponseException e) {
             if (e.getStatusCode() == Status.NOT_FOUND.getStatusCode()) {
                 throw new NotFoundException(format("failed to terminate machine %s in cloud pool %s: bad request: %s",
@@ -220,6 +280,26 @@ public class CloudPoolClient implements CloudPool {
             throw new CloudPoolException(
                     format("failed to terminate machine %s in cloud pool %s: %s", machineId, url, e.getMessage()), e);
         }
+        awaitPoolMutation(response, format("terminate machine %s in cloud pool %s", machineId, url));
+    }
+
+    @Override
+    public BatchOperationResult terminateMachines(List<String> machineIds, boolean decrementDesiredSize)
+            throws CloudPoolException, NotStartedException {
+        String url = fullUrl("/pool/terminate/batch");
+        try {
+            HttpPost request = new HttpPost(url);
+            request.setEntity(new StringEntity(
+                    JsonUtils.toPrettyString(
+                            JsonUtils.toJson(new TerminateMachinesRequest(machineIds, decrementDesiredSize))),
+                    ContentType.APPLICATION_JSON));
+            HttpRequestResponse response = this.httpClient.execute(request);
+            return responseToObject(response, BatchOperationResult.class);
+        } catch (Exception e) {
+            throw new CloudPoolException(
+                    format("failed to terminate machines %s in cloud pool %s: %s", machineIds, url, e.getMessage()),
+                    e);
+        }
     }
 
     @Override
@@ -281,12 +361,13 @@ public class CloudPoolClient implements CloudPool {
     @Override
     public void attachMachine(String machineId) throws NotFoundException, CloudPoolException, NotStartedException {
         String url = fullUrl("/pool/attach");
+        HttpRequestResponse response;
         try {
             HttpPost request = new HttpPost(url);
             request.setEntity(
                     new StringEntity(JsonUtils.toPrettyString(JsonUtils.toJson(new AttachMachineRequest(machineId))),
                             ContentType.APPLICATION_JSON));
-            this.httpClient.execute(request);
+            response = this.httpClient.execute(request);
         } catch (HttpResponseException e) {
             if (e.getStatusCode() == Status.NOT_FOUND.getStatusCode()) {
                 throw new NotFoundException(format("failed to attach machine %s to cloud pool %s: " + "bad request: %s",
@@ -298,19 +379,21 @@ public class CloudPoolClient implements CloudPool {
             throw new CloudPoolException(
                     format("failed to attach " + "machine %s in cloud pool %s: %s", machineId, url, e.getMessage()), e);
         }
+        awaitPoolMutation(response, format("attach machine %s to cloud pool %s", machineId, url));
     }
 
     @Override
     public void detachMachine(String machineId, boolean decrementDesiredSize)
             throws NotFoundException, CloudPoolException, NotStartedException {
         String url = fullUrl("/pool/detach");
+        HttpRequestResponse response;
         try {
             HttpPost request = new HttpPost(url);
             request.setEntity(new StringEntity(
                     JsonUtils.toPrettyString(
                             JsonUtils.toJson(new DetachMachineRequest(machineId, decrementDesiredSize))),
                     ContentType.APPLICATION_JSON));
-            this.httpClient.execute(request);
+            response = this.httpClient.execute(request);
         } catch (HttpResponseException e) {
             if (e.getStatusCode() == Status.NOT_FOUND.getStatusCode()) {
                 throw new NotFoundException(
@@ -324,6 +407,83 @@ public class CloudPoolClient implements CloudPool {
             throw new CloudPoolException(
                     format("failed to detach machine %s from cloud pool %s: %s", machineId, url, e.getMessage()), e);
         }
+        awaitPoolMutation(response, format("detach machine %s from cloud pool %s", machineId, url));
+    }
+
+    @Override
+    public BatchOperationResult detachMachines(List<String> machineIds, boolean decrementDesiredSize)
+            throws CloudPoolException, NotStartedException {
+        String url = fullUrl("/pool/detach/batch");
+        try {
+            HttpPost request = new HttpPost(url);
+            request.setEntity(new StringEntity(
+                    JsonUtils.toPrettyString(
+                            JsonUtils.toJson(new DetachMachinesRequest(machineIds, decrementDesiredSize))),
+                    ContentType.APPLICATION_JSON));
+            HttpRequestResponse response = this.httpClient.execute(request);
+            return responseToObject(response, BatchOperationResult.class);
+        } catch (Exception e) {
+            throw new CloudPoolException(
+                    format("failed to detach machines %s from cloud pool %s: %s", machineIds, url, e.getMessage()),
+                    e);
+        }
+    }
+
+    /**
+     * Follows a pool mutation (terminate, detach or attach) that was scheduled
+     * by a request, until it has completed or {@link #poolMutationWaitMillis}
+     * have passed. The cloud pool answers such requests without waiting for
+     * the mutation, with a {@link PoolMutationStatus} that is polled via
+     * {@code GET /pool/mutations/<id>} while pending. A response without a
+     * {@link PoolMutationStatus} (from a cloud pool that carries out the
+     * mutation before answering) means that the mutation succeeded.
+     *
+     * @param response
+     *            The response to the request that scheduled the mutation.
+     * @param operation
+     *            Describes the mutation, for error messages.
+     * @throws NotFoundException
+     *             If the mutation failed since the machine does not exist (or
+     *             is not a pool member).
+     * @throws CloudPoolException
+     *             If the mutation failed, or is still pending after
+     *             {@link #poolMutationWaitMillis}.
+     */
+    private void awaitPoolMutation(HttpRequestResponse response, String operation)
+            throws NotFoundException, CloudPoolException {
+        String body = response.getResponseBody();
+        if (body == null || body.trim().isEmpty()) {
+            return;
+        }
+        PoolMutationStatus status = JsonUtils.toObject(JsonUtils.parseJsonString(body), PoolMutationStatus.class);
+
+        long deadline = System.currentTimeMillis() + this.poolMutationWaitMillis;
+        while (status.getState() == State.PENDING) {
+            String url = fullUrl("/pool/mutations/" + status.getId());
+            if (System.currentTimeMillis() >= deadline) {
+                throw new CloudPoolException(format("failed to %s: still pending after %d ms (outcome available at %s)",
+                        operation, this.poolMutationWaitMillis, url));
+            }
+            try {
+                Thread.sleep(POOL_MUTATION_POLL_INTERVAL_MILLIS);
+                status = responseToObject(this.httpClient.execute(new HttpGet(url)), PoolMutationStatus.class);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CloudPoolException(format("interrupted while waiting to %s (outcome available at %s)",
+                        operation, url), e);
+            } catch (Exception e) {
+                throw new CloudPoolException(
+                        format("failed to get outcome of %s: %s: %s", operation, url, e.getMessage()), e);
+            }
+        }
+
+        if (status.getState() == State.FAILED) {
+            String message = format("failed to %s: %s", operation, status.getError());
+            if (Objects.equals(status.getErrorCode(), Status.NOT_FOUND.getStatusCode())) {
+                throw new NotFoundException(message);
+            }
+            throw new CloudPoolException(message);
+        }
     }
 
     /**
@@ -0,0 +1,46 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, such as the number of calls or errors.
+ * Obtained from a {@link MetricRegistry}.
+ * <p/>
+ * Instances are thread-safe and updates are lock-free.
+ */
+public class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter() {
+    }
+
+    /**
+     * Increments the count by one.
+     */
+    public void inc() {
+        this.count.increment();
+    }
+
+    /**
+     * Increments the count by a given amount.
+     *
+     * @param amount
+     *            A non-negative amount.
+     */
+    public void inc(long amount) {
+        checkArgument(amount >= 0, "counter cannot be decremented");
+        this.count.add(amount);
+    }
+
+    /**
+     * Returns the current count.
+     *
+     * @return
+     */
+    public long get() {
+        return this.count.sum();
+    }
+}
@@ -0,0 +1,118 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts observations (typically latencies, in seconds) in a fixed set of
+ * buckets, and keeps track of their count and sum. Obtained from a
+ * {@link MetricRegistry}.
+ * <p/>
+ * Instances are thread-safe and updates are lock-free.
+ */
+public class Histogram {
+
+    /**
+     * Default bucket upper bounds (in seconds), suitable for cloud API calls
+     * that take anything from milliseconds to several minutes.
+     */
+    public static final double[] DEFAULT_LATENCY_BUCKETS = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10,
+            30, 60, 120, 300 };
+
+    /** Inclusive upper bounds of the buckets, in increasing order. */
+    private final double[] upperBounds;
+    /**
+     * Observation counts per bucket (not cumulative). The last element counts
+     * observations above the highest bound.
+     */
+    private final LongAdder[] bucketCounts;
+    /** The sum of all observations. */
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(double[] upperBounds) {
+        checkArgument(upperBounds.length > 0, "a histogram needs at least one bucket");
+        for (int i = 1; i < upperBounds.length; i++) {
+            checkArgument(upperBounds[i - 1] < upperBounds[i], "histogram buckets must be in increasing order");
+        }
+        this.upperBounds = Arrays.copyOf(upperBounds, upperBounds.length);
+        this.bucketCounts = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < this.bucketCounts.length; i++) {
+            this.bucketCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records an observation.
+     *
+     * @param value
+     */
+    public void observe(double value) {
+        int bucket = Arrays.binarySearch(this.upperBounds, value);
+        if (bucket < 0) {
+            // not an exact bound: use insertion point
+            bucket = -bucket - 1;
+        }
+        this.bucketCounts[bucket].increment();
+        this.sum.add(value);
+    }
+
+    /**
+     * Records a duration, given in nanoseconds, as an observation in seconds.
+     *
+     * @param nanos
+     */
+    public void observeNanos(long nanos) {
+        observe((double) nanos / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Returns the bucket upper bounds.
+     *
+     * @return
+     */
+    public double[] getUpperBounds() {
+        return Arrays.copyOf(this.upperBounds, this.upperBounds.length);
+    }
+
+    /**
+     * Returns the cumulative observation count of each bucket, that is, for
+     * every upper bound, the number of observations less than or equal to it.
+     *
+     * @return
+     */
+    public long[] getCumulativeCounts() {
+        long[] counts = new long[this.upperBounds.length];
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += this.bucketCounts[i].sum();
+            counts[i] = cumulative;
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the total number of observations.
+     *
+     * @return
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucketCount : this.bucketCounts) {
+            count += bucketCount.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of all observations.
+     *
+     * @return
+     */
+    public double getSum() {
+        return this.sum.sum();
+    }
+}
@@ -0,0 +1,335 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.CloudPool;
+
+/**
+ * A registry of named {@link Counter}s, {@link Histogram}s and gauges that
+ * describe the operation of a {@link CloudPool}.
+ * <p/>
+ * A metric is identified by its name and a set of labels, which are given as
+ * alternating label names and values. For example:
+ *
+ * <pre>
+ * registry.counter("cloudpool_driver_errors_total", "Failed driver calls.", "operation", "startMachines")
+ *         .inc();
+ * </pre>
+ *
+ * Requesting a metric that has already been registered returns the existing
+ * one. All metrics with the same name must be of the same type and use the
+ * same label names.
+ * <p/>
+ * The current values can be read as {@link MetricSample}s or rendered in the
+ * <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">
+ * Prometheus text exposition format</a>.
+ * <p/>
+ * Instances are thread-safe.
+ */
+public class MetricRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(MetricRegistry.class);
+
+    /** Content type of {@link #toPrometheusText()} output. */
+    public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final Pattern METRIC_NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final Pattern LABEL_NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    /** The type of a metric family. */
+    private static enum Type {
+        COUNTER, GAUGE, HISTOGRAM;
+
+        String id() {
+            return name().toLowerCase();
+        }
+    }
+
+    /** Metric families by name. */
+    private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the {@link Counter} with a given name and labels, registering it
+     * if needed.
+     *
+     * @param name
+     *            The metric name. By convention, counter names end with
+     *            {@code _total}.
+     * @param help
+     *            A description of the metric.
+     * @param labels
+     *            Alternating label names and values.
+     * @return
+     */
+    public Counter counter(String name, String help, String... labels) {
+        Object counter = family(name, help, Type.COUNTER, labels).child(labels, Counter::new);
+        checkArgument(counter instanceof Counter, "counter %s is already registered with a value supplier", name);
+        return (Counter) counter;
+    }
+
+    /**
+     * Registers a counter with a given name and labels, whose value is read
+     * from a {@link LongSupplier} whenever the registry is sampled. Useful for
+     * exposing a count that is already kept elsewhere. A counter that is
+     * already registered this way has its supplier replaced.
+     * <p/>
+     * The supplier must return a monotonically increasing count, should be
+     * cheap and must not block. A supplier that throws is sampled as
+     * {@link Double#NaN}.
+     *
+     * @param name
+     *            The metric name. By convention, counter names end with
+     *            {@code _total}.
+     * @param help
+     *            A description of the metric.
+     * @param count
+     *            Supplies the current count.
+     * @param labels
+     *            Alternating label names and values.
+     */
+    public void counter(String name, String help, LongSupplier count, String... labels) {
+        requireNonNull(count, "counter value supplier cannot be null");
+        family(name, help, Type.COUNTER, labels).children.put(labelKey(labels), new Child(labels, count));
+    }
+
+    /**
+     * Returns the {@link Histogram} with a given name and labels, registering
+     * it with the {@link Histogram#DEFAULT_LATENCY_BUCKETS} if needed.
+     *
+     * @param name
+     *            The metric name. By convention, latency histogram names end
+     *            with {@code _seconds}.
+     * @param help
+     *            A description of the metric.
+     * @param labels
+     *            Alternating label names and values.
+     * @return
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return histogram(name, help, Histogram.DEFAULT_LATENCY_BUCKETS, labels);
+    }
+
+    /**
+     * Returns the {@link Histogram} with a given name and labels, registering
+     * it with the given buckets if needed.
+     *
+     * @param name
+     *            The metric name.
+     * @param help
+     *            A description of the metric.
+     * @param buckets
+     *            Bucket upper bounds, in increasing order.
+     * @param labels
+     *            Alternating label names and values.
+     * @return
+     */
+    public Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        requireNonNull(buckets, "buckets cannot be null");
+        return (Histogram) family(name, help, Type.HISTOGRAM, labels).child(labels, () -> new Histogram(buckets));
+    }
+
+    /**
+     * Registers a gauge with a given name and labels, whose value is read from
+     * a {@link DoubleSupplier} whenever the registry is sampled. A gauge that
+     * is already registered has its supplier replaced.
+     * <p/>
+     * The supplier should be cheap and must not block. It may return
+     * {@link Double#NaN} when there is no value. A supplier that throws is
+     * sampled as {@link Double#NaN}.
+     *
+     * @param name
+     *            The metric name.
+     * @param help
+     *            A description of the metric.
+     * @param value
+     *            Supplies the gauge value.
+     * @param labels
+     *            Alternating label names and values.
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        requireNonNull(value, "gauge value supplier cannot be null");
+        family(name, help, Type.GAUGE, labels).children.put(labelKey(labels), new Child(labels, value));
+    }
+
+    /**
+     * Returns the current value of every registered metric, ordered by name.
+     *
+     * @return
+     */
+    public List<MetricSample> getSamples() {
+        List<MetricSample> samples = new ArrayList<>();
+        for (Family family : this.families.values()) {
+            for (Child child : family.children.values()) {
+                child.sample(family, samples);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Renders the current value of every registered metric in the Prometheus
+     * text exposition format (version 0.0.4).
+     *
+     * @return
+     */
+    public String toPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        for (Family family : this.families.values()) {
+            List<MetricSample> samples = new ArrayList<>();
+            for (Child child : family.children.values()) {
+                child.sample(family, samples);
+            }
+            text.append("# HELP ").append(family.name).append(' ').append(escapeHelp(family.help)).append('\n');
+            text.append("# TYPE ").append(family.name).append(' ').append(family.type.id()).append('\n');
+            for (MetricSample sample : samples) {
+                text.append(sample.getKey()).append(' ').append(formatValue(sample.getValue())).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private Family family(String name, String help, Type type, String... labels) {
+        checkArgument(name != null && METRIC_NAME.matcher(name).matches(), "illegal metric name: %s", name);
+        checkArgument(labels.length % 2 == 0, "labels must be given as name-value pairs");
+        List<String> labelNames = new ArrayList<>();
+        for (int i = 0; i < labels.length; i += 2) {
+            checkArgument(labels[i] != null && LABEL_NAME.matcher(labels[i]).matches(), "illegal label name: %s",
+                    labels[i]);
+            checkArgument(labels[i + 1] != null, "label %s has no value", labels[i]);
+            labelNames.add(labels[i]);
+        }
+
+        Family family = this.families.computeIfAbsent(name,
+                key -> new Family(name, help != null ? help : "", type, labelNames));
+        checkArgument(family.type == type, "metric %s is already registered as a %s", name, family.type.id());
+        checkArgument(family.labelNames.equals(labelNames), "metric %s is already registered with labels %s", name,
+                family.labelNames);
+        return family;
+    }
+
+    private static String labelKey(String... labels) {
+        return String.join("\u0000", labels);
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /** All metrics registered under a given name. */
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final List<String> labelNames;
+        /** The metrics of this family, keyed by label values. */
+        private final ConcurrentMap<String, Child> children = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, Type type, List<String> labelNames) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.labelNames = labelNames;
+        }
+
+        Object child(String[] labels, Supplier<Object> factory) {
+            return this.children.computeIfAbsent(labelKey(labels), key -> new Child(labels, factory.get())).metric;
+        }
+    }
+
+    /** A metric with a particular set of label values. */
+    private static class Child {
+        private final Map<String, String> labels = new LinkedHashMap<>();
+        /**
+         * A {@link Counter} or {@link LongSupplier} (counters), a
+         * {@link Histogram} or a {@link DoubleSupplier} (gauges).
+         */
+        private final Object metric;
+
+        Child(String[] labels, Object metric) {
+            for (int i = 0; i < labels.length; i += 2) {
+                this.labels.put(labels[i], labels[i + 1]);
+            }
+            this.metric = metric;
+        }
+
+        void sample(Family family, List<MetricSample> samples) {
+            switch (family.type) {
+            case COUNTER:
+                samples.add(new MetricSample(family.name, this.labels, counterValue(this.metric)));
+                break;
+            case GAUGE:
+                samples.add(new MetricSample(family.name, this.labels, gaugeValue((DoubleSupplier) this.metric)));
+                break;
+            case HISTOGRAM:
+                Histogram histogram = (Histogram) this.metric;
+                double[] bounds = histogram.getUpperBounds();
+                long[] counts = histogram.getCumulativeCounts();
+                long count = histogram.getCount();
+                for (int i = 0; i < bounds.length; i++) {
+                    samples.add(new MetricSample(family.name + "_bucket", bucketLabels(formatValue(bounds[i])),
+                            counts[i]));
+                }
+                samples.add(new MetricSample(family.name + "_bucket", bucketLabels("+Inf"), count));
+                samples.add(new MetricSample(family.name + "_sum", this.labels, histogram.getSum()));
+                samples.add(new MetricSample(family.name + "_count", this.labels, count));
+                break;
+            default:
+                throw new IllegalStateException("unrecognized metric type " + family.type);
+            }
+        }
+
+        private Map<String, String> bucketLabels(String upperBound) {
+            Map<String, String> labels = new LinkedHashMap<>(this.labels);
+            labels.put("le", upperBound);
+            return labels;
+        }
+
+        private static double counterValue(Object counter) {
+            if (counter instanceof Counter) {
+                return ((Counter) counter).get();
+            }
+            try {
+                return ((LongSupplier) counter).getAsLong();
+            } catch (Exception e) {
+                LOG.debug("failed to sample counter: {}", e.getMessage());
+                return Double.NaN;
+            }
+        }
+
+        private static double gaugeValue(DoubleSupplier supplier) {
+            try {
+                return supplier.getAsDouble();
+            } catch (Exception e) {
+                LOG.debug("failed to sample gauge: {}", e.getMessage());
+                return Double.NaN;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A single value read from a {@link MetricRegistry}: a metric name, a set of
+ * labels and a value. A {@link Histogram} gives rise to several samples
+ * (buckets, sum and count).
+ */
+public class MetricSample {
+    /** The sample name. */
+    private final String name;
+    /** The sample labels, in declaration order. */
+    private final Map<String, String> labels;
+    /** The sample value. */
+    private final double value;
+
+    /**
+     * Creates a {@link MetricSample}.
+     *
+     * @param name
+     *            The sample name.
+     * @param labels
+     *            The sample labels, in declaration order.
+     * @param value
+     *            The sample value.
+     */
+    public MetricSample(String name, Map<String, String> labels, double value) {
+        this.name = name;
+        this.labels = Collections.unmodifiableMap(new LinkedHashMap<>(labels));
+        this.value = value;
+    }
+
+    /**
+     * The sample name.
+     *
+     * @return
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * The sample labels, in declaration order.
+     *
+     * @return
+     */
+    public Map<String, String> getLabels() {
+        return this.labels;
+    }
+
+    /**
+     * The sample value.
+     *
+     * @return
+     */
+    public double getValue() {
+        return this.value;
+    }
+
+    /**
+     * Returns a key that uniquely identifies this sample within a
+     * {@link MetricRegistry}, on the form {@code name{label="value",...}}.
+     *
+     * @return
+     */
+    public String getKey() {
+        if (this.labels.isEmpty()) {
+            return this.name;
+        }
+        StringBuilder key = new StringBuilder(this.name).append('{');
+        boolean first = true;
+        for (Map.Entry<String, String> label : this.labels.entrySet()) {
+            if (!first) {
+                key.append(',');
+            }
+            key.append(label.getKey()).append("=\"").append(escapeLabelValue(label.getValue())).append('"');
+            first = false;
+        }
+        return key.append('}').toString();
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.name, this.labels, this.value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof MetricSample) {
+            MetricSample that = (MetricSample) obj;
+            return Objects.equals(this.name, that.name) //
+                    && Objects.equals(this.labels, that.labels) //
+                    && Objects.equals(this.value, that.value);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getKey() + " " + this.value;
+    }
+}
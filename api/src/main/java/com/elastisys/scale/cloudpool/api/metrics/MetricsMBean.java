@@ -0,0 +1,116 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exposes the contents of a {@link MetricRegistry} over JMX, as a read-only
+ * MBean with one {@code double} attribute per {@link MetricSample} (named by
+ * {@link MetricSample#getKey()}).
+ */
+public class MetricsMBean implements DynamicMBean {
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsMBean.class);
+
+    /** The {@link ObjectName} under which cloud pool metrics are registered. */
+    public static final String OBJECT_NAME = "com.elastisys.scale.cloudpool:type=Metrics";
+
+    /** The exposed {@link MetricRegistry}. */
+    private final MetricRegistry registry;
+
+    /**
+     * Creates a {@link MetricsMBean} for a given {@link MetricRegistry}.
+     *
+     * @param registry
+     */
+    public MetricsMBean(MetricRegistry registry) {
+        this.registry = requireNonNull(registry, "registry cannot be null");
+    }
+
+    /**
+     * Registers a {@link MetricsMBean} for a given {@link MetricRegistry} with
+     * the platform {@link MBeanServer} under {@link #OBJECT_NAME}, replacing
+     * any previously registered one. Failures are logged but otherwise
+     * ignored, since metrics are not essential to cloud pool operation.
+     *
+     * @param registry
+     */
+    public static void register(MetricRegistry registry) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new MetricsMBean(registry), name);
+        } catch (JMException e) {
+            LOG.warn("failed to register metrics MBean: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        for (MetricSample sample : this.registry.getSamples()) {
+            if (sample.getKey().equals(attribute)) {
+                return sample.getValue();
+            }
+        }
+        throw new AttributeNotFoundException("no such metric: " + attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        List<MetricSample> samples = this.registry.getSamples();
+        for (String attribute : attributes) {
+            for (MetricSample sample : samples) {
+                if (sample.getKey().equals(attribute)) {
+                    list.add(new Attribute(attribute, sample.getValue()));
+                    break;
+                }
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("metrics are read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "metrics MBean has no operations");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MetricSample> samples = this.registry.getSamples();
+        MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[samples.size()];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = new MBeanAttributeInfo(samples.get(i).getKey(), "double", samples.get(i).getName(), true,
+                    false, false);
+        }
+        return new MBeanInfo(getClass().getName(), "Cloud pool metrics", attributes, null, null, null);
+    }
+}
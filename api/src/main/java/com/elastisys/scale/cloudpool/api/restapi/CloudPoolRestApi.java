@@ -1,20 +1,31 @@
 package com.elastisys.scale.cloudpool.api.restapi;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import com.elastisys.scale.cloudpool.api.CloudPool;
+import com.elastisys.scale.cloudpool.api.changes.PoolChangeFeed;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
 import com.elastisys.scale.cloudpool.api.restapi.types.AttachMachineRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachineRequest;
+import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachinesRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetDesiredSizeRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetMembershipStatusRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetServiceStateRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.TerminateMachineRequest;
+import com.elastisys.scale.cloudpool.api.restapi.types.TerminateMachinesRequest;
+import com.elastisys.scale.cloudpool.api.types.BatchOperationResult;
+import com.elastisys.scale.cloudpool.api.types.PoolChanges;
+import com.elastisys.scale.cloudpool.api.types.PoolMutationStatus;
+import com.elastisys.scale.cloudpool.api.types.ProvisioningLatencies;
 import com.google.gson.JsonObject;
 
 /**
@@ -121,13 +132,77 @@ public interface CloudPoolRestApi {
      * "http://cloudpoolrestapi.readthedocs.io/en/latest/api.html">official API
      * documentation</a>.
      *
+     * @param maxStalenessMillis
+     *            The maximum age, in milliseconds, of the returned machine pool
+     *            observation (see {@link CloudPool#getMachinePool(long)}). May
+     *            be <code>null</code>, in which case the cloud pool decides.
      * @return A response message as per the
      *         <a href="http://cloudpoolrestapi.readthedocs.org/">cloud pool
      *         REST API</a>.
      */
     @GET
     @Path("/pool")
-    Response getPool();
+    Response getPool(@QueryParam("maxStaleness") Long maxStalenessMillis);
+
+    /**
+     * Retrieves the changes to the machine pool that were observed after a
+     * given cursor, as a {@link PoolChanges} batch. This is a long-polling
+     * operation: if no changes have been observed after the cursor, the
+     * request is held open until a change is observed or the requested wait
+     * time expires.
+     * <p/>
+     * A client typically starts by fetching the pool via {@link #getPool(Long)}
+     * and a cursor from a non-blocking call with {@code since=0}. It then
+     * repeatedly passes the cursor returned in the previous response. If the
+     * response indicates that a resync is required, the client should refetch
+     * the pool.
+     * <p/>
+     * Only available for {@link CloudPool}s that publish changes on a
+     * {@link PoolChangeFeed}. Others respond with {@code 404}.
+     *
+     * @param since
+     *            The cursor (sequence number) after which to return changes.
+     * @param waitSeconds
+     *            The maximum number of seconds to wait for changes, if there
+     *            are none yet. Capped by the server. {@code 0} returns
+     *            immediately.
+     * @return A response message carrying a {@link PoolChanges} entity.
+     */
+    @GET
+    @Path("/pool/changes")
+    Response getPoolChanges(@QueryParam("since") @DefaultValue("0") long since,
+            @QueryParam("wait") @DefaultValue("0") int waitSeconds);
+
+    /**
+     * Retrieves a summary of the observed durations of machine state
+     * transitions (such as from {@code REQUESTED} to {@code RUNNING}), as
+     * percentiles per transition, cloud provider, region and machine size.
+     * <p/>
+     * Only available for {@link CloudPool}s that track provisioning latencies.
+     * Others respond with {@code 404}.
+     *
+     * @return A response message carrying a {@link ProvisioningLatencies}
+     *         entity.
+     */
+    @GET
+    @Path("/pool/latencies")
+    Response getProvisioningLatencies();
+
+    /**
+     * Retrieves the operational metrics of the cloud pool (such as cloud API
+     * call latencies, error counts and pool sizes) in the
+     * <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">
+     * Prometheus text exposition format</a>.
+     * <p/>
+     * Only available for {@link CloudPool}s that record metrics in a
+     * {@link MetricRegistry}. Others respond with {@code 404}.
+     *
+     * @return A response message carrying the metrics as plain text.
+     */
+    @GET
+    @Path("/metrics")
+    @Produces(MetricRegistry.PROMETHEUS_CONTENT_TYPE)
+    Response getMetrics();
 
     /**
      * Sets the desired number of machines in the machine pool. This method is
@@ -170,7 +245,15 @@ public interface CloudPoolRestApi {
      * <p/>
      * <b>Note</b>: a machine that is protected from removal by a membership
      * status with {@code evictable: false} can not be terminated.
-     *
+     * <p/>
+     * The termination is carried out asynchronously and the request does not
+     * wait for it. A {@code 202 (Accepted)} response means that the machine is
+     * an evictable pool member and that its termination has been scheduled.
+     * The response carries a pending {@link PoolMutationStatus} and a
+     * {@code Location} header, which can be polled via
+     * {@link #getPoolMutation(String)} to learn the outcome. A termination
+     * that completes before the request is answered is reported with
+     * {@code 200 (OK)} or an error response.
      * <p/>
      * More details can be found in the <a href=
      * "http://cloudpoolrestapi.readthedocs.io/en/latest/api.html">official API
@@ -186,6 +269,25 @@ public interface CloudPoolRestApi {
     @Path("/pool/terminate")
     Response terminateMachine(TerminateMachineRequest request);
 
+    /**
+     * Terminates a batch of machine pool members. The caller can control if
+     * replacement machines are to be provisioned.
+     * <p/>
+     * On success, the response carries a {@link BatchOperationResult} with the
+     * outcome for each machine. Machines that are not pool members or that
+     * cannot be terminated are reported as failed, without failing the rest
+     * of the batch. The request waits a bounded time for the batch: machines
+     * whose termination has been scheduled but has not yet completed are
+     * reported as pending.
+     *
+     * @param request
+     *            A {@link TerminateMachinesRequest}.
+     * @return A response message carrying a {@link BatchOperationResult}.
+     */
+    @POST
+    @Path("/pool/terminate/batch")
+    Response terminateMachines(TerminateMachinesRequest request);
+
     /**
      * Removes a member from the pool without terminating it. The machine keeps
      * running but is no longer considered a pool member and, therefore, needs
@@ -195,6 +297,12 @@ public interface CloudPoolRestApi {
      * <b>Note</b>: a machine that is protected from removal by a membership
      * status with {@code evictable: false} can not be detached.
      * <p/>
+     * The detach is carried out asynchronously and the request does not wait
+     * for it. A {@code 202 (Accepted)} response means that the machine is an
+     * evictable pool member and that its detach has been scheduled. The
+     * outcome can be followed just like for
+     * {@link #terminateMachine(TerminateMachineRequest)}.
+     * <p/>
      * More details can be found in the <a href=
      * "http://cloudpoolrestapi.readthedocs.io/en/latest/api.html">official API
      * documentation</a>.
@@ -209,11 +317,35 @@ public interface CloudPoolRestApi {
     @Path("/pool/detach")
     Response detachMachine(DetachMachineRequest request);
 
+    /**
+     * Detaches a batch of machine pool members. The caller can control if
+     * replacement machines are to be provisioned.
+     * <p/>
+     * On success, the response carries a {@link BatchOperationResult} with the
+     * outcome for each machine. Just like for
+     * {@link #terminateMachines(TerminateMachinesRequest)}, machines whose
+     * detach has not yet completed are reported as pending.
+     *
+     * @param request
+     *            A {@link DetachMachinesRequest}.
+     * @return A response message carrying a {@link BatchOperationResult}.
+     */
+    @POST
+    @Path("/pool/detach/batch")
+    Response detachMachines(DetachMachinesRequest request);
+
     /**
      * Attaches an already running machine instance to the pool, growing the
      * pool with a new member. This operation implies that the desired size of
      * the pool is incremented by one.
      * <p/>
+     * The attach is carried out asynchronously and the request does not wait
+     * for it. A {@code 202 (Accepted)} response means that the attach has been
+     * scheduled, but not that the machine exists: a machine that turns out
+     * not to exist is reported as a failed {@link PoolMutationStatus} with
+     * error code {@code 404}. The outcome can be followed just like for
+     * {@link #terminateMachine(TerminateMachineRequest)}.
+     * <p/>
      * More details can be found in the <a href=
      * "http://cloudpoolrestapi.readthedocs.io/en/latest/api.html">official API
      * documentation</a>.
@@ -228,6 +360,24 @@ public interface CloudPoolRestApi {
     @Path("/pool/attach")
     Response attachMachine(AttachMachineRequest request);
 
+    /**
+     * Retrieves the progress of a pool mutation (a terminate, detach or
+     * attach) that was still pending when its request was answered with
+     * {@code 202 (Accepted)}. A failed mutation carries the error code that
+     * its request would have been answered with.
+     * <p/>
+     * Completed mutations are only remembered for a limited time. Unknown or
+     * forgotten mutations are answered with {@code 404}.
+     *
+     * @param id
+     *            The mutation identifier, as given in the
+     *            {@link PoolMutationStatus} of the {@code 202} response.
+     * @return A response message carrying a {@link PoolMutationStatus}.
+     */
+    @GET
+    @Path("/pool/mutations/{id}")
+    Response getPoolMutation(@PathParam("id") String id);
+
     /**
      * Sets the service state for a given machine pool member. Setting the
      * service state does not have any functional implications on the pool
@@ -4,12 +4,18 @@ import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgume
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.Path;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
@@ -20,16 +26,25 @@ import com.elastisys.scale.cloudpool.api.CloudPool;
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.changes.PoolChangeFeed;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
 import com.elastisys.scale.cloudpool.api.restapi.CloudPoolRestApi;
 import com.elastisys.scale.cloudpool.api.restapi.types.AttachMachineRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachineRequest;
+import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachinesRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetDesiredSizeRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetMembershipStatusRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetServiceStateRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.TerminateMachineRequest;
+import com.elastisys.scale.cloudpool.api.restapi.types.TerminateMachinesRequest;
+import com.elastisys.scale.cloudpool.api.types.BatchOperationResult;
 import com.elastisys.scale.cloudpool.api.types.CloudPoolStatus;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.PoolChanges;
+import com.elastisys.scale.cloudpool.api.types.PoolMutationStatus;
+import com.elastisys.scale.cloudpool.api.types.PoolMutationStatus.State;
 import com.elastisys.scale.cloudpool.api.types.PoolSizeSummary;
+import com.elastisys.scale.cloudpool.api.types.ProvisioningLatencies;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.json.types.ErrorType;
 import com.google.gson.JsonObject;
@@ -47,6 +62,11 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
      * {@link CloudPool} configuration is stored.
      */
     public static final String DEFAULT_CONFIG_FILE_NAME = "config.json";
+    /**
+     * The longest time (in seconds) that a {@code GET /pool/changes} request
+     * is held open waiting for changes.
+     */
+    public static final int MAX_POOL_CHANGES_WAIT_SECONDS = 60;
 
     /** The {@link CloudPool} back-end to which all work is delegated. */
     private final CloudPool cloudPool;
@@ -63,6 +83,12 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
      */
     private final String configFileName;
 
+    /**
+     * Pool mutations that were still pending when their requests were
+     * answered, which clients can follow via {@link #getPoolMutation(String)}.
+     */
+    private final PoolMutationTracker poolMutations = new PoolMutationTracker();
+
     /**
      * Creates a {@link CloudPoolRestApiImpl} that will store set
      * {@link CloudPool} configurations under a given storage directory with the
@@ -223,11 +249,16 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
     }
 
     @Override
-    public Response getPool() {
+    public Response getPool(Long maxStalenessMillis) {
         requireStartedCloudPool();
 
+        if (maxStalenessMillis != null && maxStalenessMillis < 0) {
+            String message = "illegal input: maxStaleness must be non-negative";
+            return Response.status(Status.BAD_REQUEST).entity(new ErrorType(message)).build();
+        }
         try {
-            MachinePool machinePool = this.cloudPool.getMachinePool();
+            MachinePool machinePool = maxStalenessMillis != null ? this.cloudPool.getMachinePool(maxStalenessMillis)
+                    : this.cloudPool.getMachinePool();
             return Response.ok(toJson(machinePool)).build();
         } catch (CloudPoolException e) {
             return cloudErrorResponse("failure to process GET /pool", e);
@@ -236,6 +267,66 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
         }
     }
 
+    @Override
+    public Response getPoolChanges(long since, int waitSeconds) {
+        requireStartedCloudPool();
+
+        if (since < 0 || waitSeconds < 0) {
+            String message = "illegal input: since and wait must be non-negative";
+            return Response.status(Status.BAD_REQUEST).entity(new ErrorType(message)).build();
+        }
+        Optional<PoolChangeFeed> changeFeed = this.cloudPool.getChangeFeed();
+        if (!changeFeed.isPresent()) {
+            ErrorType entity = new ErrorType("cloud pool does not support change tracking");
+            return Response.status(Status.NOT_FOUND).entity(entity).build();
+        }
+
+        try {
+            int wait = Math.min(waitSeconds, MAX_POOL_CHANGES_WAIT_SECONDS);
+            PoolChanges changes = changeFeed.get().await(since, wait, TimeUnit.SECONDS);
+            return Response.ok(toJson(changes)).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return internalErrorResponse("interrupted on GET /pool/changes", e);
+        } catch (Exception e) {
+            return internalErrorResponse("internal error on GET /pool/changes", e);
+        }
+    }
+
+    @Override
+    public Response getProvisioningLatencies() {
+        requireStartedCloudPool();
+
+        Optional<ProvisioningLatencies> latencies = this.cloudPool.getProvisioningLatencies();
+        if (!latencies.isPresent()) {
+            ErrorType entity = new ErrorType("cloud pool does not track provisioning latencies");
+            return Response.status(Status.NOT_FOUND).entity(entity).build();
+        }
+        try {
+            return Response.ok(toJson(latencies.get())).build();
+        } catch (Exception e) {
+            return internalErrorResponse("internal error on GET /pool/latencies", e);
+        }
+    }
+
+    @Override
+    public Response getMetrics() {
+        Optional<MetricRegistry> metrics = this.cloudPool.getMetrics();
+        if (!metrics.isPresent()) {
+            ErrorType entity = new ErrorType("cloud pool does not record metrics");
+            return Response.status(Status.NOT_FOUND).type(MediaType.APPLICATION_JSON).entity(entity).build();
+        }
+
+        try {
+            return Response.ok(metrics.get().toPrometheusText(), MetricRegistry.PROMETHEUS_CONTENT_TYPE).build();
+        } catch (Exception e) {
+            String message = String.format("internal error on GET /metrics: %s", e.getMessage());
+            LOG.error(message, e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).type(MediaType.APPLICATION_JSON)
+                    .entity(new ErrorType(message, e)).build();
+        }
+    }
+
     @Override
     public Response setDesiredSize(SetDesiredSizeRequest request) {
         requireStartedCloudPool();
@@ -272,8 +363,8 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
         requireStartedCloudPool();
 
         try {
-            this.cloudPool.terminateMachine(request.getMachineId(), request.isDecrementDesiredSize());
-            return Response.ok().build();
+            return poolMutationResponse(
+                    this.cloudPool.terminateMachineAsync(request.getMachineId(), request.isDecrementDesiredSize()));
         } catch (NotFoundException e) {
             String message = "unrecognized machine: " + e.getMessage();
             return Response.status(Status.NOT_FOUND).entity(new ErrorType(message, e)).build();
@@ -284,13 +375,32 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
         }
     }
 
+    @Override
+    public Response terminateMachines(TerminateMachinesRequest request) {
+        requireStartedCloudPool();
+
+        if (request.getMachineIds() == null || request.getMachineIds().isEmpty()) {
+            String message = "no machineIds given";
+            return Response.status(Status.BAD_REQUEST).entity(new ErrorType(message)).build();
+        }
+        try {
+            BatchOperationResult result = this.cloudPool.terminateMachines(request.getMachineIds(),
+                    request.isDecrementDesiredSize());
+            return Response.ok(toJson(result)).build();
+        } catch (CloudPoolException e) {
+            return cloudErrorResponse("failure to process POST /pool/terminate/batch", e);
+        } catch (Exception e) {
+            return internalErrorResponse("internal error on POST /pool/terminate/batch", e);
+        }
+    }
+
     @Override
     public Response detachMachine(DetachMachineRequest request) {
         requireStartedCloudPool();
 
         try {
-            this.cloudPool.detachMachine(request.getMachineId(), request.isDecrementDesiredSize());
-            return Response.ok().build();
+            return poolMutationResponse(
+                    this.cloudPool.detachMachineAsync(request.getMachineId(), request.isDecrementDesiredSize()));
         } catch (NotFoundException e) {
             String message = "unrecognized machine: " + e.getMessage();
             return Response.status(Status.NOT_FOUND).entity(new ErrorType(message, e)).build();
@@ -301,13 +411,31 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
         }
     }
 
+    @Override
+    public Response detachMachines(DetachMachinesRequest request) {
+        requireStartedCloudPool();
+
+        if (request.getMachineIds() == null || request.getMachineIds().isEmpty()) {
+            String message = "no machineIds given";
+            return Response.status(Status.BAD_REQUEST).entity(new ErrorType(message)).build();
+        }
+        try {
+            BatchOperationResult result = this.cloudPool.detachMachines(request.getMachineIds(),
+                    request.isDecrementDesiredSize());
+            return Response.ok(toJson(result)).build();
+        } catch (CloudPoolException e) {
+            return cloudErrorResponse("failure to process POST /pool/detach/batch", e);
+        } catch (Exception e) {
+            return internalErrorResponse("internal error on POST /pool/detach/batch", e);
+        }
+    }
+
     @Override
     public Response attachMachine(AttachMachineRequest request) {
         requireStartedCloudPool();
 
         try {
-            this.cloudPool.attachMachine(request.getMachineId());
-            return Response.ok().build();
+            return poolMutationResponse(this.cloudPool.attachMachineAsync(request.getMachineId()));
         } catch (NotFoundException e) {
             String message = "unrecognized machine: " + e.getMessage();
             return Response.status(Status.NOT_FOUND).entity(new ErrorType(message, e)).build();
@@ -352,6 +480,90 @@ public class CloudPoolRestApiImpl implements CloudPoolRestApi {
         }
     }
 
+    @Override
+    public Response getPoolMutation(String id) {
+        Optional<Future<?>> mutation = this.poolMutations.get(id);
+        if (!mutation.isPresent()) {
+            String message = "unrecognized pool mutation: " + id;
+            return Response.status(Status.NOT_FOUND).entity(new ErrorType(message)).build();
+        }
+
+        try {
+            return Response.ok(toJson(mutationStatus(id, mutation.get()))).build();
+        } catch (Exception e) {
+            return internalErrorResponse("internal error on GET /pool/mutations/" + id, e);
+        }
+    }
+
+    /**
+     * Responds to a request that has scheduled a pool mutation. The request
+     * thread does not wait for the mutation: unless it has already completed
+     * (in which case the outcome is reported right away), the mutation is
+     * tracked and {@code 202 (Accepted)} is returned, with a
+     * {@link PoolMutationStatus} and a {@code Location} under which the
+     * mutation can be followed. A mutation that has already failed has its
+     * cause rethrown, so that it can be turned into an error response.
+     *
+     * @param mutation
+     * @return
+     * @throws Exception
+     */
+    private Response poolMutationResponse(Future<?> mutation) throws Exception {
+        if (mutation.isDone()) {
+            try {
+                mutation.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+            return Response.ok(toJson(new PoolMutationStatus(null, State.SUCCEEDED))).build();
+        }
+
+        String id = this.poolMutations.track(mutation);
+        LOG.debug("pool mutation {} pending", id);
+        return Response.status(Status.ACCEPTED).location(URI.create("pool/mutations/" + id))
+                .entity(toJson(new PoolMutationStatus(id, State.PENDING))).build();
+    }
+
+    /**
+     * Reports the progress of a tracked pool mutation. A failed mutation is
+     * given the error code that the request that scheduled it would have been
+     * answered with, had it failed before the request was answered.
+     *
+     * @param id
+     * @param mutation
+     * @return
+     */
+    private PoolMutationStatus mutationStatus(String id, Future<?> mutation) {
+        if (!mutation.isDone()) {
+            return new PoolMutationStatus(id, State.PENDING);
+        }
+        try {
+            mutation.get();
+            return new PoolMutationStatus(id, State.SUCCEEDED);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            Status errorCode = Status.INTERNAL_SERVER_ERROR;
+            if (cause instanceof NotFoundException) {
+                errorCode = Status.NOT_FOUND;
+            } else if (cause instanceof CloudPoolException) {
+                errorCode = Status.BAD_GATEWAY;
+            }
+            String error = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+            return new PoolMutationStatus(id, State.FAILED, errorCode.getStatusCode(), error);
+        } catch (CancellationException e) {
+            return new PoolMutationStatus(id, State.FAILED, Status.INTERNAL_SERVER_ERROR.getStatusCode(),
+                    "pool mutation was cancelled");
+        } catch (InterruptedException e) {
+            // cannot happen: the mutation has completed
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while getting outcome of completed pool mutation", e);
+        }
+    }
+
     /**
      * Turns an arbitrary {@link Object} to JSON.
      *
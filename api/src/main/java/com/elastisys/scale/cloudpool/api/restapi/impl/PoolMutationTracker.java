@@ -0,0 +1,97 @@
+package com.elastisys.scale.cloudpool.api.restapi.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the pool mutations that were still pending when their REST
+ * requests were answered, so that clients can follow them to completion.
+ * <p/>
+ * A mutation is forgotten {@link #RETENTION_MILLIS} after it was tracked, if
+ * it has completed by then. To bound memory, the oldest mutations are
+ * forgotten (whether completed or not) when more than {@link #MAX_TRACKED}
+ * are tracked.
+ * <p/>
+ * This class is thread-safe.
+ */
+class PoolMutationTracker {
+    /** How long (in milliseconds) a completed mutation is remembered. */
+    static final long RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    /** The largest number of mutations that are remembered. */
+    static final int MAX_TRACKED = 10000;
+
+    /** Tracked mutations by identifier, in the order they were tracked. */
+    private final Map<String, TrackedMutation> mutations = new LinkedHashMap<>();
+
+    /**
+     * Starts tracking a pool mutation.
+     *
+     * @param mutation
+     *            The pool mutation.
+     * @return The identifier under which the mutation can be looked up.
+     */
+    public synchronized String track(Future<?> mutation) {
+        long now = System.nanoTime();
+        forgetOld(now);
+
+        String id = UUID.randomUUID().toString();
+        this.mutations.put(id, new TrackedMutation(mutation, now));
+        return id;
+    }
+
+    /**
+     * Looks up a tracked pool mutation.
+     *
+     * @param id
+     *            The identifier returned when the mutation was tracked.
+     * @return The pool mutation, or {@link Optional#empty()} if it is unknown
+     *         or has been forgotten.
+     */
+    public synchronized Optional<Future<?>> get(String id) {
+        TrackedMutation tracked = this.mutations.get(id);
+        if (tracked == null) {
+            return Optional.empty();
+        }
+        return Optional.of(tracked.mutation);
+    }
+
+    /**
+     * Forgets completed mutations that were tracked longer than
+     * {@link #RETENTION_MILLIS} ago, and the oldest mutations in excess of
+     * {@link #MAX_TRACKED}.
+     *
+     * @param now
+     *            The current {@link System#nanoTime()}.
+     */
+    private void forgetOld(long now) {
+        long retentionNanos = TimeUnit.MILLISECONDS.toNanos(RETENTION_MILLIS);
+        Iterator<TrackedMutation> iterator = this.mutations.values().iterator();
+        while (iterator.hasNext()) {
+            TrackedMutation tracked = iterator.next();
+            boolean expired = now - tracked.trackedAt > retentionNanos && tracked.mutation.isDone();
+            if (expired || this.mutations.size() >= MAX_TRACKED) {
+                iterator.remove();
+            } else if (now - tracked.trackedAt <= retentionNanos) {
+                // the remaining mutations were tracked later
+                return;
+            }
+        }
+    }
+
+    /** A tracked pool mutation. */
+    private static class TrackedMutation {
+        private final Future<?> mutation;
+        /** The {@link System#nanoTime()} when the mutation was tracked. */
+        private final long trackedAt;
+
+        public TrackedMutation(Future<?> mutation, long trackedAt) {
+            this.mutation = mutation;
+            this.trackedAt = trackedAt;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.elastisys.scale.cloudpool.api.restapi.types;
+
+import java.util.List;
+import java.util.Objects;
+
+import com.elastisys.scale.cloudpool.api.restapi.CloudPoolRestApi;
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * REST API request type that requests that a batch of machines be terminated.
+ *
+ * @see CloudPoolRestApi#terminateMachines(TerminateMachinesRequest)
+ */
+public class TerminateMachinesRequest {
+
+    /** The identifiers of the machines to be terminated. */
+    private final List<String> machineIds;
+
+    /**
+     * If {@code true}, the desired size of the group should be decremented
+     * (once per machine), if {@code false} it should be left at its current
+     * value.
+     */
+    private final boolean decrementDesiredSize;
+
+    public TerminateMachinesRequest(List<String> machineIds, boolean decrementDesiredSize) {
+        this.machineIds = machineIds;
+        this.decrementDesiredSize = decrementDesiredSize;
+    }
+
+    public List<String> getMachineIds() {
+        return this.machineIds;
+    }
+
+    /**
+     * Indicates if the desired size of the group should be decremented (once
+     * per machine) after the operation.
+     *
+     * @return
+     */
+    public boolean isDecrementDesiredSize() {
+        return this.decrementDesiredSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.machineIds, this.decrementDesiredSize);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof TerminateMachinesRequest) {
+            TerminateMachinesRequest that = (TerminateMachinesRequest) obj;
+            return Objects.equals(this.machineIds, that.machineIds) //
+                    && Objects.equals(this.decrementDesiredSize, that.decrementDesiredSize);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toString(JsonUtils.toJson(this));
+    }
+}
@@ -33,6 +33,13 @@ public class CloudPoolOptions extends BaseServerCliOptions {
             + "writable by the user running the cloud pool.")
     public String storageDir = DEFAULT_STORAGE_DIR;
 
+    @Option(name = "--compact-state", usage = "Store runtime state "
+            + "(such as the cached machine pool) as gzip-compressed, "
+            + "compact JSON rather than as pretty-printed JSON. Saves disk "
+            + "space and I/O for large pools. A previously stored "
+            + "uncompressed machine pool cache is read on startup.")
+    public boolean compactState = false; // default
+
     @Option(name = "--stopped", usage = "Puts the cloud pool in a stopped "
             + "state. By default, the cloud pool is started if an explicit "
             + "configuration is provided (--config) or if the cloud pool can "
@@ -12,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.elastisys.scale.cloudpool.api.CloudPool;
+import com.elastisys.scale.cloudpool.api.metrics.MetricsMBean;
 import com.elastisys.scale.cloudpool.api.restapi.impl.CloudPoolRestApiImpl;
 import com.elastisys.scale.commons.cli.CommandLineParser;
 import com.elastisys.scale.commons.json.JsonUtils;
@@ -113,6 +114,9 @@ public class CloudPoolServer {
         CloudPoolRestApiImpl restApiHandler = new CloudPoolRestApiImpl(cloudPool, options.storageDir);
         application.addHandler(restApiHandler);
 
+        // metrics are served by the REST API and also published over JMX
+        cloudPool.getMetrics().ifPresent(MetricsMBean::register);
+
         if (options.config != null) {
             // use explicitly specified configuration file
             JsonObject config = parseJsonConfig(options.config);
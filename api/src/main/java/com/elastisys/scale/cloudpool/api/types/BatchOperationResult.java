@@ -0,0 +1,134 @@
+package com.elastisys.scale.cloudpool.api.types;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.elastisys.scale.cloudpool.api.CloudPool;
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * Response message of the batch operations of a {@link CloudPool} (such as
+ * {@link CloudPool#terminateMachines(List, boolean)}), which reports the
+ * outcome for each machine in the batch.
+ */
+public class BatchOperationResult {
+
+    /** The machines for which the operation succeeded. */
+    private final List<String> succeeded;
+    /**
+     * The machines for which the operation failed. Keys are machine
+     * identifiers, values are error messages.
+     */
+    private final Map<String, String> failed;
+    /**
+     * The machines for which the operation has been scheduled, but had not
+     * yet completed when the result was reported. May be <code>null</code>
+     * (in a result received from an older cloud pool), which is treated as
+     * empty.
+     */
+    private final List<String> pending;
+
+    /**
+     * Creates a {@link BatchOperationResult} for a completed operation.
+     *
+     * @param succeeded
+     *            The machines for which the operation succeeded.
+     * @param failed
+     *            The machines for which the operation failed. Keys are machine
+     *            identifiers, values are error messages.
+     */
+    public BatchOperationResult(List<String> succeeded, Map<String, String> failed) {
+        this(succeeded, failed, Collections.emptyList());
+    }
+
+    /**
+     * Creates a {@link BatchOperationResult}.
+     *
+     * @param succeeded
+     *            The machines for which the operation succeeded.
+     * @param failed
+     *            The machines for which the operation failed. Keys are machine
+     *            identifiers, values are error messages.
+     * @param pending
+     *            The machines for which the operation has been scheduled, but
+     *            had not yet completed when the result was reported.
+     */
+    public BatchOperationResult(List<String> succeeded, Map<String, String> failed, List<String> pending) {
+        checkArgument(succeeded != null, "succeeded cannot be null");
+        checkArgument(failed != null, "failed cannot be null");
+        checkArgument(pending != null, "pending cannot be null");
+        this.succeeded = new ArrayList<>(succeeded);
+        this.failed = new LinkedHashMap<>(failed);
+        this.pending = new ArrayList<>(pending);
+    }
+
+    /**
+     * Returns the machines for which the operation succeeded.
+     *
+     * @return
+     */
+    public List<String> getSucceeded() {
+        return this.succeeded;
+    }
+
+    /**
+     * Returns the machines for which the operation failed. Keys are machine
+     * identifiers, values are error messages.
+     *
+     * @return
+     */
+    public Map<String, String> getFailed() {
+        return this.failed;
+    }
+
+    /**
+     * Returns the machines for which the operation has been scheduled, but
+     * had not yet completed when the result was reported. Their outcome can
+     * be learned by observing the pool.
+     *
+     * @return
+     */
+    public List<String> getPending() {
+        if (this.pending == null) {
+            return Collections.emptyList();
+        }
+        return this.pending;
+    }
+
+    /**
+     * Returns <code>true</code> if the operation succeeded for all machines in
+     * the batch.
+     *
+     * @return
+     */
+    public boolean isAllSucceeded() {
+        return this.failed.isEmpty() && getPending().isEmpty();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.succeeded, this.failed, getPending());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof BatchOperationResult) {
+            BatchOperationResult that = (BatchOperationResult) obj;
+            return Objects.equals(this.succeeded, that.succeeded) //
+                    && Objects.equals(this.failed, that.failed) //
+                    && Objects.equals(getPending(), that.getPending());
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toString(JsonUtils.toJson(this));
+    }
+}
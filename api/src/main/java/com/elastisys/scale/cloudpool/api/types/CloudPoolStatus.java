@@ -1,5 +1,8 @@
 package com.elastisys.scale.cloudpool.api.types;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 import com.elastisys.scale.cloudpool.api.CloudPool;
@@ -19,6 +22,20 @@ public class CloudPoolStatus {
     private final boolean started;
     /** Indicates if the {@link CloudPool} is configured. */
     private final boolean configured;
+    /**
+     * The state ({@code CLOSED}, {@code OPEN} or {@code HALF_OPEN}) of the
+     * circuit breaker guarding each cloud API operation. May be
+     * <code>null</code> if the {@link CloudPool} does not use circuit breakers.
+     */
+    private final Map<String, String> circuitBreakers;
+    /**
+     * Indicates if a started {@link CloudPool} has observed the current state
+     * of its machine pool in the cloud API, as opposed to only serving a pool
+     * recovered from a persisted cache. May be <code>null</code> if the
+     * {@link CloudPool} does not distinguish the two, in which case a started
+     * {@link CloudPool} is considered ready.
+     */
+    private final Boolean ready;
 
     /**
      * Creates a {@link CloudPoolStatus}.
@@ -29,8 +46,51 @@ public class CloudPoolStatus {
      *            Indicates if the {@link CloudPool} is configured.
      */
     public CloudPoolStatus(boolean started, boolean configured) {
+        this(started, configured, null);
+    }
+
+    /**
+     * Creates a {@link CloudPoolStatus}.
+     *
+     * @param started
+     *            Indicates if the {@link CloudPool} is in a started state.
+     * @param configured
+     *            Indicates if the {@link CloudPool} is configured.
+     * @param circuitBreakers
+     *            The state ({@code CLOSED}, {@code OPEN} or {@code HALF_OPEN})
+     *            of the circuit breaker guarding each cloud API operation. May
+     *            be <code>null</code> if the {@link CloudPool} does not use
+     *            circuit breakers.
+     */
+    public CloudPoolStatus(boolean started, boolean configured, Map<String, String> circuitBreakers) {
+        this(started, configured, circuitBreakers, null);
+    }
+
+    /**
+     * Creates a {@link CloudPoolStatus}.
+     *
+     * @param started
+     *            Indicates if the {@link CloudPool} is in a started state.
+     * @param configured
+     *            Indicates if the {@link CloudPool} is configured.
+     * @param circuitBreakers
+     *            The state ({@code CLOSED}, {@code OPEN} or {@code HALF_OPEN})
+     *            of the circuit breaker guarding each cloud API operation. May
+     *            be <code>null</code> if the {@link CloudPool} does not use
+     *            circuit breakers.
+     * @param ready
+     *            Indicates if a started {@link CloudPool} has observed the
+     *            current state of its machine pool in the cloud API. May be
+     *            <code>null</code>, in which case a started {@link CloudPool}
+     *            is considered ready.
+     */
+    public CloudPoolStatus(boolean started, boolean configured, Map<String, String> circuitBreakers,
+            Boolean ready) {
         this.started = started;
         this.configured = configured;
+        this.circuitBreakers = circuitBreakers != null
+                ? Collections.unmodifiableMap(new LinkedHashMap<>(circuitBreakers)) : null;
+        this.ready = ready;
     }
 
     /**
@@ -51,9 +111,32 @@ public class CloudPoolStatus {
         return this.configured;
     }
 
+    /**
+     * The state ({@code CLOSED}, {@code OPEN} or {@code HALF_OPEN}) of the
+     * circuit breaker guarding each cloud API operation. Empty if the
+     * {@link CloudPool} does not use circuit breakers.
+     *
+     * @return
+     */
+    public Map<String, String> getCircuitBreakers() {
+        return this.circuitBreakers != null ? this.circuitBreakers : Collections.emptyMap();
+    }
+
+    /**
+     * Indicates if the {@link CloudPool} is started and has observed the
+     * current state of its machine pool in the cloud API. A started
+     * {@link CloudPool} that serves a machine pool recovered from a persisted
+     * cache is not ready until its first pool fetch has completed.
+     *
+     * @return
+     */
+    public boolean isReady() {
+        return this.started && (this.ready == null || this.ready);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(this.started, this.configured);
+        return Objects.hash(this.started, this.configured, getCircuitBreakers(), isReady());
     }
 
     @Override
@@ -61,7 +144,9 @@ public class CloudPoolStatus {
         if (obj instanceof CloudPoolStatus) {
             CloudPoolStatus that = (CloudPoolStatus) obj;
             return Objects.equals(this.started, that.started) //
-                    && Objects.equals(this.configured, that.configured);
+                    && Objects.equals(this.configured, that.configured) //
+                    && Objects.equals(getCircuitBreakers(), that.getCircuitBreakers()) //
+                    && isReady() == that.isReady();
         }
         return false;
     }
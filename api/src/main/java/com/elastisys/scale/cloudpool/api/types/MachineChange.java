@@ -0,0 +1,158 @@
+package com.elastisys.scale.cloudpool.api.types;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * Describes how a {@link Machine} that is present in two consecutive
+ * {@link MachinePool} snapshots has changed between them.
+ *
+ * @see MachinePoolDiff
+ */
+public class MachineChange {
+
+    /**
+     * The aspects of a {@link Machine} that a {@link MachineChange} can
+     * report.
+     */
+    public static enum Aspect {
+        /** The {@link MachineState} changed. */
+        MACHINE_STATE,
+        /** The {@link MembershipStatus} changed. */
+        MEMBERSHIP_STATUS,
+        /** The {@link ServiceState} changed. */
+        SERVICE_STATE,
+        /**
+         * Any other {@link Machine} field changed (for example, IP addresses
+         * or metadata).
+         */
+        OTHER;
+    }
+
+    /** The identifier of the changed {@link Machine}. */
+    private final String machineId;
+    /** The aspects of the {@link Machine} that changed. */
+    private final List<Aspect> changes;
+    /** The {@link Machine} as it appeared in the earlier snapshot. */
+    private final Machine previous;
+    /** The {@link Machine} as it appears in the later snapshot. */
+    private final Machine current;
+
+    /**
+     * Creates a {@link MachineChange}.
+     *
+     * @param previous
+     *            The {@link Machine} as it appeared in the earlier snapshot.
+     * @param current
+     *            The {@link Machine} as it appears in the later snapshot.
+     */
+    public MachineChange(Machine previous, Machine current) {
+        checkArgument(previous != null, "machineChange: previous cannot be null");
+        checkArgument(current != null, "machineChange: current cannot be null");
+        checkArgument(previous.getId().equals(current.getId()), "machineChange: machine ids differ");
+
+        this.machineId = current.getId();
+        this.changes = Collections.unmodifiableList(aspects(previous, current));
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * Returns the aspects in which two versions of a {@link Machine} differ.
+     *
+     * @param previous
+     * @param current
+     * @return
+     */
+    private static List<Aspect> aspects(Machine previous, Machine current) {
+        List<Aspect> aspects = new ArrayList<>();
+        if (!Objects.equals(previous.getMachineState(), current.getMachineState())) {
+            aspects.add(Aspect.MACHINE_STATE);
+        }
+        if (!Objects.equals(previous.getMembershipStatus(), current.getMembershipStatus())) {
+            aspects.add(Aspect.MEMBERSHIP_STATUS);
+        }
+        if (!Objects.equals(previous.getServiceState(), current.getServiceState())) {
+            aspects.add(Aspect.SERVICE_STATE);
+        }
+        if (aspects.isEmpty() && !previous.equals(current)) {
+            aspects.add(Aspect.OTHER);
+        }
+        return aspects;
+    }
+
+    /**
+     * Returns the identifier of the changed {@link Machine}.
+     *
+     * @return
+     */
+    public String getMachineId() {
+        return this.machineId;
+    }
+
+    /**
+     * Returns the aspects of the {@link Machine} that changed.
+     *
+     * @return
+     */
+    public List<Aspect> getChanges() {
+        return this.changes;
+    }
+
+    /**
+     * Returns <code>true</code> if a given aspect of the {@link Machine}
+     * changed.
+     *
+     * @param aspect
+     * @return
+     */
+    public boolean changed(Aspect aspect) {
+        return this.changes.contains(aspect);
+    }
+
+    /**
+     * Returns the {@link Machine} as it appeared in the earlier snapshot.
+     *
+     * @return
+     */
+    public Machine getPrevious() {
+        return this.previous;
+    }
+
+    /**
+     * Returns the {@link Machine} as it appears in the later snapshot.
+     *
+     * @return
+     */
+    public Machine getCurrent() {
+        return this.current;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.machineId, this.changes, this.previous, this.current);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof MachineChange) {
+            MachineChange that = (MachineChange) obj;
+            return Objects.equals(this.machineId, that.machineId) //
+                    && Objects.equals(this.changes, that.changes) //
+                    && Objects.equals(this.previous, that.previous) //
+                    && Objects.equals(this.current, that.current);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toString(JsonUtils.toJson(this));
+    }
+}
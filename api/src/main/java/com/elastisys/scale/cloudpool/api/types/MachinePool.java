@@ -5,8 +5,13 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.joda.time.DateTime;
@@ -17,6 +22,12 @@ import com.google.gson.JsonObject;
 
 /**
  * Represents a snapshot of the machine pool managed by a {@link CloudPool}.
+ * <p/>
+ * A {@link MachinePool} is immutable. On first use, the snapshot is indexed:
+ * the active, allocated and started partitions of the pool are computed once
+ * (together with a machine id index and per-{@link MachineState} counts) and
+ * are then shared between callers as unmodifiable views. Membership checks and
+ * size summaries are therefore constant-time operations that do not allocate.
  *
  * @see CloudPool
  */
@@ -34,6 +45,13 @@ public class MachinePool {
      */
     private final DateTime timestamp;
 
+    /**
+     * Index over {@link #machines}. Computed on first use (rather than in the
+     * constructor) since instances deserialized from JSON bypass the
+     * constructor. Excluded from JSON serialization.
+     */
+    private transient volatile MachineIndex index;
+
     /**
      * Constructs a new {@link MachinePool} snapshot.
      *
@@ -48,6 +66,22 @@ public class MachinePool {
         requireNonNull(timestamp, "timestamp cannot be null");
         this.machines = new ArrayList<>(machines);
         this.timestamp = timestamp;
+        this.index = new MachineIndex(this.machines);
+    }
+
+    /**
+     * Constructs a new {@link MachinePool} snapshot that shares its (immutable)
+     * members and index with another snapshot.
+     *
+     * @param other
+     *            The snapshot to share members with.
+     * @param timestamp
+     *            The time when this snapshot of the resource pool was taken.
+     */
+    private MachinePool(MachinePool other, DateTime timestamp) {
+        this.machines = other.machines;
+        this.timestamp = timestamp;
+        this.index = other.index();
     }
 
     /**
@@ -59,41 +93,108 @@ public class MachinePool {
      * {@link MachineState#RUNNING}) as well as machines in terminal states (
      * {@link MachineState#REJECTED}, {@link MachineState#TERMINATING},
      * {@link MachineState#TERMINATED}).
+     * <p/>
+     * The returned list is an unmodifiable view.
      *
      * @return
      */
     public List<Machine> getMachines() {
-        return new ArrayList<>(this.machines);
+        return index().machines;
     }
 
     /**
      * Returns all active {@link Machine}s in the pool. See
      * {@link Machine#isActiveMember()}.
+     * <p/>
+     * The returned list is an unmodifiable view.
      *
      * @return
      */
     public List<Machine> getActiveMachines() {
-        return getMachines().stream().filter(Machine.isActiveMember()).collect(Collectors.toList());
+        return index().active;
     }
 
     /**
      * Returns all <i>allocated</i> {@link Machine}s in the pool. See
      * {@link Machine#isAllocated()}.
+     * <p/>
+     * The returned list is an unmodifiable view.
      *
      * @return
      */
     public List<Machine> getAllocatedMachines() {
-        return getMachines().stream().filter(Machine.isAllocated()).collect(Collectors.toList());
+        return index().allocated;
     }
 
     /**
      * Returns all <i>started</i> {@link Machine}s in the pool. See
      * {@link Machine#isStarted()}.
+     * <p/>
+     * The returned list is an unmodifiable view.
      *
      * @return
      */
     public List<Machine> getStartedMachines() {
-        return getMachines().stream().filter(Machine.isStarted()).collect(Collectors.toList());
+        return index().started;
+    }
+
+    /**
+     * Returns the number of active {@link Machine}s in the pool. See
+     * {@link Machine#isActiveMember()}.
+     *
+     * @return
+     */
+    public int getActiveSize() {
+        return index().active.size();
+    }
+
+    /**
+     * Returns the number of <i>allocated</i> {@link Machine}s in the pool. See
+     * {@link Machine#isAllocated()}.
+     *
+     * @return
+     */
+    public int getAllocatedSize() {
+        return index().allocated.size();
+    }
+
+    /**
+     * Returns the number of {@link Machine}s in the pool that are in a given
+     * {@link MachineState}.
+     *
+     * @param state
+     * @return
+     */
+    public int getSize(MachineState state) {
+        requireNonNull(state, "state cannot be null");
+        return index().stateCounts[state.ordinal()];
+    }
+
+    /**
+     * Looks up a {@link Machine} in the pool by its identifier. The
+     * {@link Machine} may be in any {@link MachineState}.
+     *
+     * @param machineId
+     *            A machine identifier.
+     * @return The {@link Machine} with the given identifier, or
+     *         {@link Optional#empty()} if no such machine is part of the pool.
+     */
+    public Optional<Machine> getMachine(String machineId) {
+        return Optional.ofNullable(index().byId.get(machineId));
+    }
+
+    /**
+     * Returns <code>true</code> if the pool contains an <i>allocated</i>
+     * {@link Machine} with the given identifier. See
+     * {@link Machine#isAllocated()}.
+     *
+     * @param machineId
+     *            A machine identifier.
+     * @return
+     */
+    public boolean isAllocatedMember(String machineId) {
+        Machine machine = index().byId.get(machineId);
+        return machine != null && Machine.isAllocated().test(machine);
     }
 
     /**
@@ -107,6 +208,22 @@ public class MachinePool {
         return this.timestamp;
     }
 
+    /**
+     * Returns a copy of this {@link MachinePool} with the same members but a
+     * different timestamp. Useful when a new observation of the pool shows
+     * that its membership is unchanged. The copy shares members (and index)
+     * with this {@link MachinePool}, so creating it is a constant-time
+     * operation.
+     *
+     * @param timestamp
+     *            The time when the new snapshot was taken.
+     * @return
+     */
+    public MachinePool withTimestamp(DateTime timestamp) {
+        requireNonNull(timestamp, "timestamp cannot be null");
+        return new MachinePool(this, timestamp);
+    }
+
     /**
      * Factory method for creating an empty machine pool.
      *
@@ -118,6 +235,23 @@ public class MachinePool {
         return new MachinePool(new ArrayList<Machine>(), timestamp);
     }
 
+    /**
+     * Returns the index for this {@link MachinePool}, building it if it has
+     * not yet been computed. Concurrent callers may race to build the index,
+     * but since it is derived from immutable state they will all arrive at
+     * the same result.
+     *
+     * @return
+     */
+    private MachineIndex index() {
+        MachineIndex machineIndex = this.index;
+        if (machineIndex == null) {
+            machineIndex = new MachineIndex(this.machines);
+            this.index = machineIndex;
+        }
+        return machineIndex;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(this.timestamp, this.machines);
@@ -175,4 +309,56 @@ public class MachinePool {
     public JsonObject toJson() {
         return JsonUtils.toJson(this).getAsJsonObject();
     }
-}
\ No newline at end of file
+
+    /**
+     * Precomputed views of the members of a {@link MachinePool}.
+     */
+    private static class MachineIndex {
+        /** All pool members. */
+        private final List<Machine> machines;
+        /** Pool members that satisfy {@link Machine#isActiveMember()}. */
+        private final List<Machine> active;
+        /** Pool members that satisfy {@link Machine#isAllocated()}. */
+        private final List<Machine> allocated;
+        /** Pool members that satisfy {@link Machine#isStarted()}. */
+        private final List<Machine> started;
+        /** Pool members keyed on machine id. */
+        private final Map<String, Machine> byId;
+        /** Number of pool members in each {@link MachineState} (by ordinal). */
+        private final int[] stateCounts;
+
+        public MachineIndex(List<Machine> machines) {
+            List<Machine> active = new ArrayList<>();
+            List<Machine> allocated = new ArrayList<>();
+            List<Machine> started = new ArrayList<>();
+            Map<String, Machine> byId = new HashMap<>(Math.max(16, machines.size() * 4 / 3 + 1));
+            int[] stateCounts = new int[MachineState.values().length];
+
+            Predicate<Machine> isActiveMember = Machine.isActiveMember();
+            Predicate<Machine> isAllocated = Machine.isAllocated();
+            Predicate<Machine> isStarted = Machine.isStarted();
+            for (Machine machine : machines) {
+                if (isAllocated.test(machine)) {
+                    allocated.add(machine);
+                }
+                if (isActiveMember.test(machine)) {
+                    active.add(machine);
+                }
+                if (isStarted.test(machine)) {
+                    started.add(machine);
+                }
+                if (machine.getMachineState() != null) {
+                    stateCounts[machine.getMachineState().ordinal()]++;
+                }
+                byId.putIfAbsent(machine.getId(), machine);
+            }
+
+            this.machines = Collections.unmodifiableList(machines);
+            this.active = Collections.unmodifiableList(active);
+            this.allocated = Collections.unmodifiableList(allocated);
+            this.started = Collections.unmodifiableList(started);
+            this.byId = byId;
+            this.stateCounts = stateCounts;
+        }
+    }
+}
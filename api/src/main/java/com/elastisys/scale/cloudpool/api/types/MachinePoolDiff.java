@@ -0,0 +1,188 @@
+package com.elastisys.scale.cloudpool.api.types;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.joda.time.DateTime;
+
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * A structural diff between two consecutive {@link MachinePool} snapshots:
+ * which {@link Machine}s were added, which were removed, and which changed
+ * (in machine state, membership status, service state or otherwise).
+ * <p/>
+ * Lets clients that track pool membership (such as load balancer registrars)
+ * react to changes without fetching and comparing full snapshots.
+ */
+public class MachinePoolDiff {
+
+    /**
+     * Timestamp of the earlier snapshot. <code>null</code> if the diff is
+     * relative to an empty pool with no prior observation.
+     */
+    private final DateTime previousTimestamp;
+    /** Timestamp of the later snapshot. */
+    private final DateTime timestamp;
+    /** {@link Machine}s present in the later but not the earlier snapshot. */
+    private final List<Machine> added;
+    /** {@link Machine}s present in the earlier but not the later snapshot. */
+    private final List<Machine> removed;
+    /** {@link Machine}s present in both snapshots, but changed. */
+    private final List<MachineChange> changed;
+
+    /**
+     * Creates a {@link MachinePoolDiff}.
+     *
+     * @param previousTimestamp
+     *            Timestamp of the earlier snapshot. May be <code>null</code>
+     *            if there was no earlier snapshot.
+     * @param timestamp
+     *            Timestamp of the later snapshot.
+     * @param added
+     *            {@link Machine}s present in the later but not the earlier
+     *            snapshot.
+     * @param removed
+     *            {@link Machine}s present in the earlier but not the later
+     *            snapshot.
+     * @param changed
+     *            {@link Machine}s present in both snapshots, but changed.
+     */
+    public MachinePoolDiff(DateTime previousTimestamp, DateTime timestamp, List<Machine> added, List<Machine> removed,
+            List<MachineChange> changed) {
+        checkArgument(timestamp != null, "machinePoolDiff: timestamp cannot be null");
+        checkArgument(added != null, "machinePoolDiff: added cannot be null");
+        checkArgument(removed != null, "machinePoolDiff: removed cannot be null");
+        checkArgument(changed != null, "machinePoolDiff: changed cannot be null");
+
+        this.previousTimestamp = previousTimestamp;
+        this.timestamp = timestamp;
+        this.added = Collections.unmodifiableList(new ArrayList<>(added));
+        this.removed = Collections.unmodifiableList(new ArrayList<>(removed));
+        this.changed = Collections.unmodifiableList(new ArrayList<>(changed));
+    }
+
+    /**
+     * Computes the diff between two {@link MachinePool} snapshots.
+     *
+     * @param previous
+     *            The earlier snapshot. May be <code>null</code>, in which case
+     *            all {@link Machine}s in the later snapshot are reported as
+     *            added.
+     * @param current
+     *            The later snapshot.
+     * @return
+     */
+    public static MachinePoolDiff between(MachinePool previous, MachinePool current) {
+        checkArgument(current != null, "machinePoolDiff: current pool cannot be null");
+
+        Map<String, Machine> previousMachines = new LinkedHashMap<>();
+        if (previous != null) {
+            for (Machine machine : previous.getMachines()) {
+                previousMachines.put(machine.getId(), machine);
+            }
+        }
+
+        List<Machine> added = new ArrayList<>();
+        List<MachineChange> changed = new ArrayList<>();
+        for (Machine machine : current.getMachines()) {
+            Machine previousMachine = previousMachines.remove(machine.getId());
+            if (previousMachine == null) {
+                added.add(machine);
+            } else if (!previousMachine.equals(machine)) {
+                changed.add(new MachineChange(previousMachine, machine));
+            }
+        }
+        List<Machine> removed = new ArrayList<>(previousMachines.values());
+
+        DateTime previousTimestamp = previous != null ? previous.getTimestamp() : null;
+        return new MachinePoolDiff(previousTimestamp, current.getTimestamp(), added, removed, changed);
+    }
+
+    /**
+     * Returns the timestamp of the earlier snapshot, or <code>null</code> if
+     * there was no earlier snapshot.
+     *
+     * @return
+     */
+    public DateTime getPreviousTimestamp() {
+        return this.previousTimestamp;
+    }
+
+    /**
+     * Returns the timestamp of the later snapshot.
+     *
+     * @return
+     */
+    public DateTime getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Returns the {@link Machine}s present in the later but not the earlier
+     * snapshot.
+     *
+     * @return
+     */
+    public List<Machine> getAdded() {
+        return this.added;
+    }
+
+    /**
+     * Returns the {@link Machine}s present in the earlier but not the later
+     * snapshot.
+     *
+     * @return
+     */
+    public List<Machine> getRemoved() {
+        return this.removed;
+    }
+
+    /**
+     * Returns the {@link Machine}s present in both snapshots, but changed.
+     *
+     * @return
+     */
+    public List<MachineChange> getChanged() {
+        return this.changed;
+    }
+
+    /**
+     * Returns <code>true</code> if the two snapshots contain the same
+     * {@link Machine}s.
+     *
+     * @return
+     */
+    public boolean isEmpty() {
+        return this.added.isEmpty() && this.removed.isEmpty() && this.changed.isEmpty();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.previousTimestamp, this.timestamp, this.added, this.removed, this.changed);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof MachinePoolDiff) {
+            MachinePoolDiff that = (MachinePoolDiff) obj;
+            return Objects.equals(this.previousTimestamp, that.previousTimestamp) //
+                    && Objects.equals(this.timestamp, that.timestamp) //
+                    && Objects.equals(this.added, that.added) //
+                    && Objects.equals(this.removed, that.removed) //
+                    && Objects.equals(this.changed, that.changed);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toString(JsonUtils.toJson(this));
+    }
+}
@@ -0,0 +1,76 @@
+package com.elastisys.scale.cloudpool.api.types;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Objects;
+
+import com.elastisys.scale.cloudpool.api.changes.PoolChangeFeed;
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * A {@link MachinePoolDiff} that has been published on a
+ * {@link PoolChangeFeed}, tagged with its position in the feed.
+ */
+public class PoolChangeEvent {
+
+    /**
+     * The position of this event in the {@link PoolChangeFeed}. Sequence
+     * numbers start at 1 and increase by one for every published event.
+     */
+    private final long sequence;
+    /** The pool change. */
+    private final MachinePoolDiff diff;
+
+    /**
+     * Creates a {@link PoolChangeEvent}.
+     *
+     * @param sequence
+     *            The position of this event in the {@link PoolChangeFeed}.
+     * @param diff
+     *            The pool change.
+     */
+    public PoolChangeEvent(long sequence, MachinePoolDiff diff) {
+        checkArgument(sequence > 0, "poolChangeEvent: sequence must be positive");
+        checkArgument(diff != null, "poolChangeEvent: diff cannot be null");
+        this.sequence = sequence;
+        this.diff = diff;
+    }
+
+    /**
+     * Returns the position of this event in the {@link PoolChangeFeed}.
+     *
+     * @return
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Returns the pool change.
+     *
+     * @return
+     */
+    public MachinePoolDiff getDiff() {
+        return this.diff;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.sequence, this.diff);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof PoolChangeEvent) {
+            PoolChangeEvent that = (PoolChangeEvent) obj;
+            return this.sequence == that.sequence //
+                    && Objects.equals(this.diff, that.diff);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toString(JsonUtils.toJson(this));
+    }
+}
@@ -0,0 +1,110 @@
+package com.elastisys.scale.cloudpool.api.types;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import com.elastisys.scale.cloudpool.api.changes.PoolChangeFeed;
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * A batch of {@link PoolChangeEvent}s read from a {@link PoolChangeFeed}
+ * after a given cursor.
+ * <p/>
+ * A client tracks pool changes by repeatedly asking for the changes after the
+ * {@link #getCursor()} returned in the previous batch. If the client has
+ * fallen too far behind (the events following its cursor have been evicted
+ * from the feed) or its cursor is unknown to the feed (for example, after a
+ * cloud pool restart), {@link #isResyncRequired()} is set. The client should
+ * then fetch the full {@link MachinePool} and continue from the returned
+ * {@link #getCursor()}.
+ */
+public class PoolChanges {
+
+    /**
+     * The sequence number of the last event in this batch (or, if the batch
+     * is empty, the latest sequence number of the feed). Use as cursor for the
+     * next read.
+     */
+    private final long cursor;
+    /**
+     * <code>true</code> if the client must refetch the full
+     * {@link MachinePool}, since events following its cursor are no longer
+     * available.
+     */
+    private final boolean resyncRequired;
+    /** The {@link PoolChangeEvent}s following the requested cursor. */
+    private final List<PoolChangeEvent> events;
+
+    /**
+     * Creates a {@link PoolChanges}.
+     *
+     * @param cursor
+     *            The sequence number to use as cursor for the next read.
+     * @param resyncRequired
+     *            <code>true</code> if the client must refetch the full
+     *            {@link MachinePool}.
+     * @param events
+     *            The {@link PoolChangeEvent}s following the requested cursor.
+     */
+    public PoolChanges(long cursor, boolean resyncRequired, List<PoolChangeEvent> events) {
+        checkArgument(cursor >= 0, "poolChanges: cursor cannot be negative");
+        checkArgument(events != null, "poolChanges: events cannot be null");
+        this.cursor = cursor;
+        this.resyncRequired = resyncRequired;
+        this.events = Collections.unmodifiableList(new ArrayList<>(events));
+    }
+
+    /**
+     * Returns the sequence number to use as cursor for the next read.
+     *
+     * @return
+     */
+    public long getCursor() {
+        return this.cursor;
+    }
+
+    /**
+     * Returns <code>true</code> if the client must refetch the full
+     * {@link MachinePool}, since events following its cursor are no longer
+     * available.
+     *
+     * @return
+     */
+    public boolean isResyncRequired() {
+        return this.resyncRequired;
+    }
+
+    /**
+     * Returns the {@link PoolChangeEvent}s following the requested cursor.
+     *
+     * @return
+     */
+    public List<PoolChangeEvent> getEvents() {
+        return this.events;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.cursor, this.resyncRequired, this.events);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof PoolChanges) {
+            PoolChanges that = (PoolChanges) obj;
+            return this.cursor == that.cursor //
+                    && this.resyncRequired == that.resyncRequired //
+                    && Objects.equals(this.events, that.events);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toString(JsonUtils.toJson(this));
+    }
+}
@@ -0,0 +1,155 @@
+package com.elastisys.scale.cloudpool.api.types;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Objects;
+
+import com.elastisys.scale.cloudpool.api.CloudPool;
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * Reports the progress of a pool mutation (a terminate, detach or attach of a
+ * single machine) that a {@link CloudPool} carries out asynchronously. A
+ * mutation that is still {@link State#PENDING} when its request is answered
+ * is given an identifier under which it can be followed until it has either
+ * {@link State#SUCCEEDED} or {@link State#FAILED}.
+ */
+public class PoolMutationStatus {
+
+    /** The progress of a pool mutation. */
+    public static enum State {
+        /** The mutation has been scheduled but has not yet completed. */
+        PENDING,
+        /** The mutation has been carried out. */
+        SUCCEEDED,
+        /** The mutation could not be carried out. */
+        FAILED
+    }
+
+    /**
+     * The identifier under which the mutation can be followed. May be
+     * <code>null</code> for a mutation that had already completed when its
+     * request was answered.
+     */
+    private final String id;
+    /** The progress of the mutation. */
+    private final State state;
+    /**
+     * The HTTP status code that the request would have been answered with,
+     * had the failure occurred before it was answered. For example,
+     * {@code 404} for a machine that does not exist. Only set for a
+     * {@link State#FAILED} mutation.
+     */
+    private final Integer errorCode;
+    /**
+     * A description of the failure. Only set for a {@link State#FAILED}
+     * mutation.
+     */
+    private final String error;
+
+    /**
+     * Creates a {@link PoolMutationStatus} for a {@link State#PENDING} or
+     * {@link State#SUCCEEDED} mutation.
+     *
+     * @param id
+     *            The identifier under which the mutation can be followed. May
+     *            be <code>null</code> for a mutation that had already
+     *            completed when its request was answered.
+     * @param state
+     *            The progress of the mutation.
+     */
+    public PoolMutationStatus(String id, State state) {
+        this(id, state, null, null);
+    }
+
+    /**
+     * Creates a {@link PoolMutationStatus}.
+     *
+     * @param id
+     *            The identifier under which the mutation can be followed. May
+     *            be <code>null</code> for a mutation that had already
+     *            completed when its request was answered.
+     * @param state
+     *            The progress of the mutation.
+     * @param errorCode
+     *            The HTTP status code that the request would have been
+     *            answered with, had the failure occurred before it was
+     *            answered. Required for a {@link State#FAILED} mutation.
+     * @param error
+     *            A description of the failure. Required for a
+     *            {@link State#FAILED} mutation.
+     */
+    public PoolMutationStatus(String id, State state, Integer errorCode, String error) {
+        checkArgument(state != null, "state cannot be null");
+        checkArgument(state != State.PENDING || id != null, "a pending mutation must have an id");
+        checkArgument((state == State.FAILED) == (errorCode != null && error != null),
+                "errorCode and error must be given for, and only for, a failed mutation");
+        this.id = id;
+        this.state = state;
+        this.errorCode = errorCode;
+        this.error = error;
+    }
+
+    /**
+     * Returns the identifier under which the mutation can be followed. May be
+     * <code>null</code> for a mutation that had already completed when its
+     * request was answered.
+     *
+     * @return
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Returns the progress of the mutation.
+     *
+     * @return
+     */
+    public State getState() {
+        return this.state;
+    }
+
+    /**
+     * Returns the HTTP status code that the request would have been answered
+     * with, had the failure occurred before it was answered. Only set for a
+     * {@link State#FAILED} mutation.
+     *
+     * @return
+     */
+    public Integer getErrorCode() {
+        return this.errorCode;
+    }
+
+    /**
+     * Returns a description of the failure. Only set for a
+     * {@link State#FAILED} mutation.
+     *
+     * @return
+     */
+    public String getError() {
+        return this.error;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id, this.state, this.errorCode, this.error);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof PoolMutationStatus) {
+            PoolMutationStatus that = (PoolMutationStatus) obj;
+            return Objects.equals(this.id, that.id) //
+                    && Objects.equals(this.state, that.state) //
+                    && Objects.equals(this.errorCode, that.errorCode) //
+                    && Objects.equals(this.error, that.error);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toString(JsonUtils.toJson(this));
+    }
+}
@@ -0,0 +1,81 @@
+package com.elastisys.scale.cloudpool.api.types;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.joda.time.DateTime;
+
+import com.elastisys.scale.cloudpool.api.CloudPool;
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * The observed {@link MachineState} transition latencies of a
+ * {@link CloudPool}, summarized per transition, cloud provider, region and
+ * machine size.
+ *
+ * @see TransitionLatency
+ */
+public class ProvisioningLatencies {
+
+    /** The time at which the summary was taken. */
+    private final DateTime timestamp;
+    /** The transition latency summaries. */
+    private final List<TransitionLatency> latencies;
+
+    /**
+     * Creates a {@link ProvisioningLatencies}.
+     *
+     * @param timestamp
+     *            The time at which the summary was taken.
+     * @param latencies
+     *            The transition latency summaries.
+     */
+    public ProvisioningLatencies(DateTime timestamp, List<TransitionLatency> latencies) {
+        checkArgument(timestamp != null, "provisioningLatencies: timestamp cannot be null");
+        checkArgument(latencies != null, "provisioningLatencies: latencies cannot be null");
+        this.timestamp = timestamp;
+        this.latencies = Collections.unmodifiableList(new ArrayList<>(latencies));
+    }
+
+    /**
+     * Returns the time at which the summary was taken.
+     *
+     * @return
+     */
+    public DateTime getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Returns the transition latency summaries.
+     *
+     * @return
+     */
+    public List<TransitionLatency> getLatencies() {
+        return this.latencies;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.timestamp, this.latencies);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof ProvisioningLatencies) {
+            ProvisioningLatencies that = (ProvisioningLatencies) obj;
+            return Objects.equals(this.timestamp, that.timestamp) //
+                    && Objects.equals(this.latencies, that.latencies);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toString(JsonUtils.toJson(this));
+    }
+}
@@ -0,0 +1,229 @@
+package com.elastisys.scale.cloudpool.api.types;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Objects;
+
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * A summary of the observed durations of a given {@link MachineState}
+ * transition (such as {@link MachineState#REQUESTED} to
+ * {@link MachineState#RUNNING}) for machines of a given cloud provider,
+ * region and machine size.
+ * <p/>
+ * Durations are measured between the first observations of a machine in
+ * each state, and are therefore only as accurate as the interval between
+ * pool observations. Percentiles are computed over the most recent
+ * {@link #getSamples()} observations, whereas {@link #getCount()} and
+ * {@link #getMax()} cover all observations.
+ *
+ * @see ProvisioningLatencies
+ */
+public class TransitionLatency {
+
+    /** The state that the machines transitioned from. */
+    private final MachineState fromState;
+    /** The state that the machines transitioned to. */
+    private final MachineState toState;
+    /** The cloud provider of the machines. */
+    private final String cloudProvider;
+    /** The region of the machines. */
+    private final String region;
+    /** The machine size of the machines. */
+    private final String machineSize;
+    /** The total number of observed transitions. */
+    private final long count;
+    /** The number of recent observations that percentiles are computed over. */
+    private final int samples;
+    /** The 50th percentile of recent transition durations, in seconds. */
+    private final double p50;
+    /** The 90th percentile of recent transition durations, in seconds. */
+    private final double p90;
+    /** The 99th percentile of recent transition durations, in seconds. */
+    private final double p99;
+    /** The longest observed transition duration, in seconds. */
+    private final double max;
+
+    /**
+     * Creates a {@link TransitionLatency}.
+     *
+     * @param fromState
+     *            The state that the machines transitioned from.
+     * @param toState
+     *            The state that the machines transitioned to.
+     * @param cloudProvider
+     *            The cloud provider of the machines.
+     * @param region
+     *            The region of the machines.
+     * @param machineSize
+     *            The machine size of the machines.
+     * @param count
+     *            The total number of observed transitions.
+     * @param samples
+     *            The number of recent observations that percentiles are
+     *            computed over.
+     * @param p50
+     *            The 50th percentile of recent transition durations, in
+     *            seconds.
+     * @param p90
+     *            The 90th percentile of recent transition durations, in
+     *            seconds.
+     * @param p99
+     *            The 99th percentile of recent transition durations, in
+     *            seconds.
+     * @param max
+     *            The longest observed transition duration, in seconds.
+     */
+    public TransitionLatency(MachineState fromState, MachineState toState, String cloudProvider, String region,
+            String machineSize, long count, int samples, double p50, double p90, double p99, double max) {
+        checkArgument(fromState != null, "transitionLatency: fromState cannot be null");
+        checkArgument(toState != null, "transitionLatency: toState cannot be null");
+        checkArgument(cloudProvider != null, "transitionLatency: cloudProvider cannot be null");
+        checkArgument(region != null, "transitionLatency: region cannot be null");
+        checkArgument(machineSize != null, "transitionLatency: machineSize cannot be null");
+        checkArgument(count >= samples, "transitionLatency: count cannot be less than samples");
+        checkArgument(samples >= 0, "transitionLatency: samples cannot be negative");
+        this.fromState = fromState;
+        this.toState = toState;
+        this.cloudProvider = cloudProvider;
+        this.region = region;
+        this.machineSize = machineSize;
+        this.count = count;
+        this.samples = samples;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * Returns the state that the machines transitioned from.
+     *
+     * @return
+     */
+    public MachineState getFromState() {
+        return this.fromState;
+    }
+
+    /**
+     * Returns the state that the machines transitioned to.
+     *
+     * @return
+     */
+    public MachineState getToState() {
+        return this.toState;
+    }
+
+    /**
+     * Returns the cloud provider of the machines.
+     *
+     * @return
+     */
+    public String getCloudProvider() {
+        return this.cloudProvider;
+    }
+
+    /**
+     * Returns the region of the machines.
+     *
+     * @return
+     */
+    public String getRegion() {
+        return this.region;
+    }
+
+    /**
+     * Returns the machine size of the machines.
+     *
+     * @return
+     */
+    public String getMachineSize() {
+        return this.machineSize;
+    }
+
+    /**
+     * Returns the total number of observed transitions.
+     *
+     * @return
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the number of recent observations that percentiles are computed
+     * over.
+     *
+     * @return
+     */
+    public int getSamples() {
+        return this.samples;
+    }
+
+    /**
+     * Returns the 50th percentile of recent transition durations, in seconds.
+     *
+     * @return
+     */
+    public double getP50() {
+        return this.p50;
+    }
+
+    /**
+     * Returns the 90th percentile of recent transition durations, in seconds.
+     *
+     * @return
+     */
+    public double getP90() {
+        return this.p90;
+    }
+
+    /**
+     * Returns the 99th percentile of recent transition durations, in seconds.
+     *
+     * @return
+     */
+    public double getP99() {
+        return this.p99;
+    }
+
+    /**
+     * Returns the longest observed transition duration, in seconds.
+     *
+     * @return
+     */
+    public double getMax() {
+        return this.max;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.fromState, this.toState, this.cloudProvider, this.region, this.machineSize,
+                this.count, this.samples, this.p50, this.p90, this.p99, this.max);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof TransitionLatency) {
+            TransitionLatency that = (TransitionLatency) obj;
+            return Objects.equals(this.fromState, that.fromState) //
+                    && Objects.equals(this.toState, that.toState) //
+                    && Objects.equals(this.cloudProvider, that.cloudProvider) //
+                    && Objects.equals(this.region, that.region) //
+                    && Objects.equals(this.machineSize, that.machineSize) //
+                    && this.count == that.count //
+                    && this.samples == that.samples //
+                    && Double.compare(this.p50, that.p50) == 0 //
+                    && Double.compare(this.p90, that.p90) == 0 //
+                    && Double.compare(this.p99, that.p99) == 0 //
+                    && Double.compare(this.max, that.max) == 0;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toString(JsonUtils.toJson(this));
+    }
+}
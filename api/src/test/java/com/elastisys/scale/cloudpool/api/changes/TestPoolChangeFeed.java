@@ -0,0 +1,123 @@
+package com.elastisys.scale.cloudpool.api.changes;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePoolDiff;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.PoolChanges;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * Exercises the {@link PoolChangeFeed}.
+ */
+public class TestPoolChangeFeed {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void afterTestMethod() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Published events should be assigned increasing sequence numbers and be
+     * readable after a cursor.
+     */
+    @Test
+    public void readAfterCursor() {
+        PoolChangeFeed feed = new PoolChangeFeed();
+        assertThat(feed.getLatestSequence(), is(0L));
+        assertThat(feed.since(0), is(new PoolChanges(0, false, Collections.emptyList())));
+
+        feed.publish(diff("i-1"));
+        feed.publish(diff("i-2"));
+        feed.publish(diff("i-3"));
+        assertThat(feed.getLatestSequence(), is(3L));
+
+        PoolChanges all = feed.since(0);
+        assertFalse(all.isResyncRequired());
+        assertThat(all.getCursor(), is(3L));
+        assertThat(all.getEvents().size(), is(3));
+        assertThat(all.getEvents().get(0).getSequence(), is(1L));
+        assertThat(all.getEvents().get(0).getDiff(), is(diff("i-1")));
+
+        PoolChanges newer = feed.since(2);
+        assertThat(newer.getEvents().size(), is(1));
+        assertThat(newer.getEvents().get(0).getDiff(), is(diff("i-3")));
+
+        assertThat(feed.since(3).getEvents().size(), is(0));
+    }
+
+    /**
+     * A client whose cursor refers to evicted events, or which is ahead of the
+     * feed, should be asked to resync.
+     */
+    @Test
+    public void resyncOnUnknownCursor() {
+        PoolChangeFeed feed = new PoolChangeFeed(2);
+        feed.publish(diff("i-1"));
+        feed.publish(diff("i-2"));
+        feed.publish(diff("i-3"));
+
+        // event 2 is still retained
+        assertFalse(feed.since(1).isResyncRequired());
+        // event 1 has been evicted
+        PoolChanges changes = feed.since(0);
+        assertTrue(changes.isResyncRequired());
+        assertThat(changes.getCursor(), is(3L));
+        assertThat(changes.getEvents().size(), is(0));
+
+        // cursor from before a restart
+        assertTrue(feed.since(10).isResyncRequired());
+    }
+
+    /**
+     * A waiting reader should be woken up by a published event.
+     */
+    @Test
+    public void awaitWakesUpOnPublish() throws Exception {
+        PoolChangeFeed feed = new PoolChangeFeed();
+        Future<PoolChanges> reader = this.executor.submit(() -> feed.await(0, 10, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertFalse(reader.isDone());
+
+        feed.publish(diff("i-1"));
+        PoolChanges changes = reader.get(5, TimeUnit.SECONDS);
+        assertThat(changes.getCursor(), is(1L));
+        assertThat(changes.getEvents().size(), is(1));
+    }
+
+    /**
+     * A waiting reader should get an empty batch when the timeout expires.
+     */
+    @Test
+    public void awaitTimesOut() throws Exception {
+        PoolChangeFeed feed = new PoolChangeFeed();
+        feed.publish(diff("i-1"));
+
+        PoolChanges changes = feed.await(1, 100, TimeUnit.MILLISECONDS);
+        assertFalse(changes.isResyncRequired());
+        assertThat(changes.getCursor(), is(1L));
+        assertThat(changes.getEvents().size(), is(0));
+    }
+
+    private static MachinePoolDiff diff(String addedMachineId) {
+        Machine added = Machine.builder().id(addedMachineId).machineState(MachineState.PENDING)
+                .cloudProvider("AWS-EC2").region("us-east-1").machineSize("m1.small").build();
+        return new MachinePoolDiff(null, UtcTime.parse("2018-01-01T12:00:00.000Z"), Collections.singletonList(added),
+                Collections.emptyList(), Collections.emptyList());
+    }
+}
@@ -1,7 +1,9 @@
 package com.elastisys.scale.cloudpool.api.client;
 
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
@@ -12,6 +14,10 @@ import static org.mockito.Mockito.when;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.server.Server;
 import org.joda.time.DateTime;
@@ -21,10 +27,12 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.elastisys.scale.cloudpool.api.CloudPool;
+import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.server.CloudPoolOptions;
 import com.elastisys.scale.cloudpool.api.server.CloudPoolServer;
+import com.elastisys.scale.cloudpool.api.types.BatchOperationResult;
 import com.elastisys.scale.cloudpool.api.types.CloudPoolStatus;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
@@ -33,6 +41,7 @@ import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.net.host.HostUtils;
 import com.elastisys.scale.commons.net.http.client.AuthenticatedHttpClient;
+import com.elastisys.scale.commons.util.collection.Maps;
 import com.elastisys.scale.commons.util.io.Resources;
 import com.elastisys.scale.commons.util.time.UtcTime;
 import com.google.gson.JsonObject;
@@ -197,19 +206,75 @@ public class TestCloudPoolClient {
 
     @Test
     public void terminateMachine() {
+        doReturn(CompletableFuture.completedFuture(null)).when(cloudPool).terminateMachineAsync("i-1", true);
+
         client.terminateMachine("i-1", true);
 
         // verify that call was made to cloudpool backend
-        verify(cloudPool).terminateMachine("i-1", true);
+        verify(cloudPool).terminateMachineAsync("i-1", true);
     }
 
     @Test(expected = NotFoundException.class)
     public void terminateInvalidMachine() {
-        doThrow(new NotFoundException("not recognized!")).when(cloudPool).terminateMachine("i-X", true);
+        doThrow(new NotFoundException("not recognized!")).when(cloudPool).terminateMachineAsync("i-X", true);
 
         client.terminateMachine("i-X", true);
     }
 
+    /**
+     * The cloud pool answers without waiting for a termination to complete.
+     * The client should follow a pending termination until it completes.
+     */
+    @Test
+    public void terminateMachineWhenPending() throws Exception {
+        CompletableFuture<Void> termination = new CompletableFuture<>();
+        doReturn(termination).when(cloudPool).terminateMachineAsync("i-1", true);
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            executor.schedule(() -> termination.complete(null), 1, TimeUnit.SECONDS);
+            client.terminateMachine("i-1", true);
+            assertThat(termination.isDone(), is(true));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A termination that is still pending when the client stops following
+     * it should be reported as a {@link CloudPoolException}, not as a success.
+     */
+    @Test(expected = CloudPoolException.class)
+    public void terminateMachineStillPending() {
+        CloudPoolClient impatientClient = new CloudPoolClient(new AuthenticatedHttpClient(), "localhost", httpsPort,
+                0);
+        doReturn(new CompletableFuture<>()).when(cloudPool).terminateMachineAsync("i-1", true);
+
+        impatientClient.terminateMachine("i-1", true);
+    }
+
+    @Test
+    public void terminateMachines() {
+        BatchOperationResult result = new BatchOperationResult(asList("i-1"), Maps.of("i-X", "not a pool member"));
+        when(cloudPool.terminateMachines(asList("i-1", "i-X"), true)).thenReturn(result);
+
+        assertThat(client.terminateMachines(asList("i-1", "i-X"), true), is(result));
+
+        // verify that a single call was made to cloudpool backend
+        verify(cloudPool).terminateMachines(asList("i-1", "i-X"), true);
+    }
+
+    @Test
+    public void detachMachines() {
+        BatchOperationResult result = new BatchOperationResult(asList("i-1", "i-2"), Maps.of());
+        when(cloudPool.detachMachines(asList("i-1", "i-2"), false)).thenReturn(result);
+
+        assertThat(client.detachMachines(asList("i-1", "i-2"), false), is(result));
+
+        // verify that a single call was made to cloudpool backend
+        verify(cloudPool).detachMachines(asList("i-1", "i-2"), false);
+    }
+
     @Test
     public void setServiceStateMachine() {
         client.setServiceState("i-1", ServiceState.UNHEALTHY);
@@ -244,30 +309,59 @@ public class TestCloudPoolClient {
 
     @Test
     public void attachMachine() {
+        doReturn(CompletableFuture.completedFuture(null)).when(cloudPool).attachMachineAsync("i-1");
+
         client.attachMachine("i-1");
 
         // verify that call was made to cloudpool backend
-        verify(cloudPool).attachMachine("i-1");
+        verify(cloudPool).attachMachineAsync("i-1");
     }
 
+    /**
+     * The existence of a machine to attach is only determined once the attach
+     * is carried out, so the attach fails asynchronously.
+     */
     @Test(expected = NotFoundException.class)
     public void attachInvalidMachine() {
-        doThrow(new NotFoundException("not recognized!")).when(cloudPool).attachMachine("i-X");
+        CompletableFuture<Void> attach = new CompletableFuture<>();
+        attach.completeExceptionally(new NotFoundException("not recognized!"));
+        doReturn(attach).when(cloudPool).attachMachineAsync("i-X");
 
         client.attachMachine("i-X");
     }
 
+    /**
+     * An attach that fails after the cloud pool has answered should be
+     * reported to the client just like an attach that fails right away.
+     */
+    @Test(expected = NotFoundException.class)
+    public void attachInvalidMachineWhenPending() {
+        CompletableFuture<Void> attach = new CompletableFuture<>();
+        doReturn(attach).when(cloudPool).attachMachineAsync("i-X");
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            executor.schedule(() -> attach.completeExceptionally(new NotFoundException("not recognized!")), 1,
+                    TimeUnit.SECONDS);
+            client.attachMachine("i-X");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void detachMachine() {
+        doReturn(CompletableFuture.completedFuture(null)).when(cloudPool).detachMachineAsync("i-1", false);
+
         client.detachMachine("i-1", false);
 
         // verify that call was made to cloudpool backend
-        verify(cloudPool).detachMachine("i-1", false);
+        verify(cloudPool).detachMachineAsync("i-1", false);
     }
 
     @Test(expected = NotFoundException.class)
     public void detachInvalidMachine() {
-        doThrow(new NotFoundException("not recognized!")).when(cloudPool).detachMachine("i-X", false);
+        doThrow(new NotFoundException("not recognized!")).when(cloudPool).detachMachineAsync("i-X", false);
 
         client.detachMachine("i-X", false);
     }
@@ -0,0 +1,151 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Exercises the {@link MetricRegistry}.
+ */
+public class TestMetricRegistry {
+
+    private final MetricRegistry registry = new MetricRegistry();
+
+    /**
+     * Asking for a counter with the same name and labels should return the
+     * same instance.
+     */
+    @Test
+    public void counters() {
+        Counter counter = this.registry.counter("requests_total", "Requests.", "operation", "start");
+        counter.inc();
+        counter.inc(2);
+        assertSame(counter, this.registry.counter("requests_total", "Requests.", "operation", "start"));
+        this.registry.counter("requests_total", "Requests.", "operation", "stop").inc();
+
+        assertThat(this.registry.getSamples().size(), is(2));
+        assertThat(this.registry.getSamples().get(0), is(sample("requests_total", 3, "operation", "start")));
+        assertThat(this.registry.getSamples().get(1), is(sample("requests_total", 1, "operation", "stop")));
+    }
+
+    /**
+     * Histogram buckets should be cumulative and followed by a +Inf bucket,
+     * a sum and a count.
+     */
+    @Test
+    public void histograms() {
+        Histogram histogram = this.registry.histogram("latency_seconds", "Latency.", new double[] { 0.1, 1.0 });
+        histogram.observe(0.05);
+        histogram.observe(0.5);
+        histogram.observe(2.0);
+
+        assertThat(this.registry.getSamples().size(), is(5));
+        assertThat(this.registry.getSamples().get(0), is(sample("latency_seconds_bucket", 1, "le", "0.1")));
+        assertThat(this.registry.getSamples().get(1), is(sample("latency_seconds_bucket", 2, "le", "1")));
+        assertThat(this.registry.getSamples().get(2), is(sample("latency_seconds_bucket", 3, "le", "+Inf")));
+        assertThat(this.registry.getSamples().get(3), is(sample("latency_seconds_sum", 2.55)));
+        assertThat(this.registry.getSamples().get(4), is(sample("latency_seconds_count", 3)));
+    }
+
+    /**
+     * A gauge is sampled on every read. A failing gauge supplier should be
+     * sampled as NaN.
+     */
+    @Test
+    public void gauges() {
+        double[] value = { 1.0 };
+        this.registry.gauge("size", "Size.", () -> value[0]);
+        assertThat(this.registry.getSamples().get(0), is(sample("size", 1.0)));
+        value[0] = 2.0;
+        assertThat(this.registry.getSamples().get(0), is(sample("size", 2.0)));
+
+        this.registry.gauge("size", "Size.", () -> {
+            throw new IllegalStateException("no value");
+        });
+        assertTrue(Double.isNaN(this.registry.getSamples().get(0).getValue()));
+    }
+
+    /**
+     * A counter backed by a count kept elsewhere is sampled on every read and
+     * rendered as a counter.
+     */
+    @Test
+    public void supplierCounters() {
+        long[] count = { 1 };
+        this.registry.counter("dropped_total", "Dropped.", () -> count[0]);
+        assertThat(this.registry.getSamples().get(0), is(sample("dropped_total", 1)));
+        count[0] = 5;
+        assertThat(this.registry.getSamples().get(0), is(sample("dropped_total", 5)));
+        assertThat(this.registry.toPrometheusText(), containsString("# TYPE dropped_total counter\n"));
+    }
+
+    /**
+     * A counter backed by a value supplier cannot be incremented.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void incrementSupplierCounter() {
+        this.registry.counter("dropped_total", "Dropped.", () -> 1L);
+        this.registry.counter("dropped_total", "Dropped.");
+    }
+
+    /**
+     * Metrics should be rendered in the Prometheus text format, ordered by
+     * name.
+     */
+    @Test
+    public void prometheusText() {
+        this.registry.gauge("b_size", "Pool size.", () -> 3);
+        this.registry.counter("a_errors_total", "Errors.", "exception", "Bad \"thing\"").inc();
+
+        String expected = "# HELP a_errors_total Errors.\n" //
+                + "# TYPE a_errors_total counter\n" //
+                + "a_errors_total{exception=\"Bad \\\"thing\\\"\"} 1\n" //
+                + "# HELP b_size Pool size.\n" //
+                + "# TYPE b_size gauge\n" //
+                + "b_size 3\n";
+        assertThat(this.registry.toPrometheusText(), is(expected));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void registerWithIllegalName() {
+        this.registry.counter("bad-name", "Bad.");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void registerWithOddNumberOfLabels() {
+        this.registry.counter("errors_total", "Errors.", "operation");
+    }
+
+    /**
+     * The same name cannot be used for metrics of different types.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void registerWithConflictingType() {
+        this.registry.counter("errors_total", "Errors.");
+        this.registry.histogram("errors_total", "Errors.");
+    }
+
+    /**
+     * All metrics with the same name must have the same label names.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void registerWithConflictingLabels() {
+        this.registry.counter("errors_total", "Errors.", "operation", "start");
+        this.registry.counter("errors_total", "Errors.", "exception", "IOException");
+    }
+
+    private static MetricSample sample(String name, double value, String... labels) {
+        Map<String, String> labelMap = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i += 2) {
+            labelMap.put(labels[i], labels[i + 1]);
+        }
+        return new MetricSample(name, labelMap, value);
+    }
+}
@@ -0,0 +1,113 @@
+package com.elastisys.scale.cloudpool.api.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Exercises the {@link MetricsMBean}.
+ */
+public class TestMetricsMBean {
+
+    private final MetricRegistry registry = new MetricRegistry();
+    private final MetricsMBean mbean = new MetricsMBean(this.registry);
+
+    @After
+    public void afterTestMethod() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(MetricsMBean.OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    /**
+     * Every metric sample should be exposed as a read-only attribute, named by
+     * its sample key.
+     */
+    @Test
+    public void attributes() throws Exception {
+        this.registry.counter("errors_total", "Errors.", "operation", "start").inc(2);
+        this.registry.gauge("pool_size", "Pool size.", () -> 3);
+
+        List<String> names = Arrays.stream(this.mbean.getMBeanInfo().getAttributes())
+                .map(MBeanAttributeInfo::getName).collect(Collectors.toList());
+        assertThat(names, is(Arrays.asList("errors_total{operation=\"start\"}", "pool_size")));
+        for (MBeanAttributeInfo attribute : this.mbean.getMBeanInfo().getAttributes()) {
+            assertThat(attribute.getType(), is("double"));
+            assertTrue(attribute.isReadable());
+            assertThat(attribute.isWritable(), is(false));
+        }
+
+        assertThat(this.mbean.getAttribute("errors_total{operation=\"start\"}"), is(2.0));
+        assertThat(this.mbean.getAttribute("pool_size"), is(3.0));
+
+        AttributeList attributes = this.mbean.getAttributes(new String[] { "pool_size", "no_such_metric" });
+        assertThat(attributes.asList(), is(Arrays.asList(new Attribute("pool_size", 3.0))));
+    }
+
+    /**
+     * Attributes should reflect the current value of a metric.
+     */
+    @Test
+    public void attributesAreLive() throws Exception {
+        Counter counter = this.registry.counter("errors_total", "Errors.");
+        assertThat(this.mbean.getAttribute("errors_total"), is(0.0));
+        counter.inc();
+        assertThat(this.mbean.getAttribute("errors_total"), is(1.0));
+    }
+
+    @Test(expected = AttributeNotFoundException.class)
+    public void getUnknownAttribute() throws Exception {
+        this.mbean.getAttribute("no_such_metric");
+    }
+
+    @Test(expected = AttributeNotFoundException.class)
+    public void setAttribute() throws Exception {
+        this.registry.gauge("pool_size", "Pool size.", () -> 3);
+        this.mbean.setAttribute(new Attribute("pool_size", 4.0));
+    }
+
+    /**
+     * The MBean has no operations.
+     */
+    @Test(expected = ReflectionException.class)
+    public void invoke() throws Exception {
+        this.mbean.invoke("reset", new Object[0], new String[0]);
+    }
+
+    /**
+     * A registered MBean should be reachable through the platform
+     * {@link MBeanServer}. Registering again should replace it.
+     */
+    @Test
+    public void register() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(MetricsMBean.OBJECT_NAME);
+
+        MetricRegistry first = new MetricRegistry();
+        first.gauge("pool_size", "Pool size.", () -> 1);
+        MetricsMBean.register(first);
+        assertThat(server.getAttribute(name, "pool_size"), is(1.0));
+
+        this.registry.gauge("pool_size", "Pool size.", () -> 2);
+        MetricsMBean.register(this.registry);
+        assertThat(server.getAttribute(name, "pool_size"), is(2.0));
+    }
+}
@@ -3,11 +3,13 @@ package com.elastisys.scale.cloudpool.api.restapi;
 import static com.elastisys.scale.commons.json.JsonUtils.parseJsonString;
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -18,6 +20,7 @@ import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -33,20 +36,26 @@ import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.restapi.impl.CloudPoolRestApiImpl;
 import com.elastisys.scale.cloudpool.api.restapi.types.AttachMachineRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachineRequest;
+import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachinesRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetDesiredSizeRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetMembershipStatusRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetServiceStateRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.TerminateMachineRequest;
+import com.elastisys.scale.cloudpool.api.restapi.types.TerminateMachinesRequest;
+import com.elastisys.scale.cloudpool.api.types.BatchOperationResult;
 import com.elastisys.scale.cloudpool.api.types.CloudPoolStatus;
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.PoolMutationStatus;
+import com.elastisys.scale.cloudpool.api.types.PoolMutationStatus.State;
 import com.elastisys.scale.cloudpool.api.types.PoolSizeSummary;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.api.types.TestUtils;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.json.types.ErrorType;
+import com.elastisys.scale.commons.util.collection.Maps;
 import com.elastisys.scale.commons.util.time.UtcTime;
 import com.google.gson.JsonObject;
 
@@ -297,11 +306,30 @@ public class TestCloudPoolDispatch {
         when(this.cloudPoolMock.getMachinePool()).thenReturn(pool);
 
         // call rest endpoint and verify proper dispatching to mock
-        Response response = this.restEndpoint.getPool();
+        Response response = this.restEndpoint.getPool(null);
         assertEquals(response.getStatus(), Status.OK.getStatusCode());
         assertEquals(response.getEntity(), pool.toJson());
     }
 
+    /**
+     * A {@code maxStaleness} query parameter should be passed on to the
+     * backing {@link CloudPool}. A negative value is a bad request.
+     */
+    @Test
+    public void testGetPoolWithMaxStalenessDispatch() throws Exception {
+        MachinePool pool = TestUtils.pool(DateTime.parse("2014-01-13T12:00:00.000Z"));
+        when(this.cloudPoolMock.getMachinePool(5000L)).thenReturn(pool);
+
+        Response response = this.restEndpoint.getPool(5000L);
+        assertEquals(response.getStatus(), Status.OK.getStatusCode());
+        assertEquals(response.getEntity(), pool.toJson());
+        verify(this.cloudPoolMock).getMachinePool(5000L);
+
+        response = this.restEndpoint.getPool(-1L);
+        assertEquals(response.getStatus(), Status.BAD_REQUEST.getStatusCode());
+        assertThat(response.getEntity(), instanceOf(ErrorType.class));
+    }
+
     /**
      * Verify proper handling of {@code getPool} calls when a cloud error is
      * thrown from the backing {@link CloudPool}. In these cases, the server
@@ -314,7 +342,7 @@ public class TestCloudPoolDispatch {
         when(this.cloudPoolMock.getMachinePool()).thenThrow(CloudPoolException.class);
 
         // call rest endpoint and verify proper dispatching to mock
-        Response response = this.restEndpoint.getPool();
+        Response response = this.restEndpoint.getPool(null);
         assertEquals(response.getStatus(), Status.BAD_GATEWAY.getStatusCode());
         assertThat(response.getEntity(), instanceOf(ErrorType.class));
     }
@@ -330,7 +358,7 @@ public class TestCloudPoolDispatch {
         when(this.cloudPoolMock.getMachinePool()).thenThrow(new RuntimeException("buggy code"));
 
         // call rest endpoint and verify proper dispatching to mock
-        Response response = this.restEndpoint.getPool();
+        Response response = this.restEndpoint.getPool(null);
         assertEquals(response.getStatus(), Status.INTERNAL_SERVER_ERROR.getStatusCode());
         assertThat(response.getEntity(), instanceOf(ErrorType.class));
     }
@@ -452,13 +480,74 @@ public class TestCloudPoolDispatch {
     @Test
     public void testTerminateMachineDispatch() throws Exception {
         // set up mock response
-        doNothing().when(this.cloudPoolMock).terminateMachine("i-1", false);
+        when(this.cloudPoolMock.terminateMachineAsync("i-1", false))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.terminateMachine(new TerminateMachineRequest("i-1", false));
         assertEquals(response.getStatus(), Status.OK.getStatusCode());
     }
 
+    /**
+     * A {@code terminateMachine} call whose termination has not completed
+     * should be answered with a {@code 202} right away. The termination can
+     * then be followed via {@code getPoolMutation} until it completes.
+     */
+    @Test
+    public void testTerminateMachineDispatchWhenPending() throws Exception {
+        // set up mock response
+        CompletableFuture<Void> termination = new CompletableFuture<>();
+        doReturn(termination).when(this.cloudPoolMock).terminateMachineAsync("i-1", false);
+
+        Response response = this.restEndpoint.terminateMachine(new TerminateMachineRequest("i-1", false));
+        assertEquals(response.getStatus(), Status.ACCEPTED.getStatusCode());
+        PoolMutationStatus pending = mutationStatus(response);
+        assertThat(pending.getState(), is(State.PENDING));
+        assertThat(response.getLocation().toString(), is("pool/mutations/" + pending.getId()));
+
+        response = this.restEndpoint.getPoolMutation(pending.getId());
+        assertEquals(response.getStatus(), Status.OK.getStatusCode());
+        assertThat(mutationStatus(response), is(new PoolMutationStatus(pending.getId(), State.PENDING)));
+
+        termination.complete(null);
+        response = this.restEndpoint.getPoolMutation(pending.getId());
+        assertEquals(response.getStatus(), Status.OK.getStatusCode());
+        assertThat(mutationStatus(response), is(new PoolMutationStatus(pending.getId(), State.SUCCEEDED)));
+    }
+
+    /**
+     * A termination that fails after its {@code terminateMachine} call was
+     * answered with a {@code 202} should be reported as failed, with the
+     * error code that the call would have been answered with.
+     */
+    @Test
+    public void testTerminateMachineFailingWhenPending() throws Exception {
+        // set up mock response
+        CompletableFuture<Void> termination = new CompletableFuture<>();
+        doReturn(termination).when(this.cloudPoolMock).terminateMachineAsync("i-1", false);
+
+        Response response = this.restEndpoint.terminateMachine(new TerminateMachineRequest("i-1", false));
+        assertEquals(response.getStatus(), Status.ACCEPTED.getStatusCode());
+        String id = mutationStatus(response).getId();
+
+        termination.completeExceptionally(new CloudPoolException("cloud api outage"));
+        response = this.restEndpoint.getPoolMutation(id);
+        assertEquals(response.getStatus(), Status.OK.getStatusCode());
+        assertThat(mutationStatus(response), is(new PoolMutationStatus(id, State.FAILED,
+                Status.BAD_GATEWAY.getStatusCode(), "cloud api outage")));
+    }
+
+    /**
+     * A {@code getPoolMutation} call for an unknown mutation should be
+     * answered with a {@code 404}.
+     */
+    @Test
+    public void testGetUnknownPoolMutation() {
+        Response response = this.restEndpoint.getPoolMutation("unknown");
+        assertEquals(response.getStatus(), Status.NOT_FOUND.getStatusCode());
+        assertThat(response.getEntity(), instanceOf(ErrorType.class));
+    }
+
     /**
      * Verify proper handling of {@code terminateMachine} calls when a
      * {@link NotFoundException} is thrown from the backing {@link CloudPool}.
@@ -467,7 +556,7 @@ public class TestCloudPoolDispatch {
     @Test
     public void testTerminateMachineOnNotFoundError() throws Exception {
         // set up mock response
-        doThrow(NotFoundException.class).when(this.cloudPoolMock).terminateMachine("i-X", false);
+        doThrow(NotFoundException.class).when(this.cloudPoolMock).terminateMachineAsync("i-X", false);
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.terminateMachine(new TerminateMachineRequest("i-X", false));
@@ -476,14 +565,15 @@ public class TestCloudPoolDispatch {
     }
 
     /**
-     * Verify proper handling of {@code terminateMachine} calls when a cloud
-     * error is thrown from the backing {@link CloudPool}. In these cases, the
-     * server should respond with {@code 502}.
+     * Verify proper handling of {@code terminateMachine} calls when the
+     * operation fails with a cloud error in the backing {@link CloudPool}. In
+     * these cases, the server should respond with {@code 502}.
      */
     @Test
     public void testTerminateMachineDispatchOnCloudError() throws Exception {
         // set up mock response
-        doThrow(new CloudPoolException("cloud api outage")).when(this.cloudPoolMock).terminateMachine("i-1", false);
+        doReturn(failed(new CloudPoolException("cloud api outage")))
+                .when(this.cloudPoolMock).terminateMachineAsync("i-1", false);
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.terminateMachine(new TerminateMachineRequest("i-1", false));
@@ -492,14 +582,15 @@ public class TestCloudPoolDispatch {
     }
 
     /**
-     * Verify proper handling of {@code terminateMachine} calls when an internal
-     * error is thrown from the backing {@link CloudPool}. In these cases, the
-     * server should respond with {@code 500}.
+     * Verify proper handling of {@code terminateMachine} calls when the
+     * operation fails with an internal error in the backing {@link CloudPool}.
+     * In these cases, the server should respond with {@code 500}.
      */
     @Test
     public void testTerminateMachineDispatchOnInternalError() throws Exception {
         // set up mock response
-        doThrow(new RuntimeException("buggy code")).when(this.cloudPoolMock).terminateMachine("i-1", false);
+        doReturn(failed(new RuntimeException("buggy code")))
+                .when(this.cloudPoolMock).terminateMachineAsync("i-1", false);
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.terminateMachine(new TerminateMachineRequest("i-1", false));
@@ -507,6 +598,69 @@ public class TestCloudPoolDispatch {
         assertThat(response.getEntity(), instanceOf(ErrorType.class));
     }
 
+    /**
+     * Verify proper delegation of {@code terminateMachines} to backing
+     * {@link CloudPool}. Per-machine results should be returned.
+     */
+    @Test
+    public void testTerminateMachinesDispatch() throws Exception {
+        // set up mock response
+        BatchOperationResult result = new BatchOperationResult(asList("i-1"),
+                Maps.of("i-X", "machine i-X is not a pool member"));
+        when(this.cloudPoolMock.terminateMachines(asList("i-1", "i-X"), true)).thenReturn(result);
+
+        // call rest endpoint and verify proper dispatching to mock
+        Response response = this.restEndpoint
+                .terminateMachines(new TerminateMachinesRequest(asList("i-1", "i-X"), true));
+        assertEquals(response.getStatus(), Status.OK.getStatusCode());
+        assertEquals(JsonUtils.toJson(result), response.getEntity());
+        verify(this.cloudPoolMock).terminateMachines(asList("i-1", "i-X"), true);
+    }
+
+    /**
+     * A {@code terminateMachines} call without machines should be rejected
+     * with a {@code 400}.
+     */
+    @Test
+    public void testTerminateMachinesWithoutMachineIds() throws Exception {
+        Response response = this.restEndpoint.terminateMachines(new TerminateMachinesRequest(asList(), true));
+        assertEquals(response.getStatus(), Status.BAD_REQUEST.getStatusCode());
+        assertThat(response.getEntity(), instanceOf(ErrorType.class));
+    }
+
+    /**
+     * Verify proper handling of {@code terminateMachines} calls when a cloud
+     * error is thrown from the backing {@link CloudPool}. In these cases, the
+     * server should respond with {@code 502}.
+     */
+    @Test
+    public void testTerminateMachinesDispatchOnCloudError() throws Exception {
+        // set up mock response
+        doThrow(new CloudPoolException("cloud api outage")).when(this.cloudPoolMock)
+                .terminateMachines(asList("i-1"), false);
+
+        Response response = this.restEndpoint.terminateMachines(new TerminateMachinesRequest(asList("i-1"), false));
+        assertEquals(response.getStatus(), Status.BAD_GATEWAY.getStatusCode());
+        assertThat(response.getEntity(), instanceOf(ErrorType.class));
+    }
+
+    /**
+     * Verify proper delegation of {@code detachMachines} to backing
+     * {@link CloudPool}.
+     */
+    @Test
+    public void testDetachMachinesDispatch() throws Exception {
+        // set up mock response
+        BatchOperationResult result = new BatchOperationResult(asList("i-1", "i-2"), Maps.of());
+        when(this.cloudPoolMock.detachMachines(asList("i-1", "i-2"), false)).thenReturn(result);
+
+        // call rest endpoint and verify proper dispatching to mock
+        Response response = this.restEndpoint.detachMachines(new DetachMachinesRequest(asList("i-1", "i-2"), false));
+        assertEquals(response.getStatus(), Status.OK.getStatusCode());
+        assertEquals(JsonUtils.toJson(result), response.getEntity());
+        verify(this.cloudPoolMock).detachMachines(asList("i-1", "i-2"), false);
+    }
+
     /**
      * Verify proper delegation of {@code detachMachine} to backing
      * {@link CloudPool}.
@@ -514,7 +668,7 @@ public class TestCloudPoolDispatch {
     @Test
     public void testDetachMachineDispatch() throws Exception {
         // set up mock response
-        doNothing().when(this.cloudPoolMock).detachMachine("i-1", false);
+        when(this.cloudPoolMock.detachMachineAsync("i-1", false)).thenReturn(CompletableFuture.completedFuture(null));
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.detachMachine(new DetachMachineRequest("i-1", false));
@@ -529,7 +683,7 @@ public class TestCloudPoolDispatch {
     @Test
     public void testDetachMachineOnNotFoundError() throws Exception {
         // set up mock response
-        doThrow(NotFoundException.class).when(this.cloudPoolMock).detachMachine("i-X", false);
+        doThrow(NotFoundException.class).when(this.cloudPoolMock).detachMachineAsync("i-X", false);
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.detachMachine(new DetachMachineRequest("i-X", false));
@@ -538,14 +692,15 @@ public class TestCloudPoolDispatch {
     }
 
     /**
-     * Verify proper handling of {@code detachMachine} calls when a cloud error
-     * is thrown from the backing {@link CloudPool}. In these cases, the server
-     * should respond with {@code 502}.
+     * Verify proper handling of {@code detachMachine} calls when the
+     * operation fails with a cloud error in the backing {@link CloudPool}. In
+     * these cases, the server should respond with {@code 502}.
      */
     @Test
     public void testDetachMachineDispatchOnCloudError() throws Exception {
         // set up mock response
-        doThrow(new CloudPoolException("cloud api outage")).when(this.cloudPoolMock).detachMachine("i-1", false);
+        doReturn(failed(new CloudPoolException("cloud api outage")))
+                .when(this.cloudPoolMock).detachMachineAsync("i-1", false);
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.detachMachine(new DetachMachineRequest("i-1", false));
@@ -554,14 +709,14 @@ public class TestCloudPoolDispatch {
     }
 
     /**
-     * Verify proper handling of {@code detachMachine} calls when an internal
-     * error is thrown from the backing {@link CloudPool}. In these cases, the
-     * server should respond with {@code 500}.
+     * Verify proper handling of {@code detachMachine} calls when the
+     * operation fails with an internal error in the backing {@link CloudPool}.
+     * In these cases, the server should respond with {@code 500}.
      */
     @Test
     public void testDetachMachineDispatchOnInternalError() throws Exception {
         // set up mock response
-        doThrow(new RuntimeException("buggy code")).when(this.cloudPoolMock).detachMachine("i-1", false);
+        doReturn(failed(new RuntimeException("buggy code"))).when(this.cloudPoolMock).detachMachineAsync("i-1", false);
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.detachMachine(new DetachMachineRequest("i-1", false));
@@ -576,7 +731,7 @@ public class TestCloudPoolDispatch {
     @Test
     public void testAttachMachineDispatch() throws Exception {
         // set up mock response
-        doNothing().when(this.cloudPoolMock).attachMachine("i-1");
+        when(this.cloudPoolMock.attachMachineAsync("i-1")).thenReturn(CompletableFuture.completedFuture(null));
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.attachMachine(new AttachMachineRequest("i-1"));
@@ -584,14 +739,37 @@ public class TestCloudPoolDispatch {
     }
 
     /**
-     * Verify proper handling of {@code attachMachine} calls when a
-     * {@link NotFoundException} is thrown from the backing {@link CloudPool}.
+     * An {@code attachMachine} call whose attach has not completed should be
+     * answered with a {@code 202} right away. A machine that later turns out
+     * not to exist should be reported as a failed mutation with error code
+     * {@code 404}.
+     */
+    @Test
+    public void testAttachMachineDispatchWhenPending() throws Exception {
+        // set up mock response
+        CompletableFuture<Void> attach = new CompletableFuture<>();
+        doReturn(attach).when(this.cloudPoolMock).attachMachineAsync("i-X");
+
+        Response response = this.restEndpoint.attachMachine(new AttachMachineRequest("i-X"));
+        assertEquals(response.getStatus(), Status.ACCEPTED.getStatusCode());
+        String id = mutationStatus(response).getId();
+
+        attach.completeExceptionally(new NotFoundException("no such machine"));
+        response = this.restEndpoint.getPoolMutation(id);
+        assertEquals(response.getStatus(), Status.OK.getStatusCode());
+        assertThat(mutationStatus(response), is(new PoolMutationStatus(id, State.FAILED,
+                Status.NOT_FOUND.getStatusCode(), "no such machine")));
+    }
+
+    /**
+     * Verify proper handling of {@code attachMachine} calls when the attach
+     * fails with a {@link NotFoundException} in the backing {@link CloudPool}.
      * In these cases, the server should respond with {@code 404}.
      */
     @Test
     public void testAttachMachineOnNotFoundError() throws Exception {
         // set up mock response
-        doThrow(NotFoundException.class).when(this.cloudPoolMock).attachMachine("i-X");
+        doReturn(failed(new NotFoundException("no such machine"))).when(this.cloudPoolMock).attachMachineAsync("i-X");
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.attachMachine(new AttachMachineRequest("i-X"));
@@ -600,14 +778,14 @@ public class TestCloudPoolDispatch {
     }
 
     /**
-     * Verify proper handling of {@code attachMachine} calls when a cloud error
-     * is thrown from the backing {@link CloudPool}. In these cases, the server
-     * should respond with {@code 502}.
+     * Verify proper handling of {@code attachMachine} calls when the
+     * operation fails with a cloud error in the backing {@link CloudPool}. In
+     * these cases, the server should respond with {@code 502}.
      */
     @Test
     public void testAttachMachineDispatchOnCloudError() throws Exception {
         // set up mock response
-        doThrow(new CloudPoolException("cloud api outage")).when(this.cloudPoolMock).attachMachine("i-1");
+        doReturn(failed(new CloudPoolException("cloud api outage"))).when(this.cloudPoolMock).attachMachineAsync("i-1");
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.attachMachine(new AttachMachineRequest("i-1"));
@@ -616,14 +794,14 @@ public class TestCloudPoolDispatch {
     }
 
     /**
-     * Verify proper handling of {@code attachMachine} calls when an internal
-     * error is thrown from the backing {@link CloudPool}. In these cases, the
-     * server should respond with {@code 500}.
+     * Verify proper handling of {@code attachMachine} calls when the
+     * operation fails with an internal error in the backing {@link CloudPool}.
+     * In these cases, the server should respond with {@code 500}.
      */
     @Test
     public void testAttachMachineDispatchOnInternalError() throws Exception {
         // set up mock response
-        doThrow(new RuntimeException("buggy code")).when(this.cloudPoolMock).attachMachine("i-1");
+        doReturn(failed(new RuntimeException("buggy code"))).when(this.cloudPoolMock).attachMachineAsync("i-1");
 
         // call rest endpoint and verify proper dispatching to mock
         Response response = this.restEndpoint.attachMachine(new AttachMachineRequest("i-1"));
@@ -767,4 +945,21 @@ public class TestCloudPoolDispatch {
         assertEquals(response.getStatus(), Status.INTERNAL_SERVER_ERROR.getStatusCode());
         assertThat(response.getEntity(), instanceOf(ErrorType.class));
     }
+
+    /**
+     * Extracts the {@link PoolMutationStatus} from a response.
+     */
+    private static PoolMutationStatus mutationStatus(Response response) {
+        return JsonUtils.toObject((JsonObject) response.getEntity(), PoolMutationStatus.class);
+    }
+
+    /**
+     * Creates a pool mutation {@link CompletableFuture} that has failed with a
+     * given error.
+     */
+    private static CompletableFuture<Void> failed(Exception error) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
 }
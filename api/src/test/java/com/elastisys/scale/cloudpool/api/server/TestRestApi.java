@@ -5,6 +5,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
@@ -37,6 +38,7 @@ import org.mockito.Matchers;
 import com.elastisys.scale.cloudpool.api.CloudPool;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
 import com.elastisys.scale.cloudpool.api.types.CloudPoolStatus;
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
@@ -297,6 +299,48 @@ public class TestRestApi {
         verifyNoMoreInteractions(cloudPool);
     }
 
+    /**
+     * Verifies a {@code 200} response on a {@code GET /metrics}, carrying the
+     * cloud pool's metrics in the Prometheus text exposition format.
+     */
+    @Test
+    public void testGetMetrics() {
+        MetricRegistry metrics = new MetricRegistry();
+        metrics.counter("cloudpool_driver_errors_total", "Failed cloud pool driver calls.", "operation",
+                "listMachines").inc(2);
+        metrics.gauge("cloudpool_desired_size", "The desired number of active machines in the pool.", () -> 3);
+        when(cloudPool.getMetrics()).thenReturn(Optional.of(metrics));
+
+        Client client = RestClients.httpsNoAuth();
+        Response response = client.target(url("/metrics")).request().get();
+        assertThat(response.getStatus(), is(Status.OK.getStatusCode()));
+        assertThat(response.getMediaType().toString(), containsString("text/plain"));
+        assertThat(response.getMediaType().getParameters().get("version"), is("0.0.4"));
+        String expected = "# HELP cloudpool_desired_size The desired number of active machines in the pool.\n" //
+                + "# TYPE cloudpool_desired_size gauge\n" //
+                + "cloudpool_desired_size 3\n" //
+                + "# HELP cloudpool_driver_errors_total Failed cloud pool driver calls.\n" //
+                + "# TYPE cloudpool_driver_errors_total counter\n" //
+                + "cloudpool_driver_errors_total{operation=\"listMachines\"} 2\n";
+        assertThat(response.readEntity(String.class), is(expected));
+
+        verify(cloudPool).getMetrics();
+    }
+
+    /**
+     * Verifies a {@code 404} response on a {@code GET /metrics} against a cloud
+     * pool that does not record metrics.
+     */
+    @Test
+    public void testGetMetricsWhenNotRecorded() {
+        when(cloudPool.getMetrics()).thenReturn(Optional.empty());
+
+        Client client = RestClients.httpsNoAuth();
+        Response response = client.target(url("/metrics")).request().get();
+        assertThat(response.getStatus(), is(Status.NOT_FOUND.getStatusCode()));
+        assertThat(response.readEntity(String.class), containsString("cloud pool does not record metrics"));
+    }
+
     /**
      * An unexpected cloud pool error on {@code GET /pool} should give a
      * {@code 500} response.
@@ -425,7 +469,7 @@ public class TestRestApi {
     @Test
     public void testTerminateMachine() {
         // set up expected call on mock
-        doNothing().when(cloudPool).terminateMachine("i-1", true);
+        when(cloudPool.terminateMachineAsync("i-1", true)).thenReturn(CompletableFuture.completedFuture(null));
 
         // run test
         Client client = RestClients.httpsNoAuth();
@@ -434,7 +478,7 @@ public class TestRestApi {
         assertThat(response.getStatus(), is(Status.OK.getStatusCode()));
 
         // verify dispatch from REST server to cloud pool
-        verify(cloudPool).terminateMachine("i-1", true);
+        verify(cloudPool).terminateMachineAsync("i-1", true);
     }
 
     @Test
@@ -462,7 +506,7 @@ public class TestRestApi {
     @Test
     public void testTerminateMachineOnNotFoundError() {
         // set up expected call on mock
-        doThrow(new NotFoundException("unrecognized!")).when(cloudPool).terminateMachine("i-1", true);
+        doThrow(new NotFoundException("unrecognized!")).when(cloudPool).terminateMachineAsync("i-1", true);
 
         // run test
         Client client = RestClients.httpsNoAuth();
@@ -471,7 +515,7 @@ public class TestRestApi {
         assertThat(response.getStatus(), is(Status.NOT_FOUND.getStatusCode()));
 
         // verify dispatch from REST server to cloud pool
-        verify(cloudPool).terminateMachine("i-1", true);
+        verify(cloudPool).terminateMachineAsync("i-1", true);
     }
 
     /**
@@ -481,7 +525,7 @@ public class TestRestApi {
     @Test
     public void testTerminateMachineOnCloudPoolError() {
         // set up expected call on mock
-        doThrow(new RuntimeException("failed!")).when(cloudPool).terminateMachine("i-1", true);
+        doReturn(failed(new RuntimeException("failed!"))).when(cloudPool).terminateMachineAsync("i-1", true);
 
         // run test
         Client client = RestClients.httpsNoAuth();
@@ -490,7 +534,7 @@ public class TestRestApi {
         assertThat(response.getStatus(), is(Status.INTERNAL_SERVER_ERROR.getStatusCode()));
 
         // verify dispatch from REST server to cloud pool
-        verify(cloudPool).terminateMachine("i-1", true);
+        verify(cloudPool).terminateMachineAsync("i-1", true);
     }
 
     /**
@@ -500,7 +544,7 @@ public class TestRestApi {
     @Test
     public void testDetachMachine() {
         // set up expected call on mock
-        doNothing().when(cloudPool).detachMachine("i-1", true);
+        when(cloudPool.detachMachineAsync("i-1", true)).thenReturn(CompletableFuture.completedFuture(null));
 
         // run test
         Client client = RestClients.httpsNoAuth();
@@ -509,7 +553,7 @@ public class TestRestApi {
         assertThat(response.getStatus(), is(Status.OK.getStatusCode()));
 
         // verify dispatch from REST server to cloud pool
-        verify(cloudPool).detachMachine("i-1", true);
+        verify(cloudPool).detachMachineAsync("i-1", true);
     }
 
     @Test
@@ -537,7 +581,7 @@ public class TestRestApi {
     @Test
     public void testDetachMachineOnNotFoundError() {
         // set up expected call on mock
-        doThrow(new NotFoundException("unrecognized!")).when(cloudPool).detachMachine("i-1", true);
+        doThrow(new NotFoundException("unrecognized!")).when(cloudPool).detachMachineAsync("i-1", true);
 
         // run test
         Client client = RestClients.httpsNoAuth();
@@ -546,7 +590,7 @@ public class TestRestApi {
         assertThat(response.getStatus(), is(Status.NOT_FOUND.getStatusCode()));
 
         // verify dispatch from REST server to cloud pool
-        verify(cloudPool).detachMachine("i-1", true);
+        verify(cloudPool).detachMachineAsync("i-1", true);
     }
 
     /**
@@ -556,7 +600,7 @@ public class TestRestApi {
     @Test
     public void testDetachMachineOnCloudPoolError() {
         // set up expected call on mock
-        doThrow(new RuntimeException("failed!")).when(cloudPool).detachMachine("i-1", true);
+        doReturn(failed(new RuntimeException("failed!"))).when(cloudPool).detachMachineAsync("i-1", true);
 
         // run test
         Client client = RestClients.httpsNoAuth();
@@ -565,7 +609,7 @@ public class TestRestApi {
         assertThat(response.getStatus(), is(Status.INTERNAL_SERVER_ERROR.getStatusCode()));
 
         // verify dispatch from REST server to cloud pool
-        verify(cloudPool).detachMachine("i-1", true);
+        verify(cloudPool).detachMachineAsync("i-1", true);
     }
 
     /**
@@ -575,7 +619,7 @@ public class TestRestApi {
     @Test
     public void testAttachMachine() {
         // set up expected call on mock
-        doNothing().when(cloudPool).attachMachine("i-1");
+        when(cloudPool.attachMachineAsync("i-1")).thenReturn(CompletableFuture.completedFuture(null));
 
         // run test
         Client client = RestClients.httpsNoAuth();
@@ -584,7 +628,7 @@ public class TestRestApi {
         assertThat(response.getStatus(), is(Status.OK.getStatusCode()));
 
         // verify dispatch from REST server to cloud pool
-        verify(cloudPool).attachMachine("i-1");
+        verify(cloudPool).attachMachineAsync("i-1");
     }
 
     @Test
@@ -612,7 +656,7 @@ public class TestRestApi {
     @Test
     public void testAttachMachineOnNotFoundError() {
         // set up expected call on mock
-        doThrow(new NotFoundException("unrecognized!")).when(cloudPool).attachMachine("i-1");
+        doReturn(failed(new NotFoundException("unrecognized!"))).when(cloudPool).attachMachineAsync("i-1");
 
         // run test
         Client client = RestClients.httpsNoAuth();
@@ -621,7 +665,7 @@ public class TestRestApi {
         assertThat(response.getStatus(), is(Status.NOT_FOUND.getStatusCode()));
 
         // verify dispatch from REST server to cloud pool
-        verify(cloudPool).attachMachine("i-1");
+        verify(cloudPool).attachMachineAsync("i-1");
     }
 
     /**
@@ -631,7 +675,7 @@ public class TestRestApi {
     @Test
     public void testAttachMachineOnCloudPoolError() {
         // set up expected call on mock
-        doThrow(new RuntimeException("failed!")).when(cloudPool).attachMachine("i-1");
+        doReturn(failed(new RuntimeException("failed!"))).when(cloudPool).attachMachineAsync("i-1");
 
         // run test
         Client client = RestClients.httpsNoAuth();
@@ -640,7 +684,7 @@ public class TestRestApi {
         assertThat(response.getStatus(), is(Status.INTERNAL_SERVER_ERROR.getStatusCode()));
 
         // verify dispatch from REST server to cloud pool
-        verify(cloudPool).attachMachine("i-1");
+        verify(cloudPool).attachMachineAsync("i-1");
     }
 
     /**
@@ -730,4 +774,13 @@ public class TestRestApi {
         return String.format("https://localhost:%d%s", httpsPort, path);
     }
 
+    /**
+     * Creates a pool mutation {@link CompletableFuture} that has failed with a
+     * given error.
+     */
+    private static CompletableFuture<Void> failed(Exception error) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
 }
@@ -43,6 +43,22 @@ public class TestCloudPoolStatus {
         assertNotEquals(status3, status4);
     }
 
+    /**
+     * A started {@link CloudPoolStatus} is ready unless explicitly marked as
+     * not ready. A stopped one is never ready.
+     */
+    @Test
+    public void readiness() {
+        assertThat(new CloudPoolStatus(true, true).isReady(), is(true));
+        assertThat(new CloudPoolStatus(true, true, null, true).isReady(), is(true));
+        assertThat(new CloudPoolStatus(true, true, null, false).isReady(), is(false));
+        assertThat(new CloudPoolStatus(false, true).isReady(), is(false));
+        assertThat(new CloudPoolStatus(false, true, null, true).isReady(), is(false));
+
+        assertEquals(new CloudPoolStatus(true, true), new CloudPoolStatus(true, true, null, true));
+        assertNotEquals(new CloudPoolStatus(true, true), new CloudPoolStatus(true, true, null, false));
+    }
+
     @Test
     public void constants() {
         assertThat(CloudPoolStatus.UNCONFIGURED_STOPPED, is(new CloudPoolStatus(false, false)));
@@ -8,6 +8,7 @@ import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -400,6 +401,88 @@ public class TestMachinePool {
         assertThat(pool.toJson(), is(JsonUtils.parseJsonResource(multiMachinePoolJson)));
     }
 
+    /**
+     * Exercise the size summaries and id lookups offered by the
+     * {@link MachinePool} index.
+     */
+    @Test
+    public void testIndexedLookups() {
+        DateTime now = UtcTime.now();
+
+        Machine requested = Machine.builder().id("i-1").machineState(MachineState.REQUESTED).cloudProvider("AWS-EC2")
+                .region("us-east-1").machineSize("m1.small").build();
+        Machine running = Machine.builder().id("i-2").machineState(MachineState.RUNNING).cloudProvider("AWS-EC2")
+                .region("us-east-1").machineSize("m1.small").launchTime(now).build();
+        Machine inactive = Machine.builder().id("i-3").machineState(MachineState.RUNNING).cloudProvider("AWS-EC2")
+                .region("us-east-1").machineSize("m1.small").membershipStatus(MembershipStatus.awaitingService())
+                .launchTime(now).build();
+        Machine terminated = Machine.builder().id("i-4").machineState(MachineState.TERMINATED)
+                .cloudProvider("AWS-EC2").region("us-east-1").machineSize("m1.small").build();
+        MachinePool pool = pool(now, requested, running, inactive, terminated);
+
+        assertThat(pool.getActiveSize(), is(2));
+        assertThat(pool.getAllocatedSize(), is(3));
+        assertThat(pool.getSize(MachineState.REQUESTED), is(1));
+        assertThat(pool.getSize(MachineState.RUNNING), is(2));
+        assertThat(pool.getSize(MachineState.TERMINATED), is(1));
+        assertThat(pool.getSize(MachineState.PENDING), is(0));
+
+        assertThat(pool.getMachine("i-2").get(), is(running));
+        assertThat(pool.getMachine("i-4").get(), is(terminated));
+        assertThat(pool.getMachine("i-5").isPresent(), is(false));
+
+        assertThat(pool.isAllocatedMember("i-1"), is(true));
+        assertThat(pool.isAllocatedMember("i-3"), is(true));
+        assertThat(pool.isAllocatedMember("i-4"), is(false));
+        assertThat(pool.isAllocatedMember("i-5"), is(false));
+
+        // views are shared between calls
+        assertTrue(pool.getActiveMachines() == pool.getActiveMachines());
+    }
+
+    /**
+     * Member views of a {@link MachinePool} must not be modifiable.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void membersViewsAreUnmodifiable() {
+        MachinePool pool = pool(UtcTime.now(), machineNoIp("m1", MachineState.RUNNING, UtcTime.now()));
+        pool.getActiveMachines().clear();
+    }
+
+    /**
+     * {@link MachinePool#withTimestamp} should produce a pool with the same
+     * members but a new timestamp.
+     */
+    @Test
+    public void withTimestamp() {
+        DateTime then = UtcTime.parse("2014-01-13T12:00:00.000Z");
+        DateTime now = UtcTime.parse("2014-01-13T12:01:00.000Z");
+        MachinePool pool = pool(then, machineNoIp("m1", MachineState.RUNNING, then),
+                machineNoIp("m2", MachineState.REQUESTED, then));
+
+        MachinePool refreshed = pool.withTimestamp(now);
+        assertThat(refreshed.getTimestamp(), is(now));
+        assertThat(refreshed.getMachines(), is(pool.getMachines()));
+        assertThat(refreshed.getActiveSize(), is(2));
+        assertThat(refreshed.getMachine("m2").isPresent(), is(true));
+        // original is left untouched
+        assertThat(pool.getTimestamp(), is(then));
+    }
+
+    /**
+     * A {@link MachinePool} that is parsed from JSON (thereby bypassing the
+     * constructor) should be indexed on first use.
+     */
+    @Test
+    public void indexParsedMachinePool() throws IOException {
+        MachinePool parsedPool = MachinePool.fromJson(loadJson(multiMachinePoolJson));
+        assertThat(parsedPool.getAllocatedSize(), is(2));
+        assertThat(parsedPool.getActiveSize(), is(2));
+        assertThat(parsedPool.getMachine("m2").get().getMachineState(), is(MachineState.REQUESTED));
+        // the index must not leak into the JSON representation
+        assertThat(parsedPool.toJson(), is(JsonUtils.parseJsonResource(multiMachinePoolJson)));
+    }
+
     @Test(expected = NullPointerException.class)
     public void parseInvalidPoolMissingMachines() throws IOException {
         MachinePool.fromJson(loadJson("json/invalidpool-missing-machines.json"));
@@ -0,0 +1,106 @@
+package com.elastisys.scale.cloudpool.api.types;
+
+import static com.elastisys.scale.cloudpool.api.types.TestUtils.pool;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.types.MachineChange.Aspect;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * Exercises the {@link MachinePoolDiff} class.
+ */
+public class TestMachinePoolDiff {
+
+    private final DateTime t0 = UtcTime.parse("2018-01-01T12:00:00.000Z");
+    private final DateTime t1 = this.t0.plusSeconds(30);
+
+    /**
+     * Identical snapshots should give an empty diff.
+     */
+    @Test
+    public void noChanges() {
+        MachinePoolDiff diff = MachinePoolDiff.between(pool(this.t0, machine("i-1"), machine("i-2")),
+                pool(this.t1, machine("i-1"), machine("i-2")));
+        assertTrue(diff.isEmpty());
+        assertThat(diff.getPreviousTimestamp(), is(this.t0));
+        assertThat(diff.getTimestamp(), is(this.t1));
+    }
+
+    /**
+     * Without a previous snapshot, all machines should be reported as added.
+     */
+    @Test
+    public void noPreviousSnapshot() {
+        MachinePoolDiff diff = MachinePoolDiff.between(null, pool(this.t1, machine("i-1"), machine("i-2")));
+        assertThat(diff.getAdded(), is(asList(machine("i-1"), machine("i-2"))));
+        assertThat(diff.getRemoved(), is(Collections.emptyList()));
+        assertThat(diff.getChanged(), is(Collections.emptyList()));
+        assertThat(diff.getPreviousTimestamp(), is(nullValue()));
+    }
+
+    /**
+     * Machines should be reported as added and removed.
+     */
+    @Test
+    public void addedAndRemoved() {
+        MachinePoolDiff diff = MachinePoolDiff.between(pool(this.t0, machine("i-1"), machine("i-2")),
+                pool(this.t1, machine("i-2"), machine("i-3")));
+        assertFalse(diff.isEmpty());
+        assertThat(diff.getAdded(), is(asList(machine("i-3"))));
+        assertThat(diff.getRemoved(), is(asList(machine("i-1"))));
+        assertThat(diff.getChanged(), is(Collections.emptyList()));
+    }
+
+    /**
+     * Machine state, membership status and service state changes should be
+     * reported as such.
+     */
+    @Test
+    public void changedMachines() {
+        Machine i1 = machine("i-1");
+        Machine i1Running = Machine.builder().id("i-1").machineState(MachineState.RUNNING).cloudProvider("AWS-EC2")
+                .region("us-east-1").machineSize("m1.small").build();
+        Machine i2 = machine("i-2");
+        Machine i2InService = Machine.builder().id("i-2").machineState(MachineState.PENDING).cloudProvider("AWS-EC2")
+                .region("us-east-1").machineSize("m1.small").serviceState(ServiceState.IN_SERVICE)
+                .membershipStatus(MembershipStatus.blessed()).build();
+        Machine i3 = machine("i-3");
+        Machine i3WithIp = Machine.builder().id("i-3").machineState(MachineState.PENDING).cloudProvider("AWS-EC2")
+                .region("us-east-1").machineSize("m1.small").publicIp("1.2.3.4").build();
+
+        MachinePoolDiff diff = MachinePoolDiff.between(pool(this.t0, i1, i2, i3),
+                pool(this.t1, i1Running, i2InService, i3WithIp));
+        assertThat(diff.getAdded(), is(Collections.emptyList()));
+        assertThat(diff.getRemoved(), is(Collections.emptyList()));
+        assertThat(diff.getChanged().size(), is(3));
+
+        MachineChange i1Change = diff.getChanged().get(0);
+        assertThat(i1Change.getMachineId(), is("i-1"));
+        assertThat(i1Change.getChanges(), is(asList(Aspect.MACHINE_STATE)));
+        assertThat(i1Change.getPrevious(), is(i1));
+        assertThat(i1Change.getCurrent(), is(i1Running));
+
+        MachineChange i2Change = diff.getChanged().get(1);
+        assertThat(i2Change.getChanges(), is(asList(Aspect.MEMBERSHIP_STATUS, Aspect.SERVICE_STATE)));
+        assertTrue(i2Change.changed(Aspect.SERVICE_STATE));
+        assertFalse(i2Change.changed(Aspect.MACHINE_STATE));
+
+        MachineChange i3Change = diff.getChanged().get(2);
+        assertThat(i3Change.getChanges(), is(asList(Aspect.OTHER)));
+    }
+
+    private static Machine machine(String id) {
+        return Machine.builder().id(id).machineState(MachineState.PENDING).cloudProvider("AWS-EC2")
+                .region("us-east-1").machineSize("m1.small").build();
+    }
+}
@@ -10,6 +10,7 @@ import com.elastisys.scale.cloudpool.aws.autoscaling.driver.AwsAsPoolDriver;
 import com.elastisys.scale.cloudpool.aws.autoscaling.driver.client.AwsAutoScalingClient;
 import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage.PersistenceMode;
 
 /**
  * Main class for starting the REST API server for the AWS Auto Scaling Group
@@ -19,7 +20,8 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
         CloudPoolOptions options = CloudPoolServer.parseArgs(args);
-        StateStorage stateStorage = StateStorage.builder(options.storageDir).build();
+        StateStorage stateStorage = StateStorage.builder(options.storageDir)
+                .withPersistenceMode(options.compactState ? PersistenceMode.COMPACT : PersistenceMode.JSON).build();
         AwsAsPoolDriver driver = new AwsAsPoolDriver(new AwsAutoScalingClient());
         ScheduledExecutorService executor = Executors.newScheduledThreadPool(5);
 
@@ -9,8 +9,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -34,6 +36,8 @@ import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MachineChanges;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.commons.json.JsonUtils;
@@ -41,10 +45,16 @@ import com.elastisys.scale.commons.json.JsonUtils;
 /**
  * A {@link CloudPoolDriver} implementation that operates against the AWS EC2
  * cloud API.
+ * <p/>
+ * The EC2 API has no change feed, so {@link #listMachineChanges(Optional)}
+ * still lists all pool instances, but computes the delta against the listing
+ * it returned last. When nothing has changed in the pool, the
+ * {@link BaseCloudPool} can keep its current pool snapshot instead of
+ * rebuilding it.
  *
  * @see BaseCloudPool
  */
-public class Ec2PoolDriver implements CloudPoolDriver {
+public class Ec2PoolDriver implements IncrementalCloudPoolDriver {
 
     static Logger LOG = LoggerFactory.getLogger(Ec2PoolDriver.class);
 
@@ -57,6 +67,17 @@ public class Ec2PoolDriver implements CloudPoolDriver {
     /** Lock to prevent concurrent access to critical sections. */
     private final Object lock = new Object();
 
+    /**
+     * The pool members, keyed by id, as of the last
+     * {@link #listMachineChanges(Optional)} call.
+     */
+    private Map<String, Machine> lastListing = Collections.emptyMap();
+    /**
+     * Watermark of {@link #lastListing}. Incremented whenever the listing
+     * changes.
+     */
+    private long listingGeneration = 0;
+
     /**
      * Creates a new {@link Ec2PoolDriver}. Needs to be configured before use.
      *
@@ -87,6 +108,10 @@ public class Ec2PoolDriver implements CloudPoolDriver {
                     .withSocketTimeout(cloudApiSettings.getSocketTimeout());
             this.client.configure(cloudApiSettings.getAwsAccessKeyId(), cloudApiSettings.getAwsSecretAccessKey(),
                     cloudApiSettings.getRegion(), clientConfig);
+
+            // pool name or region may have changed: invalidate watermarks
+            this.lastListing = Collections.emptyMap();
+            this.listingGeneration++;
         }
     }
 
@@ -98,6 +123,35 @@ public class Ec2PoolDriver implements CloudPoolDriver {
         return getPoolInstances().stream().map(new InstanceToMachine()).collect(Collectors.toList());
     }
 
+    @Override
+    public MachineChanges listMachineChanges(Optional<String> sinceWatermark) throws CloudPoolDriverException {
+        checkState(isConfigured(), "attempt to use unconfigured Ec2PoolDriver");
+
+        List<Machine> machines = listMachines();
+        synchronized (this.lock) {
+            Map<String, Machine> previous = this.lastListing;
+            Map<String, Machine> current = new LinkedHashMap<>();
+            machines.forEach(machine -> current.put(machine.getId(), machine));
+
+            boolean deltaPossible = sinceWatermark.isPresent()
+                    && sinceWatermark.get().equals(String.valueOf(this.listingGeneration));
+            List<Machine> addedOrChanged = machines.stream()
+                    .filter(machine -> !machine.equals(previous.get(machine.getId()))).collect(Collectors.toList());
+            List<String> removedIds = previous.keySet().stream().filter(id -> !current.containsKey(id))
+                    .collect(Collectors.toList());
+            if (!addedOrChanged.isEmpty() || !removedIds.isEmpty()) {
+                this.lastListing = current;
+                this.listingGeneration++;
+            }
+
+            String watermark = String.valueOf(this.listingGeneration);
+            if (!deltaPossible) {
+                return MachineChanges.fullListing(machines, watermark);
+            }
+            return MachineChanges.delta(addedOrChanged, removedIds, watermark);
+        }
+    }
+
     @Override
     public List<Machine> startMachines(int count) throws StartMachinesException {
         checkState(isConfigured(), "attempt to use unconfigured Ec2PoolDriver");
@@ -10,6 +10,7 @@ import com.elastisys.scale.cloudpool.aws.commons.poolclient.impl.AwsEc2Client;
 import com.elastisys.scale.cloudpool.aws.ec2.driver.Ec2PoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage.PersistenceMode;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 
 /**
@@ -19,7 +20,8 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
         CloudPoolOptions options = CloudPoolServer.parseArgs(args);
-        StateStorage stateStorage = StateStorage.builder(options.storageDir).build();
+        StateStorage stateStorage = StateStorage.builder(options.storageDir)
+                .withPersistenceMode(options.compactState ? PersistenceMode.COMPACT : PersistenceMode.JSON).build();
         CloudPoolDriver driver = new Ec2PoolDriver(new AwsEc2Client());
         ScheduledExecutorService executor = Executors.newScheduledThreadPool(5);
 
@@ -18,6 +18,7 @@ import com.amazonaws.services.ec2.model.TerminateInstancesResult;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.aws.commons.poolclient.Ec2Client;
 import com.elastisys.scale.cloudpool.aws.commons.poolclient.Ec2ProvisioningTemplate;
+import com.elastisys.scale.commons.util.time.UtcTime;
 
 /**
  * Fake {@link Ec2Client} that manages instances for a phony AWS account.
@@ -59,7 +60,8 @@ public class FakeEc2Client implements Ec2Client {
         for (int i = 0; i < count; i++) {
             int idNum = ++this.idSequencer;
             Instance newInstance = new Instance().withInstanceId("i-" + idNum)
-                    .withState(new InstanceState().withName("pending")).withPublicIpAddress("1.2.3." + idNum)
+                    .withState(new InstanceState().withName("pending")).withLaunchTime(UtcTime.now().toDate())
+                    .withPublicIpAddress("1.2.3." + idNum)
                     .withImageId(provisioningDetails.getAmiId())
                     .withInstanceType(provisioningDetails.getInstanceType());
             for (Entry<String, String> tagItem : provisioningDetails.getTags().entrySet()) {
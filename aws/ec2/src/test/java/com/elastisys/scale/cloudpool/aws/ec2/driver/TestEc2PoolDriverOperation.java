@@ -22,6 +22,8 @@ import static org.mockito.Mockito.when;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.server.Server;
 import org.junit.Before;
@@ -34,6 +36,7 @@ import com.amazonaws.services.ec2.model.Instance;
 import com.amazonaws.services.ec2.model.Tag;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.aws.commons.ScalingFilters;
@@ -42,9 +45,12 @@ import com.elastisys.scale.cloudpool.aws.commons.poolclient.Ec2Client;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MachineChanges;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl.RetryingPoolFetcher;
 import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
 
 /**
  * Verifies the operational behavior of the {@link Ec2PoolDriver}.
@@ -196,6 +202,76 @@ public class TestEc2PoolDriverOperation {
         assertThat(this.driver.listMachines(), is(Collections.emptyList()));
     }
 
+    /**
+     * {@link Ec2PoolDriver#listMachineChanges(Optional)} should return a full
+     * listing when no (or an outdated) watermark is given and otherwise only
+     * report the instances that changed since the watermark.
+     */
+    @Test
+    public void listMachineChanges() throws Exception {
+        FakeEc2Client fakeClient = new FakeEc2Client(
+                ec2Instances(memberInstance("i-1", "running"), memberInstance("i-2", "pending")));
+        this.driver = new Ec2PoolDriver(fakeClient);
+        this.driver.configure(driverConfig(POOL_NAME));
+
+        MachineChanges changes = this.driver.listMachineChanges(Optional.empty());
+        assertTrue(changes.isFullListing());
+        assertThat(changes.getMachines(), is(machines("i-1", "i-2")));
+
+        // no changes
+        String watermark = changes.getWatermark();
+        changes = this.driver.listMachineChanges(Optional.of(watermark));
+        assertTrue(changes.isEmpty());
+        assertThat(changes.getWatermark(), is(watermark));
+
+        // i-1 terminated, i-3 launched
+        fakeClient.terminateInstances(asList("i-1"));
+        this.driver.startMachines(1);
+        changes = this.driver.listMachineChanges(Optional.of(watermark));
+        assertThat(changes.isFullListing(), is(false));
+        assertThat(changes.getMachines(), is(machines("i-3")));
+        assertThat(changes.getRemovedMachineIds(), is(asList("i-1")));
+
+        // changed instance
+        watermark = changes.getWatermark();
+        this.driver.setServiceState("i-2", IN_SERVICE);
+        changes = this.driver.listMachineChanges(Optional.of(watermark));
+        assertThat(changes.getMachines(), is(machines("i-2")));
+        assertThat(changes.getMachines().get(0).getServiceState(), is(IN_SERVICE));
+
+        // an outdated watermark results in a full listing
+        changes = this.driver.listMachineChanges(Optional.of(watermark));
+        assertTrue(changes.isFullListing());
+        assertThat(changes.getMachines(), is(machines("i-2", "i-3")));
+    }
+
+    /**
+     * A {@link RetryingPoolFetcher} should track the pool through incremental
+     * listings from an {@link Ec2PoolDriver}.
+     */
+    @Test
+    public void incrementalPoolFetch() throws Exception {
+        FakeEc2Client fakeClient = new FakeEc2Client(ec2Instances(memberInstance("i-1", "running")));
+        this.driver = new Ec2PoolDriver(fakeClient);
+        this.driver.configure(driverConfig(POOL_NAME));
+        RetryingPoolFetcher fetcher = new RetryingPoolFetcher(this.driver, 0,
+                new TimeInterval(10L, TimeUnit.MILLISECONDS), new TimeInterval(10L, TimeUnit.MINUTES));
+
+        MachinePool pool = fetcher.get();
+        assertThat(pool.getMachines(), is(machines("i-1")));
+
+        this.driver.startMachines(2);
+        pool = fetcher.get();
+        assertThat(pool.getMachines(), is(machines("i-1", "i-2", "i-3")));
+
+        this.driver.terminateMachines(asList("i-2"));
+        pool = fetcher.get();
+        assertThat(pool.getMachines(), is(machines("i-1", "i-3")));
+
+        // unchanged pool
+        assertThat(fetcher.get().getMachines(), is(machines("i-1", "i-3")));
+    }
+
     /**
      * On client error, a {@link CloudPoolDriverException} should be raised.
      */
@@ -18,6 +18,7 @@ import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.util.base64.Base64Utils;
 import com.elastisys.scale.commons.util.collection.Maps;
+import com.elastisys.scale.commons.util.time.UtcTime;
 
 public class TestUtils {
     /** Sample AWS access key id. */
@@ -70,6 +71,7 @@ public class TestUtils {
 
     public static Instance ec2Instance(String id, String state, List<Tag> tags) {
         return new Instance().withInstanceId(id).withInstanceType(InstanceType.M1Small)
-                .withState(new InstanceState().withName(state)).withTags(tags);
+                .withState(new InstanceState().withName(state)).withLaunchTime(UtcTime.now().toDate())
+                .withTags(tags);
     }
 }
@@ -13,6 +13,7 @@ import com.elastisys.scale.cloudpool.aws.commons.poolclient.impl.AwsSpotClient;
 import com.elastisys.scale.cloudpool.aws.spot.driver.SpotPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage.PersistenceMode;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.commons.eventbus.EventBus;
 import com.elastisys.scale.commons.eventbus.impl.SynchronousEventBus;
@@ -26,7 +27,8 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
         CloudPoolOptions options = CloudPoolServer.parseArgs(args);
-        StateStorage stateStorage = StateStorage.builder(options.storageDir).build();
+        StateStorage stateStorage = StateStorage.builder(options.storageDir)
+                .withPersistenceMode(options.compactState ? PersistenceMode.COMPACT : PersistenceMode.JSON).build();
 
         ScheduledExecutorService executor = Executors.newScheduledThreadPool(5);
         // event bus on which to send alerts are to be distributed to registered
@@ -170,6 +170,18 @@ public class AzurePoolDriver implements CloudPoolDriver {
         }
     }
 
+    /**
+     * Scale-outs are not split into chunks: all VMs of a
+     * {@link #startMachines(int)} call are already created concurrently, in a
+     * single batch request. Besides, VM names are derived from the request
+     * time and a per-call index, so concurrent calls could produce clashing
+     * names.
+     */
+    @Override
+    public int getPreferredStartChunkSize() {
+        return Integer.MAX_VALUE;
+    }
+
     @Override
     public void terminateMachines(List<String> vmIds)
             throws IllegalStateException, TerminateMachinesException, CloudPoolDriverException {
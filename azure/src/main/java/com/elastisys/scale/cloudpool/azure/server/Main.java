@@ -10,6 +10,7 @@ import com.elastisys.scale.cloudpool.azure.driver.AzurePoolDriver;
 import com.elastisys.scale.cloudpool.azure.driver.client.impl.StandardAzureClient;
 import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage.PersistenceMode;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 
 /**
@@ -22,7 +23,8 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
         CloudPoolOptions options = CloudPoolServer.parseArgs(args);
-        StateStorage stateStorage = StateStorage.builder(options.storageDir).build();
+        StateStorage stateStorage = StateStorage.builder(options.storageDir)
+                .withPersistenceMode(options.compactState ? PersistenceMode.COMPACT : PersistenceMode.JSON).build();
 
         ScheduledExecutorService executor = Executors.newScheduledThreadPool(MAX_CONCURRENCY);
         CloudPoolDriver driver = new AzurePoolDriver(new StandardAzureClient(), executor);
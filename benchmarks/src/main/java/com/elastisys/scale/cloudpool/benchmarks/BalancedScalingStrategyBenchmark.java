@@ -0,0 +1,62 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elastisys.scale.cloudpool.google.container.client.ClusterSnapshot;
+import com.elastisys.scale.cloudpool.google.container.scalingstrategy.ResizePlan;
+import com.elastisys.scale.cloudpool.google.container.scalingstrategy.impl.BalancedScalingStrategy;
+
+/**
+ * Measures {@link BalancedScalingStrategy#planResize(int, ClusterSnapshot)},
+ * which places (or removes) nodes one at a time and therefore scales with the
+ * size of the resize as well as with the number of instance groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalancedScalingStrategyBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int clusterSize;
+
+    @Param({ "1", "3", "10" })
+    public int nodePools;
+
+    /** Desired size change, as a percentage of the cluster size. */
+    @Param({ "-50", "10", "100" })
+    public int sizeChangePercentage;
+
+    /** Instance groups (zones) per node pool. */
+    private static final int INSTANCE_GROUPS_PER_NODE_POOL = 3;
+
+    private ClusterSnapshot cluster;
+    private int desiredSize;
+
+    @Setup
+    public void setup() {
+        this.cluster = SyntheticCloudResources.gkeCluster(this.nodePools, INSTANCE_GROUPS_PER_NODE_POOL,
+                this.clusterSize, 1234L);
+        int currentSize = this.cluster.getTotalSize();
+        this.desiredSize = Math.max(0, currentSize + currentSize * this.sizeChangePercentage / 100);
+    }
+
+    @Benchmark
+    public ResizePlan planResize() {
+        return BalancedScalingStrategy.INSTANCE.planResize(this.desiredSize, this.cluster);
+    }
+}
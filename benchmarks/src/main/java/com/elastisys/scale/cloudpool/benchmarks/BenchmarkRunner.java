@@ -0,0 +1,39 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+
+/**
+ * Entry point of the benchmarks jar file. Accepts the same command-line
+ * options as the regular JMH runner ({@link Main}), but always attaches the
+ * {@link GCProfiler}, so that allocation rates ({@code gc.alloc.rate.norm}:
+ * bytes allocated per operation) are reported next to every score.
+ */
+public class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        throw new IllegalStateException("Not instantiable.");
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!hasGcProfiler(arguments)) {
+            arguments.add("-prof");
+            arguments.add("gc");
+        }
+        Main.main(arguments.toArray(new String[arguments.size()]));
+    }
+
+    private static boolean hasGcProfiler(List<String> arguments) {
+        for (int i = 0; i < arguments.size() - 1; i++) {
+            if (arguments.get(i).equals("-prof") && arguments.get(i + 1).startsWith("gc")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,88 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.google.commons.api.compute.functions.InstanceToMachine;
+import com.elastisys.scale.cloudpool.kubernetes.functions.PodToMachine;
+import com.elastisys.scale.cloudpool.kubernetes.types.Pod;
+import com.google.api.services.compute.model.Instance;
+
+/**
+ * Measures the conversion of cloud provider API objects to {@link Machine}s,
+ * which every cloud pool driver does for all pool members on each
+ * {@code listMachines} call:
+ * <ul>
+ * <li>AWS:
+ * {@link com.elastisys.scale.cloudpool.aws.commons.functions.InstanceToMachine}
+ * </li>
+ * <li>Kubernetes: {@link PodToMachine}</li>
+ * <li>GCE: {@link InstanceToMachine}</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MachineConversionBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int poolSize;
+
+    private List<com.amazonaws.services.ec2.model.Instance> ec2Instances;
+    private List<Pod> pods;
+    private List<Instance> gceInstances;
+
+    private final PodToMachine podConverter = new PodToMachine();
+    private final InstanceToMachine gceConverter = new InstanceToMachine();
+
+    @Setup
+    public void setup() {
+        this.ec2Instances = SyntheticCloudResources.ec2Instances(this.poolSize, 1234L);
+        this.pods = SyntheticCloudResources.pods(this.poolSize, 1234L);
+        this.gceInstances = SyntheticCloudResources.gceInstances(this.poolSize, 1234L);
+    }
+
+    @Benchmark
+    public List<Machine> awsInstanceToMachine() {
+        List<Machine> machines = new ArrayList<>(this.ec2Instances.size());
+        for (com.amazonaws.services.ec2.model.Instance instance : this.ec2Instances) {
+            machines.add(com.elastisys.scale.cloudpool.aws.commons.functions.InstanceToMachine.convert(instance));
+        }
+        return machines;
+    }
+
+    @Benchmark
+    public List<Machine> kubernetesPodToMachine() {
+        List<Machine> machines = new ArrayList<>(this.pods.size());
+        for (Pod pod : this.pods) {
+            machines.add(this.podConverter.apply(pod));
+        }
+        return machines;
+    }
+
+    @Benchmark
+    public List<Machine> gceInstanceToMachine() {
+        List<Machine> machines = new ArrayList<>(this.gceInstances.size());
+        for (Instance instance : this.gceInstances) {
+            machines.add(this.gceConverter.apply(instance));
+        }
+        return machines;
+    }
+}
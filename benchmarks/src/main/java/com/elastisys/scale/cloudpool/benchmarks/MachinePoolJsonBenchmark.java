@@ -0,0 +1,60 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * Measures {@link MachinePool} JSON serialization and deserialization, which
+ * happen whenever the pool is served over the REST API and whenever the pool
+ * cache is persisted or restored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MachinePoolJsonBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    public int poolSize;
+
+    private MachinePool pool;
+    private String poolJson;
+
+    @Setup
+    public void setup() {
+        this.pool = SyntheticMachines.mixedPool(this.poolSize, 1234L);
+        this.poolJson = JsonUtils.toString(this.pool.toJson());
+    }
+
+    @Benchmark
+    public String toJson() {
+        return JsonUtils.toString(this.pool.toJson());
+    }
+
+    @Benchmark
+    public MachinePool fromJson() throws IOException {
+        return MachinePool.fromJson(this.poolJson);
+    }
+
+    @Benchmark
+    public MachinePool roundTrip() throws IOException {
+        return MachinePool.fromJson(JsonUtils.toString(this.pool.toJson()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+
+/**
+ * Measures the {@link Machine} predicates, which are evaluated for every pool
+ * member whenever pool sizes are calculated or termination candidates are
+ * selected, both directly over a list of machines and through the size
+ * accessors of freshly built {@link MachinePool}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MachinePredicatesBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    public int poolSize;
+
+    private List<Machine> machines;
+    private MachinePool pool;
+
+    @Setup
+    public void setup() {
+        this.pool = SyntheticMachines.mixedPool(this.poolSize, 1234L);
+        this.machines = this.pool.getMachines();
+    }
+
+    @Benchmark
+    public long isActiveMember() {
+        return this.machines.stream().filter(Machine.isActiveMember()).count();
+    }
+
+    @Benchmark
+    public long isAllocated() {
+        return this.machines.stream().filter(Machine.isAllocated()).count();
+    }
+
+    @Benchmark
+    public long isStarted() {
+        return this.machines.stream().filter(Machine.isStarted()).count();
+    }
+
+    @Benchmark
+    public long isEvictable() {
+        return this.machines.stream().filter(Machine.isEvictable()).count();
+    }
+
+    @Benchmark
+    public long inState() {
+        return this.machines.stream().filter(Machine.inState(MachineState.REQUESTED)).count();
+    }
+
+    /**
+     * Size accessors are memoized per {@link MachinePool}, so a fresh pool
+     * observation is built on every invocation. This measures what the size
+     * reads of a newly fetched pool cost, including copying its members.
+     */
+    @Benchmark
+    public int poolActiveSize() {
+        return new MachinePool(this.machines, this.pool.getTimestamp()).getActiveSize();
+    }
+
+    /**
+     * See {@link #poolActiveSize()}.
+     */
+    @Benchmark
+    public int poolAllocatedSize() {
+        return new MachinePool(this.machines, this.pool.getTimestamp()).getAllocatedSize();
+    }
+}
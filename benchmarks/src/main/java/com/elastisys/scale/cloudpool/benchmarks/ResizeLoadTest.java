@@ -0,0 +1,202 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.metrics.MetricSample;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.PoolFetchConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.PoolUpdateConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.RetriesConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.ScaleInConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.simulated.SimulatedCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.simulated.SimulationSettings;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.simulated.UniformDelay;
+import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionPolicy;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.google.gson.JsonObject;
+
+/**
+ * Load test that drives a {@link BaseCloudPool} end-to-end against a
+ * {@link SimulatedCloudPoolDriver} and reports:
+ * <ul>
+ * <li>the resize convergence time: the time from setting a new desired size
+ * until the (cached) pool holds that many running, active members.</li>
+ * <li>the CPU time per pool refresh: process CPU time spent during a steady
+ * state period, divided by the number of pool refreshes in that period. This
+ * includes the work of the simulated cloud itself.</li>
+ * </ul>
+ * Usage:
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.elastisys.scale.cloudpool.benchmarks.ResizeLoadTest \
+ *     [--initial-size 1000] [--target-size 2000] [--refresh-interval 5] \
+ *     [--steady-state 60] [--timeout 600] [--simulation settings.json]
+ * </pre>
+ *
+ * where intervals are given in seconds and {@code settings.json} holds
+ * {@link SimulationSettings} (its {@code initialSize} is overridden by
+ * {@code --initial-size}).
+ */
+public class ResizeLoadTest {
+    private static final Logger LOG = LoggerFactory.getLogger(ResizeLoadTest.class);
+
+    private int initialSize = 1000;
+    private int targetSize = 2000;
+    private long refreshIntervalSeconds = 5;
+    private long steadyStateSeconds = 60;
+    private long timeoutSeconds = 600;
+    private File simulationSettingsFile = null;
+
+    public static void main(String[] args) throws Exception {
+        ResizeLoadTest loadTest = new ResizeLoadTest();
+        loadTest.parseArgs(args);
+        loadTest.run();
+        System.exit(0);
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+            case "--initial-size":
+                this.initialSize = Integer.parseInt(value);
+                break;
+            case "--target-size":
+                this.targetSize = Integer.parseInt(value);
+                break;
+            case "--refresh-interval":
+                this.refreshIntervalSeconds = Long.parseLong(value);
+                break;
+            case "--steady-state":
+                this.steadyStateSeconds = Long.parseLong(value);
+                break;
+            case "--timeout":
+                this.timeoutSeconds = Long.parseLong(value);
+                break;
+            case "--simulation":
+                this.simulationSettingsFile = new File(value);
+                break;
+            default:
+                throw new IllegalArgumentException("unrecognized option: " + args[i]);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(10);
+        StateStorage stateStorage = StateStorage.builder(Files.createTempDirectory("loadtest").toFile()).build();
+        BaseCloudPool cloudPool = new BaseCloudPool(stateStorage, new SimulatedCloudPoolDriver(), executor);
+        try {
+            cloudPool.configure(config());
+            cloudPool.start();
+            MetricRegistry metrics = cloudPool.getMetrics().get();
+
+            cloudPool.setDesiredSize(this.initialSize);
+            awaitConvergence(cloudPool, this.initialSize);
+            LOG.info("pool started out with {} machines", this.initialSize);
+
+            long resizeStart = System.nanoTime();
+            cloudPool.setDesiredSize(this.targetSize);
+            awaitConvergence(cloudPool, this.targetSize);
+            long convergenceMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - resizeStart);
+            LOG.info("resize {} -> {} converged in {} s", this.initialSize, this.targetSize,
+                    String.format("%.1f", convergenceMillis / 1000.0));
+
+            double refreshesBefore = sampleValue(metrics, "cloudpool_pool_refresh_duration_seconds_count");
+            double refreshSecondsBefore = sampleValue(metrics, "cloudpool_pool_refresh_duration_seconds_sum");
+            long cpuBefore = processCpuNanos();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(this.steadyStateSeconds));
+            long cpuNanos = processCpuNanos() - cpuBefore;
+            double refreshes = sampleValue(metrics, "cloudpool_pool_refresh_duration_seconds_count") - refreshesBefore;
+            double refreshSeconds = sampleValue(metrics, "cloudpool_pool_refresh_duration_seconds_sum")
+                    - refreshSecondsBefore;
+
+            if (refreshes == 0 || cpuBefore < 0) {
+                LOG.info("cpu per refresh: n/a (no refreshes or no process cpu time available)");
+            } else {
+                LOG.info("{} refreshes of {} machines: {} ms cpu/refresh, {} ms wall/refresh", (long) refreshes,
+                        this.targetSize, String.format("%.2f", cpuNanos / refreshes / 1e6),
+                        String.format("%.2f", refreshSeconds / refreshes * 1e3));
+            }
+        } finally {
+            cloudPool.stop();
+            executor.shutdownNow();
+        }
+    }
+
+    private JsonObject config() {
+        JsonObject simulation;
+        if (this.simulationSettingsFile != null) {
+            simulation = JsonUtils.parseJsonFile(this.simulationSettingsFile).getAsJsonObject();
+        } else {
+            // quick-booting machines with a slightly sluggish API
+            simulation = JsonUtils.toJson(new SimulationSettings(null, null, UniformDelay.millis(20, 100),
+                    UniformDelay.millis(500, 2000), UniformDelay.millis(2000, 10000), UniformDelay.millis(500, 2000),
+                    null, null, null, null)).getAsJsonObject();
+        }
+        simulation.addProperty("initialSize", this.initialSize);
+
+        PoolFetchConfig poolFetch = new PoolFetchConfig(new RetriesConfig(3, new TimeInterval(1L, TimeUnit.SECONDS)),
+                new TimeInterval(this.refreshIntervalSeconds, TimeUnit.SECONDS),
+                new TimeInterval(5L, TimeUnit.MINUTES));
+        BaseCloudPoolConfig config = new BaseCloudPoolConfig("loadtest", simulation, new JsonObject(),
+                new ScaleInConfig(VictimSelectionPolicy.NEWEST), null, poolFetch,
+                new PoolUpdateConfig(new TimeInterval(this.refreshIntervalSeconds, TimeUnit.SECONDS)));
+        return JsonUtils.toJson(config).getAsJsonObject();
+    }
+
+    /**
+     * Waits until the (cached) pool has the given number of running, active
+     * members.
+     */
+    private void awaitConvergence(BaseCloudPool cloudPool, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(this.timeoutSeconds);
+        while (System.nanoTime() < deadline) {
+            MachinePool pool = cloudPool.getMachinePool();
+            long runningActive = pool.getActiveMachines().stream().filter(Machine.inState(MachineState.RUNNING))
+                    .count();
+            if (pool.getActiveSize() == size && runningActive == size) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException(
+                String.format("pool did not converge to %d machines within %d seconds", size, this.timeoutSeconds));
+    }
+
+    private static double sampleValue(MetricRegistry metrics, String name) {
+        return metrics.getSamples().stream().filter(sample -> sample.getName().equals(name))
+                .mapToDouble(MetricSample::getValue).sum();
+    }
+
+    /**
+     * Returns the CPU time used by this process, or -1 if not supported by
+     * the JVM.
+     */
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,67 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.commons.resizeplanner.ResizePlan;
+import com.elastisys.scale.cloudpool.commons.resizeplanner.ResizePlanner;
+import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionPolicy;
+
+/**
+ * Measures {@link ResizePlanner#calculateResizePlan(int)}, which is run on
+ * every pool update iteration, for pools with a realistic mix of machine
+ * states and membership statuses. The desired size is given relative to the
+ * current active size, so that the planner has to either do nothing, request
+ * machines or select victims.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResizePlannerBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    public int poolSize;
+
+    /** Desired size change, as a percentage of the active pool size. */
+    @Param({ "-50", "-10", "0", "10" })
+    public int sizeChangePercentage;
+
+    @Param({ "OLDEST", "NEWEST" })
+    public VictimSelectionPolicy victimSelectionPolicy;
+
+    private MachinePool pool;
+    private int desiredSize;
+
+    @Setup
+    public void setup() {
+        this.pool = SyntheticMachines.mixedPool(this.poolSize, 1234L);
+        int activeSize = this.pool.getActiveSize();
+        this.desiredSize = Math.max(0, activeSize + activeSize * this.sizeChangePercentage / 100);
+    }
+
+    /**
+     * Includes creating the {@link ResizePlanner}, since a new one is created
+     * for every pool update.
+     *
+     * @return
+     */
+    @Benchmark
+    public ResizePlan calculateResizePlan() {
+        return new ResizePlanner(this.pool, this.victimSelectionPolicy).calculateResizePlan(this.desiredSize);
+    }
+}
@@ -0,0 +1,211 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.amazonaws.services.ec2.model.InstanceState;
+import com.amazonaws.services.ec2.model.Placement;
+import com.amazonaws.services.ec2.model.Tag;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.aws.commons.ScalingTags;
+import com.elastisys.scale.cloudpool.google.commons.api.compute.metadata.MetadataKeys;
+import com.elastisys.scale.cloudpool.google.container.client.ClusterSnapshot;
+import com.elastisys.scale.cloudpool.google.container.client.InstanceGroupSnapshot;
+import com.elastisys.scale.cloudpool.google.container.client.NodePoolSnapshot;
+import com.elastisys.scale.cloudpool.kubernetes.types.ObjectMeta;
+import com.elastisys.scale.cloudpool.kubernetes.types.Pod;
+import com.elastisys.scale.cloudpool.kubernetes.types.PodStatus;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.api.services.compute.model.AccessConfig;
+import com.google.api.services.compute.model.Instance;
+import com.google.api.services.compute.model.InstanceGroupManager;
+import com.google.api.services.compute.model.Metadata;
+import com.google.api.services.compute.model.NetworkInterface;
+import com.google.api.services.container.model.Cluster;
+import com.google.api.services.container.model.NodePool;
+
+/**
+ * Generates synthetic cloud provider API objects (EC2 instances, Kubernetes
+ * pods, GCE instances and GKE cluster snapshots) for use as benchmark input.
+ * The objects resemble what the respective APIs return, including the tags
+ * and metadata that the cloud pools use to store membership status and
+ * service state. All generated data is derived from a seeded {@link Random}
+ * to keep benchmark runs reproducible.
+ */
+public class SyntheticCloudResources {
+
+    /** Reference point in time from which launch times are drawn. */
+    private static final DateTime EPOCH = new DateTime(2018, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private static final String GCE_PROJECT_URL = "https://www.googleapis.com/compute/v1/projects/my-project";
+    private static final String GKE_CLUSTER_URL = "https://container.googleapis.com/v1/projects/my-project"
+            + "/zones/europe-west1-c/clusters/my-cluster";
+
+    private SyntheticCloudResources() {
+        throw new IllegalStateException("Not instantiable.");
+    }
+
+    /**
+     * Creates a list of EC2 {@link com.amazonaws.services.ec2.model.Instance}s.
+     * Every tenth instance is a spot instance and every fifth carries
+     * membership status and service state tags.
+     *
+     * @param count
+     *            The number of instances to create.
+     * @param seed
+     *            Seed for the random generator.
+     * @return
+     */
+    public static List<com.amazonaws.services.ec2.model.Instance> ec2Instances(int count, long seed) {
+        Random random = new Random(seed);
+        String membershipStatus = JsonUtils.toString(JsonUtils.toJson(MembershipStatus.blessed()));
+        List<com.amazonaws.services.ec2.model.Instance> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DateTime launchTime = launchTime(random);
+            com.amazonaws.services.ec2.model.Instance instance = new com.amazonaws.services.ec2.model.Instance()
+                    .withInstanceId(String.format("i-%08x", i)).withInstanceType("m4.large")
+                    .withState(new InstanceState().withCode(16).withName("running"))
+                    .withLaunchTime(launchTime.toDate()).withPlacement(new Placement("us-east-1" + zone(i)))
+                    .withPublicIpAddress(ip("54.12", i)).withPrivateIpAddress(ip("10.0", i))
+                    .withImageId("ami-12345678").withKeyName("my-key")
+                    .withTags(new Tag("Name", "web-" + i), new Tag("elastisys:cloudPool", "webserver-pool"));
+            if (i % 10 == 0) {
+                instance.setSpotInstanceRequestId(String.format("sir-%08x", i));
+            }
+            if (i % 5 == 0) {
+                instance.withTags(new Tag(ScalingTags.MEMBERSHIP_STATUS_TAG, membershipStatus),
+                        new Tag(ScalingTags.SERVICE_STATE_TAG, ServiceState.IN_SERVICE.name()));
+            }
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+    /**
+     * Creates a list of Kubernetes {@link Pod}s, most of which are running.
+     *
+     * @param count
+     *            The number of pods to create.
+     * @param seed
+     *            Seed for the random generator.
+     * @return
+     */
+    public static List<Pod> pods(int count, long seed) {
+        Random random = new Random(seed);
+        List<Pod> pods = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DateTime creationTime = launchTime(random);
+            boolean running = random.nextInt(10) > 0;
+
+            Pod pod = new Pod();
+            pod.apiVersion = "v1";
+            pod.kind = "Pod";
+            pod.metadata = new ObjectMeta();
+            pod.metadata.name = String.format("nginx-deployment-%08x", i);
+            pod.metadata.namespace = "default";
+            pod.metadata.uid = String.format("%08x-0000-0000-0000-000000000000", i);
+            pod.metadata.creationTimestamp = creationTime;
+            pod.status = new PodStatus();
+            pod.status.phase = running ? "Running" : "Pending";
+            if (running) {
+                pod.status.startTime = creationTime.plusSeconds(5);
+                pod.status.hostIP = ip("10.1", i / 30);
+                pod.status.podIP = ip("172.16", i);
+            }
+            pods.add(pod);
+        }
+        return pods;
+    }
+
+    /**
+     * Creates a list of GCE {@link Instance}s. Every fifth instance carries
+     * membership status and service state metadata.
+     *
+     * @param count
+     *            The number of instances to create.
+     * @param seed
+     *            Seed for the random generator.
+     * @return
+     */
+    public static List<Instance> gceInstances(int count, long seed) {
+        Random random = new Random(seed);
+        String membershipStatus = JsonUtils.toString(JsonUtils.toJson(MembershipStatus.blessed()));
+        String serviceState = JsonUtils.toString(JsonUtils.toJson(ServiceState.IN_SERVICE));
+        List<Instance> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String zone = GCE_PROJECT_URL + "/zones/europe-west1-" + zone(i);
+            String name = String.format("webservers-%08x", i);
+            Instance instance = new Instance().setName(name).setSelfLink(zone + "/instances/" + name).setZone(zone)
+                    .setMachineType(zone + "/machineTypes/n1-standard-1").setStatus("RUNNING")
+                    .setCreationTimestamp(launchTime(random).toString())
+                    .setNetworkInterfaces(Arrays.asList(new NetworkInterface().setNetworkIP(ip("10.132", i))
+                            .setAccessConfigs(Arrays.asList(new AccessConfig().setNatIP(ip("35.187", i))))));
+            if (i % 5 == 0) {
+                instance.setMetadata(new Metadata().setItems(Arrays.asList(
+                        new Metadata.Items().setKey(MetadataKeys.MEMBERSHIP_STATUS).setValue(membershipStatus),
+                        new Metadata.Items().setKey(MetadataKeys.SERVICE_STATE).setValue(serviceState))));
+            }
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+    /**
+     * Creates a GKE {@link ClusterSnapshot} with a number of node pools, each
+     * with a number of instance groups of randomly distributed sizes that add
+     * up to (roughly) a given cluster size.
+     *
+     * @param nodePools
+     *            The number of node pools.
+     * @param instanceGroupsPerNodePool
+     *            The number of instance groups (zones) per node pool.
+     * @param clusterSize
+     *            The approximate total number of nodes in the cluster.
+     * @param seed
+     *            Seed for the random generator.
+     * @return
+     */
+    public static ClusterSnapshot gkeCluster(int nodePools, int instanceGroupsPerNodePool, int clusterSize,
+            long seed) {
+        Random random = new Random(seed);
+        int numGroups = nodePools * instanceGroupsPerNodePool;
+        List<NodePoolSnapshot> nodePoolSnapshots = new ArrayList<>(nodePools);
+        for (int p = 0; p < nodePools; p++) {
+            String nodePoolName = "pool-" + p;
+            List<InstanceGroupSnapshot> instanceGroups = new ArrayList<>(instanceGroupsPerNodePool);
+            for (int g = 0; g < instanceGroupsPerNodePool; g++) {
+                String groupName = "gke-my-cluster-" + nodePoolName + "-grp" + g;
+                // spread nodes unevenly (+/- 50%) over the instance groups
+                int targetSize = (int) (clusterSize / numGroups * (0.5 + random.nextDouble()));
+                InstanceGroupManager metadata = new InstanceGroupManager().setName(groupName)
+                        .setSelfLink(GCE_PROJECT_URL + "/zones/europe-west1-" + zone(g)
+                                + "/instanceGroupManagers/" + groupName)
+                        .setTargetSize(targetSize);
+                instanceGroups.add(new InstanceGroupSnapshot(metadata, new ArrayList<>()));
+            }
+            NodePool nodePool = new NodePool().setName(nodePoolName)
+                    .setSelfLink(GKE_CLUSTER_URL + "/nodePools/" + nodePoolName);
+            nodePoolSnapshots.add(new NodePoolSnapshot(nodePool, instanceGroups));
+        }
+        Cluster cluster = new Cluster().setName("my-cluster").setSelfLink(GKE_CLUSTER_URL);
+        return new ClusterSnapshot(cluster, nodePoolSnapshots, EPOCH);
+    }
+
+    private static DateTime launchTime(Random random) {
+        return EPOCH.plusSeconds(random.nextInt(365 * 24 * 60 * 60));
+    }
+
+    private static char zone(int i) {
+        return (char) ('b' + i % 3);
+    }
+
+    private static String ip(String prefix, int i) {
+        return prefix + "." + i / 256 % 256 + "." + i % 256;
+    }
+}
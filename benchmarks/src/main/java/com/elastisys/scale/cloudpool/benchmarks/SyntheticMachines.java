@@ -0,0 +1,118 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+
+/**
+ * Generates synthetic {@link Machine}s for use as benchmark input. All
+ * generated data is derived from a seeded {@link Random} to keep benchmark runs
+ * reproducible.
+ */
+public class SyntheticMachines {
+
+    /** Reference point in time from which launch times are drawn. */
+    private static final DateTime EPOCH = new DateTime(2018, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private SyntheticMachines() {
+        throw new IllegalStateException("Not instantiable.");
+    }
+
+    /**
+     * Creates a list of running {@link Machine}s with randomly distributed
+     * launch times.
+     *
+     * @param count
+     *            The number of machines to create.
+     * @param seed
+     *            Seed for the random generator.
+     * @return
+     */
+    public static List<Machine> runningMachines(int count, long seed) {
+        Random random = new Random(seed);
+        List<Machine> machines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DateTime launchTime = EPOCH.plusSeconds(random.nextInt(365 * 24 * 60 * 60));
+            machines.add(Machine.builder().id("i-" + i).machineState(MachineState.RUNNING)
+                    .cloudProvider("AWS-EC2").region("us-east-1").machineSize("m1.small")
+                    .serviceState(ServiceState.IN_SERVICE).membershipStatus(MembershipStatus.defaultStatus())
+                    .launchTime(launchTime).requestTime(launchTime).publicIp("1.2.3." + i % 256)
+                    .privateIp("10.0.0." + i % 256).build());
+        }
+        return machines;
+    }
+
+    /**
+     * Creates a list of {@link Machine}s with a mix of machine states,
+     * membership statuses and service states, resembling a pool that is in
+     * the middle of being resized. Roughly 80% of the machines are running
+     * and in service, and a few are blessed, disposable or terminated.
+     *
+     * @param count
+     *            The number of machines to create.
+     * @param seed
+     *            Seed for the random generator.
+     * @return
+     */
+    public static List<Machine> mixedMachines(int count, long seed) {
+        Random random = new Random(seed);
+        List<Machine> machines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DateTime requestTime = EPOCH.plusSeconds(random.nextInt(365 * 24 * 60 * 60));
+            int dice = random.nextInt(100);
+            MachineState machineState = MachineState.RUNNING;
+            ServiceState serviceState = ServiceState.IN_SERVICE;
+            MembershipStatus membershipStatus = MembershipStatus.defaultStatus();
+            if (dice < 5) {
+                machineState = MachineState.REQUESTED;
+                serviceState = ServiceState.UNKNOWN;
+            } else if (dice < 10) {
+                machineState = MachineState.PENDING;
+                serviceState = ServiceState.BOOTING;
+            } else if (dice < 13) {
+                machineState = MachineState.TERMINATED;
+                serviceState = ServiceState.UNKNOWN;
+            } else if (dice < 15) {
+                membershipStatus = MembershipStatus.blessed();
+            } else if (dice < 17) {
+                membershipStatus = MembershipStatus.disposable();
+                serviceState = ServiceState.UNHEALTHY;
+            } else if (dice < 20) {
+                membershipStatus = MembershipStatus.awaitingService();
+                serviceState = ServiceState.OUT_OF_SERVICE;
+            }
+            DateTime launchTime = machineState == MachineState.REQUESTED ? null : requestTime.plusSeconds(30);
+            Machine.Builder machine = Machine.builder().id("i-" + i).machineState(machineState)
+                    .cloudProvider("AWS-EC2").region("us-east-1").machineSize("m1.small").serviceState(serviceState)
+                    .membershipStatus(membershipStatus).requestTime(requestTime).launchTime(launchTime);
+            if (launchTime != null) {
+                String hostPart = i / 256 % 256 + "." + i % 256;
+                machine.publicIp("1.2." + hostPart).privateIp("10.0." + hostPart);
+            }
+            machines.add(machine.build());
+        }
+        return machines;
+    }
+
+    /**
+     * Creates a {@link MachinePool} of {@link #mixedMachines(int, long)}.
+     *
+     * @param count
+     *            The number of machines in the pool.
+     * @param seed
+     *            Seed for the random generator.
+     * @return
+     */
+    public static MachinePool mixedPool(int count, long seed) {
+        return new MachinePool(mixedMachines(count, seed), EPOCH.plusYears(1));
+    }
+}
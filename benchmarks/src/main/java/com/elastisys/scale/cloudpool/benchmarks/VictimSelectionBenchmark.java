@@ -0,0 +1,84 @@
+package com.elastisys.scale.cloudpool.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionPolicy;
+import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionStrategy;
+import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelector;
+import com.elastisys.scale.cloudpool.commons.scaledown.strategies.OldestMachineVictimSelectionStrategy.OldestFirstOrder;
+
+/**
+ * Compares batch victim selection
+ * ({@link VictimSelectionStrategy#selectVictims(java.util.Collection, int)})
+ * against the iterative approach of repeatedly sorting the remaining candidates
+ * and picking the first one, which is how victims were selected before batch
+ * selection was introduced. {@link #victimSelector()} measures the same
+ * selection through the {@link VictimSelector}, as used by the resize planner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VictimSelectionBenchmark {
+
+    @Param({ "100", "1000", "10000", "50000" })
+    public int poolSize;
+
+    /** Number of victims to select, as a percentage of the pool size. */
+    @Param({ "1", "10", "50" })
+    public int victimPercentage;
+
+    private List<Machine> candidates;
+    private int numVictims;
+    private VictimSelectionStrategy strategy;
+    private VictimSelector victimSelector;
+
+    @Setup
+    public void setup() {
+        this.candidates = SyntheticMachines.runningMachines(this.poolSize, 1234L);
+        this.numVictims = Math.max(1, this.poolSize * this.victimPercentage / 100);
+        this.strategy = VictimSelectionPolicy.OLDEST.getVictimSelectionStrategy();
+        this.victimSelector = new VictimSelector(this.strategy);
+    }
+
+    @Benchmark
+    public List<Machine> iterativeSortSelection() {
+        Comparator<Machine> order = new OldestFirstOrder();
+        List<Machine> remaining = new ArrayList<>(this.candidates);
+        List<Machine> victims = new ArrayList<>(this.numVictims);
+        for (int i = 0; i < this.numVictims; i++) {
+            Machine victim = Machine.sort(remaining, order).get(0);
+            victims.add(victim);
+            remaining.remove(victim);
+        }
+        return victims;
+    }
+
+    @Benchmark
+    public List<Machine> batchSelection() {
+        return this.strategy.selectVictims(this.candidates, this.numVictims);
+    }
+
+    @Benchmark
+    public List<Machine> victimSelector() {
+        return this.victimSelector.selectVictims(this.candidates, this.numVictims);
+    }
+}
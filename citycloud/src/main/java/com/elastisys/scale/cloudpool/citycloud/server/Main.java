@@ -9,6 +9,7 @@ import com.elastisys.scale.cloudpool.api.server.CloudPoolServer;
 import com.elastisys.scale.cloudpool.api.types.CloudProviders;
 import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage.PersistenceMode;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.openstack.driver.OpenStackPoolDriver;
 import com.elastisys.scale.cloudpool.openstack.driver.client.StandardOpenstackClient;
@@ -21,7 +22,8 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
         CloudPoolOptions options = CloudPoolServer.parseArgs(args);
-        StateStorage stateStorage = StateStorage.builder(options.storageDir).build();
+        StateStorage stateStorage = StateStorage.builder(options.storageDir)
+                .withPersistenceMode(options.compactState ? PersistenceMode.COMPACT : PersistenceMode.JSON).build();
         CloudPoolDriver openstackDriver = new OpenStackPoolDriver(new StandardOpenstackClient(),
                 CloudProviders.CITYCLOUD);
         ScheduledExecutorService executor = Executors.newScheduledThreadPool(5);
@@ -4,10 +4,17 @@ import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgume
 
 import java.lang.management.ManagementFactory;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,19 +24,31 @@ import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.NotStartedException;
+import com.elastisys.scale.cloudpool.api.changes.PoolChangeFeed;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.types.BatchOperationResult;
 import com.elastisys.scale.cloudpool.api.types.CloudPoolStatus;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachinePoolDiff;
 import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
 import com.elastisys.scale.cloudpool.api.types.PoolSizeSummary;
+import com.elastisys.scale.cloudpool.api.types.ProvisioningLatencies;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.alerts.AsyncAlertDispatcher;
 import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.PoolFetchConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.metrics.InstrumentedCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolChangePublisher;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.ProvisioningLatencyTracker;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl.CachingPoolFetcher;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl.RetryingPoolFetcher;
 import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.PoolUpdater;
+import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl.ResizeScheduler;
 import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl.StandardPoolUpdater;
+import com.elastisys.scale.cloudpool.commons.basepool.resilience.ResilientCloudPoolDriver;
 import com.elastisys.scale.commons.eventbus.EventBus;
 import com.elastisys.scale.commons.eventbus.impl.SynchronousEventBus;
 import com.elastisys.scale.commons.json.JsonUtils;
@@ -146,6 +165,19 @@ import com.google.gson.JsonObject;
  * document with the above structure. From this document a {@link DriverConfig}
  * is constructed and passed on to the {@link CloudPoolDriver} via a call to
  * {@link CloudPoolDriver#configure}.
+ * <p/>
+ * A started {@link BaseCloudPool} is reconfigured in place: only the parts
+ * affected by a changed configuration (the {@link CloudPoolDriver}, alerters,
+ * circuit breakers, call timeouts, pool fetching and pool updating) are
+ * updated, while the cached {@link MachinePool} and the desired size are kept
+ * and the pool keeps being served throughout.
+ * <p/>
+ * On {@link #start()}, the {@link BaseCloudPool} normally waits for its first
+ * attempt to fetch the {@link MachinePool} to complete. With
+ * {@link PoolFetchConfig#isWarmStart()}, a {@link MachinePool} recovered from
+ * the persisted cache (and younger than the reachability timeout) is served
+ * right away, while the first fetch completes in the background. Until it
+ * has, {@link #getStatus()} reports the pool as not ready.
  *
  * <h3>Identifying pool members:</h2>
  *
@@ -157,9 +189,18 @@ import com.google.gson.JsonObject;
  * <h3>Handling resize requests:</h3>
  *
  * When {@link #setDesiredSize(int)} is called, the {@link BaseCloudPool} notes
- * the new desired size but does not immediately apply the necessary changes to
- * the machine pool. Instead, pool updates are carried out in a periodical
- * manner (with a period specified by the {@code poolUpdate} configuration key).
+ * the new desired size and schedules a pool update to be run as soon as
+ * possible. Pool updates are also carried out in a periodical manner (with a
+ * period specified by the {@code poolUpdate} configuration key). At most one
+ * requested pool update runs at a time and at most one is waiting to run, so a
+ * burst of {@link #setDesiredSize(int)} calls is coalesced into (at most) two
+ * pool updates, the last of which applies the most recently set desired size.
+ * <p/>
+ * Requested pool updates are started from a dedicated thread rather than from
+ * the shared executor, and client-requested pool mutations (resizes,
+ * terminations, attaches and detaches) are queued ahead of periodical pool
+ * updates. Periodical work can therefore not delay a client-requested pool
+ * update by more than the pool mutation that is already in progress.
  * <p/>
  * When a pool update is triggered, the actions taken depend on if the pool
  * needs to grow or shrink.
@@ -179,6 +220,56 @@ import com.google.gson.JsonObject;
  * If email and/or HTTP webhook alerts have been configured, the
  * {@link BaseCloudPool} will send alerts to notify selected recipients of
  * interesting events (such as error conditions, scale-ups/scale-downs, etc).
+ * Alerts are sent asynchronously, via a bounded queue, so that slow alert
+ * recipients do not delay pool operations.
+ *
+ * <h3>Change tracking:</h3>
+ *
+ * Every change observed between consecutive pool observations is published as
+ * a {@link MachinePoolDiff} on a {@link PoolChangeFeed} (see
+ * {@link #getChangeFeed()}), which allows clients to track pool changes
+ * without repeatedly fetching and comparing the full {@link MachinePool}.
+ *
+ * <h3>Provisioning latencies:</h3>
+ *
+ * The time machines take to move between {@link MachineState}s (such as from
+ * {@link MachineState#REQUESTED} to {@link MachineState#RUNNING}) is tracked
+ * from the observed pool changes by a {@link ProvisioningLatencyTracker} and
+ * summarized per cloud provider, region and machine size (see
+ * {@link #getProvisioningLatencies()}). Unusually slow transitions are sent as
+ * alerts.
+ *
+ * <h3>Metrics:</h3>
+ *
+ * Latencies and error counts of {@link CloudPoolDriver} calls, pool refreshes
+ * and pool updates are recorded in a {@link MetricRegistry} (see
+ * {@link #getMetrics()}), together with gauges for cache age and pool sizes.
+ *
+ * <h3>Circuit breakers:</h3>
+ *
+ * If {@link BaseCloudPoolConfig#getCircuitBreaker()} is set,
+ * {@link CloudPoolDriver} calls are guarded by per-operation circuit breakers
+ * and concurrency limits (see {@link ResilientCloudPoolDriver}), so that calls
+ * fail fast during a cloud API outage. Circuit breaker states are included in
+ * {@link #getStatus()}, and state changes are sent as alerts.
+ *
+ * <h3>Driver call timeouts:</h3>
+ *
+ * If {@link BaseCloudPoolConfig#getDriverTimeouts()} is set, every
+ * {@link CloudPoolDriver} call has a deadline. A call that does not complete
+ * in time is interrupted and fails, so that a hung cloud API call cannot hold
+ * up pool fetches and updates. Timeouts are sent as alerts and counted as
+ * driver errors in the metrics.
+ *
+ * <h3>Warm pool:</h3>
+ *
+ * If {@link BaseCloudPoolConfig#getWarmPool()} is set (and the
+ * {@link CloudPoolDriver} supports it), a number of pre-provisioned machines
+ * are kept ready outside of the pool. On scale-out, warm machines are promoted
+ * to pool members (see {@link CloudPoolDriver#promoteWarmMachines(List)})
+ * before any new machines are requested. On scale-in, running victims are
+ * demoted back to the warm pool as long as it has room for them. The warm
+ * pool is replenished on every pool update.
  *
  * @see CloudPoolDriver
  */
@@ -189,8 +280,20 @@ public class BaseCloudPool implements CloudPool {
 
     /** Declares where the runtime state is stored. */
     private final StateStorage stateStorage;
-    /** A cloud-specific management driver for the cloud pool. */
+    /**
+     * A cloud-specific management driver for the cloud pool, instrumented to
+     * record call metrics.
+     */
     private CloudPoolDriver cloudDriver = null;
+    /**
+     * Guards the {@link #cloudDriver} with circuit breakers, bulkheads and
+     * call timeouts, if configured.
+     */
+    private final ResilientCloudPoolDriver resilientDriver;
+    /** The (undecorated) type of the {@link #cloudDriver}. */
+    private final String cloudDriverType;
+    /** Operational metrics for the cloud pool. */
+    private final MetricRegistry metrics;
 
     /**
      * {@link EventBus} used to post {@link Alert} events that are to be
@@ -202,20 +305,53 @@ public class BaseCloudPool implements CloudPool {
     private final ScheduledExecutorService executor;
 
     /** The currently set configuration. */
-    private BaseCloudPoolConfig config;
+    private volatile BaseCloudPoolConfig config;
+    /**
+     * The JSON form of {@link #config}, serialized once when the
+     * configuration is set. Never handed out: {@link #getConfiguration()}
+     * returns copies.
+     */
+    private volatile JsonObject configJson;
     /** <code>true</code> if pool has been started. */
     private boolean started;
+    /**
+     * The most recently returned {@link #getStatus()}. <code>null</code> if
+     * none has been returned yet.
+     */
+    private volatile StatusSnapshot status;
 
     /**
      * Dispatches {@link Alert}s sent on the {@link EventBus} to configured
      * {@link Alerter}s.
      */
     private final MultiplexingAlerter alerter;
+    /**
+     * Receives {@link Alert}s from the {@link EventBus} and hands them over to
+     * the {@link #alerter} on a separate thread, such that slow alert sinks
+     * never hold up the posting thread (which may be in the middle of a pool
+     * update).
+     */
+    private final AsyncAlertDispatcher alertDispatcher;
+    /**
+     * Receives {@link MachinePoolDiff}s from the {@link EventBus} for clients
+     * that track pool changes.
+     */
+    private final PoolChangeFeed changeFeed;
+    /**
+     * Receives {@link MachinePoolDiff}s from the {@link EventBus} to track
+     * machine state transition latencies.
+     */
+    private final ProvisioningLatencyTracker latencyTracker;
 
     /** Retrieves {@link MachinePool} members. */
     private CachingPoolFetcher poolFetcher;
     /** Manages the machine pool to keep it at its desired size. */
     private PoolUpdater poolUpdater;
+    /**
+     * Runs resizes triggered by {@link #setDesiredSize(int)}, coalescing
+     * bursts of requests.
+     */
+    private final ResizeScheduler resizeScheduler;
 
     /**
      * Constructs a new {@link BaseCloudPool} managing a given
@@ -249,51 +385,137 @@ public class BaseCloudPool implements CloudPool {
      */
     public BaseCloudPool(StateStorage stateStorage, CloudPoolDriver cloudDriver, ScheduledExecutorService executor,
             EventBus eventBus) {
+        this(stateStorage, cloudDriver, executor, newResizeExecutor(), eventBus);
+    }
+
+    /**
+     * Constructs a new {@link BaseCloudPool} managing a given
+     * {@link CloudPoolDriver}, with a separate executor for pool updates
+     * requested by clients.
+     *
+     * @param stateStorage
+     *            Declares where the runtime state is stored.
+     * @param cloudDriver
+     *            A cloud-specific management driver for the cloud pool.
+     * @param executor
+     *            Used to perform any periodical tasks or background jobs.
+     * @param resizeExecutor
+     *            Used to run pool updates requested via
+     *            {@link #setDesiredSize(int)}. Should not be shared with
+     *            periodical tasks, which could otherwise delay requested pool
+     *            updates.
+     * @param eventBus
+     *            The {@link EventBus} used to send {@link Alert}s and event
+     *            messages between components of the cloud pool.
+     */
+    public BaseCloudPool(StateStorage stateStorage, CloudPoolDriver cloudDriver, ScheduledExecutorService executor,
+            ExecutorService resizeExecutor, EventBus eventBus) {
         checkArgument(stateStorage != null, "no stateStorage given");
         checkArgument(cloudDriver != null, "no cloudDriver given");
         checkArgument(executor != null, "no executor given");
+        checkArgument(resizeExecutor != null, "no resizeExecutor given");
         checkArgument(eventBus != null, "no eventBus given");
 
         this.stateStorage = stateStorage;
-        this.cloudDriver = cloudDriver;
+        this.metrics = new MetricRegistry();
+        this.resilientDriver = ResilientCloudPoolDriver.wrap(cloudDriver, eventBus);
+        this.cloudDriver = InstrumentedCloudPoolDriver.wrap(this.resilientDriver, this.metrics);
+        this.cloudDriverType = cloudDriver.getClass().getSimpleName();
         this.executor = executor;
         this.eventBus = eventBus;
 
         this.alerter = new MultiplexingAlerter();
-        this.eventBus.register(this.alerter);
+        this.alertDispatcher = new AsyncAlertDispatcher(this.alerter);
+        this.eventBus.register(this.alertDispatcher);
+        this.metrics.gauge("cloudpool_alert_queue_depth", "Alerts waiting to be dispatched.",
+                () -> this.alertDispatcher.getQueueDepth());
+        this.metrics.counter("cloudpool_alerts_dropped_total", "Alerts dropped due to a full alert queue.",
+                () -> this.alertDispatcher.getDroppedCount());
+        this.changeFeed = new PoolChangeFeed();
+        this.eventBus.register(new PoolChangePublisher(this.changeFeed));
+        this.latencyTracker = new ProvisioningLatencyTracker(this.eventBus, this.metrics);
+        this.eventBus.register(this.latencyTracker);
+        this.resizeScheduler = new ResizeScheduler(resizeExecutor, () -> this.poolUpdater.resize(config()));
 
         this.config = null;
+        this.configJson = null;
         this.started = false;
     }
 
+    /**
+     * Creates the default executor for pool updates requested by clients: a
+     * single (daemon) thread that is started on demand and exits after a
+     * period of inactivity. A single thread suffices, since the
+     * {@link ResizeScheduler} runs at most one resize at a time.
+     *
+     * @return
+     */
+    private static ExecutorService newResizeExecutor() {
+        return new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "resize-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     @Override
     public void configure(JsonObject jsonConfig) throws IllegalArgumentException, CloudPoolException {
         BaseCloudPoolConfig configuration = validate(jsonConfig);
+        checkArgument(!configuration.getWarmPool().isPresent() || this.cloudDriver.supportsWarmPool(),
+                "failed to validate cloud pool configuration: warmPool: %s does not support a warm pool",
+                this.cloudDriverType);
 
         synchronized (this) {
-            boolean wasStarted = isStarted();
-            if (wasStarted) {
-                stop();
-            }
-
+            BaseCloudPoolConfig previous = this.config;
             LOG.debug("setting new configuration: {}", JsonUtils.toPrettyString(jsonConfig));
-            // re-configure driver
-            DriverConfig driverConfig = new DriverConfig(configuration.getName(), configuration.getCloudApiSettings(),
-                    configuration.getProvisioningTemplate());
-            this.cloudDriver.configure(driverConfig);
+
+            boolean driverChanged = previous == null || driverSettingsChanged(previous, configuration);
+            if (driverChanged) {
+                DriverConfig driverConfig = new DriverConfig(configuration.getName(),
+                        configuration.getCloudApiSettings(), configuration.getProvisioningTemplate());
+                this.cloudDriver.configure(driverConfig);
+            }
             // set configuration only it it was successfully set on driver
+            this.configJson = JsonUtils.toJson(configuration).getAsJsonObject();
             this.config = configuration;
+            this.resilientDriver.setConfig(configuration.getCircuitBreaker().orElse(null));
+            this.resilientDriver.setTimeouts(configuration.getDriverTimeouts().orElse(null));
+
+            // alert metadata includes the pool name
+            if (previous == null || !Objects.equals(previous.getAlerts(), configuration.getAlerts())
+                    || !Objects.equals(previous.getName(), configuration.getName())) {
+                this.alerter.unregisterAlerters();
+                this.alerter.registerAlerters(config().getAlerts(), standardAlertMetadata());
+            }
 
-            // alerters may have changed
-            this.alerter.unregisterAlerters();
-            this.alerter.registerAlerters(config().getAlerts(), standardAlertMetadata());
-
-            if (wasStarted) {
-                start();
+            if (isStarted()) {
+                // a reconfigured driver may not recognize incremental
+                // listing watermarks from before, so start over from a full
+                // listing
+                if (driverChanged || !Objects.equals(previous.getPoolFetch(), configuration.getPoolFetch())) {
+                    LOG.info("applying new pool fetch configuration");
+                    this.poolFetcher.reconfigure(new RetryingPoolFetcher(this.cloudDriver, config().getPoolFetch()),
+                            config().getPoolFetch());
+                }
+                this.poolUpdater.reconfigure(configuration);
             }
         }
     }
 
+    /**
+     * Returns <code>true</code> if two configurations differ in any of the
+     * settings that make up the {@link DriverConfig}.
+     *
+     * @param previous
+     * @param next
+     * @return
+     */
+    private static boolean driverSettingsChanged(BaseCloudPoolConfig previous, BaseCloudPoolConfig next) {
+        return !Objects.equals(previous.getName(), next.getName())
+                || !Objects.equals(previous.getCloudApiSettings(), next.getCloudApiSettings())
+                || !Objects.equals(previous.getProvisioningTemplate(), next.getProvisioningTemplate());
+    }
+
     private BaseCloudPoolConfig validate(JsonObject jsonConfig) throws IllegalArgumentException {
         try {
             BaseCloudPoolConfig configuration = JsonUtils.toObject(jsonConfig, BaseCloudPoolConfig.class);
@@ -309,10 +531,8 @@ public class BaseCloudPool implements CloudPool {
 
     @Override
     public Optional<JsonObject> getConfiguration() {
-        if (this.config == null) {
-            return Optional.empty();
-        }
-        return Optional.of(JsonUtils.toJson(this.config).getAsJsonObject());
+        JsonObject current = this.configJson;
+        return Optional.ofNullable(current).map(JsonObject::deepCopy);
     }
 
     @Override
@@ -322,16 +542,20 @@ public class BaseCloudPool implements CloudPool {
         if (isStarted()) {
             return;
         }
-        LOG.info("starting {} driving a {}", getClass().getSimpleName(), this.cloudDriver.getClass().getSimpleName());
-
-        RetryingPoolFetcher retryingFetcher = new RetryingPoolFetcher(this.cloudDriver,
-                config().getPoolFetch().getRetries());
-        // note: we wait for first attempt to get the pool to complete
-        this.poolFetcher = new CachingPoolFetcher(this.stateStorage, retryingFetcher, config().getPoolFetch(),
-                this.executor, this.eventBus);
-        this.poolFetcher.awaitFirstFetch();
+        LOG.info("starting {} driving a {}", getClass().getSimpleName(), this.cloudDriverType);
+
+        PoolFetchConfig poolFetch = config().getPoolFetch();
+        RetryingPoolFetcher retryingFetcher = new RetryingPoolFetcher(this.cloudDriver, poolFetch);
+        this.poolFetcher = new CachingPoolFetcher(this.stateStorage, retryingFetcher, poolFetch, this.executor,
+                this.eventBus, this.metrics);
+        if (poolFetch.isWarmStart() && this.poolFetcher.hasServableCache()) {
+            LOG.info("warm start: serving recovered machine pool while first pool fetch completes");
+        } else {
+            // wait for first attempt to get the pool to complete
+            this.poolFetcher.awaitFirstFetch();
+        }
         this.poolUpdater = new StandardPoolUpdater(this.cloudDriver, this.poolFetcher, this.executor, this.eventBus,
-                config());
+                config(), this.metrics);
 
         this.started = true;
         LOG.info(getClass().getSimpleName() + " started.");
@@ -351,11 +575,22 @@ public class BaseCloudPool implements CloudPool {
 
     @Override
     public CloudPoolStatus getStatus() {
-        return new CloudPoolStatus(isStarted(), isConfigured());
+        boolean started = isStarted();
+        boolean configured = isConfigured();
+        Map<String, String> circuitBreakers = this.resilientDriver.getCircuitBreakerStateNames().orElse(null);
+        Boolean ready = started ? this.poolFetcher.isReady() : null;
+
+        // the status is only rebuilt when it has changed
+        StatusSnapshot snapshot = this.status;
+        if (snapshot == null || !snapshot.matches(started, configured, circuitBreakers, ready)) {
+            snapshot = new StatusSnapshot(started, configured, circuitBreakers, ready);
+            this.status = snapshot;
+        }
+        return snapshot.status;
     }
 
     private boolean isConfigured() {
-        return getConfiguration().isPresent();
+        return this.config != null;
     }
 
     /**
@@ -379,6 +614,13 @@ public class BaseCloudPool implements CloudPool {
         return this.poolFetcher.get();
     }
 
+    @Override
+    public MachinePool getMachinePool(long maxStalenessMillis) throws CloudPoolException {
+        ensureStarted();
+
+        return this.poolFetcher.get(maxStalenessMillis);
+    }
+
     /**
      * Ensures that the {@link CloudPool} has been started or otherwise throws a
      * {@link NotStartedException}.
@@ -395,7 +637,7 @@ public class BaseCloudPool implements CloudPool {
 
         MachinePool pool = this.poolFetcher.get();
         return new PoolSizeSummary(pool.getTimestamp(), this.poolUpdater.getDesiredSize(),
-                pool.getAllocatedMachines().size(), pool.getActiveMachines().size());
+                pool.getAllocatedSize(), pool.getActiveSize());
     }
 
     @Override
@@ -403,8 +645,9 @@ public class BaseCloudPool implements CloudPool {
         ensureStarted();
 
         this.poolUpdater.setDesiredSize(desiredSize);
-        // (asynchronously) run a pool update as soon as possible
-        return this.executor.submit(() -> this.poolUpdater.resize(config()));
+        // (asynchronously) run a pool update as soon as possible. if a pool
+        // update is already waiting to run, it will apply the new desired size
+        return this.resizeScheduler.requestResize();
     }
 
     @Override
@@ -415,6 +658,23 @@ public class BaseCloudPool implements CloudPool {
         this.poolUpdater.terminateMachine(machineId, decrementDesiredSize);
     }
 
+    @Override
+    public Future<?> terminateMachineAsync(String machineId, boolean decrementDesiredSize)
+            throws IllegalArgumentException, CloudPoolException {
+        ensureStarted();
+
+        return logFailure(this.poolUpdater.terminateMachineAsync(machineId, decrementDesiredSize),
+                "terminate " + machineId);
+    }
+
+    @Override
+    public BatchOperationResult terminateMachines(List<String> machineIds, boolean decrementDesiredSize)
+            throws CloudPoolException {
+        ensureStarted();
+
+        return this.poolUpdater.terminateMachines(machineIds, decrementDesiredSize);
+    }
+
     @Override
     public void attachMachine(String machineId) throws IllegalArgumentException, CloudPoolException {
         ensureStarted();
@@ -422,6 +682,13 @@ public class BaseCloudPool implements CloudPool {
         this.poolUpdater.attachMachine(machineId);
     }
 
+    @Override
+    public Future<?> attachMachineAsync(String machineId) throws IllegalArgumentException, CloudPoolException {
+        ensureStarted();
+
+        return logFailure(this.poolUpdater.attachMachineAsync(machineId), "attach " + machineId);
+    }
+
     @Override
     public void detachMachine(String machineId, boolean decrementDesiredSize)
             throws IllegalArgumentException, CloudPoolException {
@@ -430,6 +697,40 @@ public class BaseCloudPool implements CloudPool {
         this.poolUpdater.detachMachine(machineId, decrementDesiredSize);
     }
 
+    @Override
+    public Future<?> detachMachineAsync(String machineId, boolean decrementDesiredSize)
+            throws IllegalArgumentException, CloudPoolException {
+        ensureStarted();
+
+        return logFailure(this.poolUpdater.detachMachineAsync(machineId, decrementDesiredSize),
+                "detach " + machineId);
+    }
+
+    /**
+     * Logs the failure (if any) of a pool mutation that no caller may be
+     * waiting for.
+     *
+     * @param mutation
+     * @param description
+     *            Describes the mutation, such as {@code terminate i-1}.
+     * @return The pool mutation.
+     */
+    private static CompletableFuture<Void> logFailure(CompletableFuture<Void> mutation, String description) {
+        return mutation.whenComplete((result, error) -> {
+            if (error != null) {
+                LOG.warn("failed to {}: {}", description, error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public BatchOperationResult detachMachines(List<String> machineIds, boolean decrementDesiredSize)
+            throws CloudPoolException {
+        ensureStarted();
+
+        return this.poolUpdater.detachMachines(machineIds, decrementDesiredSize);
+    }
+
     @Override
     public void setServiceState(String machineId, ServiceState serviceState) throws IllegalArgumentException {
         ensureStarted();
@@ -473,6 +774,31 @@ public class BaseCloudPool implements CloudPool {
         return this.config;
     }
 
+    @Override
+    public Optional<PoolChangeFeed> getChangeFeed() {
+        return Optional.of(this.changeFeed);
+    }
+
+    @Override
+    public Optional<MetricRegistry> getMetrics() {
+        return Optional.of(this.metrics);
+    }
+
+    @Override
+    public Optional<ProvisioningLatencies> getProvisioningLatencies() {
+        return Optional.of(this.latencyTracker.getLatencies());
+    }
+
+    /**
+     * Returns the {@link AsyncAlertDispatcher} through which {@link Alert}s are
+     * sent, which can be inspected for queue depth and drop counts.
+     *
+     * @return
+     */
+    public AsyncAlertDispatcher getAlertDispatcher() {
+        return this.alertDispatcher;
+    }
+
     /**
      * Forces the {@link PoolUpdater} to run a resize iteration (reconciliating
      * the pool size with the set desired size).
@@ -480,4 +806,31 @@ public class BaseCloudPool implements CloudPool {
     void updateMachinePool() {
         this.poolUpdater.resize(config());
     }
+
+    /**
+     * A {@link CloudPoolStatus} together with the inputs it was built from.
+     * The circuit breaker states are compared by identity, since
+     * {@link ResilientCloudPoolDriver#getCircuitBreakerStateNames()} returns
+     * the same map until a state changes.
+     */
+    private static class StatusSnapshot {
+        private final boolean started;
+        private final boolean configured;
+        private final Map<String, String> circuitBreakers;
+        private final Boolean ready;
+        private final CloudPoolStatus status;
+
+        StatusSnapshot(boolean started, boolean configured, Map<String, String> circuitBreakers, Boolean ready) {
+            this.started = started;
+            this.configured = configured;
+            this.circuitBreakers = circuitBreakers;
+            this.ready = ready;
+            this.status = new CloudPoolStatus(started, configured, circuitBreakers, ready);
+        }
+
+        boolean matches(boolean started, boolean configured, Map<String, String> circuitBreakers, Boolean ready) {
+            return this.started == started && this.configured == configured
+                    && this.circuitBreakers == circuitBreakers && Objects.equals(this.ready, ready);
+        }
+    }
 }
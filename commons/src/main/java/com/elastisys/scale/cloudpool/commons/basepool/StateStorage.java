@@ -12,11 +12,24 @@ import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl.CachingPo
  */
 public class StateStorage {
     public static final String DEFAULT_CACHED_MACHINE_POOL_FILENAME = "cached_machine_pool.json";
+    public static final String DEFAULT_COMPACT_CACHED_MACHINE_POOL_FILENAME = "cached_machine_pool.json.gz";
+
+    /**
+     * The on-disk format used for persisted runtime state.
+     */
+    public static enum PersistenceMode {
+        /** Human-readable, pretty-printed JSON. */
+        JSON,
+        /** Gzip-compressed, compact JSON. */
+        COMPACT;
+    }
 
     /**
      * File where the {@link CachingPoolFetcher} stores its machine pool cache.
      */
     private final File cachedMachinePoolFile;
+    /** The on-disk format used for persisted runtime state. */
+    private final PersistenceMode persistenceMode;
 
     /**
      * Creates a {@link StateStorage} instance.
@@ -24,9 +37,12 @@ public class StateStorage {
      * @param cachedMachinePoolFile
      *            File where the {@link CachingPoolFetcher} stores its machine
      *            pool cache.
+     * @param persistenceMode
+     *            The on-disk format used for persisted runtime state.
      */
-    private StateStorage(File cachedMachinePoolFile) {
+    private StateStorage(File cachedMachinePoolFile, PersistenceMode persistenceMode) {
         this.cachedMachinePoolFile = cachedMachinePoolFile;
+        this.persistenceMode = persistenceMode;
     }
 
     /**
@@ -38,6 +54,15 @@ public class StateStorage {
         return this.cachedMachinePoolFile;
     }
 
+    /**
+     * The on-disk format used for persisted runtime state.
+     *
+     * @return
+     */
+    public PersistenceMode getPersistenceMode() {
+        return this.persistenceMode;
+    }
+
     public static StateStorageBuilder builder(String storageDir) {
         return builder(new File(storageDir));
     }
@@ -53,7 +78,9 @@ public class StateStorage {
     public static class StateStorageBuilder {
         private final File storageDir;
 
-        private String cachedMachinePoolFileName = DEFAULT_CACHED_MACHINE_POOL_FILENAME;
+        private String cachedMachinePoolFileName = null;
+
+        private PersistenceMode persistenceMode = PersistenceMode.JSON;
 
         public StateStorageBuilder(File storageDir) {
             checkArgument(storageDir != null, "storageDir cannot be null");
@@ -61,8 +88,27 @@ public class StateStorage {
         }
 
         public StateStorage build() {
-            File cachedMachinePoolFile = new File(this.storageDir, this.cachedMachinePoolFileName);
-            return new StateStorage(cachedMachinePoolFile);
+            String fileName = this.cachedMachinePoolFileName;
+            if (fileName == null) {
+                fileName = this.persistenceMode == PersistenceMode.COMPACT
+                        ? DEFAULT_COMPACT_CACHED_MACHINE_POOL_FILENAME
+                        : DEFAULT_CACHED_MACHINE_POOL_FILENAME;
+            }
+            File cachedMachinePoolFile = new File(this.storageDir, fileName);
+            return new StateStorage(cachedMachinePoolFile, this.persistenceMode);
+        }
+
+        /**
+         * The on-disk format to use for persisted runtime state. Default:
+         * {@link PersistenceMode#JSON}.
+         *
+         * @param persistenceMode
+         * @return
+         */
+        public StateStorageBuilder withPersistenceMode(PersistenceMode persistenceMode) {
+            checkArgument(persistenceMode != null, "persistenceMode cannot be null");
+            this.persistenceMode = persistenceMode;
+            return this;
         }
 
         /**
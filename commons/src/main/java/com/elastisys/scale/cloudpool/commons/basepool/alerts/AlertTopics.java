@@ -23,5 +23,20 @@ public enum AlertTopics {
      * Topic for {@link Alert}s related to membership status changes on
      * machines.
      */
-    MEMBERSHIP_STATUS;
+    MEMBERSHIP_STATUS,
+    /**
+     * Topic for {@link Alert}s related to cloud driver circuit breakers opening
+     * and closing.
+     */
+    CIRCUIT_BREAKER,
+    /**
+     * Topic for {@link Alert}s related to cloud driver calls that did not
+     * complete within their deadline.
+     */
+    DRIVER_TIMEOUT,
+    /**
+     * Topic for {@link Alert}s related to machines that are unusually slow to
+     * change machine state.
+     */
+    PROVISIONING_LATENCY;
 }
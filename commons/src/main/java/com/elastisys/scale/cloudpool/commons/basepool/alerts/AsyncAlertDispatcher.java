@@ -0,0 +1,259 @@
+package com.elastisys.scale.cloudpool.commons.basepool.alerts;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.commons.eventbus.EventBus;
+import com.elastisys.scale.commons.eventbus.Subscriber;
+import com.elastisys.scale.commons.net.alerter.Alert;
+import com.elastisys.scale.commons.net.alerter.Alerter;
+
+/**
+ * An {@link Alerter} that decouples the posting of {@link Alert}s from their
+ * delivery. {@link Alert}s are placed on a bounded queue and are forwarded to a
+ * wrapped {@link Alerter} by a dedicated dispatcher thread, such that threads
+ * posting {@link Alert}s on an {@link EventBus} never wait for (potentially
+ * slow) alert sinks, such as SMTP servers or HTTP endpoints.
+ * <p/>
+ * The dispatcher drains queued {@link Alert}s in batches and, within a batch,
+ * delivers identical {@link Alert}s (same topic, severity, message, details
+ * and metadata) only once. Alerts that only differ in metadata (such as the
+ * ids of the affected machines) are all delivered.
+ * <p/>
+ * When the queue is full, an incoming {@link Alert} is coalesced with an
+ * identical {@link Alert} already on the queue, if one exists. Otherwise the
+ * incoming {@link Alert} is dropped. Queue depth and the number of coalesced
+ * and dropped {@link Alert}s can be inspected via {@link #getQueueDepth()},
+ * {@link #getCoalescedCount()} and {@link #getDroppedCount()}.
+ * <p/>
+ * The dispatcher thread is started on demand and exits after a period of
+ * inactivity, so an idle {@link AsyncAlertDispatcher} does not hold on to any
+ * threads.
+ */
+public class AsyncAlertDispatcher implements Alerter {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncAlertDispatcher.class);
+
+    /** Default maximum number of {@link Alert}s waiting to be dispatched. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    /** Default maximum number of {@link Alert}s to dispatch in one batch. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 50;
+    /** How long an idle dispatcher thread is kept alive. */
+    private static final long DISPATCHER_KEEP_ALIVE_SECONDS = 60L;
+
+    /** The {@link Alerter} to which {@link Alert}s are dispatched. */
+    private final Alerter sink;
+    /** Maximum number of {@link Alert}s to dispatch in one batch. */
+    private final int maxBatchSize;
+
+    /** {@link Alert}s waiting to be dispatched. */
+    private final BlockingQueue<Alert> queue;
+    /** Runs the dispatch loop on a (single) dedicated thread. */
+    private final ExecutorService dispatcher;
+    /** <code>true</code> while a dispatch task is scheduled or running. */
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean(false);
+
+    /** Number of {@link Alert}s dispatched to the sink. */
+    private final AtomicLong dispatchedCount = new AtomicLong(0);
+    /** Number of {@link Alert}s that were coalesced with a queued duplicate. */
+    private final AtomicLong coalescedCount = new AtomicLong(0);
+    /** Number of {@link Alert}s that were dropped due to a full queue. */
+    private final AtomicLong droppedCount = new AtomicLong(0);
+
+    /**
+     * Creates an {@link AsyncAlertDispatcher} with default queue capacity and
+     * batch size.
+     *
+     * @param sink
+     *            The {@link Alerter} to which {@link Alert}s are dispatched.
+     */
+    public AsyncAlertDispatcher(Alerter sink) {
+        this(sink, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Creates an {@link AsyncAlertDispatcher}.
+     *
+     * @param sink
+     *            The {@link Alerter} to which {@link Alert}s are dispatched.
+     * @param queueCapacity
+     *            Maximum number of {@link Alert}s waiting to be dispatched.
+     * @param maxBatchSize
+     *            Maximum number of {@link Alert}s to dispatch in one batch.
+     */
+    public AsyncAlertDispatcher(Alerter sink, int queueCapacity, int maxBatchSize) {
+        requireNonNull(sink, "sink cannot be null");
+        checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+        checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+
+        this.sink = sink;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dispatcher = new ThreadPoolExecutor(0, 1, DISPATCHER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "alert-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Enqueues an {@link Alert} for dispatching. Never blocks.
+     *
+     * @param alert
+     */
+    @Subscriber
+    @Override
+    public void handleAlert(Alert alert) {
+        if (!this.queue.offer(alert)) {
+            if (this.queue.stream().anyMatch(queued -> sameAlert(queued, alert))) {
+                LOG.debug("alert queue full, coalescing alert with queued duplicate: {}", alert.getMessage());
+                this.coalescedCount.incrementAndGet();
+            } else {
+                LOG.warn("alert queue full, dropping alert: {}", alert.getMessage());
+                this.droppedCount.incrementAndGet();
+            }
+        }
+        scheduleDispatch();
+    }
+
+    /**
+     * Returns the number of {@link Alert}s currently waiting to be dispatched.
+     *
+     * @return
+     */
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    /**
+     * Returns the number of {@link Alert}s that have been dispatched to the
+     * sink.
+     *
+     * @return
+     */
+    public long getDispatchedCount() {
+        return this.dispatchedCount.get();
+    }
+
+    /**
+     * Returns the number of {@link Alert}s that were coalesced with a queued
+     * duplicate, either because the queue was full or because the duplicate
+     * was part of the same dispatch batch.
+     *
+     * @return
+     */
+    public long getCoalescedCount() {
+        return this.coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of {@link Alert}s that were dropped because the queue
+     * was full.
+     *
+     * @return
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    private void scheduleDispatch() {
+        if (this.dispatchScheduled.compareAndSet(false, true)) {
+            try {
+                this.dispatcher.execute(this::dispatch);
+            } catch (RejectedExecutionException e) {
+                // leave the alerts queued for the next attempt
+                this.dispatchScheduled.set(false);
+                LOG.warn("failed to schedule alert dispatch: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Dispatches queued {@link Alert}s until the queue is empty. Should the
+     * dispatch be cut short by an unexpected error, a new dispatch is
+     * scheduled for any {@link Alert}s still queued, so that the dispatcher
+     * never gets stuck in a scheduled state.
+     */
+    private void dispatch() {
+        boolean completed = false;
+        try {
+            dispatchQueued();
+            completed = true;
+        } finally {
+            if (!completed) {
+                this.dispatchScheduled.set(false);
+                if (!this.queue.isEmpty()) {
+                    scheduleDispatch();
+                }
+            }
+        }
+    }
+
+    private void dispatchQueued() {
+        List<Alert> batch = new ArrayList<>(this.maxBatchSize);
+        while (true) {
+            batch.clear();
+            this.queue.drainTo(batch, this.maxBatchSize);
+            if (batch.isEmpty()) {
+                this.dispatchScheduled.set(false);
+                // an alert may have been enqueued after the drain but before
+                // the flag was cleared (the enqueuer then skipped scheduling)
+                if (this.queue.isEmpty() || !this.dispatchScheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            dispatchBatch(batch);
+        }
+    }
+
+    private void dispatchBatch(List<Alert> batch) {
+        List<Alert> distinct = new ArrayList<>(batch.size());
+        for (Alert alert : batch) {
+            if (distinct.stream().anyMatch(dispatched -> sameAlert(dispatched, alert))) {
+                this.coalescedCount.incrementAndGet();
+                continue;
+            }
+            distinct.add(alert);
+        }
+
+        for (Alert alert : distinct) {
+            try {
+                this.sink.handleAlert(alert);
+                this.dispatchedCount.incrementAndGet();
+            } catch (Throwable e) {
+                // an error (such as a NoClassDefFoundError) in one sink call
+                // must not stop the delivery of other alerts
+                LOG.warn("failed to dispatch alert: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if two {@link Alert}s carry the same
+     * information, disregarding timestamp.
+     */
+    private static boolean sameAlert(Alert a, Alert b) {
+        return Objects.equals(a.getTopic(), b.getTopic()) //
+                && Objects.equals(a.getSeverity(), b.getSeverity()) //
+                && Objects.equals(a.getMessage(), b.getMessage()) //
+                && Objects.equals(a.getDetails(), b.getDetails()) //
+                && Objects.equals(a.getMetadata(), b.getMetadata());
+    }
+}
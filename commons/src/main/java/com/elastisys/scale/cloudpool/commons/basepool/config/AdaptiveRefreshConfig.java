@@ -0,0 +1,119 @@
+package com.elastisys.scale.cloudpool.commons.basepool.config;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * Makes the {@link MachinePool} refresh interval adapt to pool activity. The
+ * pool is refreshed every {@link #minInterval} while it has machines in a
+ * transitional {@link MachineState} or a resize has just been carried out. Once
+ * the pool is stable, the interval is multiplied by {@link #backoffFactor}
+ * after every refresh, up to {@link #maxInterval}.
+ */
+public class AdaptiveRefreshConfig {
+    /** Default value for {@link #backoffFactor}. */
+    public static final double DEFAULT_BACKOFF_FACTOR = 2.0;
+
+    /**
+     * The refresh interval to use while the pool is changing.
+     */
+    private final TimeInterval minInterval;
+    /**
+     * The longest refresh interval to back off to while the pool is stable.
+     */
+    private final TimeInterval maxInterval;
+    /**
+     * The factor by which the refresh interval grows after every refresh of a
+     * stable pool. May be <code>null</code>. Default: 2.0.
+     */
+    private final Double backoffFactor;
+
+    /**
+     * Creates an {@link AdaptiveRefreshConfig}.
+     *
+     * @param minInterval
+     *            The refresh interval to use while the pool is changing.
+     * @param maxInterval
+     *            The longest refresh interval to back off to while the pool is
+     *            stable.
+     * @param backoffFactor
+     *            The factor by which the refresh interval grows after every
+     *            refresh of a stable pool. May be <code>null</code>. Default:
+     *            2.0.
+     */
+    public AdaptiveRefreshConfig(TimeInterval minInterval, TimeInterval maxInterval, Double backoffFactor) {
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.backoffFactor = backoffFactor;
+    }
+
+    /**
+     * The refresh interval to use while the pool is changing.
+     *
+     * @return
+     */
+    public TimeInterval getMinInterval() {
+        return this.minInterval;
+    }
+
+    /**
+     * The longest refresh interval to back off to while the pool is stable.
+     *
+     * @return
+     */
+    public TimeInterval getMaxInterval() {
+        return this.maxInterval;
+    }
+
+    /**
+     * The factor by which the refresh interval grows after every refresh of a
+     * stable pool.
+     *
+     * @return
+     */
+    public double getBackoffFactor() {
+        return Optional.ofNullable(this.backoffFactor).orElse(DEFAULT_BACKOFF_FACTOR);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.minInterval, this.maxInterval, getBackoffFactor());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof AdaptiveRefreshConfig) {
+            AdaptiveRefreshConfig that = (AdaptiveRefreshConfig) obj;
+            return Objects.equals(this.minInterval, that.minInterval) //
+                    && Objects.equals(this.maxInterval, that.maxInterval) //
+                    && Objects.equals(getBackoffFactor(), that.getBackoffFactor());
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toPrettyString(JsonUtils.toJson(this));
+    }
+
+    public void validate() throws IllegalArgumentException {
+        checkArgument(this.minInterval != null, "adaptiveRefresh: missing minInterval");
+        checkArgument(this.maxInterval != null, "adaptiveRefresh: missing maxInterval");
+        this.minInterval.validate();
+        this.maxInterval.validate();
+
+        long minMillis = TimeUnit.MILLISECONDS.convert(this.minInterval.getTime(), this.minInterval.getUnit());
+        long maxMillis = TimeUnit.MILLISECONDS.convert(this.maxInterval.getTime(), this.maxInterval.getUnit());
+        checkArgument(minMillis > 0, "adaptiveRefresh: minInterval must be positive");
+        checkArgument(minMillis <= maxMillis, "adaptiveRefresh: maxInterval cannot be shorter than minInterval");
+        checkArgument(getBackoffFactor() >= 1.0, "adaptiveRefresh: backoffFactor must be at least 1.0");
+    }
+}
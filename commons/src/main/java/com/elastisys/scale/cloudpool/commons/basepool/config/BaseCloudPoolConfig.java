@@ -92,6 +92,26 @@ public class BaseCloudPoolConfig {
      */
     private final PoolUpdateConfig poolUpdate;
 
+    /**
+     * Guards calls to the {@link CloudPoolDriver} with circuit breakers and
+     * bulkheads. May be <code>null</code>, in which case driver calls are not
+     * guarded.
+     */
+    private final CircuitBreakerConfig circuitBreaker;
+
+    /**
+     * Keeps a number of pre-provisioned machines ready outside of the pool, to
+     * be promoted to pool members on scale-out. May be <code>null</code>, in
+     * which case no warm pool is kept.
+     */
+    private final WarmPoolConfig warmPool;
+
+    /**
+     * Puts deadlines on calls to the {@link CloudPoolDriver}. May be
+     * <code>null</code>, in which case driver calls have no deadline.
+     */
+    private final DriverTimeoutsConfig driverTimeouts;
+
     /**
      * Creates a {@link BaseCloudPoolConfig}.
      *
@@ -131,6 +151,123 @@ public class BaseCloudPoolConfig {
     public BaseCloudPoolConfig(String name, JsonObject cloudApiSettings, JsonObject provisioningTemplate,
             ScaleInConfig scaleInConfig, AlertersConfig alertSettings, PoolFetchConfig poolFetchConfig,
             PoolUpdateConfig poolUpdatePeriodConfig) {
+        this(name, cloudApiSettings, provisioningTemplate, scaleInConfig, alertSettings, poolFetchConfig,
+                poolUpdatePeriodConfig, null);
+    }
+
+    /**
+     * Creates a {@link BaseCloudPoolConfig}.
+     *
+     * @param name
+     *            The logical name of the managed group of machines. Required.
+     * @param cloudApiSettings
+     *            API access credentials and settings required to communicate
+     *            with the targeted cloud. Required.
+     * @param provisioningTemplate
+     *            Describes how to provision additional servers (on scale-out).
+     *            Required.
+     * @param scaleInConfig
+     *            Configuration that describes how to shrink the cloud pool. May
+     *            be <code>null</code>.
+     * @param alertSettings
+     *            Configuration that describes how to send alerts. May be
+     *            <code>null</code>.
+     * @param poolFetchConfig
+     *            Controls how often to fetch the {@link MachinePool}. May be
+     *            <code>null</code>.
+     * @param poolUpdatePeriodConfig
+     *            The time interval between periodical pool size updates. May be
+     *            <code>null</code>.
+     * @param circuitBreaker
+     *            Guards calls to the {@link CloudPoolDriver} with circuit
+     *            breakers and bulkheads. May be <code>null</code>, in which
+     *            case driver calls are not guarded.
+     * @see #BaseCloudPoolConfig(String, JsonObject, JsonObject, ScaleInConfig,
+     *      AlertersConfig, PoolFetchConfig, PoolUpdateConfig)
+     */
+    public BaseCloudPoolConfig(String name, JsonObject cloudApiSettings, JsonObject provisioningTemplate,
+            ScaleInConfig scaleInConfig, AlertersConfig alertSettings, PoolFetchConfig poolFetchConfig,
+            PoolUpdateConfig poolUpdatePeriodConfig, CircuitBreakerConfig circuitBreaker) {
+        this(name, cloudApiSettings, provisioningTemplate, scaleInConfig, alertSettings, poolFetchConfig,
+                poolUpdatePeriodConfig, circuitBreaker, null);
+    }
+
+    /**
+     * Creates a {@link BaseCloudPoolConfig}.
+     *
+     * @param name
+     *            The logical name of the managed group of machines. Required.
+     * @param cloudApiSettings
+     *            API access credentials and settings required to communicate
+     *            with the targeted cloud. Required.
+     * @param provisioningTemplate
+     *            Describes how to provision additional servers (on scale-out).
+     *            Required.
+     * @param scaleInConfig
+     *            Configuration that describes how to shrink the cloud pool. May
+     *            be <code>null</code>.
+     * @param alertSettings
+     *            Configuration that describes how to send alerts. May be
+     *            <code>null</code>.
+     * @param poolFetchConfig
+     *            Controls how often to fetch the {@link MachinePool}. May be
+     *            <code>null</code>.
+     * @param poolUpdatePeriodConfig
+     *            The time interval between periodical pool size updates. May be
+     *            <code>null</code>.
+     * @param circuitBreaker
+     *            Guards calls to the {@link CloudPoolDriver} with circuit
+     *            breakers and bulkheads. May be <code>null</code>.
+     * @param warmPool
+     *            Keeps a number of pre-provisioned machines ready outside of
+     *            the pool, to be promoted to pool members on scale-out. May be
+     *            <code>null</code>, in which case no warm pool is kept.
+     */
+    public BaseCloudPoolConfig(String name, JsonObject cloudApiSettings, JsonObject provisioningTemplate,
+            ScaleInConfig scaleInConfig, AlertersConfig alertSettings, PoolFetchConfig poolFetchConfig,
+            PoolUpdateConfig poolUpdatePeriodConfig, CircuitBreakerConfig circuitBreaker, WarmPoolConfig warmPool) {
+        this(name, cloudApiSettings, provisioningTemplate, scaleInConfig, alertSettings, poolFetchConfig,
+                poolUpdatePeriodConfig, circuitBreaker, warmPool, null);
+    }
+
+    /**
+     * Creates a {@link BaseCloudPoolConfig}.
+     *
+     * @param name
+     *            The logical name of the managed group of machines. Required.
+     * @param cloudApiSettings
+     *            API access credentials and settings required to communicate
+     *            with the targeted cloud. Required.
+     * @param provisioningTemplate
+     *            Describes how to provision additional servers (on scale-out).
+     *            Required.
+     * @param scaleInConfig
+     *            Configuration that describes how to shrink the cloud pool. May
+     *            be <code>null</code>.
+     * @param alertSettings
+     *            Configuration that describes how to send alerts. May be
+     *            <code>null</code>.
+     * @param poolFetchConfig
+     *            Controls how often to fetch the {@link MachinePool}. May be
+     *            <code>null</code>.
+     * @param poolUpdatePeriodConfig
+     *            The time interval between periodical pool size updates. May be
+     *            <code>null</code>.
+     * @param circuitBreaker
+     *            Guards calls to the {@link CloudPoolDriver} with circuit
+     *            breakers and bulkheads. May be <code>null</code>.
+     * @param warmPool
+     *            Keeps a number of pre-provisioned machines ready outside of
+     *            the pool. May be <code>null</code>.
+     * @param driverTimeouts
+     *            Puts deadlines on calls to the {@link CloudPoolDriver}. May be
+     *            <code>null</code>, in which case driver calls have no
+     *            deadline.
+     */
+    public BaseCloudPoolConfig(String name, JsonObject cloudApiSettings, JsonObject provisioningTemplate,
+            ScaleInConfig scaleInConfig, AlertersConfig alertSettings, PoolFetchConfig poolFetchConfig,
+            PoolUpdateConfig poolUpdatePeriodConfig, CircuitBreakerConfig circuitBreaker, WarmPoolConfig warmPool,
+            DriverTimeoutsConfig driverTimeouts) {
         this.name = name;
         this.cloudApiSettings = cloudApiSettings;
         this.provisioningTemplate = provisioningTemplate;
@@ -138,6 +275,9 @@ public class BaseCloudPoolConfig {
         this.alerts = alertSettings;
         this.poolFetch = poolFetchConfig;
         this.poolUpdate = poolUpdatePeriodConfig;
+        this.circuitBreaker = circuitBreaker;
+        this.warmPool = warmPool;
+        this.driverTimeouts = driverTimeouts;
     }
 
     /**
@@ -212,6 +352,37 @@ public class BaseCloudPoolConfig {
         return Optional.ofNullable(this.poolUpdate).orElse(DEFAULT_POOL_UPDATE_CONFIG);
     }
 
+    /**
+     * Guards calls to the {@link CloudPoolDriver} with circuit breakers and
+     * bulkheads. If absent, driver calls are not guarded.
+     *
+     * @return
+     */
+    public Optional<CircuitBreakerConfig> getCircuitBreaker() {
+        return Optional.ofNullable(this.circuitBreaker);
+    }
+
+    /**
+     * Keeps a number of pre-provisioned machines ready outside of the pool, to
+     * be promoted to pool members on scale-out. If absent, no warm pool is
+     * kept.
+     *
+     * @return
+     */
+    public Optional<WarmPoolConfig> getWarmPool() {
+        return Optional.ofNullable(this.warmPool);
+    }
+
+    /**
+     * Puts deadlines on calls to the {@link CloudPoolDriver}. If absent,
+     * driver calls have no deadline.
+     *
+     * @return
+     */
+    public Optional<DriverTimeoutsConfig> getDriverTimeouts() {
+        return Optional.ofNullable(this.driverTimeouts);
+    }
+
     /**
      * Performs basic validation of this configuration.
      *
@@ -231,6 +402,15 @@ public class BaseCloudPoolConfig {
             }
             getPoolFetch().validate();
             getPoolUpdate().validate();
+            if (this.circuitBreaker != null) {
+                this.circuitBreaker.validate();
+            }
+            if (this.warmPool != null) {
+                this.warmPool.validate();
+            }
+            if (this.driverTimeouts != null) {
+                this.driverTimeouts.validate();
+            }
         } catch (Exception e) {
             throw new IllegalArgumentException(format("failed to validate cloudpool configuration: %s", e.getMessage()),
                     e);
@@ -240,7 +420,8 @@ public class BaseCloudPoolConfig {
     @Override
     public int hashCode() {
         return Objects.hash(this.name, this.cloudApiSettings, this.provisioningTemplate, getScaleInConfig(),
-                this.alerts, getPoolFetch(), getPoolUpdate());
+                this.alerts, getPoolFetch(), getPoolUpdate(), this.circuitBreaker, this.warmPool,
+                this.driverTimeouts);
     }
 
     @Override
@@ -253,7 +434,10 @@ public class BaseCloudPoolConfig {
                     && Objects.equals(getScaleInConfig(), that.getScaleInConfig()) //
                     && Objects.equals(this.alerts, that.alerts) //
                     && Objects.equals(getPoolFetch(), that.getPoolFetch()) //
-                    && Objects.equals(getPoolUpdate(), that.getPoolUpdate());
+                    && Objects.equals(getPoolUpdate(), that.getPoolUpdate()) //
+                    && Objects.equals(this.circuitBreaker, that.circuitBreaker) //
+                    && Objects.equals(this.warmPool, that.warmPool) //
+                    && Objects.equals(this.driverTimeouts, that.driverTimeouts);
         }
         return false;
     }
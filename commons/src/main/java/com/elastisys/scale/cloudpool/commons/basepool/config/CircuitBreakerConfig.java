@@ -0,0 +1,207 @@
+package com.elastisys.scale.cloudpool.commons.basepool.config;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * Protects the cloud API (and the cloud pool's threads) during cloud outages
+ * by guarding each {@link CloudPoolDriver} operation with a circuit breaker
+ * and a bulkhead.
+ * <p/>
+ * The circuit breaker of an operation tracks the outcome of its last
+ * {@link #slidingWindowSize} calls. Once at least {@link #minimumCalls} have
+ * been made and the share of failures reaches {@link #failureRateThreshold},
+ * the breaker opens and calls fail fast for {@link #openDuration}. After that,
+ * {@link #halfOpenProbes} trial calls are let through: if they all succeed the
+ * breaker closes, otherwise it opens again.
+ * <p/>
+ * The bulkhead limits the number of concurrent calls per operation to
+ * {@link #maxConcurrentCalls}. Calls beyond that are rejected immediately.
+ * <p/>
+ * All fields are optional.
+ */
+public class CircuitBreakerConfig {
+    /** Default value for {@link #failureRateThreshold}. */
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    /** Default value for {@link #slidingWindowSize}. */
+    public static final int DEFAULT_SLIDING_WINDOW_SIZE = 20;
+    /** Default value for {@link #minimumCalls}. */
+    public static final int DEFAULT_MINIMUM_CALLS = 10;
+    /** Default value for {@link #openDuration}. */
+    public static final TimeInterval DEFAULT_OPEN_DURATION = new TimeInterval(30L, TimeUnit.SECONDS);
+    /** Default value for {@link #halfOpenProbes}. */
+    public static final int DEFAULT_HALF_OPEN_PROBES = 2;
+    /** Default value for {@link #maxConcurrentCalls}. */
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = 10;
+
+    /**
+     * The share (between 0 and 1) of failed calls within the sliding window at
+     * which the circuit breaker opens. May be <code>null</code>. Default: 0.5.
+     */
+    private final Double failureRateThreshold;
+    /**
+     * The number of most recent calls whose outcome is considered. May be
+     * <code>null</code>. Default: 20.
+     */
+    private final Integer slidingWindowSize;
+    /**
+     * The minimum number of calls in the sliding window before the failure
+     * rate is considered. May be <code>null</code>. Default: 10.
+     */
+    private final Integer minimumCalls;
+    /**
+     * For how long an open circuit breaker fails calls before letting probes
+     * through. May be <code>null</code>. Default: 30 seconds.
+     */
+    private final TimeInterval openDuration;
+    /**
+     * The number of trial calls that must succeed for a half-open circuit
+     * breaker to close. May be <code>null</code>. Default: 2.
+     */
+    private final Integer halfOpenProbes;
+    /**
+     * The maximum number of concurrent calls per operation. May be
+     * <code>null</code>. Default: 10.
+     */
+    private final Integer maxConcurrentCalls;
+
+    /**
+     * Creates a {@link CircuitBreakerConfig}.
+     *
+     * @param failureRateThreshold
+     *            The share (between 0 and 1) of failed calls within the sliding
+     *            window at which the circuit breaker opens. May be
+     *            <code>null</code>. Default: 0.5.
+     * @param slidingWindowSize
+     *            The number of most recent calls whose outcome is considered.
+     *            May be <code>null</code>. Default: 20.
+     * @param minimumCalls
+     *            The minimum number of calls in the sliding window before the
+     *            failure rate is considered. May be <code>null</code>.
+     *            Default: 10.
+     * @param openDuration
+     *            For how long an open circuit breaker fails calls before
+     *            letting probes through. May be <code>null</code>. Default: 30
+     *            seconds.
+     * @param halfOpenProbes
+     *            The number of trial calls that must succeed for a half-open
+     *            circuit breaker to close. May be <code>null</code>. Default:
+     *            2.
+     * @param maxConcurrentCalls
+     *            The maximum number of concurrent calls per operation. May be
+     *            <code>null</code>. Default: 10.
+     */
+    public CircuitBreakerConfig(Double failureRateThreshold, Integer slidingWindowSize, Integer minimumCalls,
+            TimeInterval openDuration, Integer halfOpenProbes, Integer maxConcurrentCalls) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.slidingWindowSize = slidingWindowSize;
+        this.minimumCalls = minimumCalls;
+        this.openDuration = openDuration;
+        this.halfOpenProbes = halfOpenProbes;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    /**
+     * The share (between 0 and 1) of failed calls within the sliding window at
+     * which the circuit breaker opens.
+     *
+     * @return
+     */
+    public double getFailureRateThreshold() {
+        return Optional.ofNullable(this.failureRateThreshold).orElse(DEFAULT_FAILURE_RATE_THRESHOLD);
+    }
+
+    /**
+     * The number of most recent calls whose outcome is considered.
+     *
+     * @return
+     */
+    public int getSlidingWindowSize() {
+        return Optional.ofNullable(this.slidingWindowSize).orElse(DEFAULT_SLIDING_WINDOW_SIZE);
+    }
+
+    /**
+     * The minimum number of calls in the sliding window before the failure
+     * rate is considered.
+     *
+     * @return
+     */
+    public int getMinimumCalls() {
+        return Optional.ofNullable(this.minimumCalls).orElse(Math.min(DEFAULT_MINIMUM_CALLS, getSlidingWindowSize()));
+    }
+
+    /**
+     * For how long an open circuit breaker fails calls before letting probes
+     * through.
+     *
+     * @return
+     */
+    public TimeInterval getOpenDuration() {
+        return Optional.ofNullable(this.openDuration).orElse(DEFAULT_OPEN_DURATION);
+    }
+
+    /**
+     * The number of trial calls that must succeed for a half-open circuit
+     * breaker to close.
+     *
+     * @return
+     */
+    public int getHalfOpenProbes() {
+        return Optional.ofNullable(this.halfOpenProbes).orElse(DEFAULT_HALF_OPEN_PROBES);
+    }
+
+    /**
+     * The maximum number of concurrent calls per operation.
+     *
+     * @return
+     */
+    public int getMaxConcurrentCalls() {
+        return Optional.ofNullable(this.maxConcurrentCalls).orElse(DEFAULT_MAX_CONCURRENT_CALLS);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getFailureRateThreshold(), getSlidingWindowSize(), getMinimumCalls(), getOpenDuration(),
+                getHalfOpenProbes(), getMaxConcurrentCalls());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof CircuitBreakerConfig) {
+            CircuitBreakerConfig that = (CircuitBreakerConfig) obj;
+            return Objects.equals(getFailureRateThreshold(), that.getFailureRateThreshold()) //
+                    && Objects.equals(getSlidingWindowSize(), that.getSlidingWindowSize()) //
+                    && Objects.equals(getMinimumCalls(), that.getMinimumCalls()) //
+                    && Objects.equals(getOpenDuration(), that.getOpenDuration()) //
+                    && Objects.equals(getHalfOpenProbes(), that.getHalfOpenProbes()) //
+                    && Objects.equals(getMaxConcurrentCalls(), that.getMaxConcurrentCalls());
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toPrettyString(JsonUtils.toJson(this));
+    }
+
+    public void validate() throws IllegalArgumentException {
+        checkArgument(getFailureRateThreshold() > 0 && getFailureRateThreshold() <= 1,
+                "circuitBreaker: failureRateThreshold must be in range (0, 1]");
+        checkArgument(getSlidingWindowSize() >= 1, "circuitBreaker: slidingWindowSize must be at least 1");
+        checkArgument(getMinimumCalls() >= 1, "circuitBreaker: minimumCalls must be at least 1");
+        checkArgument(getMinimumCalls() <= getSlidingWindowSize(),
+                "circuitBreaker: minimumCalls cannot be larger than slidingWindowSize");
+        getOpenDuration().validate();
+        checkArgument(TimeUnit.MILLISECONDS.convert(getOpenDuration().getTime(), getOpenDuration().getUnit()) > 0,
+                "circuitBreaker: openDuration must be positive");
+        checkArgument(getHalfOpenProbes() >= 1, "circuitBreaker: halfOpenProbes must be at least 1");
+        checkArgument(getMaxConcurrentCalls() >= 1, "circuitBreaker: maxConcurrentCalls must be at least 1");
+    }
+}
@@ -0,0 +1,140 @@
+package com.elastisys.scale.cloudpool.commons.basepool.config;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * Puts a deadline on every {@link CloudPoolDriver} call, so that a hung cloud
+ * API call cannot hold up the cloud pool's threads indefinitely.
+ * <p/>
+ * A call that has not completed within its timeout is interrupted and fails,
+ * releasing the calling thread. Each operation ({@code listMachines},
+ * {@code terminateMachines}, ...) is given the {@link #defaultTimeout},
+ * unless a timeout is set for it in {@link #operations}.
+ * <p/>
+ * A timed-out call is abandoned rather than undone: the cloud may still carry
+ * out (part of) the requested operation after the timeout.
+ * <p/>
+ * All fields are optional.
+ */
+public class DriverTimeoutsConfig {
+    /** Default value for {@link #defaultTimeout}. */
+    public static final TimeInterval DEFAULT_TIMEOUT = new TimeInterval(120L, TimeUnit.SECONDS);
+    /** The names of the {@link CloudPoolDriver} operations that have a deadline. */
+    public static final Set<String> OPERATIONS = Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(
+            "listMachines", "startMachines", "terminateMachines", "attachMachine", "detachMachine", "detachMachines",
+            "listWarmMachines", "provisionWarmMachines", "promoteWarmMachines", "demoteMachines", "setServiceState",
+            "setMembershipStatus", "listMachineChanges")));
+
+    /**
+     * The timeout of operations that have no timeout of their own in
+     * {@link #operations}. May be <code>null</code>. Default: 120 seconds.
+     */
+    private final TimeInterval defaultTimeout;
+    /**
+     * Timeouts for particular operations, keyed by operation name (such as
+     * {@code terminateMachines}). May be <code>null</code>. Default: no
+     * operation-specific timeouts.
+     */
+    private final Map<String, TimeInterval> operations;
+
+    /**
+     * Creates a {@link DriverTimeoutsConfig}.
+     *
+     * @param defaultTimeout
+     *            The timeout of operations that have no timeout of their own
+     *            in {@code operations}. May be <code>null</code>. Default: 120
+     *            seconds.
+     * @param operations
+     *            Timeouts for particular operations, keyed by operation name
+     *            (such as {@code terminateMachines}). May be <code>null</code>.
+     *            Default: no operation-specific timeouts.
+     */
+    public DriverTimeoutsConfig(TimeInterval defaultTimeout, Map<String, TimeInterval> operations) {
+        this.defaultTimeout = defaultTimeout;
+        this.operations = operations != null ? new TreeMap<>(operations) : null;
+    }
+
+    /**
+     * The timeout of operations that have no timeout of their own in
+     * {@link #getOperations()}.
+     *
+     * @return
+     */
+    public TimeInterval getDefaultTimeout() {
+        return Optional.ofNullable(this.defaultTimeout).orElse(DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Timeouts for particular operations, keyed by operation name.
+     *
+     * @return
+     */
+    public Map<String, TimeInterval> getOperations() {
+        if (this.operations == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(this.operations);
+    }
+
+    /**
+     * Returns the timeout of a given operation.
+     *
+     * @param operation
+     *            An operation name, such as {@code listMachines}.
+     * @return
+     */
+    public TimeInterval getTimeout(String operation) {
+        return getOperations().getOrDefault(operation, getDefaultTimeout());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getDefaultTimeout(), getOperations());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof DriverTimeoutsConfig) {
+            DriverTimeoutsConfig that = (DriverTimeoutsConfig) obj;
+            return Objects.equals(getDefaultTimeout(), that.getDefaultTimeout()) //
+                    && Objects.equals(getOperations(), that.getOperations());
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toPrettyString(JsonUtils.toJson(this));
+    }
+
+    public void validate() throws IllegalArgumentException {
+        validateTimeout("defaultTimeout", getDefaultTimeout());
+        for (Map.Entry<String, TimeInterval> operation : getOperations().entrySet()) {
+            checkArgument(OPERATIONS.contains(operation.getKey()),
+                    "driverTimeouts: operations: unknown operation " + operation.getKey());
+            checkArgument(operation.getValue() != null,
+                    "driverTimeouts: operations: missing timeout for " + operation.getKey());
+            validateTimeout("operations: " + operation.getKey(), operation.getValue());
+        }
+    }
+
+    private static void validateTimeout(String field, TimeInterval timeout) {
+        timeout.validate();
+        checkArgument(TimeUnit.MILLISECONDS.convert(timeout.getTime(), timeout.getUnit()) > 0,
+                "driverTimeouts: " + field + " must be positive");
+    }
+}
@@ -3,6 +3,7 @@ package com.elastisys.scale.cloudpool.commons.basepool.config;
 import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
 
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import com.elastisys.scale.cloudpool.api.CloudPool;
@@ -16,6 +17,10 @@ import com.elastisys.scale.commons.json.types.TimeInterval;
  * errors.
  */
 public class PoolFetchConfig {
+    /** Default value for {@link #freshnessWindow}. */
+    public static final TimeInterval DEFAULT_FRESHNESS_WINDOW = new TimeInterval(0L, TimeUnit.SECONDS);
+    /** Default value for {@link #fullListingInterval}. */
+    public static final TimeInterval DEFAULT_FULL_LISTING_INTERVAL = new TimeInterval(10L, TimeUnit.MINUTES);
 
     /** Retry handling when fetching pool members from the cloud API fails. */
     private final RetriesConfig retries;
@@ -30,9 +35,39 @@ public class PoolFetchConfig {
      * should failures to fetch the machine pool be masked.
      */
     private final TimeInterval reachabilityTimeout;
+    /**
+     * For how long a completed pool refresh is considered fresh enough to
+     * satisfy a forced refresh request, without making another call to the
+     * cloud API. May be <code>null</code>. Default: zero (every forced
+     * refresh goes to the cloud API).
+     */
+    private final TimeInterval freshnessWindow;
+    /**
+     * Only applies to cloud drivers that support incremental listing of pool
+     * members. The maximum time between two full listings of the pool. In
+     * between full listings, only changes are fetched. May be
+     * <code>null</code>. Default: 10 minutes.
+     */
+    private final TimeInterval fullListingInterval;
+    /**
+     * Makes the refresh interval adapt to pool activity, varying between a
+     * short interval while the pool is changing and a long interval while it
+     * is stable. When set, it replaces {@link #refreshInterval} as the
+     * periodical refresh interval. May be <code>null</code>, in which case the
+     * pool is refreshed every {@link #refreshInterval}.
+     */
+    private final AdaptiveRefreshConfig adaptiveRefresh;
+    /**
+     * When <code>true</code>, a {@link CloudPool} that is started with a
+     * {@link MachinePool} recovered from its persisted cache (and younger than
+     * {@link #reachabilityTimeout}) starts serving that pool right away,
+     * instead of waiting for the first pool fetch to complete. May be
+     * <code>null</code>. Default: <code>false</code>.
+     */
+    private final Boolean warmStart;
 
     /**
-     * Creates a {@link PoolFetchConfig}.
+     * Creates a {@link PoolFetchConfig} without a freshness window.
      *
      * @param retries
      *            Retry handling when fetching pool members from the cloud API
@@ -47,9 +82,119 @@ public class PoolFetchConfig {
      *            the machine pool be masked.
      */
     public PoolFetchConfig(RetriesConfig retries, TimeInterval refreshInterval, TimeInterval reachabilityTimeout) {
+        this(retries, refreshInterval, reachabilityTimeout, null, null);
+    }
+
+    /**
+     * Creates a {@link PoolFetchConfig}.
+     *
+     * @param retries
+     *            Retry handling when fetching pool members from the cloud API
+     *            fails.
+     * @param refreshInterval
+     *            How often to refresh the cloud pool's view of the
+     *            {@link MachinePool} members.
+     * @param reachabilityTimeout
+     *            How long to respond with cached {@link MachinePool}
+     *            observations before responding with a cloud reachability
+     *            error. In other words, for how long should failures to fetch
+     *            the machine pool be masked.
+     * @param freshnessWindow
+     *            For how long a completed pool refresh is considered fresh
+     *            enough to satisfy a forced refresh request, without making
+     *            another call to the cloud API. May be <code>null</code>.
+     *            Default: zero.
+     * @param fullListingInterval
+     *            Only applies to cloud drivers that support incremental
+     *            listing of pool members. The maximum time between two full
+     *            listings of the pool. May be <code>null</code>. Default: 10
+     *            minutes.
+     */
+    public PoolFetchConfig(RetriesConfig retries, TimeInterval refreshInterval, TimeInterval reachabilityTimeout,
+            TimeInterval freshnessWindow, TimeInterval fullListingInterval) {
+        this(retries, refreshInterval, reachabilityTimeout, freshnessWindow, fullListingInterval, null);
+    }
+
+    /**
+     * Creates a {@link PoolFetchConfig}.
+     *
+     * @param retries
+     *            Retry handling when fetching pool members from the cloud API
+     *            fails.
+     * @param refreshInterval
+     *            How often to refresh the cloud pool's view of the
+     *            {@link MachinePool} members.
+     * @param reachabilityTimeout
+     *            How long to respond with cached {@link MachinePool}
+     *            observations before responding with a cloud reachability
+     *            error. In other words, for how long should failures to fetch
+     *            the machine pool be masked.
+     * @param freshnessWindow
+     *            For how long a completed pool refresh is considered fresh
+     *            enough to satisfy a forced refresh request, without making
+     *            another call to the cloud API. May be <code>null</code>.
+     *            Default: zero.
+     * @param fullListingInterval
+     *            Only applies to cloud drivers that support incremental
+     *            listing of pool members. The maximum time between two full
+     *            listings of the pool. May be <code>null</code>. Default: 10
+     *            minutes.
+     * @param adaptiveRefresh
+     *            Makes the refresh interval adapt to pool activity. When set,
+     *            it replaces <code>refreshInterval</code> as the periodical
+     *            refresh interval. May be <code>null</code>.
+     */
+    public PoolFetchConfig(RetriesConfig retries, TimeInterval refreshInterval, TimeInterval reachabilityTimeout,
+            TimeInterval freshnessWindow, TimeInterval fullListingInterval, AdaptiveRefreshConfig adaptiveRefresh) {
+        this(retries, refreshInterval, reachabilityTimeout, freshnessWindow, fullListingInterval, adaptiveRefresh,
+                null);
+    }
+
+    /**
+     * Creates a {@link PoolFetchConfig}.
+     *
+     * @param retries
+     *            Retry handling when fetching pool members from the cloud API
+     *            fails.
+     * @param refreshInterval
+     *            How often to refresh the cloud pool's view of the
+     *            {@link MachinePool} members.
+     * @param reachabilityTimeout
+     *            How long to respond with cached {@link MachinePool}
+     *            observations before responding with a cloud reachability
+     *            error. In other words, for how long should failures to fetch
+     *            the machine pool be masked.
+     * @param freshnessWindow
+     *            For how long a completed pool refresh is considered fresh
+     *            enough to satisfy a forced refresh request, without making
+     *            another call to the cloud API. May be <code>null</code>.
+     *            Default: zero.
+     * @param fullListingInterval
+     *            Only applies to cloud drivers that support incremental
+     *            listing of pool members. The maximum time between two full
+     *            listings of the pool. May be <code>null</code>. Default: 10
+     *            minutes.
+     * @param adaptiveRefresh
+     *            Makes the refresh interval adapt to pool activity. When set,
+     *            it replaces <code>refreshInterval</code> as the periodical
+     *            refresh interval. May be <code>null</code>.
+     * @param warmStart
+     *            When <code>true</code>, a {@link CloudPool} that is started
+     *            with a sufficiently recent {@link MachinePool} recovered from
+     *            its persisted cache starts serving that pool right away,
+     *            instead of waiting for the first pool fetch to complete. May
+     *            be <code>null</code>. Default: <code>false</code>.
+     */
+    public PoolFetchConfig(RetriesConfig retries, TimeInterval refreshInterval, TimeInterval reachabilityTimeout,
+            TimeInterval freshnessWindow, TimeInterval fullListingInterval, AdaptiveRefreshConfig adaptiveRefresh,
+            Boolean warmStart) {
         this.retries = retries;
         this.refreshInterval = refreshInterval;
         this.reachabilityTimeout = reachabilityTimeout;
+        this.freshnessWindow = freshnessWindow;
+        this.fullListingInterval = fullListingInterval;
+        this.adaptiveRefresh = adaptiveRefresh;
+        this.warmStart = warmStart;
     }
 
     /**
@@ -82,9 +227,54 @@ public class PoolFetchConfig {
         return this.reachabilityTimeout;
     }
 
+    /**
+     * For how long a completed pool refresh is considered fresh enough to
+     * satisfy a forced refresh request, without making another call to the
+     * cloud API.
+     *
+     * @return
+     */
+    public TimeInterval getFreshnessWindow() {
+        return Optional.ofNullable(this.freshnessWindow).orElse(DEFAULT_FRESHNESS_WINDOW);
+    }
+
+    /**
+     * Only applies to cloud drivers that support incremental listing of pool
+     * members. The maximum time between two full listings of the pool. In
+     * between full listings, only changes are fetched.
+     *
+     * @return
+     */
+    public TimeInterval getFullListingInterval() {
+        return Optional.ofNullable(this.fullListingInterval).orElse(DEFAULT_FULL_LISTING_INTERVAL);
+    }
+
+    /**
+     * Makes the refresh interval adapt to pool activity. When set, it replaces
+     * {@link #getRefreshInterval()} as the periodical refresh interval.
+     *
+     * @return
+     */
+    public Optional<AdaptiveRefreshConfig> getAdaptiveRefresh() {
+        return Optional.ofNullable(this.adaptiveRefresh);
+    }
+
+    /**
+     * When <code>true</code>, a {@link CloudPool} that is started with a
+     * sufficiently recent {@link MachinePool} recovered from its persisted
+     * cache starts serving that pool right away, instead of waiting for the
+     * first pool fetch to complete.
+     *
+     * @return
+     */
+    public boolean isWarmStart() {
+        return Optional.ofNullable(this.warmStart).orElse(false);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(this.retries, this.refreshInterval, this.reachabilityTimeout);
+        return Objects.hash(this.retries, this.refreshInterval, this.reachabilityTimeout, getFreshnessWindow(),
+                getFullListingInterval(), this.adaptiveRefresh, isWarmStart());
     }
 
     @Override
@@ -93,7 +283,11 @@ public class PoolFetchConfig {
             PoolFetchConfig that = (PoolFetchConfig) obj;
             return Objects.equals(this.retries, that.retries) //
                     && Objects.equals(this.refreshInterval, that.refreshInterval) //
-                    && Objects.equals(this.reachabilityTimeout, that.reachabilityTimeout);
+                    && Objects.equals(this.reachabilityTimeout, that.reachabilityTimeout) //
+                    && Objects.equals(getFreshnessWindow(), that.getFreshnessWindow()) //
+                    && Objects.equals(getFullListingInterval(), that.getFullListingInterval()) //
+                    && Objects.equals(this.adaptiveRefresh, that.adaptiveRefresh) //
+                    && isWarmStart() == that.isWarmStart();
 
         }
         return false;
@@ -112,6 +306,8 @@ public class PoolFetchConfig {
         this.retries.validate();
         this.refreshInterval.validate();
         this.reachabilityTimeout.validate();
+        getFreshnessWindow().validate();
+        getFullListingInterval().validate();
 
         long refreshMillis = TimeUnit.MILLISECONDS.convert(this.refreshInterval.getTime(),
                 this.refreshInterval.getUnit());
@@ -119,6 +315,18 @@ public class PoolFetchConfig {
                 this.reachabilityTimeout.getUnit());
         checkArgument(refreshMillis < timeoutMillis,
                 "poolFetch: reachabilityTimeout cannot be shorter than refreshInterval");
+        long freshnessMillis = TimeUnit.MILLISECONDS.convert(getFreshnessWindow().getTime(),
+                getFreshnessWindow().getUnit());
+        checkArgument(freshnessMillis < timeoutMillis,
+                "poolFetch: freshnessWindow must be shorter than reachabilityTimeout");
+
+        if (this.adaptiveRefresh != null) {
+            this.adaptiveRefresh.validate();
+            TimeInterval maxInterval = this.adaptiveRefresh.getMaxInterval();
+            long maxIntervalMillis = TimeUnit.MILLISECONDS.convert(maxInterval.getTime(), maxInterval.getUnit());
+            checkArgument(maxIntervalMillis < timeoutMillis,
+                    "poolFetch: reachabilityTimeout cannot be shorter than adaptiveRefresh maxInterval");
+        }
     }
 
 }
@@ -3,9 +3,11 @@ package com.elastisys.scale.cloudpool.commons.basepool.config;
 import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
 
 import java.util.Objects;
+import java.util.Optional;
 
 import com.elastisys.scale.cloudpool.api.CloudPool;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.commons.json.JsonUtils;
 import com.elastisys.scale.commons.json.types.TimeInterval;
 
@@ -16,20 +18,87 @@ import com.elastisys.scale.commons.json.types.TimeInterval;
  */
 public class PoolUpdateConfig {
 
+    /**
+     * Default maximum number of concurrent
+     * {@link CloudPoolDriver#startMachines(int)} calls for a single scale-out.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_START_REQUESTS = 4;
+
     /**
      * The time interval between periodical pool size updates.
      */
     private final TimeInterval updateInterval;
 
     /**
-     * Constructs a new {@link PoolUpdateConfig}.
+     * The maximum number of {@link CloudPoolDriver#startMachines(int)} calls
+     * that may be in flight at the same time when a scale-out is split into
+     * chunks (see {@link CloudPoolDriver#getPreferredStartChunkSize()}). May be
+     * <code>null</code>.
+     */
+    private final Integer maxConcurrentStartRequests;
+
+    /**
+     * The maximum age of the {@link MachinePool} observations that pool
+     * updates, and checks that a machine is a pool member, act on. Cached
+     * observations that are recent enough are used rather than fetching the
+     * pool from the cloud API again. May be <code>null</code>, in which case
+     * every pool update fetches the pool from the cloud API and pool member
+     * checks use any cached observation.
+     */
+    private final TimeInterval maxPoolStaleness;
+
+    /**
+     * Constructs a new {@link PoolUpdateConfig} with default scale-out
+     * concurrency.
      *
      * @param updateInterval
      *            The time interval between periodical pool size updates. May be
      *            <code>null</code>. Default: 60 seconds.
      */
     public PoolUpdateConfig(TimeInterval updateInterval) {
+        this(updateInterval, null);
+    }
+
+    /**
+     * Constructs a new {@link PoolUpdateConfig}.
+     *
+     * @param updateInterval
+     *            The time interval between periodical pool size updates. May be
+     *            <code>null</code>. Default: 60 seconds.
+     * @param maxConcurrentStartRequests
+     *            The maximum number of
+     *            {@link CloudPoolDriver#startMachines(int)} calls that may be in
+     *            flight at the same time when a scale-out is split into chunks.
+     *            May be <code>null</code>. Default:
+     *            {@value #DEFAULT_MAX_CONCURRENT_START_REQUESTS}.
+     */
+    public PoolUpdateConfig(TimeInterval updateInterval, Integer maxConcurrentStartRequests) {
+        this(updateInterval, maxConcurrentStartRequests, null);
+    }
+
+    /**
+     * Constructs a new {@link PoolUpdateConfig}.
+     *
+     * @param updateInterval
+     *            The time interval between periodical pool size updates. May be
+     *            <code>null</code>. Default: 60 seconds.
+     * @param maxConcurrentStartRequests
+     *            The maximum number of
+     *            {@link CloudPoolDriver#startMachines(int)} calls that may be in
+     *            flight at the same time when a scale-out is split into chunks.
+     *            May be <code>null</code>. Default:
+     *            {@value #DEFAULT_MAX_CONCURRENT_START_REQUESTS}.
+     * @param maxPoolStaleness
+     *            The maximum age of the {@link MachinePool} observations that
+     *            pool updates, and checks that a machine is a pool member, act
+     *            on. May be <code>null</code>, in which case every pool update
+     *            fetches the pool from the cloud API.
+     */
+    public PoolUpdateConfig(TimeInterval updateInterval, Integer maxConcurrentStartRequests,
+            TimeInterval maxPoolStaleness) {
         this.updateInterval = updateInterval;
+        this.maxConcurrentStartRequests = maxConcurrentStartRequests;
+        this.maxPoolStaleness = maxPoolStaleness;
     }
 
     /**
@@ -41,16 +110,40 @@ public class PoolUpdateConfig {
         return this.updateInterval;
     }
 
+    /**
+     * The maximum number of {@link CloudPoolDriver#startMachines(int)} calls
+     * that may be in flight at the same time during a scale-out.
+     *
+     * @return
+     */
+    public int getMaxConcurrentStartRequests() {
+        return Optional.ofNullable(this.maxConcurrentStartRequests).orElse(DEFAULT_MAX_CONCURRENT_START_REQUESTS);
+    }
+
+    /**
+     * The maximum age of the {@link MachinePool} observations that pool
+     * updates, and checks that a machine is a pool member, act on. If absent,
+     * every pool update fetches the pool from the cloud API and pool member
+     * checks use any cached observation.
+     *
+     * @return
+     */
+    public Optional<TimeInterval> getMaxPoolStaleness() {
+        return Optional.ofNullable(this.maxPoolStaleness);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(this.updateInterval);
+        return Objects.hash(this.updateInterval, getMaxConcurrentStartRequests(), this.maxPoolStaleness);
     }
 
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof PoolUpdateConfig) {
             PoolUpdateConfig that = (PoolUpdateConfig) obj;
-            return Objects.equals(this.updateInterval, that.updateInterval);
+            return Objects.equals(this.updateInterval, that.updateInterval)
+                    && Objects.equals(getMaxConcurrentStartRequests(), that.getMaxConcurrentStartRequests())
+                    && Objects.equals(this.maxPoolStaleness, that.maxPoolStaleness);
         }
         return false;
     }
@@ -63,5 +156,9 @@ public class PoolUpdateConfig {
     public void validate() throws IllegalArgumentException {
         checkArgument(this.updateInterval != null, "poolUpdate: updateInterval missing");
         this.updateInterval.validate();
+        checkArgument(getMaxConcurrentStartRequests() >= 1, "poolUpdate: maxConcurrentStartRequests must be positive");
+        if (this.maxPoolStaleness != null) {
+            this.maxPoolStaleness.validate();
+        }
     }
 }
@@ -0,0 +1,96 @@
+package com.elastisys.scale.cloudpool.commons.basepool.config;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * The section of a {@link BaseCloudPoolConfig} that describes a <i>warm
+ * pool</i>: a number of pre-provisioned machines that are kept ready (for
+ * example, stopped) outside of the pool, to be promoted to pool members on
+ * scale-out before any new machines are requested. Requires a
+ * {@link CloudPoolDriver} that supports a warm pool (see
+ * {@link CloudPoolDriver#supportsWarmPool()}).
+ *
+ * @see BaseCloudPoolConfig
+ */
+public class WarmPoolConfig {
+    /** Default value for {@link #demoteOnScaleIn}. */
+    public static final boolean DEFAULT_DEMOTE_ON_SCALE_IN = true;
+
+    /**
+     * The number of machines to keep in the warm pool. Required.
+     */
+    private final Integer size;
+    /**
+     * If <code>true</code>, machines removed on scale-in are demoted back to
+     * the warm pool (as long as it has room for them) rather than being
+     * terminated. May be <code>null</code>. Default: <code>true</code>.
+     */
+    private final Boolean demoteOnScaleIn;
+
+    /**
+     * Creates a {@link WarmPoolConfig}.
+     *
+     * @param size
+     *            The number of machines to keep in the warm pool. Required.
+     * @param demoteOnScaleIn
+     *            If <code>true</code>, machines removed on scale-in are
+     *            demoted back to the warm pool (as long as it has room for
+     *            them) rather than being terminated. May be <code>null</code>.
+     *            Default: <code>true</code>.
+     */
+    public WarmPoolConfig(Integer size, Boolean demoteOnScaleIn) {
+        this.size = size;
+        this.demoteOnScaleIn = demoteOnScaleIn;
+    }
+
+    /**
+     * The number of machines to keep in the warm pool.
+     *
+     * @return
+     */
+    public Integer getSize() {
+        return this.size;
+    }
+
+    /**
+     * If <code>true</code>, machines removed on scale-in are demoted back to
+     * the warm pool (as long as it has room for them) rather than being
+     * terminated.
+     *
+     * @return
+     */
+    public boolean isDemoteOnScaleIn() {
+        return Optional.ofNullable(this.demoteOnScaleIn).orElse(DEFAULT_DEMOTE_ON_SCALE_IN);
+    }
+
+    public void validate() throws IllegalArgumentException {
+        checkArgument(this.size != null, "warmPool: missing size");
+        checkArgument(this.size >= 0, "warmPool: size cannot be negative");
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.size, isDemoteOnScaleIn());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof WarmPoolConfig) {
+            WarmPoolConfig that = (WarmPoolConfig) obj;
+            return Objects.equals(this.size, that.size) //
+                    && Objects.equals(isDemoteOnScaleIn(), that.isDemoteOnScaleIn());
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toPrettyString(JsonUtils.toJson(this));
+    }
+}
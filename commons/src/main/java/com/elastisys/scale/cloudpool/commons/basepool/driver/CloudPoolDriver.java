@@ -1,6 +1,9 @@
 package com.elastisys.scale.cloudpool.commons.basepool.driver;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.types.Machine;
@@ -128,6 +131,25 @@ public interface CloudPoolDriver {
     public List<Machine> startMachines(int count)
             throws IllegalStateException, StartMachinesException, CloudPoolDriverException;
 
+    /**
+     * Returns the largest number of machines that this driver prefers to be
+     * asked to start in a single {@link #startMachines(int)} call. Larger
+     * scale-out requests are split into chunks of (at most) this size, which
+     * may be started concurrently.
+     * <p/>
+     * The default implementation returns {@link Integer#MAX_VALUE}, meaning
+     * that a scale-out is always carried out with a single call. Drivers whose
+     * cloud API launches one machine per request should override it to allow
+     * large scale-outs to be parallelized.
+     *
+     * @return The preferred maximum number of machines per
+     *         {@link #startMachines(int)} call. Values less than
+     *         <code>1</code> are treated as no preference.
+     */
+    default int getPreferredStartChunkSize() {
+        return Integer.MAX_VALUE;
+    }
+
     /**
      * Terminates a collection of {@link Machine}s in the cloud pool. On
      * success, the complete method returns without error. On failure, a
@@ -177,6 +199,147 @@ public interface CloudPoolDriver {
      */
     void detachMachine(String machineId) throws IllegalStateException, NotFoundException, CloudPoolDriverException;
 
+    /**
+     * Removes a collection of members from the cloud pool without terminating
+     * them. On failure, a {@link DetachMachinesException} is thrown indicating
+     * which machines were detached (if any) and the cause of failure for each
+     * of the others.
+     * <p/>
+     * The default implementation calls {@link #detachMachine(String)} once per
+     * machine. Drivers whose cloud API can detach several machines in one
+     * request should override it.
+     *
+     * @param machineIds
+     *            The identifiers of the machines to detach from the cloud
+     *            pool.
+     * @throws IllegalStateException
+     *             If the {@link CloudPoolDriver} has not been configured.
+     * @throws DetachMachinesException
+     *             If one or more machines could not be detached.
+     * @throws CloudPoolDriverException
+     *             If the operation could not be completed.
+     */
+    default void detachMachines(List<String> machineIds)
+            throws IllegalStateException, DetachMachinesException, CloudPoolDriverException {
+        List<String> detached = new ArrayList<>();
+        Map<String, Throwable> errors = new LinkedHashMap<>();
+        for (String machineId : machineIds) {
+            try {
+                detachMachine(machineId);
+                detached.add(machineId);
+            } catch (IllegalStateException e) {
+                throw e;
+            } catch (Exception e) {
+                errors.put(machineId, e);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new DetachMachinesException(detached, errors);
+        }
+    }
+
+    /**
+     * Indicates if this {@link CloudPoolDriver} supports a <i>warm pool</i>:
+     * pre-provisioned machines that are kept ready (for example, stopped) but
+     * that are not pool members, and that can be promoted to pool members
+     * faster than new machines can be started.
+     * <p/>
+     * Drivers that return <code>true</code> must implement
+     * {@link #listWarmMachines()}, {@link #provisionWarmMachines(int)},
+     * {@link #promoteWarmMachines(List)} and {@link #demoteMachines(List)}.
+     * The default implementation returns <code>false</code>.
+     *
+     * @return
+     */
+    default boolean supportsWarmPool() {
+        return false;
+    }
+
+    /**
+     * Returns the machines in the warm pool, including warm machines that are
+     * still being provisioned. Warm machines are not pool members and must
+     * not be returned by {@link #listMachines()}.
+     *
+     * @return The machines in the warm pool.
+     * @throws IllegalStateException
+     *             If the {@link CloudPoolDriver} has not been configured.
+     * @throws UnsupportedOperationException
+     *             If the driver does not support a warm pool.
+     * @throws CloudPoolDriverException
+     *             If the operation could not be completed.
+     */
+    default List<Machine> listWarmMachines()
+            throws IllegalStateException, UnsupportedOperationException, CloudPoolDriverException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support a warm pool");
+    }
+
+    /**
+     * Provisions a number of new machines into the warm pool according to the
+     * provisioning template. The machines are to be left in a ready but
+     * non-member (for example, stopped) state.
+     *
+     * @param count
+     *            The number of warm machines to provision.
+     * @return The provisioned warm machines.
+     * @throws IllegalStateException
+     *             If the {@link CloudPoolDriver} has not been configured.
+     * @throws UnsupportedOperationException
+     *             If the driver does not support a warm pool.
+     * @throws StartMachinesException
+     *             If (some of) the machines could not be provisioned. The
+     *             exception reports the machines that were provisioned.
+     * @throws CloudPoolDriverException
+     *             If the operation could not be completed.
+     */
+    default List<Machine> provisionWarmMachines(int count) throws IllegalStateException,
+            UnsupportedOperationException, StartMachinesException, CloudPoolDriverException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support a warm pool");
+    }
+
+    /**
+     * Promotes machines from the warm pool to pool members, by starting them
+     * and marking them as pool members (for example, by tagging them).
+     *
+     * @param machineIds
+     *            The identifiers of the warm machines to promote.
+     * @return The promoted machines, as pool members.
+     * @throws IllegalStateException
+     *             If the {@link CloudPoolDriver} has not been configured.
+     * @throws UnsupportedOperationException
+     *             If the driver does not support a warm pool.
+     * @throws StartMachinesException
+     *             If (some of) the machines could not be promoted. The
+     *             exception reports the machines that were promoted.
+     * @throws CloudPoolDriverException
+     *             If the operation could not be completed.
+     */
+    default List<Machine> promoteWarmMachines(List<String> machineIds) throws IllegalStateException,
+            UnsupportedOperationException, StartMachinesException, CloudPoolDriverException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support a warm pool");
+    }
+
+    /**
+     * Demotes pool members to the warm pool, by removing them from the pool
+     * and returning them to a ready but non-member (for example, stopped)
+     * state.
+     *
+     * @param machineIds
+     *            The identifiers of the pool members to demote.
+     * @throws IllegalStateException
+     *             If the {@link CloudPoolDriver} has not been configured.
+     * @throws UnsupportedOperationException
+     *             If the driver does not support a warm pool.
+     * @throws DetachMachinesException
+     *             If one or more machines could not be demoted. The exception
+     *             reports the machines that were demoted.
+     * @throws CloudPoolDriverException
+     *             If the operation could not be completed.
+     */
+    default void demoteMachines(List<String> machineIds) throws IllegalStateException,
+            UnsupportedOperationException, DetachMachinesException, CloudPoolDriverException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support a warm pool");
+    }
+
     /**
      * Sets the service state of a given machine pool member. Setting the
      * service state does not have any functional implications on the pool
@@ -0,0 +1,88 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver;
+
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * An error thrown to indicate that some (or all) machines, in a call to
+ * {@link CloudPoolDriver#detachMachines(java.util.List)} were not successfully
+ * detached. The exception includes both the ids of all machines that were
+ * successfully detached and, for each failed detach, the error that caused the
+ * operation to fail.
+ */
+public class DetachMachinesException extends CloudPoolDriverException {
+    private static final long serialVersionUID = 1L;
+
+    /** The collection of machine (IDs) that were successfully detached. */
+    private final Collection<String> detachedMachines;
+
+    /**
+     * The machine detaches that failed. Keys are machine identifiers, values
+     * are the error that caused the detach to fail.
+     */
+    private final Map<String, Throwable> detachErrors;
+
+    /**
+     * Creates a {@link DetachMachinesException} representing the result of a
+     * (partially) failed detach machines call.
+     *
+     * @param detachedMachines
+     *            The collection of machine (IDs) that were successfully
+     *            detached.
+     * @param detachErrors
+     *            The machine detaches that failed. Keys are machine
+     *            identifiers, values are the error that caused the detach to
+     *            fail.
+     */
+    public DetachMachinesException(Collection<String> detachedMachines, Map<String, Throwable> detachErrors) {
+        super(defaultErrorMessage(detachedMachines, detachErrors));
+        this.detachedMachines = detachedMachines;
+        this.detachErrors = detachErrors;
+    }
+
+    /**
+     * The collection of machine (IDs) that were successfully detached.
+     *
+     * @return
+     */
+    public Collection<String> getDetachedMachines() {
+        return this.detachedMachines;
+    }
+
+    /**
+     * The machine detaches that failed. Keys are machine identifiers, values
+     * are the error that caused the detach to fail.
+     *
+     * @return
+     */
+    public Map<String, Throwable> getDetachErrors() {
+        return this.detachErrors;
+    }
+
+    /**
+     * Returns the error message for each failed machine detach. Keys are
+     * machine identifiers, values are the detach error message.
+     *
+     * @return
+     */
+    public Map<String, String> getDetachErrorMessages() {
+        return this.detachErrors.entrySet().stream()
+                .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue().getMessage()));
+    }
+
+    private static String defaultErrorMessage(Collection<String> detachedMachines,
+            Map<String, Throwable> detachErrors) {
+        int numRequested = detachedMachines.size() + detachErrors.size();
+
+        StringWriter errorCauses = new StringWriter();
+        for (String machineId : detachErrors.keySet()) {
+            errorCauses.append(String.format("  %s: %s\n", machineId, detachErrors.get(machineId).getMessage()));
+        }
+
+        return String.format(
+                "only %d out of %d machine detaches completed successfully: unable to detach %d machines:\n%s",
+                detachedMachines.size(), numRequested, detachErrors.size(), errorCauses.toString());
+    }
+}
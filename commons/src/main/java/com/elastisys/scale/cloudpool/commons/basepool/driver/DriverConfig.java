@@ -3,6 +3,8 @@ package com.elastisys.scale.cloudpool.commons.basepool.driver;
 import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
 
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.commons.json.JsonUtils;
@@ -12,6 +14,13 @@ import com.google.gson.JsonObject;
  * Represents settings for a {@link CloudPoolDriver}. These settings get passed
  * to a {@link CloudPoolDriver} implementation whenever a new configuration has
  * been set for its parent {@link BaseCloudPool}.
+ * <p/>
+ * The cloud-specific documents are parsed into typed objects at most once per
+ * type: {@link #parseCloudApiSettings(Class)} and
+ * {@link #parseProvisioningTemplate(Class)} return the same (shared) object on
+ * every call, so drivers can call them as often as they need to. The returned
+ * objects must therefore be treated as immutable, and so must the JSON
+ * documents.
  *
  * @see CloudPoolDriver#configure(DriverConfig)
  */
@@ -40,6 +49,11 @@ public class DriverConfig {
      */
     private final JsonObject provisioningTemplate;
 
+    /** Parsed {@link #cloudApiSettings}, keyed by type. */
+    private final transient ConcurrentMap<Class<?>, Object> parsedCloudApiSettings = new ConcurrentHashMap<>();
+    /** Parsed {@link #provisioningTemplate}, keyed by type. */
+    private final transient ConcurrentMap<Class<?>, Object> parsedProvisioningTemplates = new ConcurrentHashMap<>();
+
     /**
      * Creates a {@link DriverConfig}.
      *
@@ -92,20 +106,17 @@ public class DriverConfig {
 
     /**
      * Parses and deserializes the JSON {@link #cloudApiSettings} into a given
-     * Java type. Note: the client code is responsible for validating the
-     * contents of the returned object.
+     * Java type. The document is only parsed on the first call for a given
+     * type: later calls return the same object. Note: the client code is
+     * responsible for validating the contents of the returned object.
      *
-     * @param provisioningTemplateType
+     * @param cloudApiSettingsType
      * @return
      * @throws IllegalArgumentException
      *             on parse failure
      */
     public <T> T parseCloudApiSettings(Class<T> cloudApiSettingsType) throws IllegalArgumentException {
-        try {
-            return JsonUtils.toObject(getCloudApiSettings(), cloudApiSettingsType);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("failed to parse provisioningTemplate: " + e.getMessage(), e);
-        }
+        return parse("cloudApiSettings", getCloudApiSettings(), cloudApiSettingsType, this.parsedCloudApiSettings);
     }
 
     /**
@@ -121,8 +132,9 @@ public class DriverConfig {
 
     /**
      * Parses and deserializes the JSON {@link #provisioningTemplate} into a
-     * given Java type. Note: the client code is responsible for validating the
-     * contents of the returned object.
+     * given Java type. The document is only parsed on the first call for a
+     * given type: later calls return the same object. Note: the client code is
+     * responsible for validating the contents of the returned object.
      *
      * @param provisioningTemplateType
      * @return
@@ -131,11 +143,44 @@ public class DriverConfig {
      *
      */
     public <T> T parseProvisioningTemplate(Class<T> provisioningTemplateType) throws IllegalArgumentException {
-        try {
-            return JsonUtils.toObject(getProvisioningTemplate(), provisioningTemplateType);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("failed to parse provisioningTemplate: " + e.getMessage(), e);
+        return parse("provisioningTemplate", getProvisioningTemplate(), provisioningTemplateType,
+                this.parsedProvisioningTemplates);
+    }
+
+    /**
+     * Returns a JSON document parsed into a given type, parsing it only if it
+     * has not already been parsed into that type. Parse failures are not
+     * cached.
+     *
+     * @param field
+     *            The name of the parsed document, for error messages.
+     * @param json
+     * @param type
+     * @param parsed
+     *            Previously parsed objects, keyed by type.
+     * @return
+     * @throws IllegalArgumentException
+     *             on parse failure
+     */
+    private static <T> T parse(String field, JsonObject json, Class<T> type, ConcurrentMap<Class<?>, Object> parsed)
+            throws IllegalArgumentException {
+        Object cached = parsed.get(type);
+        if (cached == null) {
+            try {
+                cached = JsonUtils.toObject(json, type);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("failed to parse " + field + ": " + e.getMessage(), e);
+            }
+            if (cached == null) {
+                // missing document
+                return null;
+            }
+            Object raced = parsed.putIfAbsent(type, cached);
+            if (raced != null) {
+                cached = raced;
+            }
         }
+        return type.cast(cached);
     }
 
     /**
@@ -0,0 +1,57 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
+
+/**
+ * An optional extension of the {@link CloudPoolDriver} interface for drivers
+ * whose cloud API can report changes to the pool since a given point in time
+ * (for example, via a change feed, a resource version or a last-modified
+ * filter).
+ * <p/>
+ * When a {@link BaseCloudPool} is handed a driver that implements this
+ * interface, it fetches pool members via
+ * {@link #listMachineChanges(Optional)} rather than
+ * {@link CloudPoolDriver#listMachines()} and merges reported changes into its
+ * current view of the pool. A full listing is still requested periodically, to
+ * guard against drift, and whenever no watermark is available (for instance,
+ * after a failed fetch or a restart).
+ *
+ * @see MachineChanges
+ */
+public interface IncrementalCloudPoolDriver extends CloudPoolDriver {
+
+    /**
+     * Returns the changes to the pool membership since a given watermark. If
+     * no watermark is given, or if the driver is unable to produce a delta for
+     * the given watermark (for example, because it has expired), the driver
+     * must return a full listing (see {@link MachineChanges#fullListing}).
+     * <p/>
+     * The returned {@link MachineChanges} carries a new watermark that is to be
+     * passed in the next call.
+     *
+     * @param sinceWatermark
+     *            The watermark returned by the previous call, or
+     *            {@link Optional#empty()} to request a full listing.
+     * @return The pool membership changes since {@code sinceWatermark}.
+     *
+     * @throws IllegalStateException
+     *             If the {@link CloudPoolDriver} has not been configured.
+     * @throws CloudPoolDriverException
+     *             If the operation could not be completed.
+     */
+    MachineChanges listMachineChanges(Optional<String> sinceWatermark)
+            throws IllegalStateException, CloudPoolDriverException;
+
+    /**
+     * Default implementation of {@link CloudPoolDriver#listMachines()} in terms
+     * of a full {@link #listMachineChanges(Optional)} listing.
+     */
+    @Override
+    default List<Machine> listMachines() throws IllegalStateException, CloudPoolDriverException {
+        return listMachineChanges(Optional.empty()).getMachines();
+    }
+}
@@ -0,0 +1,148 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * The result of an {@link IncrementalCloudPoolDriver#listMachineChanges}
+ * call. Either a <i>full listing</i>, which holds all current pool members, or
+ * a <i>delta</i>, which holds the {@link Machine}s that were added or changed
+ * and the identifiers of {@link Machine}s that were removed since the
+ * requested watermark.
+ * <p/>
+ * In both cases, a watermark is included which is to be passed in the next
+ * {@link IncrementalCloudPoolDriver#listMachineChanges} call.
+ */
+public class MachineChanges {
+
+    /**
+     * <code>true</code> if {@link #machines} holds all pool members, rather
+     * than only changed ones.
+     */
+    private final boolean fullListing;
+    /**
+     * All pool members (for a full listing) or added/changed pool members (for
+     * a delta).
+     */
+    private final List<Machine> machines;
+    /** Identifiers of removed pool members. Always empty for a full listing. */
+    private final List<String> removedMachineIds;
+    /** Watermark to pass in the next listing call. */
+    private final String watermark;
+
+    private MachineChanges(boolean fullListing, List<Machine> machines, List<String> removedMachineIds,
+            String watermark) {
+        requireNonNull(machines, "machines cannot be null");
+        requireNonNull(removedMachineIds, "removedMachineIds cannot be null");
+        requireNonNull(watermark, "watermark cannot be null");
+        this.fullListing = fullListing;
+        this.machines = Collections.unmodifiableList(new ArrayList<>(machines));
+        this.removedMachineIds = Collections.unmodifiableList(new ArrayList<>(removedMachineIds));
+        this.watermark = watermark;
+    }
+
+    /**
+     * Creates a full listing holding all current pool members.
+     *
+     * @param machines
+     *            All current pool members.
+     * @param watermark
+     *            Watermark to pass in the next listing call.
+     * @return
+     */
+    public static MachineChanges fullListing(List<Machine> machines, String watermark) {
+        return new MachineChanges(true, machines, Collections.emptyList(), watermark);
+    }
+
+    /**
+     * Creates a delta holding changes since a previous watermark.
+     *
+     * @param addedOrChanged
+     *            Pool members that were added or whose state changed.
+     * @param removedMachineIds
+     *            Identifiers of machines that are no longer pool members.
+     * @param watermark
+     *            Watermark to pass in the next listing call.
+     * @return
+     */
+    public static MachineChanges delta(List<Machine> addedOrChanged, List<String> removedMachineIds,
+            String watermark) {
+        return new MachineChanges(false, addedOrChanged, removedMachineIds, watermark);
+    }
+
+    /**
+     * <code>true</code> if this is a full listing, <code>false</code> if it
+     * is a delta.
+     *
+     * @return
+     */
+    public boolean isFullListing() {
+        return this.fullListing;
+    }
+
+    /**
+     * All pool members (for a full listing) or added/changed pool members (for
+     * a delta).
+     *
+     * @return
+     */
+    public List<Machine> getMachines() {
+        return this.machines;
+    }
+
+    /**
+     * Identifiers of removed pool members. Always empty for a full listing.
+     *
+     * @return
+     */
+    public List<String> getRemovedMachineIds() {
+        return this.removedMachineIds;
+    }
+
+    /**
+     * <code>true</code> if this is a delta that reports no changes.
+     *
+     * @return
+     */
+    public boolean isEmpty() {
+        return !this.fullListing && this.machines.isEmpty() && this.removedMachineIds.isEmpty();
+    }
+
+    /**
+     * Watermark to pass in the next listing call.
+     *
+     * @return
+     */
+    public String getWatermark() {
+        return this.watermark;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.fullListing, this.machines, this.removedMachineIds, this.watermark);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof MachineChanges) {
+            MachineChanges that = (MachineChanges) obj;
+            return this.fullListing == that.fullListing //
+                    && Objects.equals(this.machines, that.machines) //
+                    && Objects.equals(this.removedMachineIds, that.removedMachineIds) //
+                    && Objects.equals(this.watermark, that.watermark);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toPrettyString(JsonUtils.toJson(this));
+    }
+}
@@ -0,0 +1,220 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.replay;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DetachMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * A {@link CloudPoolDriver} decorator that records every call to the wrapped
+ * driver (its arguments, outcome and latency) as a {@link TraceEvent} in a
+ * driver trace, which can later be replayed with a
+ * {@link ReplayCloudPoolDriver}.
+ * <p/>
+ * Only the pool name of a {@link DriverConfig} is recorded, never its cloud
+ * API settings or provisioning template (which may hold credentials).
+ * <p/>
+ * A wrapped {@link IncrementalCloudPoolDriver} is recorded (and used) as a
+ * regular {@link CloudPoolDriver}, which always lists the full pool. Warm
+ * pool operations are passed through without being recorded.
+ * <p/>
+ * Failures to write the trace are logged and stop the recording, but never
+ * fail driver calls.
+ */
+public class RecordingCloudPoolDriver implements CloudPoolDriver {
+    private static final Logger LOG = LoggerFactory.getLogger(RecordingCloudPoolDriver.class);
+
+    /** The wrapped driver. */
+    private final CloudPoolDriver delegate;
+    /** Where calls are recorded. */
+    private final TraceWriter trace;
+    /** Start of the recording, in {@link System#nanoTime()} terms. */
+    private final long startNanos;
+    /** Set when a trace write has failed. */
+    private volatile boolean recordingFailed = false;
+
+    /**
+     * Creates a {@link RecordingCloudPoolDriver}.
+     *
+     * @param delegate
+     *            The driver whose calls are to be recorded.
+     * @param trace
+     *            Where calls are recorded. Closing it is the responsibility
+     *            of the caller.
+     */
+    public RecordingCloudPoolDriver(CloudPoolDriver delegate, TraceWriter trace) {
+        this.delegate = requireNonNull(delegate, "delegate driver cannot be null");
+        this.trace = requireNonNull(trace, "trace cannot be null");
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void configure(DriverConfig configuration) throws IllegalArgumentException, CloudPoolDriverException {
+        record(TraceEvent.CONFIGURE, new JsonPrimitive(String.valueOf(configuration.getPoolName())), () -> {
+            this.delegate.configure(configuration);
+            return null;
+        }, result -> null);
+    }
+
+    @Override
+    public List<Machine> listMachines() throws IllegalStateException, CloudPoolDriverException {
+        return record(TraceEvent.LIST_MACHINES, null, this.delegate::listMachines, TraceCodec::machinesToJson);
+    }
+
+    @Override
+    public List<Machine> startMachines(int count)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        return record(TraceEvent.START_MACHINES, new JsonPrimitive(count), () -> this.delegate.startMachines(count),
+                TraceCodec::machinesToJson);
+    }
+
+    @Override
+    public int getPreferredStartChunkSize() {
+        return this.delegate.getPreferredStartChunkSize();
+    }
+
+    @Override
+    public void terminateMachines(List<String> machineIds)
+            throws IllegalStateException, TerminateMachinesException, CloudPoolDriverException {
+        record(TraceEvent.TERMINATE_MACHINES, TraceCodec.idsToJson(machineIds), () -> {
+            this.delegate.terminateMachines(machineIds);
+            return null;
+        }, result -> null);
+    }
+
+    @Override
+    public void attachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        record(TraceEvent.ATTACH_MACHINE, new JsonPrimitive(machineId), () -> {
+            this.delegate.attachMachine(machineId);
+            return null;
+        }, result -> null);
+    }
+
+    @Override
+    public void detachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        record(TraceEvent.DETACH_MACHINE, new JsonPrimitive(machineId), () -> {
+            this.delegate.detachMachine(machineId);
+            return null;
+        }, result -> null);
+    }
+
+    @Override
+    public void detachMachines(List<String> machineIds)
+            throws IllegalStateException, DetachMachinesException, CloudPoolDriverException {
+        record(TraceEvent.DETACH_MACHINES, TraceCodec.idsToJson(machineIds), () -> {
+            this.delegate.detachMachines(machineIds);
+            return null;
+        }, result -> null);
+    }
+
+    @Override
+    public boolean supportsWarmPool() {
+        return this.delegate.supportsWarmPool();
+    }
+
+    @Override
+    public List<Machine> listWarmMachines() throws IllegalStateException, CloudPoolDriverException {
+        return this.delegate.listWarmMachines();
+    }
+
+    @Override
+    public List<Machine> provisionWarmMachines(int count)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        return this.delegate.provisionWarmMachines(count);
+    }
+
+    @Override
+    public List<Machine> promoteWarmMachines(List<String> machineIds)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        return this.delegate.promoteWarmMachines(machineIds);
+    }
+
+    @Override
+    public void demoteMachines(List<String> machineIds)
+            throws IllegalStateException, DetachMachinesException, CloudPoolDriverException {
+        this.delegate.demoteMachines(machineIds);
+    }
+
+    @Override
+    public void setServiceState(String machineId, ServiceState serviceState)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        JsonObject args = new JsonObject();
+        args.addProperty("machineId", machineId);
+        args.add("serviceState", JsonUtils.toJson(serviceState));
+        record(TraceEvent.SET_SERVICE_STATE, args, () -> {
+            this.delegate.setServiceState(machineId, serviceState);
+            return null;
+        }, result -> null);
+    }
+
+    @Override
+    public void setMembershipStatus(String machineId, MembershipStatus membershipStatus)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        JsonObject args = new JsonObject();
+        args.addProperty("machineId", machineId);
+        args.add("membershipStatus", JsonUtils.toJson(membershipStatus));
+        record(TraceEvent.SET_MEMBERSHIP_STATUS, args, () -> {
+            this.delegate.setMembershipStatus(machineId, membershipStatus);
+            return null;
+        }, result -> null);
+    }
+
+    @Override
+    public String getPoolName() throws IllegalStateException {
+        return this.delegate.getPoolName();
+    }
+
+    private <T> T record(String operation, JsonElement args, Supplier<T> call,
+            Function<T, JsonElement> resultToJson) {
+        long callStart = System.nanoTime();
+        long offsetMillis = TimeUnit.NANOSECONDS.toMillis(callStart - this.startNanos);
+        try {
+            T result = call.get();
+            long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - callStart);
+            write(new TraceEvent(offsetMillis, operation, durationMillis, args, resultToJson.apply(result), null,
+                    null));
+            return result;
+        } catch (RuntimeException e) {
+            long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - callStart);
+            write(new TraceEvent(offsetMillis, operation, durationMillis, args, TraceCodec.partialResult(e),
+                    e.getClass().getSimpleName(), e.getMessage()));
+            throw e;
+        }
+    }
+
+    private void write(TraceEvent event) {
+        if (this.recordingFailed) {
+            return;
+        }
+        try {
+            this.trace.write(event);
+        } catch (IOException | RuntimeException e) {
+            this.recordingFailed = true;
+            LOG.warn("failed to write driver trace, recording stopped: {}", e.getMessage(), e);
+        }
+    }
+}
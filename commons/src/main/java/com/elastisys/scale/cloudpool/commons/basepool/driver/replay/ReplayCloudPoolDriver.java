@@ -0,0 +1,333 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.replay;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DetachMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * A {@link CloudPoolDriver} that plays back a driver trace recorded by a
+ * {@link RecordingCloudPoolDriver}, which allows a {@link BaseCloudPool} to
+ * be exercised against a realistic pool history without cloud access.
+ * <p/>
+ * The trace is read as a stream and is never held in memory as a whole.
+ * <ul>
+ * <li>{@link #listMachines()} returns the recorded pool listing at the
+ * current replay position. With {@link Playback#REAL_TIME} playback, the
+ * replay position follows the wall clock from the first call. With
+ * {@link Playback#AS_FAST_AS_POSSIBLE} playback, every call advances the
+ * replay position to the next recorded listing, which makes replays
+ * deterministic. Once the end of the trace is reached, the last listing is
+ * returned.</li>
+ * <li>Other calls are answered with the first unused recorded outcome of the
+ * same operation up until the next recorded listing, regardless of their
+ * arguments. Calls without a recorded outcome succeed without effect (a
+ * start returns placeholder machines) and are counted as
+ * {@link #getUnmatchedCalls()}.</li>
+ * <li>Recorded failures are re-thrown and, with {@link Playback#REAL_TIME}
+ * playback, recorded latencies are waited out.</li>
+ * </ul>
+ * The {@link DriverConfig} is only used for its pool name.
+ * <p/>
+ * Instances are thread-safe.
+ */
+public class ReplayCloudPoolDriver implements CloudPoolDriver {
+    private static final Logger LOG = LoggerFactory.getLogger(ReplayCloudPoolDriver.class);
+
+    /** How a trace is played back. */
+    public static enum Playback {
+        /** Follows the recorded timing, including call latencies. */
+        REAL_TIME,
+        /** Steps to the next recorded listing on every listing call. */
+        AS_FAST_AS_POSSIBLE;
+    }
+
+    /** The cloud provider reported for placeholder machines. */
+    public static final String CLOUD_PROVIDER = "Replay";
+
+    private final TraceReader trace;
+    private final Playback playback;
+
+    /** Protects all fields below. */
+    private final Object lock = new Object();
+    private DriverConfig config;
+    /** Start of the replay, in {@link System#nanoTime()} terms. */
+    private Long replayStartNanos = null;
+    /** The next unconsumed event of the trace. */
+    private TraceEvent lookahead = null;
+    /** Set when all events of the trace have been read. */
+    private boolean endOfTrace = false;
+    /** The recorded listing at the current replay position. */
+    private TraceEvent currentListing = null;
+    /** The machines of the latest successful recorded listing. */
+    private List<Machine> currentMachines = Collections.emptyList();
+    /** Unused recorded outcomes of non-listing calls, per operation. */
+    private final Map<String, Deque<TraceEvent>> recordedCalls = new HashMap<>();
+    /** Used to assign identifiers to placeholder machines. */
+    private long placeholderSequence = 0;
+
+    /** The number of calls that had no recorded outcome. */
+    private final AtomicLong unmatchedCalls = new AtomicLong(0);
+
+    /**
+     * Creates a {@link ReplayCloudPoolDriver}.
+     *
+     * @param trace
+     *            The trace to play back.
+     * @param playback
+     *            How the trace is played back.
+     */
+    public ReplayCloudPoolDriver(TraceReader trace, Playback playback) {
+        this.trace = requireNonNull(trace, "trace cannot be null");
+        this.playback = requireNonNull(playback, "playback cannot be null");
+    }
+
+    @Override
+    public void configure(DriverConfig configuration) throws IllegalArgumentException, CloudPoolDriverException {
+        synchronized (this.lock) {
+            this.config = configuration;
+        }
+    }
+
+    @Override
+    public List<Machine> listMachines() throws IllegalStateException, CloudPoolDriverException {
+        TraceEvent listing;
+        List<Machine> machines;
+        synchronized (this.lock) {
+            ensureConfigured();
+            if (this.playback == Playback.REAL_TIME) {
+                if (this.replayStartNanos == null) {
+                    this.replayStartNanos = System.nanoTime();
+                }
+                advanceTo(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.replayStartNanos));
+            }
+            if (this.playback == Playback.AS_FAST_AS_POSSIBLE || this.currentListing == null) {
+                advancePastNextListing();
+            }
+            listing = this.currentListing;
+            machines = new ArrayList<>(this.currentMachines);
+        }
+        if (listing == null) {
+            this.unmatchedCalls.incrementAndGet();
+            return machines;
+        }
+        replay(listing);
+        return machines;
+    }
+
+    @Override
+    public List<Machine> startMachines(int count)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        TraceEvent recorded = recordedCall(TraceEvent.START_MACHINES);
+        if (recorded == null) {
+            return placeholders(count);
+        }
+        replay(recorded);
+        return TraceCodec.machines(recorded.getResult().orElse(null));
+    }
+
+    @Override
+    public void terminateMachines(List<String> machineIds)
+            throws IllegalStateException, TerminateMachinesException, CloudPoolDriverException {
+        replay(recordedCall(TraceEvent.TERMINATE_MACHINES));
+    }
+
+    @Override
+    public void attachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        replay(recordedCall(TraceEvent.ATTACH_MACHINE));
+    }
+
+    @Override
+    public void detachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        replay(recordedCall(TraceEvent.DETACH_MACHINE));
+    }
+
+    @Override
+    public void detachMachines(List<String> machineIds)
+            throws IllegalStateException, DetachMachinesException, CloudPoolDriverException {
+        replay(recordedCall(TraceEvent.DETACH_MACHINES));
+    }
+
+    @Override
+    public void setServiceState(String machineId, ServiceState serviceState)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        replay(recordedCall(TraceEvent.SET_SERVICE_STATE));
+    }
+
+    @Override
+    public void setMembershipStatus(String machineId, MembershipStatus membershipStatus)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        replay(recordedCall(TraceEvent.SET_MEMBERSHIP_STATUS));
+    }
+
+    @Override
+    public String getPoolName() throws IllegalStateException {
+        synchronized (this.lock) {
+            ensureConfigured();
+            return this.config.getPoolName();
+        }
+    }
+
+    /**
+     * The number of calls that had no recorded outcome and were answered
+     * with a made-up success.
+     *
+     * @return
+     */
+    public long getUnmatchedCalls() {
+        return this.unmatchedCalls.get();
+    }
+
+    /**
+     * <code>true</code> if all events of the trace have been played back.
+     *
+     * @return
+     */
+    public boolean isFinished() {
+        synchronized (this.lock) {
+            return peek() == null;
+        }
+    }
+
+    /**
+     * Returns the first unused recorded outcome of an operation up until the
+     * next recorded listing, or <code>null</code> (and counts the call as
+     * unmatched) if there is none.
+     */
+    private TraceEvent recordedCall(String operation) {
+        synchronized (this.lock) {
+            ensureConfigured();
+            Deque<TraceEvent> unused = this.recordedCalls.get(operation);
+            if (unused != null && !unused.isEmpty()) {
+                return unused.poll();
+            }
+            while (peek() != null && !peek().getOperation().equals(TraceEvent.LIST_MACHINES)) {
+                TraceEvent event = take();
+                if (event.getOperation().equals(operation)) {
+                    return event;
+                }
+                consume(event);
+            }
+        }
+        this.unmatchedCalls.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Waits out the recorded latency of an event (if playing back in real
+     * time) and re-throws its recorded failure (if any).
+     */
+    private void replay(TraceEvent event) throws RuntimeException {
+        if (event == null) {
+            return;
+        }
+        if (this.playback == Playback.REAL_TIME && event.getDurationMillis() > 0) {
+            try {
+                Thread.sleep(event.getDurationMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CloudPoolDriverException("replay was interrupted", e);
+            }
+        }
+        if (event.isFailure()) {
+            throw TraceCodec.error(event);
+        }
+    }
+
+    private void advanceTo(long positionMillis) {
+        while (peek() != null && peek().getOffsetMillis() <= positionMillis) {
+            consume(take());
+        }
+    }
+
+    private void advancePastNextListing() {
+        while (peek() != null) {
+            TraceEvent event = take();
+            consume(event);
+            if (event.getOperation().equals(TraceEvent.LIST_MACHINES)) {
+                return;
+            }
+        }
+    }
+
+    private void consume(TraceEvent event) {
+        switch (event.getOperation()) {
+        case TraceEvent.CONFIGURE:
+            break;
+        case TraceEvent.LIST_MACHINES:
+            this.currentListing = event;
+            if (!event.isFailure()) {
+                this.currentMachines = TraceCodec.machines(event.getResult().orElse(null));
+            }
+            break;
+        default:
+            this.recordedCalls.computeIfAbsent(event.getOperation(), operation -> new ArrayDeque<>()).add(event);
+            break;
+        }
+    }
+
+    private TraceEvent peek() {
+        if (this.lookahead == null && !this.endOfTrace) {
+            try {
+                this.lookahead = this.trace.next().orElse(null);
+            } catch (IOException e) {
+                throw new CloudPoolDriverException("failed to read driver trace: " + e.getMessage(), e);
+            }
+            if (this.lookahead == null) {
+                this.endOfTrace = true;
+                LOG.info("end of driver trace reached");
+            }
+        }
+        return this.lookahead;
+    }
+
+    private TraceEvent take() {
+        TraceEvent event = peek();
+        this.lookahead = null;
+        return event;
+    }
+
+    private List<Machine> placeholders(int count) {
+        List<Machine> machines = new ArrayList<>(count);
+        synchronized (this.lock) {
+            for (int i = 0; i < count; i++) {
+                machines.add(Machine.builder().id("replay-" + ++this.placeholderSequence)
+                        .machineState(MachineState.REQUESTED).cloudProvider(CLOUD_PROVIDER).region("replay")
+                        .machineSize("replay").requestTime(UtcTime.now()).build());
+            }
+        }
+        return machines;
+    }
+
+    private void ensureConfigured() throws IllegalStateException {
+        checkState(this.config != null, "attempt to use unconfigured ReplayCloudPoolDriver");
+    }
+}
@@ -0,0 +1,131 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.replay;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DetachMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Converts call results and errors to and from their {@link TraceEvent}
+ * representation.
+ */
+class TraceCodec {
+    private static final String SUCCEEDED = "succeeded";
+    private static final String ERRORS = "errors";
+
+    private TraceCodec() {
+        throw new IllegalStateException("Not instantiable.");
+    }
+
+    static JsonArray machinesToJson(List<Machine> machines) {
+        JsonArray array = new JsonArray();
+        for (Machine machine : machines) {
+            array.add(JsonUtils.toJson(machine));
+        }
+        return array;
+    }
+
+    static JsonArray idsToJson(Collection<String> strings) {
+        JsonArray array = new JsonArray();
+        strings.forEach(array::add);
+        return array;
+    }
+
+    static List<Machine> machines(JsonElement json) {
+        if (json == null || !json.isJsonArray()) {
+            return Collections.emptyList();
+        }
+        List<Machine> machines = new ArrayList<>(json.getAsJsonArray().size());
+        for (JsonElement machine : json.getAsJsonArray()) {
+            machines.add(JsonUtils.toObject(machine, Machine.class));
+        }
+        return machines;
+    }
+
+    /**
+     * Converts the partial result carried by an error (if any) to JSON.
+     */
+    static JsonElement partialResult(Throwable error) {
+        if (error instanceof StartMachinesException) {
+            return machinesToJson(((StartMachinesException) error).getStartedMachines());
+        }
+        if (error instanceof TerminateMachinesException) {
+            TerminateMachinesException e = (TerminateMachinesException) error;
+            return batchResult(e.getTerminatedMachines(), e.getTerminationErrorMessages());
+        }
+        if (error instanceof DetachMachinesException) {
+            DetachMachinesException e = (DetachMachinesException) error;
+            return batchResult(e.getDetachedMachines(), e.getDetachErrorMessages());
+        }
+        return null;
+    }
+
+    /**
+     * Recreates the error that a recorded call failed with.
+     */
+    static RuntimeException error(TraceEvent event) {
+        String message = event.getErrorMessage();
+        JsonElement result = event.getResult().orElse(null);
+        switch (event.getErrorType()) {
+        case "NotFoundException":
+            return new NotFoundException(message);
+        case "IllegalArgumentException":
+            return new IllegalArgumentException(message);
+        case "IllegalStateException":
+            return new IllegalStateException(message);
+        case "StartMachinesException":
+            int requested = event.getArgs().map(JsonElement::getAsInt).orElse(0);
+            return new StartMachinesException(requested, machines(result), new CloudPoolDriverException(message),
+                    message);
+        case "TerminateMachinesException":
+            return new TerminateMachinesException(succeeded(result), errors(result));
+        case "DetachMachinesException":
+            return new DetachMachinesException(succeeded(result), errors(result));
+        default:
+            return new CloudPoolDriverException(String.format("%s: %s", event.getErrorType(), message));
+        }
+    }
+
+    private static JsonObject batchResult(Collection<String> succeeded, Map<String, String> errors) {
+        JsonObject result = new JsonObject();
+        result.add(SUCCEEDED, idsToJson(succeeded));
+        JsonObject errorMessages = new JsonObject();
+        errors.forEach(errorMessages::addProperty);
+        result.add(ERRORS, errorMessages);
+        return result;
+    }
+
+    private static List<String> succeeded(JsonElement batchResult) {
+        List<String> succeeded = new ArrayList<>();
+        if (batchResult != null && batchResult.isJsonObject() && batchResult.getAsJsonObject().has(SUCCEEDED)) {
+            batchResult.getAsJsonObject().getAsJsonArray(SUCCEEDED).forEach(id -> succeeded.add(id.getAsString()));
+        }
+        return succeeded;
+    }
+
+    private static Map<String, Throwable> errors(JsonElement batchResult) {
+        Map<String, Throwable> errors = new LinkedHashMap<>();
+        if (batchResult != null && batchResult.isJsonObject() && batchResult.getAsJsonObject().has(ERRORS)) {
+            for (Entry<String, JsonElement> error : batchResult.getAsJsonObject().getAsJsonObject(ERRORS)
+                    .entrySet()) {
+                String message = error.getValue().isJsonNull() ? null : error.getValue().getAsString();
+                errors.put(error.getKey(), new CloudPoolDriverException(message));
+            }
+        }
+        return errors;
+    }
+}
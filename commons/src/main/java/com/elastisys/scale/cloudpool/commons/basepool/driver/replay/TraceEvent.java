@@ -0,0 +1,193 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.replay;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.google.gson.JsonElement;
+
+/**
+ * A single recorded {@link CloudPoolDriver} call in a driver trace: the called
+ * operation, when it was called, how long it took and its outcome.
+ *
+ * @see RecordingCloudPoolDriver
+ * @see ReplayCloudPoolDriver
+ */
+public class TraceEvent {
+    /** Operation name of {@link CloudPoolDriver#configure}. */
+    public static final String CONFIGURE = "configure";
+    /** Operation name of {@link CloudPoolDriver#listMachines()}. */
+    public static final String LIST_MACHINES = "listMachines";
+    /** Operation name of {@link CloudPoolDriver#startMachines(int)}. */
+    public static final String START_MACHINES = "startMachines";
+    /** Operation name of {@link CloudPoolDriver#terminateMachines}. */
+    public static final String TERMINATE_MACHINES = "terminateMachines";
+    /** Operation name of {@link CloudPoolDriver#attachMachine(String)}. */
+    public static final String ATTACH_MACHINE = "attachMachine";
+    /** Operation name of {@link CloudPoolDriver#detachMachine(String)}. */
+    public static final String DETACH_MACHINE = "detachMachine";
+    /** Operation name of {@link CloudPoolDriver#detachMachines}. */
+    public static final String DETACH_MACHINES = "detachMachines";
+    /** Operation name of {@link CloudPoolDriver#setServiceState}. */
+    public static final String SET_SERVICE_STATE = "setServiceState";
+    /** Operation name of {@link CloudPoolDriver#setMembershipStatus}. */
+    public static final String SET_MEMBERSHIP_STATUS = "setMembershipStatus";
+
+    /** Milliseconds from the start of the recording until the call was made. */
+    private final long offsetMillis;
+    /** The called operation. */
+    private final String operation;
+    /** The duration of the call in milliseconds. */
+    private final long durationMillis;
+    /** The call arguments. May be <code>null</code>. */
+    private final JsonElement args;
+    /**
+     * The result of the call or, for a failed call, the partial result
+     * carried by the error (if any). May be <code>null</code>.
+     */
+    private final JsonElement result;
+    /**
+     * The simple class name of the error that the call failed with.
+     * <code>null</code> for a successful call.
+     */
+    private final String errorType;
+    /** The message of the error that the call failed with. May be null. */
+    private final String errorMessage;
+
+    /**
+     * Creates a {@link TraceEvent}.
+     *
+     * @param offsetMillis
+     *            Milliseconds from the start of the recording until the call
+     *            was made.
+     * @param operation
+     *            The called operation.
+     * @param durationMillis
+     *            The duration of the call in milliseconds.
+     * @param args
+     *            The call arguments. May be <code>null</code>.
+     * @param result
+     *            The result of the call or, for a failed call, the partial
+     *            result carried by the error (if any). May be
+     *            <code>null</code>.
+     * @param errorType
+     *            The simple class name of the error that the call failed
+     *            with. <code>null</code> for a successful call.
+     * @param errorMessage
+     *            The message of the error that the call failed with. May be
+     *            <code>null</code>.
+     */
+    public TraceEvent(long offsetMillis, String operation, long durationMillis, JsonElement args,
+            JsonElement result, String errorType, String errorMessage) {
+        this.offsetMillis = offsetMillis;
+        this.operation = requireNonNull(operation, "operation cannot be null");
+        this.durationMillis = durationMillis;
+        this.args = args;
+        this.result = result;
+        this.errorType = errorType;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Milliseconds from the start of the recording until the call was made.
+     *
+     * @return
+     */
+    public long getOffsetMillis() {
+        return this.offsetMillis;
+    }
+
+    /**
+     * The called operation.
+     *
+     * @return
+     */
+    public String getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * The duration of the call in milliseconds.
+     *
+     * @return
+     */
+    public long getDurationMillis() {
+        return this.durationMillis;
+    }
+
+    /**
+     * The call arguments.
+     *
+     * @return
+     */
+    public Optional<JsonElement> getArgs() {
+        return Optional.ofNullable(this.args);
+    }
+
+    /**
+     * The result of the call or, for a failed call, the partial result
+     * carried by the error (if any).
+     *
+     * @return
+     */
+    public Optional<JsonElement> getResult() {
+        return Optional.ofNullable(this.result);
+    }
+
+    /**
+     * <code>true</code> if the call failed.
+     *
+     * @return
+     */
+    public boolean isFailure() {
+        return this.errorType != null;
+    }
+
+    /**
+     * The simple class name of the error that the call failed with, or
+     * <code>null</code> for a successful call.
+     *
+     * @return
+     */
+    public String getErrorType() {
+        return this.errorType;
+    }
+
+    /**
+     * The message of the error that the call failed with.
+     *
+     * @return
+     */
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.offsetMillis, this.operation, this.durationMillis, this.args, this.result,
+                this.errorType, this.errorMessage);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof TraceEvent) {
+            TraceEvent that = (TraceEvent) obj;
+            return this.offsetMillis == that.offsetMillis //
+                    && Objects.equals(this.operation, that.operation) //
+                    && this.durationMillis == that.durationMillis //
+                    && Objects.equals(this.args, that.args) //
+                    && Objects.equals(this.result, that.result) //
+                    && Objects.equals(this.errorType, that.errorType) //
+                    && Objects.equals(this.errorMessage, that.errorMessage);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toString(JsonUtils.toJson(this));
+    }
+}
@@ -0,0 +1,109 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.replay;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * Reads the {@link TraceEvent}s of a driver trace written by a
+ * {@link TraceWriter}, one at a time.
+ * <p/>
+ * A trace whose writer was never closed is read up to its last complete
+ * event.
+ */
+public class TraceReader implements Closeable {
+
+    private final BufferedReader reader;
+    /** Set when the end of the trace has been reached. */
+    private boolean exhausted = false;
+
+    /**
+     * Creates a {@link TraceReader} that reads from a given stream.
+     *
+     * @param in
+     * @throws IOException
+     */
+    public TraceReader(InputStream in) throws IOException {
+        this.reader = new BufferedReader(
+                new InputStreamReader(new UnclosedTraceTolerant(new GZIPInputStream(in)), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a {@link TraceReader} that reads from a given file.
+     *
+     * @param traceFile
+     * @return
+     * @throws IOException
+     */
+    public static TraceReader open(File traceFile) throws IOException {
+        return new TraceReader(new FileInputStream(traceFile));
+    }
+
+    /**
+     * Reads the next event of the trace, or returns {@link Optional#empty()}
+     * at the end of the trace.
+     *
+     * @return
+     * @throws IOException
+     */
+    public Optional<TraceEvent> next() throws IOException {
+        while (!this.exhausted) {
+            String line = this.reader.readLine();
+            if (line == null) {
+                this.exhausted = true;
+            } else if (!line.trim().isEmpty()) {
+                try {
+                    return Optional.of(JsonUtils.toObject(JsonUtils.parseJsonString(line), TraceEvent.class));
+                } catch (Exception e) {
+                    // a partially written last line
+                    this.exhausted = true;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    /**
+     * Treats the abrupt end of a compressed stream whose writer was never
+     * closed as a regular end of stream.
+     */
+    private static class UnclosedTraceTolerant extends FilterInputStream {
+        UnclosedTraceTolerant(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (EOFException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (EOFException e) {
+                return -1;
+            }
+        }
+    }
+}
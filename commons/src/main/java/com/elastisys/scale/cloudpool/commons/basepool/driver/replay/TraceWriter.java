@@ -0,0 +1,71 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.replay;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * Writes {@link TraceEvent}s to a driver trace: a gzip-compressed stream of
+ * JSON documents, one event per line.
+ * <p/>
+ * Every event is flushed through the compressor as it is written, so that a
+ * trace can be read up to its last event even if the writer is never closed
+ * (for example, when the recording process is killed).
+ * <p/>
+ * Instances are thread-safe.
+ *
+ * @see TraceReader
+ */
+public class TraceWriter implements Closeable {
+
+    private final Writer writer;
+
+    /**
+     * Creates a {@link TraceWriter} that writes to a given stream.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public TraceWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(new GZIPOutputStream(out, true), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a {@link TraceWriter} that writes to a given file. Any existing
+     * file is overwritten.
+     *
+     * @param traceFile
+     * @return
+     * @throws IOException
+     */
+    public static TraceWriter open(File traceFile) throws IOException {
+        return new TraceWriter(new FileOutputStream(traceFile));
+    }
+
+    /**
+     * Appends an event to the trace.
+     *
+     * @param event
+     * @throws IOException
+     */
+    public synchronized void write(TraceEvent event) throws IOException {
+        this.writer.write(JsonUtils.toString(JsonUtils.toJson(event)));
+        this.writer.write('\n');
+        this.writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.writer.close();
+    }
+}
@@ -0,0 +1,388 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.simulated;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DetachMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * A {@link CloudPoolDriver} that manages machines in an in-memory, simulated
+ * cloud. It is intended for driving a {@link BaseCloudPool} end-to-end in
+ * tests and load tests, without access to a real cloud.
+ * <p/>
+ * Started machines move through the {@code REQUESTED}, {@code PENDING} and
+ * {@code RUNNING} states, and terminated machines through
+ * {@code TERMINATING} and {@code TERMINATED}, each state lasting for a
+ * randomly drawn time. Every API call takes a random amount of time, may be
+ * throttled and may fail. Start and terminate calls may also fail partially.
+ * All of this is controlled by the {@link SimulationSettings} passed as
+ * {@code cloudApiSettings}. The {@code provisioningTemplate} is ignored.
+ * <p/>
+ * Machine states are derived from timestamps when the pool is listed (using
+ * {@link UtcTime}, which allows tests to control the passage of time), so no
+ * background threads are needed and pools of 100,000 machines are cheap to
+ * simulate.
+ * <p/>
+ * Instances are thread-safe.
+ */
+public class SimulatedCloudPoolDriver implements CloudPoolDriver {
+    private static final Logger LOG = LoggerFactory.getLogger(SimulatedCloudPoolDriver.class);
+
+    /** The cloud provider reported for simulated machines. */
+    public static final String CLOUD_PROVIDER = "Simulated";
+    /** The region reported for simulated machines. */
+    public static final String REGION = "simulated";
+    /** The machine size reported for simulated machines. */
+    public static final String MACHINE_SIZE = "simulated";
+
+    /** Protects all fields below. */
+    private final Object lock = new Object();
+
+    /** The current configuration. <code>null</code> until configured. */
+    private DriverConfig config;
+    /** The current simulation settings. <code>null</code> until configured. */
+    private SimulationSettings settings;
+    /** Draws delays and failures. */
+    private Random random;
+
+    /** Pool members, in the order they were started. */
+    private final Map<String, SimulatedMachine> members = new LinkedHashMap<>();
+    /** Machines that have been detached from the pool (but still exist). */
+    private final Map<String, SimulatedMachine> detached = new HashMap<>();
+    /** Used to assign machine identifiers. */
+    private long idSequence = 0;
+
+    /** Tokens available for API calls, if throttling is enabled. */
+    private double throttleTokens;
+    /** When {@link #throttleTokens} was last refilled. */
+    private long throttleRefilledAt;
+
+    @Override
+    public void configure(DriverConfig configuration) throws IllegalArgumentException, CloudPoolDriverException {
+        SimulationSettings newSettings = configuration.parseCloudApiSettings(SimulationSettings.class);
+        newSettings.validate();
+
+        synchronized (this.lock) {
+            boolean firstConfig = this.config == null;
+            this.config = configuration;
+            this.settings = newSettings;
+            this.random = newSettings.getSeed().map(Random::new).orElseGet(Random::new);
+            this.throttleTokens = burstSize();
+            this.throttleRefilledAt = UtcTime.now().getMillis();
+
+            if (firstConfig) {
+                long now = UtcTime.now().getMillis();
+                for (int i = 0; i < newSettings.getInitialSize(); i++) {
+                    SimulatedMachine machine = newMachine(now);
+                    machine.pendingAt = now;
+                    machine.runningAt = now;
+                    machine.serviceState = ServiceState.IN_SERVICE;
+                }
+                LOG.info("simulated cloud started out with {} running machine(s)", newSettings.getInitialSize());
+            }
+        }
+    }
+
+    @Override
+    public List<Machine> listMachines() throws IllegalStateException, CloudPoolDriverException {
+        apiCall("listMachines");
+        synchronized (this.lock) {
+            long now = UtcTime.now().getMillis();
+            long retentionMillis = TimeUnit.MILLISECONDS.convert(this.settings.getTerminatedRetention().getTime(),
+                    this.settings.getTerminatedRetention().getUnit());
+
+            List<Machine> machines = new ArrayList<>(this.members.size());
+            Iterator<SimulatedMachine> iterator = this.members.values().iterator();
+            while (iterator.hasNext()) {
+                SimulatedMachine machine = iterator.next();
+                MachineState state = machine.stateAt(now);
+                if (state == MachineState.TERMINATED && now - machine.terminatedAt >= retentionMillis) {
+                    iterator.remove();
+                    continue;
+                }
+                machines.add(machine.toMachine(state));
+            }
+            return machines;
+        }
+    }
+
+    @Override
+    public List<Machine> startMachines(int count)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        apiCall("startMachines");
+        synchronized (this.lock) {
+            long now = UtcTime.now().getMillis();
+            List<Machine> started = new ArrayList<>(count);
+            int failed = 0;
+            for (int i = 0; i < count; i++) {
+                if (this.random.nextDouble() < this.settings.getPartialFailureRate()) {
+                    failed++;
+                    continue;
+                }
+                SimulatedMachine machine = newMachine(now);
+                machine.pendingAt = now + this.settings.getRequestedDelay().sampleMillis(this.random);
+                machine.runningAt = machine.pendingAt + this.settings.getPendingDelay().sampleMillis(this.random);
+                started.add(machine.toMachine(machine.stateAt(now)));
+            }
+            if (failed > 0) {
+                throw new StartMachinesException(count, started, new CloudPoolDriverException(
+                        String.format("simulated failure: %d machine(s) could not be started", failed)));
+            }
+            return started;
+        }
+    }
+
+    @Override
+    public void terminateMachines(List<String> machineIds)
+            throws IllegalStateException, TerminateMachinesException, CloudPoolDriverException {
+        apiCall("terminateMachines");
+        synchronized (this.lock) {
+            long now = UtcTime.now().getMillis();
+            List<String> terminated = new ArrayList<>();
+            Map<String, Throwable> errors = new LinkedHashMap<>();
+            for (String machineId : machineIds) {
+                SimulatedMachine machine = this.members.get(machineId);
+                if (machine == null) {
+                    errors.put(machineId, new NotFoundException("no such machine: " + machineId));
+                } else if (this.random.nextDouble() < this.settings.getPartialFailureRate()) {
+                    errors.put(machineId, new CloudPoolDriverException("simulated failure to terminate " + machineId));
+                } else {
+                    if (machine.terminatingAt == null) {
+                        machine.terminatingAt = now;
+                        machine.terminatedAt = now + this.settings.getTerminatingDelay().sampleMillis(this.random);
+                    }
+                    terminated.add(machineId);
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new TerminateMachinesException(terminated, errors);
+            }
+        }
+    }
+
+    @Override
+    public void attachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        apiCall("attachMachine");
+        synchronized (this.lock) {
+            if (this.members.containsKey(machineId)) {
+                return;
+            }
+            SimulatedMachine machine = this.detached.remove(machineId);
+            if (machine == null) {
+                throw new NotFoundException("no such machine: " + machineId);
+            }
+            this.members.put(machineId, machine);
+        }
+    }
+
+    @Override
+    public void detachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        apiCall("detachMachine");
+        synchronized (this.lock) {
+            detach(machineId);
+        }
+    }
+
+    /**
+     * Detaches all machines with a single (simulated) API call.
+     */
+    @Override
+    public void detachMachines(List<String> machineIds)
+            throws IllegalStateException, DetachMachinesException, CloudPoolDriverException {
+        apiCall("detachMachines");
+        synchronized (this.lock) {
+            List<String> detachedIds = new ArrayList<>();
+            Map<String, Throwable> errors = new LinkedHashMap<>();
+            for (String machineId : machineIds) {
+                try {
+                    detach(machineId);
+                    detachedIds.add(machineId);
+                } catch (NotFoundException e) {
+                    errors.put(machineId, e);
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new DetachMachinesException(detachedIds, errors);
+            }
+        }
+    }
+
+    @Override
+    public void setServiceState(String machineId, ServiceState serviceState)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        apiCall("setServiceState");
+        synchronized (this.lock) {
+            getMember(machineId).serviceState = serviceState;
+        }
+    }
+
+    @Override
+    public void setMembershipStatus(String machineId, MembershipStatus membershipStatus)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        apiCall("setMembershipStatus");
+        synchronized (this.lock) {
+            getMember(machineId).membershipStatus = membershipStatus;
+        }
+    }
+
+    @Override
+    public String getPoolName() throws IllegalStateException {
+        synchronized (this.lock) {
+            ensureConfigured();
+            return this.config.getPoolName();
+        }
+    }
+
+    /**
+     * Simulates the overhead of an API call: waits for the API latency and
+     * then fails the call if it is throttled or (randomly) fails.
+     *
+     * @param operation
+     *            The name of the called operation.
+     * @throws IllegalStateException
+     *             If the driver has not been configured.
+     * @throws CloudPoolDriverException
+     *             If the call is throttled or fails.
+     */
+    private void apiCall(String operation) throws IllegalStateException, CloudPoolDriverException {
+        long latencyMillis;
+        synchronized (this.lock) {
+            ensureConfigured();
+            latencyMillis = this.settings.getApiLatency().sampleMillis(this.random);
+        }
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CloudPoolDriverException(operation + " was interrupted", e);
+            }
+        }
+
+        synchronized (this.lock) {
+            if (this.settings.getMaxRequestsPerSecond().isPresent()) {
+                long now = UtcTime.now().getMillis();
+                double refill = (now - this.throttleRefilledAt) / 1000.0;
+                this.throttleTokens = Math.min(burstSize(),
+                        this.throttleTokens + refill * this.settings.getMaxRequestsPerSecond().get());
+                this.throttleRefilledAt = now;
+                if (this.throttleTokens < 1) {
+                    throw new CloudPoolDriverException(
+                            String.format("simulated throttling: %s exceeded request rate limit", operation));
+                }
+                this.throttleTokens -= 1;
+            }
+            if (this.random.nextDouble() < this.settings.getFailureRate()) {
+                throw new CloudPoolDriverException(String.format("simulated failure of %s", operation));
+            }
+        }
+    }
+
+    private double burstSize() {
+        return Math.max(1.0, this.settings.getMaxRequestsPerSecond().orElse(1.0));
+    }
+
+    private void ensureConfigured() throws IllegalStateException {
+        checkState(this.config != null, "attempt to use unconfigured SimulatedCloudPoolDriver");
+    }
+
+    private SimulatedMachine newMachine(long requestTime) {
+        long sequenceNumber = ++this.idSequence;
+        SimulatedMachine machine = new SimulatedMachine("sim-" + sequenceNumber, requestTime,
+                String.format("10.%d.%d.%d", sequenceNumber >> 16 & 0xff, sequenceNumber >> 8 & 0xff,
+                        sequenceNumber & 0xff));
+        this.members.put(machine.id, machine);
+        return machine;
+    }
+
+    private SimulatedMachine getMember(String machineId) throws NotFoundException {
+        SimulatedMachine machine = this.members.get(machineId);
+        if (machine == null) {
+            throw new NotFoundException("no such pool member: " + machineId);
+        }
+        return machine;
+    }
+
+    private void detach(String machineId) throws NotFoundException {
+        this.detached.put(machineId, getMember(machineId));
+        this.members.remove(machineId);
+    }
+
+    /**
+     * A machine in the simulated cloud. Its state is derived from the
+     * timestamps of its state transitions.
+     */
+    private static class SimulatedMachine {
+        private final String id;
+        private final long requestedAt;
+        private final String privateIp;
+        private long pendingAt;
+        private long runningAt;
+        /** <code>null</code> unless the machine has been terminated. */
+        private Long terminatingAt;
+        /** <code>null</code> unless the machine has been terminated. */
+        private Long terminatedAt;
+        private ServiceState serviceState = ServiceState.UNKNOWN;
+        private MembershipStatus membershipStatus = MembershipStatus.defaultStatus();
+
+        SimulatedMachine(String id, long requestedAt, String privateIp) {
+            this.id = id;
+            this.requestedAt = requestedAt;
+            this.privateIp = privateIp;
+        }
+
+        MachineState stateAt(long now) {
+            if (this.terminatedAt != null && now >= this.terminatedAt) {
+                return MachineState.TERMINATED;
+            }
+            if (this.terminatingAt != null) {
+                return MachineState.TERMINATING;
+            }
+            if (now >= this.runningAt) {
+                return MachineState.RUNNING;
+            }
+            if (now >= this.pendingAt) {
+                return MachineState.PENDING;
+            }
+            return MachineState.REQUESTED;
+        }
+
+        Machine toMachine(MachineState state) {
+            Machine.Builder builder = Machine.builder().id(this.id).machineState(state).cloudProvider(CLOUD_PROVIDER)
+                    .region(REGION).machineSize(MACHINE_SIZE).serviceState(this.serviceState)
+                    .membershipStatus(this.membershipStatus)
+                    .requestTime(new DateTime(this.requestedAt, DateTimeZone.UTC));
+            if (state != MachineState.REQUESTED) {
+                builder.launchTime(new DateTime(this.pendingAt, DateTimeZone.UTC)).privateIp(this.privateIp);
+            }
+            return builder.build();
+        }
+    }
+}
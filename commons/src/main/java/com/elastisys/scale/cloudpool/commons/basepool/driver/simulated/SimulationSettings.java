@@ -0,0 +1,280 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.simulated;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * Describes the behavior of the simulated cloud of a
+ * {@link SimulatedCloudPoolDriver}. Passed as {@code cloudApiSettings} in the
+ * cloud pool configuration.
+ * <p/>
+ * All fields are optional. By default, the simulated cloud answers instantly,
+ * never fails and boots machines within half a minute.
+ */
+public class SimulationSettings {
+    /** Default value for {@link #initialSize}. */
+    public static final int DEFAULT_INITIAL_SIZE = 0;
+    /** Default value for {@link #apiLatency}. */
+    public static final UniformDelay DEFAULT_API_LATENCY = UniformDelay.millis(0, 0);
+    /** Default value for {@link #requestedDelay}. */
+    public static final UniformDelay DEFAULT_REQUESTED_DELAY = UniformDelay.millis(1000, 3000);
+    /** Default value for {@link #pendingDelay}. */
+    public static final UniformDelay DEFAULT_PENDING_DELAY = UniformDelay.millis(10000, 30000);
+    /** Default value for {@link #terminatingDelay}. */
+    public static final UniformDelay DEFAULT_TERMINATING_DELAY = UniformDelay.millis(2000, 5000);
+    /** Default value for {@link #terminatedRetention}. */
+    public static final TimeInterval DEFAULT_TERMINATED_RETENTION = new TimeInterval(60L, TimeUnit.SECONDS);
+    /** Default value for {@link #failureRate}. */
+    public static final double DEFAULT_FAILURE_RATE = 0.0;
+    /** Default value for {@link #partialFailureRate}. */
+    public static final double DEFAULT_PARTIAL_FAILURE_RATE = 0.0;
+
+    /**
+     * Seed for the random generator that draws delays and failures. May be
+     * <code>null</code>, in which case every run differs.
+     */
+    private final Long seed;
+    /**
+     * The number of running pool members that the simulated cloud starts out
+     * with. May be <code>null</code>. Default: 0.
+     */
+    private final Integer initialSize;
+    /**
+     * The latency of every API call. May be <code>null</code>. Default: 0.
+     */
+    private final UniformDelay apiLatency;
+    /**
+     * For how long a started machine stays {@code REQUESTED} before turning
+     * {@code PENDING}. May be <code>null</code>. Default: 1-3 seconds.
+     */
+    private final UniformDelay requestedDelay;
+    /**
+     * For how long a machine stays {@code PENDING} before turning
+     * {@code RUNNING}. May be <code>null</code>. Default: 10-30 seconds.
+     */
+    private final UniformDelay pendingDelay;
+    /**
+     * For how long a terminated machine stays {@code TERMINATING} before
+     * turning {@code TERMINATED}. May be <code>null</code>. Default: 2-5
+     * seconds.
+     */
+    private final UniformDelay terminatingDelay;
+    /**
+     * For how long {@code TERMINATED} machines are still listed. May be
+     * <code>null</code>. Default: 60 seconds.
+     */
+    private final TimeInterval terminatedRetention;
+    /**
+     * The probability (between 0 and 1) that an API call fails altogether.
+     * May be <code>null</code>. Default: 0.
+     */
+    private final Double failureRate;
+    /**
+     * The probability (between 0 and 1) that a single machine of a start or
+     * terminate call fails, while the others succeed. May be
+     * <code>null</code>. Default: 0.
+     */
+    private final Double partialFailureRate;
+    /**
+     * The maximum sustained rate of API calls. Calls beyond that are throttled
+     * (fail). Bursts of up to one second's worth of calls are allowed. May be
+     * <code>null</code>, which means no throttling.
+     */
+    private final Double maxRequestsPerSecond;
+
+    /**
+     * Creates {@link SimulationSettings}.
+     *
+     * @param seed
+     *            Seed for the random generator that draws delays and
+     *            failures. May be <code>null</code>.
+     * @param initialSize
+     *            The number of running pool members that the simulated cloud
+     *            starts out with. May be <code>null</code>. Default: 0.
+     * @param apiLatency
+     *            The latency of every API call. May be <code>null</code>.
+     *            Default: 0.
+     * @param requestedDelay
+     *            For how long a started machine stays {@code REQUESTED}. May
+     *            be <code>null</code>. Default: 1-3 seconds.
+     * @param pendingDelay
+     *            For how long a machine stays {@code PENDING}. May be
+     *            <code>null</code>. Default: 10-30 seconds.
+     * @param terminatingDelay
+     *            For how long a terminated machine stays
+     *            {@code TERMINATING}. May be <code>null</code>. Default: 2-5
+     *            seconds.
+     * @param terminatedRetention
+     *            For how long {@code TERMINATED} machines are still listed.
+     *            May be <code>null</code>. Default: 60 seconds.
+     * @param failureRate
+     *            The probability that an API call fails altogether. May be
+     *            <code>null</code>. Default: 0.
+     * @param partialFailureRate
+     *            The probability that a single machine of a start or
+     *            terminate call fails. May be <code>null</code>. Default: 0.
+     * @param maxRequestsPerSecond
+     *            The maximum sustained rate of API calls. May be
+     *            <code>null</code>, which means no throttling.
+     */
+    public SimulationSettings(Long seed, Integer initialSize, UniformDelay apiLatency, UniformDelay requestedDelay,
+            UniformDelay pendingDelay, UniformDelay terminatingDelay, TimeInterval terminatedRetention,
+            Double failureRate, Double partialFailureRate, Double maxRequestsPerSecond) {
+        this.seed = seed;
+        this.initialSize = initialSize;
+        this.apiLatency = apiLatency;
+        this.requestedDelay = requestedDelay;
+        this.pendingDelay = pendingDelay;
+        this.terminatingDelay = terminatingDelay;
+        this.terminatedRetention = terminatedRetention;
+        this.failureRate = failureRate;
+        this.partialFailureRate = partialFailureRate;
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    /**
+     * Seed for the random generator that draws delays and failures.
+     *
+     * @return
+     */
+    public Optional<Long> getSeed() {
+        return Optional.ofNullable(this.seed);
+    }
+
+    /**
+     * The number of running pool members that the simulated cloud starts out
+     * with.
+     *
+     * @return
+     */
+    public int getInitialSize() {
+        return Optional.ofNullable(this.initialSize).orElse(DEFAULT_INITIAL_SIZE);
+    }
+
+    /**
+     * The latency of every API call.
+     *
+     * @return
+     */
+    public UniformDelay getApiLatency() {
+        return Optional.ofNullable(this.apiLatency).orElse(DEFAULT_API_LATENCY);
+    }
+
+    /**
+     * For how long a started machine stays {@code REQUESTED} before turning
+     * {@code PENDING}.
+     *
+     * @return
+     */
+    public UniformDelay getRequestedDelay() {
+        return Optional.ofNullable(this.requestedDelay).orElse(DEFAULT_REQUESTED_DELAY);
+    }
+
+    /**
+     * For how long a machine stays {@code PENDING} before turning
+     * {@code RUNNING}.
+     *
+     * @return
+     */
+    public UniformDelay getPendingDelay() {
+        return Optional.ofNullable(this.pendingDelay).orElse(DEFAULT_PENDING_DELAY);
+    }
+
+    /**
+     * For how long a terminated machine stays {@code TERMINATING} before
+     * turning {@code TERMINATED}.
+     *
+     * @return
+     */
+    public UniformDelay getTerminatingDelay() {
+        return Optional.ofNullable(this.terminatingDelay).orElse(DEFAULT_TERMINATING_DELAY);
+    }
+
+    /**
+     * For how long {@code TERMINATED} machines are still listed.
+     *
+     * @return
+     */
+    public TimeInterval getTerminatedRetention() {
+        return Optional.ofNullable(this.terminatedRetention).orElse(DEFAULT_TERMINATED_RETENTION);
+    }
+
+    /**
+     * The probability (between 0 and 1) that an API call fails altogether.
+     *
+     * @return
+     */
+    public double getFailureRate() {
+        return Optional.ofNullable(this.failureRate).orElse(DEFAULT_FAILURE_RATE);
+    }
+
+    /**
+     * The probability (between 0 and 1) that a single machine of a start or
+     * terminate call fails, while the others succeed.
+     *
+     * @return
+     */
+    public double getPartialFailureRate() {
+        return Optional.ofNullable(this.partialFailureRate).orElse(DEFAULT_PARTIAL_FAILURE_RATE);
+    }
+
+    /**
+     * The maximum sustained rate of API calls, if calls are throttled.
+     *
+     * @return
+     */
+    public Optional<Double> getMaxRequestsPerSecond() {
+        return Optional.ofNullable(this.maxRequestsPerSecond);
+    }
+
+    public void validate() throws IllegalArgumentException {
+        checkArgument(getInitialSize() >= 0, "simulation: initialSize cannot be negative");
+        getApiLatency().validate();
+        getRequestedDelay().validate();
+        getPendingDelay().validate();
+        getTerminatingDelay().validate();
+        getTerminatedRetention().validate();
+        checkArgument(getFailureRate() >= 0 && getFailureRate() <= 1,
+                "simulation: failureRate must be in range [0, 1]");
+        checkArgument(getPartialFailureRate() >= 0 && getPartialFailureRate() <= 1,
+                "simulation: partialFailureRate must be in range [0, 1]");
+        checkArgument(!getMaxRequestsPerSecond().isPresent() || getMaxRequestsPerSecond().get() > 0,
+                "simulation: maxRequestsPerSecond must be positive");
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.seed, getInitialSize(), getApiLatency(), getRequestedDelay(), getPendingDelay(),
+                getTerminatingDelay(), getTerminatedRetention(), getFailureRate(), getPartialFailureRate(),
+                this.maxRequestsPerSecond);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof SimulationSettings) {
+            SimulationSettings that = (SimulationSettings) obj;
+            return Objects.equals(this.seed, that.seed) //
+                    && Objects.equals(getInitialSize(), that.getInitialSize()) //
+                    && Objects.equals(getApiLatency(), that.getApiLatency()) //
+                    && Objects.equals(getRequestedDelay(), that.getRequestedDelay()) //
+                    && Objects.equals(getPendingDelay(), that.getPendingDelay()) //
+                    && Objects.equals(getTerminatingDelay(), that.getTerminatingDelay()) //
+                    && Objects.equals(getTerminatedRetention(), that.getTerminatedRetention()) //
+                    && Objects.equals(getFailureRate(), that.getFailureRate()) //
+                    && Objects.equals(getPartialFailureRate(), that.getPartialFailureRate()) //
+                    && Objects.equals(this.maxRequestsPerSecond, that.maxRequestsPerSecond);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toPrettyString(JsonUtils.toJson(this));
+    }
+}
@@ -0,0 +1,121 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.simulated;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * A delay drawn uniformly at random from the range [{@link #min},
+ * {@link #max}]. Used by the {@link SimulatedCloudPoolDriver} to model API
+ * latencies and machine state transition times.
+ */
+public class UniformDelay {
+    /** The shortest delay. Required. */
+    private final TimeInterval min;
+    /** The longest delay. Required. */
+    private final TimeInterval max;
+
+    /**
+     * Creates a {@link UniformDelay}.
+     *
+     * @param min
+     *            The shortest delay. Required.
+     * @param max
+     *            The longest delay. Required.
+     */
+    public UniformDelay(TimeInterval min, TimeInterval max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Creates a {@link UniformDelay} that always has the same length.
+     *
+     * @param delay
+     * @return
+     */
+    public static UniformDelay fixed(TimeInterval delay) {
+        return new UniformDelay(delay, delay);
+    }
+
+    /**
+     * Creates a {@link UniformDelay} between a given number of milliseconds.
+     *
+     * @param minMillis
+     * @param maxMillis
+     * @return
+     */
+    public static UniformDelay millis(long minMillis, long maxMillis) {
+        return new UniformDelay(new TimeInterval(minMillis, TimeUnit.MILLISECONDS),
+                new TimeInterval(maxMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * The shortest delay.
+     *
+     * @return
+     */
+    public TimeInterval getMin() {
+        return this.min;
+    }
+
+    /**
+     * The longest delay.
+     *
+     * @return
+     */
+    public TimeInterval getMax() {
+        return this.max;
+    }
+
+    /**
+     * Draws a delay (in milliseconds) from this range.
+     *
+     * @param random
+     * @return
+     */
+    public long sampleMillis(Random random) {
+        long minMillis = toMillis(this.min);
+        long maxMillis = toMillis(this.max);
+        if (maxMillis <= minMillis) {
+            return minMillis;
+        }
+        return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+    }
+
+    public void validate() throws IllegalArgumentException {
+        checkArgument(this.min != null, "delay: missing min");
+        checkArgument(this.max != null, "delay: missing max");
+        this.min.validate();
+        this.max.validate();
+        checkArgument(toMillis(this.min) <= toMillis(this.max), "delay: min cannot be larger than max");
+    }
+
+    private static long toMillis(TimeInterval interval) {
+        return TimeUnit.MILLISECONDS.convert(interval.getTime(), interval.getUnit());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.min, this.max);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof UniformDelay) {
+            UniformDelay that = (UniformDelay) obj;
+            return Objects.equals(this.min, that.min) && Objects.equals(this.max, that.max);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.toPrettyString(JsonUtils.toJson(this));
+    }
+}
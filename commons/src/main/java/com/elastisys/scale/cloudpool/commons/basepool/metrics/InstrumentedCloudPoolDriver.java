@@ -0,0 +1,199 @@
+package com.elastisys.scale.cloudpool.commons.basepool.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.metrics.Histogram;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DetachMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+
+/**
+ * A {@link CloudPoolDriver} decorator that records the latency of every call
+ * to the wrapped driver in a {@link MetricRegistry}, together with error
+ * counts by operation and exception type:
+ * <ul>
+ * <li>{@value #REQUEST_DURATION}{@code {operation}}: a latency
+ * {@link Histogram} (its {@code _count} is the number of calls).</li>
+ * <li>{@value #ERRORS}{@code {operation,exception}}: the number of calls that
+ * failed.</li>
+ * </ul>
+ * Use {@link #wrap(CloudPoolDriver, MetricRegistry)} to create instances, so
+ * that an {@link IncrementalCloudPoolDriver} remains one when wrapped.
+ */
+public class InstrumentedCloudPoolDriver implements CloudPoolDriver {
+    /** Name of the driver call latency histogram. */
+    public static final String REQUEST_DURATION = "cloudpool_driver_request_duration_seconds";
+    /** Name of the driver call error counter. */
+    public static final String ERRORS = "cloudpool_driver_errors_total";
+
+    /** The wrapped driver. */
+    private final CloudPoolDriver delegate;
+    /** Where metrics are recorded. */
+    private final MetricRegistry metrics;
+
+    /**
+     * Wraps a {@link CloudPoolDriver} in an instrumenting decorator. If the
+     * driver is an {@link IncrementalCloudPoolDriver}, so is the returned
+     * decorator.
+     *
+     * @param driver
+     *            The driver to instrument.
+     * @param metrics
+     *            Where metrics are recorded.
+     * @return
+     */
+    public static CloudPoolDriver wrap(CloudPoolDriver driver, MetricRegistry metrics) {
+        if (driver instanceof IncrementalCloudPoolDriver) {
+            return new InstrumentedIncrementalCloudPoolDriver((IncrementalCloudPoolDriver) driver, metrics);
+        }
+        return new InstrumentedCloudPoolDriver(driver, metrics);
+    }
+
+    protected InstrumentedCloudPoolDriver(CloudPoolDriver delegate, MetricRegistry metrics) {
+        this.delegate = requireNonNull(delegate, "delegate driver cannot be null");
+        this.metrics = requireNonNull(metrics, "metrics cannot be null");
+    }
+
+    /**
+     * Returns the wrapped driver.
+     *
+     * @return
+     */
+    public CloudPoolDriver getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public void configure(DriverConfig configuration) throws IllegalArgumentException, CloudPoolDriverException {
+        // not a cloud API call worth tracking
+        this.delegate.configure(configuration);
+    }
+
+    @Override
+    public List<Machine> listMachines() throws IllegalStateException, CloudPoolDriverException {
+        return record("listMachines", this.delegate::listMachines);
+    }
+
+    @Override
+    public List<Machine> startMachines(int count)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        return record("startMachines", () -> this.delegate.startMachines(count));
+    }
+
+    @Override
+    public int getPreferredStartChunkSize() {
+        return this.delegate.getPreferredStartChunkSize();
+    }
+
+    @Override
+    public void terminateMachines(List<String> machineIds)
+            throws IllegalStateException, TerminateMachinesException, CloudPoolDriverException {
+        record("terminateMachines", () -> this.delegate.terminateMachines(machineIds));
+    }
+
+    @Override
+    public void attachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        record("attachMachine", () -> this.delegate.attachMachine(machineId));
+    }
+
+    @Override
+    public void detachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        record("detachMachine", () -> this.delegate.detachMachine(machineId));
+    }
+
+    @Override
+    public void detachMachines(List<String> machineIds)
+            throws IllegalStateException, DetachMachinesException, CloudPoolDriverException {
+        record("detachMachines", () -> this.delegate.detachMachines(machineIds));
+    }
+
+    @Override
+    public boolean supportsWarmPool() {
+        return this.delegate.supportsWarmPool();
+    }
+
+    @Override
+    public List<Machine> listWarmMachines() throws IllegalStateException, CloudPoolDriverException {
+        return record("listWarmMachines", this.delegate::listWarmMachines);
+    }
+
+    @Override
+    public List<Machine> provisionWarmMachines(int count)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        return record("provisionWarmMachines", () -> this.delegate.provisionWarmMachines(count));
+    }
+
+    @Override
+    public List<Machine> promoteWarmMachines(List<String> machineIds)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        return record("promoteWarmMachines", () -> this.delegate.promoteWarmMachines(machineIds));
+    }
+
+    @Override
+    public void demoteMachines(List<String> machineIds)
+            throws IllegalStateException, DetachMachinesException, CloudPoolDriverException {
+        record("demoteMachines", () -> this.delegate.demoteMachines(machineIds));
+    }
+
+    @Override
+    public void setServiceState(String machineId, ServiceState serviceState)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        record("setServiceState", () -> this.delegate.setServiceState(machineId, serviceState));
+    }
+
+    @Override
+    public void setMembershipStatus(String machineId, MembershipStatus membershipStatus)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        record("setMembershipStatus", () -> this.delegate.setMembershipStatus(machineId, membershipStatus));
+    }
+
+    @Override
+    public String getPoolName() throws IllegalStateException {
+        return this.delegate.getPoolName();
+    }
+
+    /**
+     * Calls the wrapped driver and records the latency and outcome of the
+     * call.
+     *
+     * @param operation
+     *            The name of the called operation.
+     * @param call
+     * @return
+     */
+    protected <T> T record(String operation, Supplier<T> call) {
+        Histogram latency = this.metrics.histogram(REQUEST_DURATION, "Latency of cloud pool driver calls.",
+                "operation", operation);
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException | Error e) {
+            this.metrics.counter(ERRORS, "Failed cloud pool driver calls.", "operation", operation, "exception",
+                    e.getClass().getSimpleName()).inc();
+            throw e;
+        } finally {
+            latency.observeNanos(System.nanoTime() - start);
+        }
+    }
+
+    protected void record(String operation, Runnable call) {
+        record(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
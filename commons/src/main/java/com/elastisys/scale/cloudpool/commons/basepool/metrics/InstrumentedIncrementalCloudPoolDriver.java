@@ -0,0 +1,31 @@
+package com.elastisys.scale.cloudpool.commons.basepool.metrics;
+
+import java.util.Optional;
+
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MachineChanges;
+
+/**
+ * An {@link InstrumentedCloudPoolDriver} for {@link IncrementalCloudPoolDriver}
+ * s, which also records {@link #listMachineChanges(Optional)} calls.
+ *
+ * @see InstrumentedCloudPoolDriver#wrap
+ */
+class InstrumentedIncrementalCloudPoolDriver extends InstrumentedCloudPoolDriver
+        implements IncrementalCloudPoolDriver {
+
+    private final IncrementalCloudPoolDriver delegate;
+
+    InstrumentedIncrementalCloudPoolDriver(IncrementalCloudPoolDriver delegate, MetricRegistry metrics) {
+        super(delegate, metrics);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public MachineChanges listMachineChanges(Optional<String> sinceWatermark)
+            throws IllegalStateException, CloudPoolDriverException {
+        return record("listMachineChanges", () -> this.delegate.listMachineChanges(sinceWatermark));
+    }
+}
@@ -8,7 +8,8 @@ public enum FetchOption {
 
     /**
      * Force the {@link PoolFetcher} to refresh its view of the pool members
-     * (and not return cached data).
+     * (and not return cached data). Equivalent to a
+     * {@link PoolFetcher#get(long)} call with a maximum staleness of zero.
      */
     FORCE_REFRESH;
 }
@@ -0,0 +1,40 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher;
+
+import static java.util.Objects.requireNonNull;
+
+import com.elastisys.scale.cloudpool.api.changes.PoolChangeFeed;
+import com.elastisys.scale.cloudpool.api.types.MachinePoolDiff;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl.CachingPoolFetcher;
+import com.elastisys.scale.commons.eventbus.EventBus;
+import com.elastisys.scale.commons.eventbus.Subscriber;
+
+/**
+ * Relays {@link MachinePoolDiff}s posted on an {@link EventBus} (by the
+ * {@link CachingPoolFetcher}) to a {@link PoolChangeFeed}, from which they can
+ * be served to remote clients.
+ */
+public class PoolChangePublisher {
+
+    /** The {@link PoolChangeFeed} to publish to. */
+    private final PoolChangeFeed changeFeed;
+
+    /**
+     * Creates a {@link PoolChangePublisher}.
+     *
+     * @param changeFeed
+     *            The {@link PoolChangeFeed} to publish to.
+     */
+    public PoolChangePublisher(PoolChangeFeed changeFeed) {
+        this.changeFeed = requireNonNull(changeFeed, "changeFeed cannot be null");
+    }
+
+    /**
+     * Publishes a {@link MachinePoolDiff} on the {@link PoolChangeFeed}.
+     *
+     * @param diff
+     */
+    @Subscriber
+    public void onPoolChange(MachinePoolDiff diff) {
+        this.changeFeed.publish(diff);
+    }
+}
@@ -33,6 +33,41 @@ public interface PoolFetcher extends Closeable {
      */
     MachinePool get(FetchOption... options) throws CloudPoolException;
 
+    /**
+     * Returns a {@link MachinePool} observation that is less than
+     * {@code maxStalenessMillis} old. A caching implementation may respond
+     * with a cached observation that is recent enough (and that was made after
+     * the last {@link #poolChangeExpected()}), and fetches a new observation
+     * otherwise. A {@code maxStalenessMillis} of zero is equivalent to
+     * {@link FetchOption#FORCE_REFRESH}.
+     * <p/>
+     * The default implementation always fetches a new observation.
+     *
+     * @param maxStalenessMillis
+     *            The maximum age, in milliseconds, of the returned
+     *            {@link MachinePool} observation.
+     * @return A time-stamped {@link MachinePool} observation.
+     * @throws CloudPoolException
+     *             On failure to supply a sufficiently up-to-date
+     *             {@link MachinePool}.
+     */
+    default MachinePool get(long maxStalenessMillis) throws CloudPoolException {
+        return get(FetchOption.FORCE_REFRESH);
+    }
+
+    /**
+     * Hints that the {@link MachinePool} is about to change or has just
+     * changed, for example since machines were just requested or terminated.
+     * Implementations that refresh their view of the pool periodically may
+     * use this to refresh more eagerly. Caching implementations must not serve
+     * observations made before the hint to bounded-staleness requests (see
+     * {@link #get(long)}).
+     * <p/>
+     * The default implementation does nothing.
+     */
+    default void poolChangeExpected() {
+    }
+
     /**
      * Closes this {@link PoolFetcher}, allowing it to release any held system
      * resources. A {@link PoolFetcher} can not be used after it has been
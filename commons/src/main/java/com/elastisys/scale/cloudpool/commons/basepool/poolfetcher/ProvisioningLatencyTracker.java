@@ -0,0 +1,281 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertTopics.PROVISIONING_LATENCY;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineChange;
+import com.elastisys.scale.cloudpool.api.types.MachinePoolDiff;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.ProvisioningLatencies;
+import com.elastisys.scale.cloudpool.api.types.TransitionLatency;
+import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl.CachingPoolFetcher;
+import com.elastisys.scale.commons.eventbus.EventBus;
+import com.elastisys.scale.commons.eventbus.Subscriber;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.net.alerter.Alert;
+import com.elastisys.scale.commons.net.alerter.AlertSeverity;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.gson.JsonElement;
+
+/**
+ * Tracks how long machines take to move between {@link MachineState}s, from
+ * the {@link MachinePoolDiff}s posted on an {@link EventBus} (by the
+ * {@link CachingPoolFetcher}).
+ * <p/>
+ * The first time a machine is observed in a given state is remembered, and
+ * whenever a machine enters one of the tracked {@link #TRANSITIONS} the time
+ * since it was first observed in the from-state is recorded. Durations are
+ * therefore only as accurate as the pool refresh interval. Since the time at
+ * which a machine was asked to terminate is not part of the pool, it is
+ * approximated by the first observation in {@link MachineState#TERMINATING}.
+ * Machines that are already in the pool when tracking starts (the first
+ * observed pool) are only used as a baseline, since the time at which they
+ * entered their current state is unknown.
+ * <p/>
+ * Durations are summarized per transition, cloud provider, region and machine
+ * size, as percentiles over a sliding window of recent observations (see
+ * {@link #getLatencies()}), and recorded in the
+ * {@code cloudpool_machine_transition_duration_seconds} histogram. An
+ * {@link Alert} is posted for transitions that take more than
+ * {@link #SLOW_TRANSITION_FACTOR} times the 90th percentile of earlier
+ * transitions.
+ */
+public class ProvisioningLatencyTracker {
+    private static final Logger LOG = LoggerFactory.getLogger(ProvisioningLatencyTracker.class);
+
+    /** The tracked machine state transitions. */
+    static final List<Transition> TRANSITIONS = Arrays.asList( //
+            new Transition(MachineState.REQUESTED, MachineState.PENDING),
+            new Transition(MachineState.PENDING, MachineState.RUNNING),
+            new Transition(MachineState.REQUESTED, MachineState.RUNNING),
+            new Transition(MachineState.TERMINATING, MachineState.TERMINATED));
+
+    /** The number of recent observations that percentiles are computed over. */
+    public static final int WINDOW_SIZE = 1000;
+    /**
+     * The number of earlier observations of a transition needed before slow
+     * transitions are alerted on.
+     */
+    public static final int MIN_SAMPLES_FOR_ALERT = 20;
+    /**
+     * A transition is considered slow if it takes longer than this factor
+     * times the 90th percentile of earlier transitions.
+     */
+    public static final double SLOW_TRANSITION_FACTOR = 2.0;
+
+    /** Histogram buckets for transition durations, in seconds. */
+    private static final double[] DURATION_BUCKETS = { 1, 5, 10, 15, 30, 45, 60, 90, 120, 180, 300, 600, 900,
+            1800 };
+
+    /** Where slow transition {@link Alert}s are posted. */
+    private final EventBus eventBus;
+    /** Where transition durations are recorded. */
+    private final MetricRegistry metrics;
+
+    /** The first observation of each state, per machine id. */
+    private final Map<String, Map<MachineState, DateTime>> firstSeen = new HashMap<>();
+    /** Duration summaries, ordered by their key. */
+    private final Map<String, Summary> summaries = new TreeMap<>();
+
+    /**
+     * Creates a {@link ProvisioningLatencyTracker}.
+     *
+     * @param eventBus
+     *            Where slow transition {@link Alert}s are posted.
+     * @param metrics
+     *            Where transition durations are recorded.
+     */
+    public ProvisioningLatencyTracker(EventBus eventBus, MetricRegistry metrics) {
+        this.eventBus = requireNonNull(eventBus, "eventBus cannot be null");
+        this.metrics = requireNonNull(metrics, "metrics cannot be null");
+    }
+
+    /**
+     * Records the state transitions of a {@link MachinePoolDiff}.
+     *
+     * @param diff
+     */
+    @Subscriber
+    public void onPoolChange(MachinePoolDiff diff) {
+        List<Alert> alerts = new ArrayList<>();
+        synchronized (this) {
+            DateTime timestamp = diff.getTimestamp();
+            boolean baseline = diff.getPreviousTimestamp() == null;
+            for (Machine removed : diff.getRemoved()) {
+                this.firstSeen.remove(removed.getId());
+            }
+            for (Machine added : diff.getAdded()) {
+                Map<MachineState, DateTime> states = new EnumMap<>(MachineState.class);
+                if (!baseline) {
+                    states.put(added.getMachineState(), timestamp);
+                }
+                this.firstSeen.put(added.getId(), states);
+            }
+            for (MachineChange change : diff.getChanged()) {
+                Machine machine = change.getCurrent();
+                Map<MachineState, DateTime> states = this.firstSeen.computeIfAbsent(machine.getId(),
+                        id -> new EnumMap<>(MachineState.class));
+                if (states.containsKey(machine.getMachineState())) {
+                    continue;
+                }
+                states.put(machine.getMachineState(), timestamp);
+                for (Transition transition : TRANSITIONS) {
+                    DateTime from = states.get(transition.from);
+                    if (transition.to == machine.getMachineState() && from != null) {
+                        double seconds = (timestamp.getMillis() - from.getMillis()) / 1000.0;
+                        Alert alert = observe(transition, machine, seconds);
+                        if (alert != null) {
+                            alerts.add(alert);
+                        }
+                    }
+                }
+            }
+        }
+        // post outside of lock, since subscribers may be slow
+        alerts.forEach(this.eventBus::post);
+    }
+
+    /**
+     * Returns a summary of the observed transition durations.
+     *
+     * @return
+     */
+    public synchronized ProvisioningLatencies getLatencies() {
+        List<TransitionLatency> latencies = new ArrayList<>();
+        for (Summary summary : this.summaries.values()) {
+            latencies.add(summary.toLatency());
+        }
+        return new ProvisioningLatencies(UtcTime.now(), latencies);
+    }
+
+    /**
+     * Records a transition duration.
+     *
+     * @param transition
+     * @param machine
+     *            The machine (in its new state).
+     * @param seconds
+     *            The transition duration.
+     * @return An {@link Alert} if the transition was slow, <code>null</code>
+     *         otherwise.
+     */
+    private Alert observe(Transition transition, Machine machine, double seconds) {
+        LOG.debug("{} went from {} to {} in {} seconds", machine.getId(), transition.from, transition.to, seconds);
+        String key = String.join("/", transition.toString(), machine.getCloudProvider(), machine.getRegion(),
+                machine.getMachineSize());
+        Summary summary = this.summaries.computeIfAbsent(key, k -> new Summary(transition, machine));
+
+        Alert alert = null;
+        if (summary.size() >= MIN_SAMPLES_FOR_ALERT) {
+            double p90 = summary.percentile(0.90);
+            if (seconds > SLOW_TRANSITION_FACTOR * p90) {
+                alert = slowTransitionAlert(transition, machine, seconds, p90);
+            }
+        }
+        summary.add(seconds);
+        this.metrics.histogram("cloudpool_machine_transition_duration_seconds",
+                "Time from the first observation of a machine in one state to the first observation in the next.",
+                DURATION_BUCKETS, "transition", transition.toString(), "cloud_provider", machine.getCloudProvider(),
+                "region", machine.getRegion(), "machine_size", machine.getMachineSize()).observe(seconds);
+        return alert;
+    }
+
+    private Alert slowTransitionAlert(Transition transition, Machine machine, double seconds, double p90) {
+        String message = String.format("slow machine state transition: %s went from %s to %s in %.0f seconds",
+                machine.getId(), transition.from, transition.to, seconds);
+        LOG.warn(message);
+        String details = String.format("the 90th percentile for %s machines in %s/%s is %.0f seconds",
+                machine.getMachineSize(), machine.getCloudProvider(), machine.getRegion(), p90);
+        Map<String, JsonElement> tags = new HashMap<>();
+        tags.put("machineId", JsonUtils.toJson(machine.getId()));
+        tags.put("transition", JsonUtils.toJson(transition.toString()));
+        return new Alert(PROVISIONING_LATENCY.name(), AlertSeverity.WARN, UtcTime.now(), message, details, tags);
+    }
+
+    /** A tracked machine state transition. */
+    static class Transition {
+        final MachineState from;
+        final MachineState to;
+
+        Transition(MachineState from, MachineState to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String toString() {
+            return this.from.name().toLowerCase() + "_to_" + this.to.name().toLowerCase();
+        }
+    }
+
+    /**
+     * Transition durations for a transition, cloud provider, region and
+     * machine size. Keeps the {@link #WINDOW_SIZE} most recent durations in a
+     * ring buffer, over which percentiles are computed, and the count and
+     * maximum of all durations.
+     */
+    private static class Summary {
+        private final Transition transition;
+        private final String cloudProvider;
+        private final String region;
+        private final String machineSize;
+
+        private final double[] window = new double[WINDOW_SIZE];
+        private long count = 0;
+        private double max = 0;
+
+        Summary(Transition transition, Machine machine) {
+            this.transition = transition;
+            this.cloudProvider = machine.getCloudProvider();
+            this.region = machine.getRegion();
+            this.machineSize = machine.getMachineSize();
+        }
+
+        void add(double seconds) {
+            this.window[(int) (this.count % WINDOW_SIZE)] = seconds;
+            this.count++;
+            this.max = Math.max(this.max, seconds);
+        }
+
+        int size() {
+            return (int) Math.min(this.count, WINDOW_SIZE);
+        }
+
+        /**
+         * Returns a given (nearest-rank) percentile of the windowed durations.
+         *
+         * @param quantile
+         *            A quantile in the range <code>(0, 1]</code>.
+         * @return
+         */
+        double percentile(double quantile) {
+            if (size() == 0) {
+                return Double.NaN;
+            }
+            double[] sorted = Arrays.copyOf(this.window, size());
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+
+        TransitionLatency toLatency() {
+            return new TransitionLatency(this.transition.from, this.transition.to, this.cloudProvider, this.region,
+                    this.machineSize, this.count, size(), percentile(0.50), percentile(0.90), percentile(0.99),
+                    this.max);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.config.AdaptiveRefreshConfig;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * Tracks the current refresh interval of a {@link CachingPoolFetcher} in
+ * adaptive refresh mode (see {@link AdaptiveRefreshConfig}).
+ * <p/>
+ * The interval drops to its minimum whenever a refreshed {@link MachinePool}
+ * has machines in a transitional {@link MachineState} or when a pool change is
+ * expected (see {@link #reset()}), and otherwise grows geometrically with every
+ * refresh until it reaches its maximum.
+ * <p/>
+ * Instances are thread-safe.
+ */
+public class AdaptiveRefreshInterval {
+
+    /** {@link MachineState}s that are expected to change shortly. */
+    private static final Set<MachineState> TRANSITIONAL_STATES = EnumSet.of(MachineState.REQUESTED,
+            MachineState.PENDING, MachineState.TERMINATING);
+
+    /** The shortest refresh interval (in milliseconds). */
+    private final long minMillis;
+    /** The longest refresh interval (in milliseconds). */
+    private final long maxMillis;
+    /** The factor by which the interval grows while the pool is stable. */
+    private final double backoffFactor;
+
+    /** The current refresh interval (in milliseconds). */
+    private long currentMillis;
+
+    /**
+     * Creates an {@link AdaptiveRefreshInterval}, which starts out at its
+     * minimum.
+     *
+     * @param config
+     *            A validated {@link AdaptiveRefreshConfig}.
+     */
+    public AdaptiveRefreshInterval(AdaptiveRefreshConfig config) {
+        requireNonNull(config, "adaptive refresh config cannot be null");
+        this.minMillis = toMillis(config.getMinInterval());
+        this.maxMillis = toMillis(config.getMaxInterval());
+        this.backoffFactor = config.getBackoffFactor();
+        this.currentMillis = this.minMillis;
+    }
+
+    /**
+     * Updates the refresh interval given the outcome of a successful refresh.
+     *
+     * @param pool
+     *            The refreshed {@link MachinePool}.
+     * @return The delay (in milliseconds) until the next refresh.
+     */
+    public synchronized long next(MachinePool pool) {
+        if (inTransition(pool)) {
+            this.currentMillis = this.minMillis;
+        } else {
+            this.currentMillis = Math.min(this.maxMillis, (long) Math.ceil(this.currentMillis * this.backoffFactor));
+        }
+        return this.currentMillis;
+    }
+
+    /**
+     * Resets the refresh interval to its minimum, since the pool is expected to
+     * change.
+     *
+     * @return The delay (in milliseconds) until the next refresh.
+     */
+    public synchronized long reset() {
+        this.currentMillis = this.minMillis;
+        return this.currentMillis;
+    }
+
+    /**
+     * Returns the current refresh interval (in milliseconds).
+     *
+     * @return
+     */
+    public synchronized long currentMillis() {
+        return this.currentMillis;
+    }
+
+    /**
+     * Returns the current refresh interval.
+     *
+     * @return
+     */
+    public TimeInterval current() {
+        return new TimeInterval(currentMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns <code>true</code> if any machine in the given pool is in a
+     * transitional {@link MachineState}.
+     *
+     * @param pool
+     * @return
+     */
+    static boolean inTransition(MachinePool pool) {
+        for (Machine machine : pool.getMachines()) {
+            if (TRANSITIONAL_STATES.contains(machine.getMachineState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long toMillis(TimeInterval interval) {
+        return TimeUnit.MILLISECONDS.convert(interval.getTime(), interval.getUnit());
+    }
+}
@@ -1,13 +1,19 @@
 package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
 
 import static com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertTopics.POOL_FETCH;
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
 import static java.lang.String.format;
 
 import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
 
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
@@ -15,13 +21,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
+import com.elastisys.scale.cloudpool.api.metrics.Counter;
+import com.elastisys.scale.cloudpool.api.metrics.Histogram;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachinePoolDiff;
 import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
 import com.elastisys.scale.cloudpool.commons.basepool.config.PoolFetchConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.FetchOption;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolFetcher;
 import com.elastisys.scale.commons.eventbus.EventBus;
-import com.elastisys.scale.commons.json.persistence.PersistentState;
 import com.elastisys.scale.commons.json.types.TimeInterval;
 import com.elastisys.scale.commons.net.alerter.Alert;
 import com.elastisys.scale.commons.net.alerter.AlertBuilder;
@@ -33,14 +42,47 @@ import com.elastisys.scale.commons.util.time.UtcTime;
  * A {@link PoolFetcher} that caches {@link MachinePool}s retrieved by a wrapped
  * {@link PoolFetcher} for a configurable time (thereby also masking failures to
  * retrieve pool members from the backing cloud API).
+ * <p/>
+ * Refreshes are single-flight: a refresh that is requested while another
+ * refresh is already in progress does not make a call of its own to the
+ * wrapped {@link PoolFetcher} but waits for, and shares the outcome of, the
+ * ongoing refresh.
+ * <p/>
+ * A {@link #get(long)} request with a maximum staleness is served from cache
+ * if the cached {@link MachinePool} is recent enough, and otherwise refreshes
+ * the cache. A {@link FetchOption#FORCE_REFRESH} request is a request with a
+ * maximum staleness of zero. Furthermore, such requests are served from cache
+ * if they arrive within {@link PoolFetchConfig#getFreshnessWindow()} of a
+ * successful refresh. A cached {@link MachinePool} is never served to these
+ * requests if the refresh that produced it started before the latest
+ * {@link #poolChangeExpected()}, since it may not reflect that change.
+ * <p/>
+ * Whenever a refresh observes a {@link MachinePool} that differs from the
+ * cached one, the {@link MachinePoolDiff} between them is posted on the
+ * {@link EventBus}.
+ * <p/>
+ * The cache is refreshed periodically, either at the fixed
+ * {@link PoolFetchConfig#getRefreshInterval()} or, if
+ * {@link PoolFetchConfig#getAdaptiveRefresh()} is set, at an interval that
+ * shrinks while the pool is changing and grows while it is stable (see
+ * {@link AdaptiveRefreshInterval}).
+ * <p/>
+ * A {@link MachinePool} recovered from the persisted cache is served (subject
+ * to the {@link PoolFetchConfig#getReachabilityTimeout()}) before the first
+ * refresh completes. {@link #isReady()} tells if the cache has been refreshed
+ * since creation.
+ * <p/>
+ * The wrapped {@link PoolFetcher} and the configuration can be replaced with
+ * {@link #reconfigure(PoolFetcher, PoolFetchConfig)} without discarding the
+ * cache.
  */
 public class CachingPoolFetcher implements PoolFetcher {
     private static final Logger LOG = LoggerFactory.getLogger(CachingPoolFetcher.class);
 
     /** Wrapped {@link PoolFetcher} to delegate actual fetching to. */
-    private final PoolFetcher delegate;
+    private volatile PoolFetcher delegate;
     /** Controls fetch behavior. */
-    private final PoolFetchConfig fetchConfig;
+    private volatile PoolFetchConfig fetchConfig;
     /** The last pool fetch error. */
     private Throwable lastFetchError;
     /**
@@ -55,10 +97,52 @@ public class CachingPoolFetcher implements PoolFetcher {
      */
     private final EventBus eventBus;
 
-    private final PersistentState<MachinePool> cachedMachinePool;
+    /**
+     * The cached {@link MachinePool}, persisted to the {@link StateStorage}.
+     */
+    private final PersistentMachinePool cachedMachinePool;
+
+    /** Executes periodical cache refreshes. */
+    private final ScheduledExecutorService executor;
+    /**
+     * The current refresh interval in adaptive refresh mode.
+     * <code>null</code> when refreshing at a fixed interval.
+     */
+    private volatile AdaptiveRefreshInterval adaptiveInterval;
+    /**
+     * Lock that protects {@link #refreshTask} and {@link #closed}, and that
+     * is held while replacing the configuration.
+     */
+    private final Object scheduleLock = new Object();
+    /**
+     * Task that periodically refreshes the cached {@link MachinePool}. In
+     * adaptive refresh mode, this is the next scheduled refresh.
+     */
+    private ScheduledFuture<?> refreshTask;
+    /** Set when this {@link CachingPoolFetcher} has been closed. */
+    private boolean closed = false;
 
-    /** Task that periodically refreshes the cached {@link MachinePool}. */
-    private final ScheduledFuture<?> refreshTask;
+    /** Lock that protects {@link #ongoingRefresh}. */
+    private final Object refreshLock = new Object();
+    /**
+     * The currently ongoing cache refresh, if any. Callers that request a
+     * refresh while this is set join it rather than starting a new one.
+     */
+    private CompletableFuture<MachinePool> ongoingRefresh;
+    /** The time of the last successful cache refresh. */
+    private volatile DateTime lastRefreshTime;
+    /** The number of {@link #poolChangeExpected()} calls so far. */
+    private final AtomicLong poolChanges = new AtomicLong();
+    /**
+     * The value of {@link #poolChanges} when the refresh that produced the
+     * cached {@link MachinePool} started.
+     */
+    private volatile long cachedPoolChanges = 0;
+
+    /** Latency of cache refreshes (including retries). */
+    private final Histogram refreshDuration;
+    /** Failed cache refreshes. */
+    private final Counter refreshErrors;
 
     /**
      * Creates a {@link CachingPoolFetcher} with a given {@link PoolFetcher}
@@ -73,31 +157,159 @@ public class CachingPoolFetcher implements PoolFetcher {
      */
     public CachingPoolFetcher(StateStorage stateStorage, PoolFetcher delegate, PoolFetchConfig fetchConfig,
             ScheduledExecutorService executor, EventBus eventBus) {
+        this(stateStorage, delegate, fetchConfig, executor, eventBus, new MetricRegistry());
+    }
+
+    /**
+     * Creates a {@link CachingPoolFetcher} that records metrics on refresh
+     * latencies and failures, cache age, refresh interval and pool size.
+     *
+     * @param delegate
+     *            Wrapped {@link PoolFetcher} to delegate actual fetching to.
+     * @param fetchConfig
+     *            Controls fetch behavior.
+     * @param metrics
+     *            Where metrics are recorded.
+     */
+    public CachingPoolFetcher(StateStorage stateStorage, PoolFetcher delegate, PoolFetchConfig fetchConfig,
+            ScheduledExecutorService executor, EventBus eventBus, MetricRegistry metrics) {
         this.delegate = delegate;
         this.fetchConfig = fetchConfig;
+        this.executor = executor;
         this.eventBus = eventBus;
+        this.adaptiveInterval = fetchConfig.getAdaptiveRefresh().map(AdaptiveRefreshInterval::new).orElse(null);
 
-        this.cachedMachinePool = new PersistentState<MachinePool>(stateStorage.getCachedMachinePoolFile(),
-                MachinePool.class);
-        if (this.cachedMachinePool.get().isPresent()) {
-            LOG.info("recovered cached machine pool: {}", this.cachedMachinePool.get().get());
-        } else {
-            LOG.info("no previously stored machine pool found.");
-        }
+        this.cachedMachinePool = new PersistentMachinePool(stateStorage);
         this.lastFetchError = null;
         this.firstFetchComplete = new CountDownLatch(1);
 
-        this.refreshTask = startPeriodicalFetch(executor, fetchConfig);
+        this.refreshDuration = metrics.histogram("cloudpool_pool_refresh_duration_seconds",
+                "Latency of machine pool cache refreshes (including retries).");
+        this.refreshErrors = metrics.counter("cloudpool_pool_refresh_errors_total",
+                "Failed machine pool cache refreshes.");
+        metrics.gauge("cloudpool_pool_cache_age_seconds", "Age of the cached machine pool observation.",
+                () -> cachedPoolMetric(pool -> new Duration(pool.getTimestamp(), UtcTime.now()).getMillis() / 1000.0));
+        metrics.gauge("cloudpool_active_size", "The number of active machines in the cached machine pool.",
+                () -> cachedPoolMetric(MachinePool::getActiveSize));
+        metrics.gauge("cloudpool_allocated_size", "The number of allocated machines in the cached machine pool.",
+                () -> cachedPoolMetric(MachinePool::getAllocatedSize));
+        metrics.gauge("cloudpool_pool_ready",
+                "1 once the machine pool cache has been refreshed from the cloud API, 0 otherwise.",
+                () -> isReady() ? 1.0 : 0.0);
+        metrics.gauge("cloudpool_pool_refresh_interval_seconds", "The current periodical refresh interval.",
+                () -> TimeUnit.MILLISECONDS.convert(getCurrentRefreshInterval().getTime(),
+                        getCurrentRefreshInterval().getUnit()) / 1000.0);
+
+        synchronized (this.scheduleLock) {
+            this.refreshTask = startPeriodicalFetch();
+        }
 
         LOG.debug("started {}", getClass().getSimpleName());
     }
 
-    private ScheduledFuture<?> startPeriodicalFetch(ScheduledExecutorService executor, PoolFetchConfig fetchConfig) {
-        TimeInterval refreshInterval = fetchConfig.getRefreshInterval();
-        return executor.scheduleWithFixedDelay(new PoolRefreshTask(this), 0L, refreshInterval.getTime(),
+    private ScheduledFuture<?> startPeriodicalFetch() {
+        if (this.adaptiveInterval != null) {
+            return this.executor.schedule(new AdaptiveRefreshTask(this, this.adaptiveInterval), 0L,
+                    TimeUnit.MILLISECONDS);
+        }
+        TimeInterval refreshInterval = this.fetchConfig.getRefreshInterval();
+        return this.executor.scheduleWithFixedDelay(new PoolRefreshTask(this), 0L, refreshInterval.getTime(),
                 refreshInterval.getUnit());
     }
 
+    /**
+     * Schedules the next adaptive refresh, unless this
+     * {@link CachingPoolFetcher} has been closed or reconfigured since the
+     * previous refresh was scheduled.
+     *
+     * @param interval
+     *            The {@link AdaptiveRefreshInterval} that the previous refresh
+     *            was scheduled with.
+     * @param delayMillis
+     */
+    private void scheduleAdaptiveRefresh(AdaptiveRefreshInterval interval, long delayMillis) {
+        synchronized (this.scheduleLock) {
+            if (!this.closed && interval == this.adaptiveInterval) {
+                this.refreshTask = this.executor.schedule(new AdaptiveRefreshTask(this, interval), delayMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Replaces the wrapped {@link PoolFetcher} and the fetch configuration.
+     * Periodical refreshes are rescheduled according to the new configuration,
+     * starting with an immediate refresh. The cached {@link MachinePool} is
+     * kept and continues to be served while the new configuration takes
+     * effect. A refresh that is already in progress is allowed to complete.
+     *
+     * @param delegate
+     *            Wrapped {@link PoolFetcher} to delegate actual fetching to.
+     * @param fetchConfig
+     *            Controls fetch behavior.
+     */
+    public void reconfigure(PoolFetcher delegate, PoolFetchConfig fetchConfig) {
+        synchronized (this.scheduleLock) {
+            if (this.closed) {
+                return;
+            }
+            LOG.debug("reconfiguring {} ...", getClass().getSimpleName());
+            this.delegate = delegate;
+            this.fetchConfig = fetchConfig;
+            this.adaptiveInterval = fetchConfig.getAdaptiveRefresh().map(AdaptiveRefreshInterval::new).orElse(null);
+            this.refreshTask.cancel(false);
+            this.refreshTask = startPeriodicalFetch();
+        }
+    }
+
+    /**
+     * Computes a metric from the cached {@link MachinePool}, if there is one.
+     *
+     * @param metric
+     * @return The metric value, or {@link Double#NaN} if the cache is empty.
+     */
+    private double cachedPoolMetric(ToDoubleFunction<MachinePool> metric) {
+        Optional<MachinePool> pool = this.cachedMachinePool.get();
+        return pool.isPresent() ? metric.applyAsDouble(pool.get()) : Double.NaN;
+    }
+
+    /**
+     * Returns the current interval between periodical cache refreshes. In
+     * adaptive refresh mode, this varies with pool activity.
+     *
+     * @return
+     */
+    public TimeInterval getCurrentRefreshInterval() {
+        AdaptiveRefreshInterval adaptiveInterval = this.adaptiveInterval;
+        if (adaptiveInterval != null) {
+            return adaptiveInterval.current();
+        }
+        return this.fetchConfig.getRefreshInterval();
+    }
+
+    /**
+     * In adaptive refresh mode, drops the refresh interval to its minimum and
+     * brings the next refresh forward accordingly.
+     */
+    @Override
+    public void poolChangeExpected() {
+        this.poolChanges.incrementAndGet();
+        synchronized (this.scheduleLock) {
+            AdaptiveRefreshInterval interval = this.adaptiveInterval;
+            if (interval == null) {
+                return;
+            }
+            long delayMillis = interval.reset();
+            // a refresh that is already running reschedules itself
+            if (!this.closed && this.refreshTask.getDelay(TimeUnit.MILLISECONDS) > delayMillis
+                    && this.refreshTask.cancel(false)) {
+                LOG.debug("pool change expected: next refresh in {} ms", delayMillis);
+                this.refreshTask = this.executor.schedule(new AdaptiveRefreshTask(this, interval), delayMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
     /**
      * Waits for the first pool fetch attempt to complete. The method returns
      * when the first attempt has completed (successful or not).
@@ -114,20 +326,47 @@ public class CachingPoolFetcher implements PoolFetcher {
         }
     }
 
+    /**
+     * Returns <code>true</code> if the cache holds a {@link MachinePool} that
+     * can be served right away, without waiting for the first fetch attempt.
+     * That is, if the cache is non-empty (for example, after being restored
+     * from the persisted cache) and the cached pool is younger than the
+     * reachability timeout.
+     *
+     * @return
+     */
+    public boolean hasServableCache() {
+        Optional<MachinePool> cachedPool = this.cachedMachinePool.get();
+        return cachedPool.isPresent() && !reachabilityTimeoutExceeded(cachedPool.get());
+    }
+
+    /**
+     * Returns <code>true</code> once the cache has been successfully refreshed
+     * from the wrapped {@link PoolFetcher}. Before that, any served
+     * {@link MachinePool} was recovered from the persisted cache.
+     *
+     * @return
+     */
+    public boolean isReady() {
+        return this.lastRefreshTime != null;
+    }
+
     @Override
     public void close() {
         // stop periodical execution of cache update task
         LOG.debug("stopping {} ...", getClass().getSimpleName());
-        if (this.refreshTask != null) {
-            this.refreshTask.cancel(true);
+        synchronized (this.scheduleLock) {
+            this.closed = true;
+            if (this.refreshTask != null) {
+                this.refreshTask.cancel(true);
+            }
         }
     }
 
     @Override
     public MachinePool get(FetchOption... options) throws CloudPoolException {
         if (forceRefresh(options)) {
-            refreshCache();
-            return this.cachedMachinePool.get().get();
+            return get(0L);
         }
 
         if (cacheEmpty()) {
@@ -146,6 +385,33 @@ public class CachingPoolFetcher implements PoolFetcher {
         return cachedPool;
     }
 
+    @Override
+    public MachinePool get(long maxStalenessMillis) throws CloudPoolException {
+        checkArgument(maxStalenessMillis >= 0, "maxStalenessMillis cannot be negative");
+        long poolChanges = this.poolChanges.get();
+        Optional<MachinePool> cachedPool = this.cachedMachinePool.get();
+        if (cachedPool.isPresent() && this.cachedPoolChanges == poolChanges) {
+            if (cacheAgeMillis(cachedPool.get()) < maxStalenessMillis
+                    && !reachabilityTimeoutExceeded(cachedPool.get())) {
+                LOG.debug("cached machine pool is less than {} ms old, skipping refresh", maxStalenessMillis);
+                return cachedPool.get();
+            }
+            if (withinFreshnessWindow()) {
+                LOG.debug("cached machine pool is fresh enough, skipping forced refresh");
+                return cachedPool.get();
+            }
+        }
+
+        MachinePool machinePool = refreshCache();
+        if (this.cachedPoolChanges < poolChanges) {
+            // joined a refresh that started before the latest expected pool
+            // change. the next refresh is guaranteed to start after it.
+            LOG.debug("joined refresh predates expected pool change, refreshing again ...");
+            machinePool = refreshCache();
+        }
+        return machinePool;
+    }
+
     private void reachabilityTimeoutFailure() {
         throw new PoolReachabilityTimeoutException(String.format(
                 "Could not serve a sufficiently up-to-date machine pool (%d %s). "
@@ -172,6 +438,10 @@ public class CachingPoolFetcher implements PoolFetcher {
         return this.fetchConfig.getReachabilityTimeout();
     }
 
+    private long cacheAgeMillis(MachinePool machinePool) {
+        return new Duration(machinePool.getTimestamp(), UtcTime.now()).getMillis();
+    }
+
     /**
      * Determines if the cached {@link MachinePool} is too old. That is, returns
      * <code>true</code> if the reachability timeout (or maximum fault masking
@@ -192,23 +462,130 @@ public class CachingPoolFetcher implements PoolFetcher {
         return cacheAgeSeconds >= maxAgeSeconds;
     }
 
+    /**
+     * Returns <code>true</code> if the last successful cache refresh completed
+     * within the configured freshness window.
+     *
+     * @return
+     */
+    private boolean withinFreshnessWindow() {
+        DateTime lastRefresh = this.lastRefreshTime;
+        TimeInterval freshnessWindow = this.fetchConfig.getFreshnessWindow();
+        if (lastRefresh == null || freshnessWindow.getTime() == 0) {
+            return false;
+        }
+        long windowMillis = TimeUnit.MILLISECONDS.convert(freshnessWindow.getTime(), freshnessWindow.getUnit());
+        return new Duration(lastRefresh, UtcTime.now()).getMillis() < windowMillis;
+    }
+
     private boolean forceRefresh(FetchOption... options) {
         return options != null && Arrays.asList(options).contains(FetchOption.FORCE_REFRESH);
     }
 
     /**
-     * Forces a refresh of the cached machine pool. In case of failure, an
-     * {@link Alert} is posted on the {@link EventBus} and a
-     * {@link CloudPoolException} is thrown.
+     * Forces a refresh of the cached machine pool. If a refresh is already in
+     * progress, the caller waits for that refresh to complete and shares its
+     * outcome. In case of failure, an {@link Alert} is posted on the
+     * {@link EventBus} and a {@link CloudPoolException} is thrown.
      *
+     * @return The refreshed {@link MachinePool}.
      * @throws CloudPoolException
      */
-    void refreshCache() throws CloudPoolException {
+    MachinePool refreshCache() throws CloudPoolException {
+        CompletableFuture<MachinePool> refresh;
+        boolean leader = false;
+        synchronized (this.refreshLock) {
+            if (this.ongoingRefresh == null) {
+                this.ongoingRefresh = new CompletableFuture<>();
+                leader = true;
+            }
+            refresh = this.ongoingRefresh;
+        }
+
+        if (!leader) {
+            LOG.debug("joining ongoing cloud pool refresh ...");
+            return awaitRefresh(refresh);
+        }
+
+        try {
+            MachinePool machinePool = doRefreshCache();
+            refresh.complete(machinePool);
+            return machinePool;
+        } catch (CloudPoolException e) {
+            refresh.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this.refreshLock) {
+                this.ongoingRefresh = null;
+            }
+        }
+    }
+
+    /**
+     * Waits for a cache refresh started by another thread to complete.
+     *
+     * @param refresh
+     *            The ongoing refresh.
+     * @return The refreshed {@link MachinePool}.
+     * @throws CloudPoolException
+     *             If the refresh failed.
+     */
+    private MachinePool awaitRefresh(CompletableFuture<MachinePool> refresh) throws CloudPoolException {
+        try {
+            return refresh.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CloudPoolException) {
+                throw (CloudPoolException) cause;
+            }
+            throw new CloudPoolException("machine pool refresh failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CloudPoolException("interrupted while waiting for machine pool refresh", e);
+        }
+    }
+
+    /**
+     * Posts the {@link MachinePoolDiff} between two consecutive
+     * {@link MachinePool} observations on the {@link EventBus}, unless they
+     * contain the same machines.
+     *
+     * @param previous
+     *            The earlier observation. May be <code>null</code>.
+     * @param current
+     *            The later observation.
+     */
+    private void postChanges(MachinePool previous, MachinePool current) {
+        MachinePoolDiff diff = MachinePoolDiff.between(previous, current);
+        if (!diff.isEmpty()) {
+            LOG.debug("machine pool changed: {} added, {} removed, {} changed", diff.getAdded().size(),
+                    diff.getRemoved().size(), diff.getChanged().size());
+            this.eventBus.post(diff);
+        }
+    }
+
+    /**
+     * Fetches the machine pool from the wrapped {@link PoolFetcher} and
+     * updates the cache.
+     *
+     * @return The refreshed {@link MachinePool}.
+     * @throws CloudPoolException
+     */
+    private MachinePool doRefreshCache() throws CloudPoolException {
         LOG.debug("refreshing cached cloud pool ...");
+        long start = System.nanoTime();
+        long poolChanges = this.poolChanges.get();
         try {
-            this.cachedMachinePool.update(this.delegate.get(FetchOption.FORCE_REFRESH));
+            MachinePool machinePool = this.delegate.get(FetchOption.FORCE_REFRESH);
+            MachinePool previous = this.cachedMachinePool.get().orElse(null);
+            this.cachedMachinePool.update(machinePool);
+            this.cachedPoolChanges = poolChanges;
+            this.lastRefreshTime = UtcTime.now();
+            postChanges(previous, machinePool);
+            return machinePool;
         } catch (Throwable e) {
             this.lastFetchError = e;
+            this.refreshErrors.inc();
             String message = format("machine pool refresh failed");
             String detail = format("%s: %s", message, e.getMessage());
             Alert alert = AlertBuilder.create().topic(POOL_FETCH.name()).severity(AlertSeverity.WARN).message(message)
@@ -217,6 +594,7 @@ public class CachingPoolFetcher implements PoolFetcher {
             LOG.warn(detail, e);
             throw new CloudPoolException(detail, e);
         } finally {
+            this.refreshDuration.observeNanos(System.nanoTime() - start);
             this.firstFetchComplete.countDown();
         }
     }
@@ -239,4 +617,32 @@ public class CachingPoolFetcher implements PoolFetcher {
             }
         }
     }
+
+    /**
+     * Task that, when executed, updates the machine pool cache and then
+     * schedules the next refresh according to the (adaptive) refresh interval.
+     */
+    private static class AdaptiveRefreshTask implements Runnable {
+        private final CachingPoolFetcher poolFetcher;
+        private final AdaptiveRefreshInterval interval;
+
+        public AdaptiveRefreshTask(CachingPoolFetcher poolFetcher, AdaptiveRefreshInterval interval) {
+            this.poolFetcher = poolFetcher;
+            this.interval = interval;
+        }
+
+        @Override
+        public void run() {
+            AdaptiveRefreshInterval interval = this.interval;
+            long nextDelay;
+            try {
+                nextDelay = interval.next(this.poolFetcher.refreshCache());
+            } catch (Exception e) {
+                // keep the current pace (retries have already been made)
+                nextDelay = interval.currentMillis();
+            }
+            LOG.debug("next pool refresh in {} ms", nextDelay);
+            this.poolFetcher.scheduleAdaptiveRefresh(interval, nextDelay);
+        }
+    }
 }
@@ -0,0 +1,204 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage.PersistenceMode;
+import com.elastisys.scale.commons.json.JsonUtils;
+
+/**
+ * Keeps a {@link MachinePool} in memory and persists it to the
+ * {@link StateStorage} cached machine pool file.
+ * <p/>
+ * To keep disk I/O down on frequent pool refreshes, a new snapshot is only
+ * written when its machines differ from the most recently persisted snapshot,
+ * or when the persisted snapshot's timestamp is older than
+ * {@link #MAX_UNCHANGED_WRITE_INTERVAL}. Snapshots are written to a temporary
+ * file that is then renamed over the target file, so that a crash mid-write
+ * never leaves a truncated cache behind.
+ * <p/>
+ * The persisted snapshot is restored lazily on the first call to
+ * {@link #get()}. If a new snapshot is set via {@link #update(MachinePool)}
+ * before that, the file is never read.
+ * <p/>
+ * With {@link PersistenceMode#COMPACT}, snapshots are stored as gzip-compressed
+ * compact JSON. When no compact snapshot exists, a plain JSON snapshot left
+ * behind by an earlier version (see
+ * {@link StateStorage#DEFAULT_CACHED_MACHINE_POOL_FILENAME}) is restored
+ * instead.
+ */
+public class PersistentMachinePool {
+    private static final Logger LOG = LoggerFactory.getLogger(PersistentMachinePool.class);
+
+    /**
+     * Longest time that an unchanged {@link MachinePool} goes without being
+     * persisted. Bounds the staleness of the persisted snapshot timestamp,
+     * which is used to judge cache freshness after a restart.
+     */
+    public static final Duration MAX_UNCHANGED_WRITE_INTERVAL = Duration.standardMinutes(1);
+
+    /** File that the {@link MachinePool} is persisted to. */
+    private final File file;
+    /** The on-disk format. */
+    private final PersistenceMode mode;
+
+    /** The current {@link MachinePool}, if any. */
+    private MachinePool machinePool;
+    /** <code>true</code> once the persisted snapshot has been restored. */
+    private boolean restored;
+    /** Machines of the most recently persisted snapshot. */
+    private List<Machine> persistedMachines;
+    /** Timestamp of the most recently persisted snapshot. */
+    private DateTime persistedTimestamp;
+
+    /**
+     * Creates a {@link PersistentMachinePool} backed by the cached machine
+     * pool file of a given {@link StateStorage}.
+     *
+     * @param stateStorage
+     */
+    public PersistentMachinePool(StateStorage stateStorage) {
+        requireNonNull(stateStorage, "stateStorage cannot be null");
+        this.file = stateStorage.getCachedMachinePoolFile();
+        this.mode = stateStorage.getPersistenceMode();
+        this.machinePool = null;
+        this.restored = false;
+    }
+
+    /**
+     * Returns the current {@link MachinePool}, if one has been set or could be
+     * restored from disk.
+     *
+     * @return
+     */
+    public synchronized Optional<MachinePool> get() {
+        if (!this.restored) {
+            this.machinePool = restore();
+            this.restored = true;
+        }
+        return Optional.ofNullable(this.machinePool);
+    }
+
+    /**
+     * Sets the current {@link MachinePool} and persists it to disk, unless its
+     * machines are unchanged since the last write.
+     *
+     * @param machinePool
+     */
+    public synchronized void update(MachinePool machinePool) {
+        requireNonNull(machinePool, "machinePool cannot be null");
+        this.machinePool = machinePool;
+        this.restored = true;
+
+        if (!persistNeeded(machinePool)) {
+            LOG.debug("machine pool unchanged, skipping write");
+            return;
+        }
+        try {
+            write(machinePool);
+            this.persistedMachines = machinePool.getMachines();
+            this.persistedTimestamp = machinePool.getTimestamp();
+        } catch (IOException e) {
+            LOG.warn("failed to persist machine pool to {}: {}", this.file, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the file that the {@link MachinePool} is persisted to.
+     *
+     * @return
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    private boolean persistNeeded(MachinePool machinePool) {
+        if (this.persistedMachines == null || !this.persistedMachines.equals(machinePool.getMachines())) {
+            return true;
+        }
+        return !machinePool.getTimestamp().isBefore(this.persistedTimestamp.plus(MAX_UNCHANGED_WRITE_INTERVAL));
+    }
+
+    private void write(MachinePool machinePool) throws IOException {
+        Path target = this.file.toPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                if (this.mode == PersistenceMode.COMPACT) {
+                    try (OutputStream gzip = new GZIPOutputStream(out)) {
+                        gzip.write(JsonUtils.toString(machinePool.toJson()).getBytes(StandardCharsets.UTF_8));
+                    }
+                } else {
+                    out.write(JsonUtils.toPrettyString(machinePool.toJson()).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private MachinePool restore() {
+        File source = this.file;
+        boolean compressed = this.mode == PersistenceMode.COMPACT;
+        if (!source.isFile() && compressed) {
+            File legacy = new File(this.file.getAbsoluteFile().getParentFile(),
+                    StateStorage.DEFAULT_CACHED_MACHINE_POOL_FILENAME);
+            if (legacy.isFile()) {
+                source = legacy;
+                compressed = false;
+            }
+        }
+        if (!source.isFile()) {
+            LOG.info("no previously stored machine pool found.");
+            return null;
+        }
+
+        try (InputStream in = compressed ? new GZIPInputStream(Files.newInputStream(source.toPath()))
+                : Files.newInputStream(source.toPath())) {
+            MachinePool machinePool = MachinePool.fromJson(new String(readAll(in), StandardCharsets.UTF_8));
+            LOG.info("recovered cached machine pool from {}: {}", source, machinePool);
+            return machinePool;
+        } catch (Exception e) {
+            LOG.warn("failed to restore machine pool from {}, ignoring: {}", source, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+}
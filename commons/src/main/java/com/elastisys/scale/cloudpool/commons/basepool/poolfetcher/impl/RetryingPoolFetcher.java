@@ -1,16 +1,29 @@
 package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.commons.basepool.config.PoolFetchConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.RetriesConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MachineChanges;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.FetchOption;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolFetcher;
+import com.elastisys.scale.cloudpool.commons.basepool.resilience.CallRejectedException;
 import com.elastisys.scale.commons.json.types.TimeInterval;
 import com.elastisys.scale.commons.net.retryable.Retryable;
 import com.elastisys.scale.commons.net.retryable.Retryers;
@@ -20,8 +33,18 @@ import com.elastisys.scale.commons.util.time.UtcTime;
  * A {@link PoolFetcher} that synchronously "calls through" to the cloud
  * provider API to get the {@link MachinePool} on each invocation and uses a
  * configurable number of retries (with exponential back-off) to handle faults.
+ * <p/>
+ * If the {@link CloudPoolDriver} is an {@link IncrementalCloudPoolDriver}, only
+ * changes since the previous fetch are requested from the driver, and these are
+ * merged into the previously fetched {@link MachinePool}. A full listing is
+ * requested on the first fetch, after a failed fetch, and whenever the
+ * configured full listing interval has passed since the last full listing.
+ * <p/>
+ * Calls that are rejected by a circuit breaker or bulkhead (a
+ * {@link CallRejectedException}) are not retried.
  */
 public class RetryingPoolFetcher implements PoolFetcher {
+    private static final Logger LOG = LoggerFactory.getLogger(RetryingPoolFetcher.class);
 
     /** A cloud-specific management driver for the cloud pool. */
     private final CloudPoolDriver cloudDriver;
@@ -33,6 +56,23 @@ public class RetryingPoolFetcher implements PoolFetcher {
     private final int maxRetries;
     /** Initial delay to use in exponential back-off on retries. */
     private final TimeInterval initialBackoffDelay;
+    /**
+     * Maximum time between two full listings when fetching incrementally from
+     * an {@link IncrementalCloudPoolDriver}.
+     */
+    private final TimeInterval fullListingInterval;
+
+    /**
+     * Current pool members, as merged from incremental listings. Only used
+     * with an {@link IncrementalCloudPoolDriver}.
+     */
+    private Map<String, Machine> members;
+    /** The last {@link MachinePool} produced from incremental listings. */
+    private MachinePool lastPool;
+    /** Watermark to pass in the next incremental listing call. */
+    private Optional<String> watermark = Optional.empty();
+    /** The time of the last full listing. */
+    private DateTime lastFullListing;
 
     /**
      * Creates a {@link RetryingPoolFetcher} that will fetch machine pool
@@ -48,6 +88,23 @@ public class RetryingPoolFetcher implements PoolFetcher {
         this(cloudDriver, retriesConfig.getMaxRetries(), retriesConfig.getInitialBackoffDelay());
     }
 
+    /**
+     * Creates a {@link RetryingPoolFetcher} that will fetch machine pool
+     * members with the given {@link CloudPoolDriver} according to a given
+     * {@link PoolFetchConfig}.
+     *
+     * @param cloudDriver
+     *            A cloud-specific management driver for the cloud pool.
+     * @param fetchConfig
+     *            Controls retry handling and (for
+     *            {@link IncrementalCloudPoolDriver}s) how often to make full
+     *            listings.
+     */
+    public RetryingPoolFetcher(CloudPoolDriver cloudDriver, PoolFetchConfig fetchConfig) {
+        this(cloudDriver, fetchConfig.getRetries().getMaxRetries(), fetchConfig.getRetries().getInitialBackoffDelay(),
+                fetchConfig.getFullListingInterval());
+    }
+
     @Override
     public void close() {
         // nothing to be done
@@ -66,34 +123,139 @@ public class RetryingPoolFetcher implements PoolFetcher {
      *            Initial delay to use in exponential back-off on retries.
      */
     public RetryingPoolFetcher(CloudPoolDriver cloudDriver, int maxRetries, TimeInterval initialBackoffDelay) {
+        this(cloudDriver, maxRetries, initialBackoffDelay, PoolFetchConfig.DEFAULT_FULL_LISTING_INTERVAL);
+    }
+
+    /**
+     * Creates a {@link RetryingPoolFetcher} that will fetch machine pool
+     * members with the given {@link CloudPoolDriver}.
+     *
+     * @param cloudDriver
+     *            A cloud-specific management driver for the cloud pool.
+     * @param maxRetries
+     *            Maximum number of retries to make on failed attempts to fetch
+     *            pool members.
+     * @param initialBackoffDelay
+     *            Initial delay to use in exponential back-off on retries.
+     * @param fullListingInterval
+     *            Maximum time between two full listings when fetching
+     *            incrementally from an {@link IncrementalCloudPoolDriver}.
+     */
+    public RetryingPoolFetcher(CloudPoolDriver cloudDriver, int maxRetries, TimeInterval initialBackoffDelay,
+            TimeInterval fullListingInterval) {
         this.cloudDriver = cloudDriver;
         this.maxRetries = maxRetries;
         this.initialBackoffDelay = initialBackoffDelay;
+        this.fullListingInterval = fullListingInterval;
     }
 
     @Override
     public MachinePool get(FetchOption... options) throws CloudPoolException {
-        List<Machine> machines = listMachines();
+        if (this.cloudDriver instanceof IncrementalCloudPoolDriver) {
+            return getIncrementally((IncrementalCloudPoolDriver) this.cloudDriver);
+        }
+
+        List<Machine> machines = withRetries(new GetMachinePool(this.cloudDriver));
         MachinePool pool = new MachinePool(machines, UtcTime.now());
         return pool;
     }
 
     /**
-     * Lists the {@link Machine}s using the {@link CloudPoolDriver}.
+     * Fetches changes since the last fetch from an
+     * {@link IncrementalCloudPoolDriver} (or a full listing, if one is due) and
+     * merges them into the last fetched {@link MachinePool}.
+     *
+     * @param driver
+     * @return
+     * @throws CloudPoolException
+     */
+    private synchronized MachinePool getIncrementally(IncrementalCloudPoolDriver driver) throws CloudPoolException {
+        Optional<String> since = fullListingDue() ? Optional.empty() : this.watermark;
+        MachineChanges changes;
+        try {
+            changes = withRetries(() -> driver.listMachineChanges(since));
+            if (!since.isPresent() && !changes.isFullListing()) {
+                throw new CloudPoolException("cloud driver responded with a delta when a full listing was requested");
+            }
+        } catch (CloudPoolException e) {
+            // we can no longer trust our view of the pool: start over
+            this.watermark = Optional.empty();
+            throw e;
+        }
+
+        DateTime now = UtcTime.now();
+        if (changes.isFullListing()) {
+            LOG.debug("full listing: {} machine(s)", changes.getMachines().size());
+            this.members = new LinkedHashMap<>();
+            changes.getMachines().forEach(machine -> this.members.put(machine.getId(), machine));
+            this.lastPool = new MachinePool(changes.getMachines(), now);
+            this.lastFullListing = now;
+        } else if (changes.isEmpty()) {
+            LOG.debug("incremental listing: no changes");
+            this.lastPool = this.lastPool.withTimestamp(now);
+        } else {
+            LOG.debug("incremental listing: {} added/changed, {} removed machine(s)", changes.getMachines().size(),
+                    changes.getRemovedMachineIds().size());
+            changes.getMachines().forEach(machine -> this.members.put(machine.getId(), machine));
+            changes.getRemovedMachineIds().forEach(this.members::remove);
+            this.lastPool = new MachinePool(new ArrayList<>(this.members.values()), now);
+        }
+        this.watermark = Optional.of(changes.getWatermark());
+        return this.lastPool;
+    }
+
+    /**
+     * Returns <code>true</code> if the next incremental fetch needs to be a
+     * full listing.
+     *
+     * @return
+     */
+    private boolean fullListingDue() {
+        if (!this.watermark.isPresent() || this.lastPool == null) {
+            return true;
+        }
+        long intervalMillis = TimeUnit.MILLISECONDS.convert(this.fullListingInterval.getTime(),
+                this.fullListingInterval.getUnit());
+        return !UtcTime.now().isBefore(this.lastFullListing.plus(intervalMillis));
+    }
+
+    /**
+     * Runs a pool fetch operation against the {@link CloudPoolDriver}, retrying
+     * with exponential back-off on failure. A rejected call
+     * ({@link CallRejectedException}) ends the retries immediately, rather
+     * than tying up the calling thread in back-off delays.
      *
+     * @param operation
      * @return
      */
-    private List<Machine> listMachines() throws CloudPoolException {
+    private <T> T withRetries(Callable<T> operation) throws CloudPoolException {
         int backoffDelay = this.initialBackoffDelay.getTime().intValue();
         TimeUnit backoffDelayUnit = this.initialBackoffDelay.getUnit();
         int maxAttempts = 1 + this.maxRetries;
-        Retryable<List<Machine>> retryable = Retryers.exponentialBackoffRetryer("pool-fetch",
-                new GetMachinePool(this.cloudDriver), backoffDelay, backoffDelayUnit, maxAttempts);
+        // a rejection is returned as a successful (null) result to stop the
+        // retryer, and re-thrown below
+        AtomicReference<CallRejectedException> rejection = new AtomicReference<>();
+        Callable<T> attempt = () -> {
+            try {
+                return operation.call();
+            } catch (CallRejectedException e) {
+                rejection.set(e);
+                return null;
+            }
+        };
+        Retryable<T> retryable = Retryers.exponentialBackoffRetryer("pool-fetch", attempt, backoffDelay,
+                backoffDelayUnit, maxAttempts);
+        T result;
         try {
-            return retryable.call();
+            result = retryable.call();
         } catch (Exception e) {
             throw new CloudPoolException(String.format("gave up trying to fetch pool members: %s", e.getMessage()), e);
         }
+        if (rejection.get() != null) {
+            throw new CloudPoolException(String.format("failed to fetch pool members: %s", rejection.get().getMessage()),
+                    rejection.get());
+        }
+        return result;
     }
 
     private static class GetMachinePool implements Callable<List<Machine>> {
@@ -1,10 +1,13 @@
 package com.elastisys.scale.cloudpool.commons.basepool.poolupdater;
 
 import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.elastisys.scale.cloudpool.api.CloudPool;
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.BatchOperationResult;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
@@ -60,6 +63,17 @@ public interface PoolUpdater extends Closeable {
      */
     void resize(BaseCloudPoolConfig config) throws CloudPoolException;
 
+    /**
+     * Asynchronous version of {@link #resize(BaseCloudPoolConfig)}. The resize
+     * is queued behind any pool updates already in progress.
+     *
+     * @param config
+     *            Configuration that governs how to perform scaling actions.
+     * @return A future that completes when the resize has been carried out,
+     *         or fails with a {@link CloudPoolException}.
+     */
+    CompletableFuture<Void> resizeAsync(BaseCloudPoolConfig config);
+
     /**
      * Terminates a particular machine pool member. The caller can control if a
      * replacement machine is to be provisioned via the
@@ -78,6 +92,46 @@ public interface PoolUpdater extends Closeable {
      */
     void terminateMachine(String machineId, boolean decrementDesiredSize) throws NotFoundException, CloudPoolException;
 
+    /**
+     * Asynchronous version of {@link #terminateMachine(String, boolean)}.
+     * Preconditions (pool membership, evictability) are checked before
+     * returning, after which the termination is queued behind any pool updates
+     * already in progress.
+     *
+     * @param machineId
+     *            The machine to terminate.
+     * @param decrementDesiredSize
+     *            If the desired pool size should be decremented ({@code true})
+     *            or left at its current size ({@code false}).
+     * @return A future that completes when the machine has been terminated.
+     * @throws NotFoundException
+     *             If the specified machine is not a member of the pool.
+     * @throws CloudPoolException
+     *             If the operation could not be started.
+     */
+    CompletableFuture<Void> terminateMachineAsync(String machineId, boolean decrementDesiredSize)
+            throws NotFoundException, CloudPoolException;
+
+    /**
+     * Terminates a batch of machine pool members with a single cloud API
+     * call. Machines that are not evictable pool members are reported as
+     * failed without being part of the call. The wait for the call is
+     * bounded: machines whose termination has not completed in time are
+     * reported as pending.
+     *
+     * @param machineIds
+     *            The machines to terminate.
+     * @param decrementDesiredSize
+     *            If the desired pool size should be decremented ({@code true})
+     *            once for every terminated machine or left at its current size
+     *            ({@code false}).
+     * @return The outcome for each machine.
+     * @throws CloudPoolException
+     *             If the operation could not be carried out at all.
+     */
+    BatchOperationResult terminateMachines(List<String> machineIds, boolean decrementDesiredSize)
+            throws CloudPoolException;
+
     /**
      * Sets the service state of a given machine pool member. Setting the
      * service state does not have any functional implications on the pool
@@ -130,6 +184,17 @@ public interface PoolUpdater extends Closeable {
      */
     void attachMachine(String machineId) throws NotFoundException, CloudPoolException;
 
+    /**
+     * Asynchronous version of {@link #attachMachine(String)}.
+     *
+     * @param machineId
+     *            The identifier of the machine to attach to the pool.
+     * @return A future that completes when the machine has been attached.
+     * @throws CloudPoolException
+     *             If the operation could not be started.
+     */
+    CompletableFuture<Void> attachMachineAsync(String machineId) throws NotFoundException, CloudPoolException;
+
     /**
      * Removes a member from the pool without terminating it. The machine keeps
      * running but is no longer considered a pool member and, therefore, needs
@@ -149,6 +214,53 @@ public interface PoolUpdater extends Closeable {
      */
     void detachMachine(String machineId, boolean decrementDesiredSize) throws NotFoundException, CloudPoolException;
 
+    /**
+     * Asynchronous version of {@link #detachMachine(String, boolean)}.
+     *
+     * @param machineId
+     *            The identifier of the machine to detach from the pool.
+     * @param decrementDesiredSize
+     *            If the desired pool size should be decremented ({@code true})
+     *            or left at its current size ({@code false}).
+     * @return A future that completes when the machine has been detached.
+     * @throws NotFoundException
+     *             If the specified machine is not a member of the pool.
+     * @throws CloudPoolException
+     *             If the operation could not be started.
+     */
+    CompletableFuture<Void> detachMachineAsync(String machineId, boolean decrementDesiredSize)
+            throws NotFoundException, CloudPoolException;
+
+    /**
+     * Detaches a batch of machine pool members with a single call to the
+     * cloud pool driver. Machines that are not evictable pool members are
+     * reported as failed without being part of the call. The wait for the
+     * call is bounded: machines whose detach has not completed in time are
+     * reported as pending.
+     *
+     * @param machineIds
+     *            The machines to detach from the pool.
+     * @param decrementDesiredSize
+     *            If the desired pool size should be decremented ({@code true})
+     *            once for every detached machine or left at its current size
+     *            ({@code false}).
+     * @return The outcome for each machine.
+     * @throws CloudPoolException
+     *             If the operation could not be carried out at all.
+     */
+    BatchOperationResult detachMachines(List<String> machineIds, boolean decrementDesiredSize)
+            throws CloudPoolException;
+
+    /**
+     * Replaces the configuration used by periodical pool updates (and any
+     * settings derived from it, such as the update interval). The desired size
+     * and any pool mutations in progress are unaffected.
+     *
+     * @param config
+     *            The new configuration.
+     */
+    void reconfigure(BaseCloudPoolConfig config);
+
     /**
      * Closes this {@link PoolUpdater}, allowing it to release any held system
      * resources. A {@link PoolUpdater} can not be used after it has been
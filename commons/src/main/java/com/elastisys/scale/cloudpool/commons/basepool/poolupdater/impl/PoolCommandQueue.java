@@ -0,0 +1,292 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.metrics.Histogram;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+
+/**
+ * A single-writer queue of pool mutation {@link Command}s. Commands are
+ * executed one at a time by a dedicated worker thread, so commands never need
+ * to lock the pool against each other and submitting threads never wait for a
+ * lock held across cloud API calls.
+ * <p/>
+ * Commands are submitted to one of two {@link Lane}s. Commands in the
+ * {@link Lane#INTERACTIVE} lane (operations requested by a client) are always
+ * executed ahead of commands in the {@link Lane#BACKGROUND} lane (periodic
+ * work), so that a client never waits for background work that was queued
+ * before it. Within a lane, commands are executed in submission order. The
+ * time that commands spend waiting in each lane is recorded in the
+ * {@code cloudpool_pool_command_queue_wait_seconds} histogram.
+ * <p/>
+ * Before a command is executed, it is offered the chance to
+ * {@link Command#merge(Command)} the command queued directly behind it in the
+ * same lane. This allows, for example, several queued machine terminations to
+ * be carried out with a single cloud API call.
+ * <p/>
+ * The worker thread is started on demand and exits after a period of
+ * inactivity.
+ */
+public class PoolCommandQueue {
+    private static final Logger LOG = LoggerFactory.getLogger(PoolCommandQueue.class);
+
+    /** How long an idle worker thread is kept alive. */
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * The lanes of a {@link PoolCommandQueue}, in order of priority.
+     */
+    public static enum Lane {
+        /** Operations requested by a client, who is waiting for them. */
+        INTERACTIVE,
+        /** Periodic work, such as the regular pool update. */
+        BACKGROUND;
+    }
+
+    /**
+     * A pool mutation that can be submitted to a {@link PoolCommandQueue}.
+     */
+    public static interface Command {
+        /**
+         * Executes the command and completes any futures handed out for it.
+         * Any exception thrown is treated as a failure of the command (see
+         * {@link #fail(Throwable)}).
+         */
+        void execute() throws Exception;
+
+        /**
+         * Fails the command (and any commands merged into it) without
+         * executing it.
+         *
+         * @param cause
+         */
+        void fail(Throwable cause);
+
+        /**
+         * Attempts to merge a command that is queued directly behind this
+         * command into this command. On success, this command takes over the
+         * responsibility for completing the merged command.
+         *
+         * @param next
+         * @return <code>true</code> if the command was merged.
+         */
+        default boolean merge(Command next) {
+            return false;
+        }
+    }
+
+    /** {@link Command}s waiting to be executed, per {@link Lane}. */
+    private final Map<Lane, BlockingDeque<Queued>> lanes = new EnumMap<>(Lane.class);
+    /** Time spent waiting in the queue, per {@link Lane}. */
+    private final Map<Lane, Histogram> waitTimes = new EnumMap<>(Lane.class);
+    /** Runs the worker loop on a (single) dedicated thread. */
+    private final ExecutorService worker;
+    /** <code>true</code> while a worker task is scheduled or running. */
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    /**
+     * Creates a {@link PoolCommandQueue}.
+     *
+     * @param name
+     *            The name of the worker thread.
+     */
+    public PoolCommandQueue(String name) {
+        this(name, new MetricRegistry());
+    }
+
+    /**
+     * Creates a {@link PoolCommandQueue} that records queue wait times.
+     *
+     * @param name
+     *            The name of the worker thread.
+     * @param metrics
+     *            Where metrics are recorded.
+     */
+    public PoolCommandQueue(String name, MetricRegistry metrics) {
+        requireNonNull(name, "name cannot be null");
+        requireNonNull(metrics, "metrics cannot be null");
+        for (Lane lane : Lane.values()) {
+            this.lanes.put(lane, new LinkedBlockingDeque<>());
+            this.waitTimes.put(lane, metrics.histogram("cloudpool_pool_command_queue_wait_seconds",
+                    "Time that pool mutations spend queued before being executed.", "lane",
+                    lane.name().toLowerCase()));
+        }
+        this.worker = new ThreadPoolExecutor(0, 1, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Enqueues a {@link Command} for execution in the {@link Lane#INTERACTIVE}
+     * lane. Never blocks.
+     *
+     * @param command
+     */
+    public void submit(Command command) {
+        submit(command, Lane.INTERACTIVE);
+    }
+
+    /**
+     * Enqueues a {@link Command} for execution in a given {@link Lane}. Never
+     * blocks.
+     *
+     * @param command
+     * @param lane
+     */
+    public void submit(Command command, Lane lane) {
+        requireNonNull(command, "command cannot be null");
+        requireNonNull(lane, "lane cannot be null");
+        if (this.worker.isShutdown()) {
+            command.fail(new RejectedExecutionException("command queue has been closed"));
+            return;
+        }
+        BlockingDeque<Queued> queue = this.lanes.get(lane);
+        Queued queued = new Queued(command);
+        queue.add(queued);
+        // the queue may have been closed (and drained) concurrently
+        if (this.worker.isShutdown() && queue.remove(queued)) {
+            command.fail(new RejectedExecutionException("command queue has been closed"));
+            return;
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Returns the number of {@link Command}s waiting to be executed.
+     *
+     * @return
+     */
+    public int getQueueDepth() {
+        return this.lanes.values().stream().mapToInt(BlockingDeque::size).sum();
+    }
+
+    /**
+     * Stops the worker and fails all queued {@link Command}s. A command that
+     * is already executing is interrupted.
+     */
+    public void close() {
+        this.worker.shutdownNow();
+        for (BlockingDeque<Queued> queue : this.lanes.values()) {
+            Queued queued;
+            while ((queued = queue.poll()) != null) {
+                queued.command.fail(new RejectedExecutionException("command queue has been closed"));
+            }
+        }
+    }
+
+    private void scheduleDrain() {
+        if (this.drainScheduled.compareAndSet(false, true)) {
+            try {
+                this.worker.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                this.drainScheduled.set(false);
+                close();
+            }
+        }
+    }
+
+    /**
+     * Executes queued {@link Command}s, highest priority {@link Lane} first,
+     * until all lanes are empty.
+     */
+    private void drain() {
+        while (true) {
+            Lane lane = nextLane();
+            if (lane == null) {
+                this.drainScheduled.set(false);
+                // a command may have been enqueued after the poll but before
+                // the flag was cleared (the submitter then skipped scheduling)
+                if (getQueueDepth() == 0 || !this.drainScheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            BlockingDeque<Queued> queue = this.lanes.get(lane);
+            Queued head = queue.poll();
+            if (head == null) {
+                // drained by a concurrent close
+                continue;
+            }
+            Histogram waitTime = this.waitTimes.get(lane);
+            waitTime.observeNanos(System.nanoTime() - head.enqueuedNanos);
+            Command command = head.command;
+            // the next command is dequeued before it is offered for merging,
+            // so that a concurrent close cannot fail a command whose work has
+            // already been merged
+            Queued next;
+            while ((next = queue.poll()) != null) {
+                if (!command.merge(next.command)) {
+                    requeueFirst(queue, next);
+                    break;
+                }
+                waitTime.observeNanos(System.nanoTime() - next.enqueuedNanos);
+            }
+
+            try {
+                command.execute();
+            } catch (Throwable e) {
+                LOG.debug("pool command failed: {}", e.getMessage());
+                command.fail(e);
+            }
+        }
+    }
+
+    /**
+     * Returns a dequeued (but not executed) command to the head of its lane.
+     * If the queue was closed concurrently, the command is failed instead,
+     * unless the close already did so.
+     *
+     * @param queue
+     * @param queued
+     */
+    private void requeueFirst(BlockingDeque<Queued> queue, Queued queued) {
+        queue.offerFirst(queued);
+        if (this.worker.isShutdown() && queue.remove(queued)) {
+            queued.command.fail(new RejectedExecutionException("command queue has been closed"));
+        }
+    }
+
+    /**
+     * Returns the highest priority {@link Lane} that has queued commands, or
+     * <code>null</code> if all lanes are empty.
+     *
+     * @return
+     */
+    private Lane nextLane() {
+        for (Lane lane : Lane.values()) {
+            if (!this.lanes.get(lane).isEmpty()) {
+                return lane;
+            }
+        }
+        return null;
+    }
+
+    /** A queued {@link Command} and the time at which it was enqueued. */
+    private static class Queued {
+        private final Command command;
+        private final long enqueuedNanos;
+
+        Queued(Command command) {
+            this.command = command;
+            this.enqueuedNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.PoolUpdater;
+
+/**
+ * Schedules pool resize operations in a coalescing manner, such that a burst of
+ * resize requests (for example, caused by a series of rapid desired size
+ * changes) does not result in an equally long chain of resize operations.
+ * <p/>
+ * At most one resize runs at any time, and at most one resize is pending. A
+ * resize request that arrives while no resize is pending results in a new
+ * pending resize. A request that arrives while a resize is already pending
+ * simply joins the pending resize. Since the resize task only reads the desired
+ * size when it starts executing, a pending resize always applies the most
+ * recently set desired size.
+ * <p/>
+ * The {@link Future} returned by {@link #requestResize()} completes when a
+ * resize that started after the request was made has finished. That is, a
+ * resize that was already running when the request arrived never completes the
+ * request, since it may have observed an outdated desired size.
+ */
+public class ResizeScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(ResizeScheduler.class);
+
+    /** Executor used to run resize operations. */
+    private final Executor executor;
+    /** The resize operation to run. Typically a {@link PoolUpdater#resize}. */
+    private final Runnable resizeTask;
+
+    /** Lock that protects {@link #running} and {@link #pending}. */
+    private final Object lock = new Object();
+    /** <code>true</code> if a resize is currently running. */
+    private boolean running;
+    /**
+     * Completion handle shared by all requests waiting for the next resize to
+     * start. <code>null</code> if no resize is pending.
+     */
+    private CompletableFuture<Void> pending;
+
+    /**
+     * Creates a {@link ResizeScheduler}.
+     *
+     * @param executor
+     *            Executor used to run resize operations.
+     * @param resizeTask
+     *            The resize operation to run.
+     */
+    public ResizeScheduler(Executor executor, Runnable resizeTask) {
+        this.executor = requireNonNull(executor, "executor cannot be null");
+        this.resizeTask = requireNonNull(resizeTask, "resizeTask cannot be null");
+        this.running = false;
+        this.pending = null;
+    }
+
+    /**
+     * Requests a resize to be run as soon as possible. If a resize is already
+     * pending, the request is coalesced with that resize.
+     *
+     * @return A {@link Future} that completes when a resize covering this
+     *         request has finished. If the resize fails, the {@link Future}
+     *         completes exceptionally with the resize error.
+     */
+    public Future<?> requestResize() {
+        synchronized (this.lock) {
+            if (this.pending != null) {
+                LOG.debug("coalescing resize request with pending resize");
+                return handle(this.pending);
+            }
+            CompletableFuture<Void> request = new CompletableFuture<>();
+            this.pending = request;
+            if (!this.running) {
+                this.running = true;
+                submitNext();
+            }
+            return handle(request);
+        }
+    }
+
+    /**
+     * Returns a caller-specific view of a shared resize completion, such that
+     * one caller cancelling its {@link Future} does not affect other callers
+     * waiting for the same resize.
+     *
+     * @param resize
+     * @return
+     */
+    private static Future<?> handle(CompletableFuture<Void> resize) {
+        return resize.thenApply(Function.identity());
+    }
+
+    /**
+     * Submits the pending resize for execution. Must be called while holding
+     * {@link #lock}.
+     */
+    private void submitNext() {
+        try {
+            this.executor.execute(this::runPending);
+        } catch (RejectedExecutionException e) {
+            this.running = false;
+            CompletableFuture<Void> rejected = this.pending;
+            this.pending = null;
+            rejected.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Runs the pending resize and, on completion, starts the next pending
+     * resize (if any requests arrived in the meantime).
+     */
+    private void runPending() {
+        CompletableFuture<Void> current;
+        synchronized (this.lock) {
+            current = this.pending;
+            this.pending = null;
+        }
+
+        try {
+            this.resizeTask.run();
+            current.complete(null);
+        } catch (Throwable e) {
+            current.completeExceptionally(e);
+        } finally {
+            synchronized (this.lock) {
+                if (this.pending != null) {
+                    submitNext();
+                } else {
+                    this.running = false;
+                }
+            }
+        }
+    }
+}
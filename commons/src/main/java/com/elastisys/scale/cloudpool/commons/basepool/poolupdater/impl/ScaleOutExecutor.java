@@ -0,0 +1,168 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+
+/**
+ * Carries out a scale-out by splitting it into chunks of the
+ * {@link CloudPoolDriver}'s preferred size (see
+ * {@link CloudPoolDriver#getPreferredStartChunkSize()}) and starting the
+ * chunks concurrently, with a bounded number of
+ * {@link CloudPoolDriver#startMachines(int)} calls in flight.
+ * <p/>
+ * The machines started by all chunks are merged into a single result. If any
+ * chunk fails, no further chunks are started, the chunks already in flight are
+ * allowed to complete and a {@link StartMachinesException} is thrown that
+ * reports every machine that was started.
+ * <p/>
+ * Worker threads are started on demand and exit after a period of inactivity.
+ */
+public class ScaleOutExecutor {
+    private static final Logger LOG = LoggerFactory.getLogger(ScaleOutExecutor.class);
+
+    /** How long an idle worker thread is kept alive. */
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60L;
+
+    /** Runs chunk requests. The number in flight is bounded per scale-out. */
+    private final ExecutorService workers;
+
+    /**
+     * Creates a {@link ScaleOutExecutor}.
+     *
+     * @param name
+     *            Prefix for the names of the worker threads.
+     */
+    public ScaleOutExecutor(String name) {
+        requireNonNull(name, "name cannot be null");
+        AtomicInteger threadCount = new AtomicInteger(0);
+        this.workers = new ThreadPoolExecutor(0, Integer.MAX_VALUE, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Starts a number of machines with a given {@link CloudPoolDriver}.
+     *
+     * @param driver
+     *            The driver to start machines with.
+     * @param count
+     *            The number of machines to start.
+     * @param maxInFlight
+     *            The maximum number of {@link CloudPoolDriver#startMachines(int)}
+     *            calls to have in flight at the same time.
+     * @return The started machines.
+     * @throws StartMachinesException
+     *             If any chunk failed. The exception includes the machines that
+     *             were started by all chunks.
+     */
+    public List<Machine> startMachines(CloudPoolDriver driver, int count, int maxInFlight)
+            throws StartMachinesException {
+        requireNonNull(driver, "driver cannot be null");
+        checkArgument(count >= 0, "count cannot be negative");
+        checkArgument(maxInFlight >= 1, "maxInFlight must be positive");
+
+        // a driver without a (sensible) preference is asked for all machines
+        int preferredChunkSize = driver.getPreferredStartChunkSize();
+        List<Integer> chunks = chunks(count, preferredChunkSize >= 1 ? preferredChunkSize : Integer.MAX_VALUE);
+        if (chunks.size() <= 1) {
+            return driver.startMachines(count);
+        }
+        LOG.debug("starting {} machines in {} chunks (at most {} in flight)", count, chunks.size(), maxInFlight);
+
+        CompletionService<List<Machine>> completions = new ExecutorCompletionService<>(this.workers);
+        List<Future<List<Machine>>> inFlight = new ArrayList<>();
+        List<Machine> started = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        int nextChunk = 0;
+        try {
+            while (nextChunk < chunks.size() && inFlight.size() < maxInFlight) {
+                int chunkSize = chunks.get(nextChunk++);
+                inFlight.add(completions.submit(() -> driver.startMachines(chunkSize)));
+            }
+            while (!inFlight.isEmpty()) {
+                Future<List<Machine>> done = completions.take();
+                inFlight.remove(done);
+                try {
+                    started.addAll(done.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof StartMachinesException) {
+                        started.addAll(((StartMachinesException) cause).getStartedMachines());
+                    }
+                    failures.add(cause);
+                }
+
+                // stop starting new chunks once a chunk has failed
+                if (failures.isEmpty() && nextChunk < chunks.size()) {
+                    int chunkSize = chunks.get(nextChunk++);
+                    inFlight.add(completions.submit(() -> driver.startMachines(chunkSize)));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            inFlight.forEach(future -> future.cancel(true));
+            throw new StartMachinesException(count, started, e, "interrupted while starting machines");
+        }
+
+        if (!failures.isEmpty()) {
+            // the message of a chunk's StartMachinesException is kept, but its
+            // started machines are already merged, so its cause is reported
+            Throwable firstFailure = failures.get(0);
+            Throwable cause = firstFailure;
+            if (firstFailure instanceof StartMachinesException && firstFailure.getCause() != null) {
+                cause = firstFailure.getCause();
+            }
+            String message = String.format("%d out of %d start requests failed (%d of %d machines started): %s",
+                    failures.size(), chunks.size(), started.size(), count, firstFailure.getMessage());
+            StartMachinesException e = new StartMachinesException(count, started, cause, message);
+            failures.stream().skip(1).forEach(e::addSuppressed);
+            throw e;
+        }
+        return started;
+    }
+
+    /**
+     * Stops all worker threads, interrupting any chunk requests in flight.
+     */
+    public void close() {
+        this.workers.shutdownNow();
+    }
+
+    /**
+     * Splits a machine count into chunks of at most a given size.
+     *
+     * @param count
+     * @param chunkSize
+     * @return
+     */
+    static List<Integer> chunks(int count, int chunkSize) {
+        checkArgument(chunkSize >= 1, "preferred start chunk size must be positive");
+        List<Integer> chunks = new ArrayList<>();
+        for (int remaining = count; remaining > 0; remaining -= chunkSize) {
+            chunks.add(Math.min(remaining, chunkSize));
+        }
+        return chunks;
+    }
+}
@@ -7,12 +7,21 @@ import static java.lang.String.format;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -21,18 +30,28 @@ import org.slf4j.LoggerFactory;
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotEvictableException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.metrics.Histogram;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.types.BatchOperationResult;
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertTopics;
 import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.PoolUpdateConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.WarmPoolConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DetachMachinesException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.FetchOption;
 import com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.PoolFetcher;
 import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.PoolUpdater;
+import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl.PoolCommandQueue.Command;
+import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl.PoolCommandQueue.Lane;
+import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl.VersionedDesiredSize.Snapshot;
 import com.elastisys.scale.cloudpool.commons.resizeplanner.ResizePlan;
 import com.elastisys.scale.cloudpool.commons.resizeplanner.ResizePlanner;
 import com.elastisys.scale.commons.eventbus.EventBus;
@@ -46,9 +65,39 @@ import com.elastisys.scale.commons.util.collection.Maps;
 import com.elastisys.scale.commons.util.time.UtcTime;
 import com.google.gson.JsonElement;
 
+/**
+ * A {@link PoolUpdater} that funnels all pool mutations (resizes,
+ * terminations, attaches and detaches) through a single-writer
+ * {@link PoolCommandQueue}. Mutations are therefore carried out one at a time,
+ * without any lock being held across (slow) cloud API calls. Callers can
+ * either wait for their operation to complete or use the asynchronous variants
+ * that return a {@link CompletableFuture}. Periodic pool updates are queued
+ * in the {@link Lane#BACKGROUND} lane, so that they never hold up mutations
+ * requested by a client.
+ * <p/>
+ * The desired size is kept as a {@link VersionedDesiredSize}, which allows an
+ * operation that decrements the desired size on completion to detect (and
+ * respect) a desired size set while the operation was in progress.
+ * <p/>
+ * With {@link PoolUpdateConfig#getMaxPoolStaleness()}, pool updates and pool
+ * member checks act on cached {@link MachinePool} observations that are recent
+ * enough (see {@link PoolFetcher#get(long)}). Every pool mutation is reported
+ * to the {@link PoolFetcher} via {@link PoolFetcher#poolChangeExpected()}, so
+ * that observations made before the mutation are not acted on.
+ * <p/>
+ * The configuration can be replaced with
+ * {@link #reconfigure(BaseCloudPoolConfig)} without affecting the desired size
+ * or any queued pool mutations.
+ */
 public class StandardPoolUpdater implements PoolUpdater {
 
     private static final Logger LOG = LoggerFactory.getLogger(StandardPoolUpdater.class);
+    /**
+     * The longest time (in seconds) that a batch terminate or detach waits for
+     * its machine removals to complete. Removals that have not completed by
+     * then are reported as pending.
+     */
+    public static final int MAX_BATCH_WAIT_SECONDS = 30;
 
     /** A cloud-specific management driver for the cloud pool. */
     private final CloudPoolDriver cloudDriver;
@@ -62,123 +111,169 @@ public class StandardPoolUpdater implements PoolUpdater {
      */
     private final EventBus eventBus;
 
-    private final BaseCloudPoolConfig config;
+    /** Executes periodical pool updates. */
+    private final ScheduledExecutorService executor;
+
+    private volatile BaseCloudPoolConfig config;
 
+    /** The desired size of the machine pool. Unset until set/determined. */
+    private final VersionedDesiredSize desiredSize;
+
+    /** Executes pool mutations one at a time, in submission order. */
+    private final PoolCommandQueue commandQueue;
+    /** Splits large scale-outs into concurrent driver requests. */
+    private final ScaleOutExecutor scaleOutExecutor;
     /**
-     * The desired size of the machine pool. Will be <code>null</code> until
-     * set/determined.
+     * Promotes machines from (and demotes machines to) the warm pool.
+     * <code>null</code> until a warm pool is configured.
      */
-    private Integer desiredSize;
-    /** Lock to prevent concurrent modification of {@link #desiredSize}. */
-    private final Object desiredSizeLock = new Object();
-
-    /** Lock to protect the machine pool from concurrent modifications. */
-    private final Object poolUpdateLock = new Object();
+    private volatile WarmPool warmPool;
 
     /** Task that periodically updates the size of the {@link MachinePool}. */
-    private final ScheduledFuture<?> poolUpdateTask;
+    private ScheduledFuture<?> poolUpdateTask;
+    /**
+     * The most recently queued periodic pool update. <code>null</code> if
+     * none has been queued.
+     */
+    private CompletableFuture<Void> periodicResize;
+
+    /** Latency of pool update iterations. */
+    private final Histogram updateDuration;
+    /** Where pool update metrics are recorded. */
+    private final MetricRegistry metrics;
 
     public StandardPoolUpdater(CloudPoolDriver cloudDriver, PoolFetcher poolFetcher, ScheduledExecutorService executor,
             EventBus eventBus, BaseCloudPoolConfig config) {
+        this(cloudDriver, poolFetcher, executor, eventBus, config, new MetricRegistry());
+    }
+
+    /**
+     * Creates a {@link StandardPoolUpdater} that records metrics on pool
+     * update latencies, errors and command queue depth.
+     *
+     * @param cloudDriver
+     * @param poolFetcher
+     * @param executor
+     * @param eventBus
+     * @param config
+     * @param metrics
+     *            Where metrics are recorded.
+     */
+    public StandardPoolUpdater(CloudPoolDriver cloudDriver, PoolFetcher poolFetcher, ScheduledExecutorService executor,
+            EventBus eventBus, BaseCloudPoolConfig config, MetricRegistry metrics) {
         this.cloudDriver = cloudDriver;
         this.poolFetcher = poolFetcher;
         this.eventBus = eventBus;
+        this.executor = executor;
         this.config = config;
 
-        this.desiredSize = null;
+        this.desiredSize = new VersionedDesiredSize();
+        this.commandQueue = new PoolCommandQueue("pool-updater", metrics);
+        this.scaleOutExecutor = new ScaleOutExecutor("scale-out");
+        this.warmPool = config.getWarmPool().isPresent() ? new WarmPool(cloudDriver, metrics) : null;
+
+        this.metrics = metrics;
+        this.updateDuration = metrics.histogram("cloudpool_pool_update_duration_seconds",
+                "Latency of pool update iterations (resizing the pool to its desired size).");
+        metrics.gauge("cloudpool_pool_command_queue_depth", "Pool mutations waiting to be executed.",
+                () -> this.commandQueue.getQueueDepth());
+        metrics.gauge("cloudpool_desired_size", "The desired number of active machines in the pool.",
+                () -> this.desiredSize.get().map(size -> (double) size.getSize()).orElse(Double.NaN));
 
         // start periodical cache update task
-        TimeInterval updateInterval = config.getPoolUpdate().getUpdateInterval();
-        this.poolUpdateTask = executor.scheduleWithFixedDelay(new PoolUpdateTask(this), updateInterval.getTime(),
-                updateInterval.getTime(), updateInterval.getUnit());
+        this.poolUpdateTask = schedulePoolUpdates(config.getPoolUpdate().getUpdateInterval());
         LOG.debug("started {}", getClass().getSimpleName());
     }
 
+    private ScheduledFuture<?> schedulePoolUpdates(TimeInterval updateInterval) {
+        return this.executor.scheduleWithFixedDelay(new PoolUpdateTask(this), updateInterval.getTime(),
+                updateInterval.getTime(), updateInterval.getUnit());
+    }
+
+    @Override
+    public synchronized void reconfigure(BaseCloudPoolConfig config) {
+        TimeInterval previousInterval = this.config.getPoolUpdate().getUpdateInterval();
+        this.config = config;
+        if (this.warmPool == null && config.getWarmPool().isPresent()) {
+            this.warmPool = new WarmPool(this.cloudDriver, this.metrics);
+        }
+
+        TimeInterval updateInterval = config.getPoolUpdate().getUpdateInterval();
+        if (!updateInterval.equals(previousInterval) && this.poolUpdateTask.cancel(false)) {
+            LOG.debug("rescheduling pool updates every {} {}", updateInterval.getTime(), updateInterval.getUnit());
+            this.poolUpdateTask = schedulePoolUpdates(updateInterval);
+        }
+    }
+
     @Override
-    public void close() {
+    public synchronized void close() {
         // stop periodical execution of cache update task
         LOG.debug("shutting down {} ...", getClass().getSimpleName());
         if (this.poolUpdateTask != null) {
             this.poolUpdateTask.cancel(true);
         }
+        this.commandQueue.close();
+        this.scaleOutExecutor.close();
     }
 
     @Override
     public void setDesiredSize(int desiredSize) throws IllegalArgumentException, CloudPoolException {
         checkArgument(desiredSize >= 0, "negative desired pool size");
-
-        // prevent concurrent pool modifications
-        synchronized (this.desiredSizeLock) {
-            LOG.info("set desiredSize to {}", desiredSize);
-            this.desiredSize = desiredSize;
-        }
+        LOG.info("set desiredSize to {}", desiredSize);
+        this.desiredSize.set(desiredSize);
     }
 
     @Override
     public int getDesiredSize() throws CloudPoolException {
         ensureDesiredSizeSet();
-        return this.desiredSize;
+        return this.desiredSize.get().get().getSize();
     }
 
     @Override
     public void resize(BaseCloudPoolConfig config) throws CloudPoolException {
-        try {
-            updateMachinePool(config);
-        } catch (Throwable e) {
-            String message = format("failed to resize machine pool %s", config.getName());
-            String details = format("%s: %s", message, e.getMessage());
-            Alert alert = AlertBuilder.create().topic(RESIZE.name()).severity(AlertSeverity.WARN).message(message)
-                    .details(details).build();
-            this.eventBus.post(alert);
-            LOG.warn(details, e);
-            throw new CloudPoolException(details, e);
-        }
+        await(resizeAsync(config));
+    }
+
+    @Override
+    public CompletableFuture<Void> resizeAsync(BaseCloudPoolConfig config) {
+        ResizeCommand command = new ResizeCommand(config);
+        this.commandQueue.submit(command);
+        return command.future;
     }
 
     @Override
     public void terminateMachine(String machineId, boolean decrementDesiredSize)
             throws NotFoundException, CloudPoolException {
+        await(terminateMachineAsync(machineId, decrementDesiredSize));
+    }
+
+    @Override
+    public CompletableFuture<Void> terminateMachineAsync(String machineId, boolean decrementDesiredSize)
+            throws NotFoundException, CloudPoolException {
         ensurePoolReachable();
         ensureDesiredSizeSet();
         Machine machine = ensurePoolMember(machineId);
         ensureEvictable(machine);
 
-        // prevent concurrent pool modifications
-        synchronized (this.poolUpdateLock) {
-            // if decrementDesiredSize is true, the intent of this call is to
-            // set the desiredSize to (preDesiredSize - 1) on completion.
-            // however, setDesiredSize calls during the termination may cause
-            // the desiredSize to change, so let's remember the original intent.
-            int preDesiredSize;
-            synchronized (this.desiredSizeLock) {
-                preDesiredSize = getDesiredSize();
-            }
-
-            LOG.info("terminating {}", machineId);
-            this.cloudDriver.terminateMachines(Arrays.asList(machineId));
-            terminationAlert(machineId);
+        TerminateCommand command = new TerminateCommand(Arrays.asList(machineId), decrementDesiredSize);
+        this.commandQueue.submit(command);
+        return command.futureOf(machineId);
+    }
 
-            if (!decrementDesiredSize) {
-                return;
-            }
+    @Override
+    public BatchOperationResult terminateMachines(List<String> machineIds, boolean decrementDesiredSize)
+            throws CloudPoolException {
+        checkArgument(machineIds != null, "machineIds cannot be null");
+        ensurePoolReachable();
+        ensureDesiredSizeSet();
 
-            // at this point, the desiredSize may have been updated by
-            // setDesiredSize calls made after this call. if so, those calls
-            // should reflect the most recent intent of the client and we should
-            // respect that. if the situation is unchanged compared to the start
-            // of this call, we carry through the original intent and decrement.
-            synchronized (this.desiredSizeLock) {
-                int postDesiredSize = getDesiredSize();
-                if (postDesiredSize != preDesiredSize) {
-                    LOG.debug("desiredSize changed during operation (was: {}, is: {}). skipping decrement.",
-                            preDesiredSize, postDesiredSize);
-                    return;
-                }
-                int newSize = max(preDesiredSize - 1, 0);
-                LOG.debug("decrementing desiredSize to {}", newSize);
-                setDesiredSize(newSize);
-            }
+        Map<String, String> failed = new LinkedHashMap<>();
+        List<String> victims = evictableMembers(machineIds, failed);
+        TerminateCommand command = new TerminateCommand(victims, decrementDesiredSize);
+        if (!victims.isEmpty()) {
+            this.commandQueue.submit(command);
         }
+        return awaitBatch(command, victims, failed);
     }
 
     @Override
@@ -194,72 +289,206 @@ public class StandardPoolUpdater implements PoolUpdater {
             throws NotFoundException, CloudPoolException {
         LOG.info("membership status {} assigned to {}", membershipStatus, machineId);
         this.cloudDriver.setMembershipStatus(machineId, membershipStatus);
+        this.poolFetcher.poolChangeExpected();
         membershipStatusAlert(machineId, membershipStatus);
     }
 
     @Override
     public void attachMachine(String machineId) throws NotFoundException, CloudPoolException {
+        await(attachMachineAsync(machineId));
+    }
+
+    @Override
+    public CompletableFuture<Void> attachMachineAsync(String machineId) throws NotFoundException, CloudPoolException {
         ensurePoolReachable();
         ensureDesiredSizeSet();
 
-        // prevent concurrent pool modifications
-        synchronized (this.poolUpdateLock) {
-            LOG.info("attaching instance {} to pool", machineId);
-            this.cloudDriver.attachMachine(machineId);
-            synchronized (this.desiredSizeLock) {
-                // implicitly increases pool size
-                setDesiredSize(this.desiredSize + 1);
-            }
-        }
-        attachAlert(machineId);
+        AttachCommand command = new AttachCommand(machineId);
+        this.commandQueue.submit(command);
+        return command.future;
     }
 
     @Override
     public void detachMachine(String machineId, boolean decrementDesiredSize)
             throws NotFoundException, CloudPoolException {
+        await(detachMachineAsync(machineId, decrementDesiredSize));
+    }
+
+    @Override
+    public CompletableFuture<Void> detachMachineAsync(String machineId, boolean decrementDesiredSize)
+            throws NotFoundException, CloudPoolException {
         ensurePoolReachable();
         ensureDesiredSizeSet();
         Machine machine = ensurePoolMember(machineId);
         ensureEvictable(machine);
 
-        // prevent concurrent pool modifications
-        synchronized (this.poolUpdateLock) {
-            // if decrementDesiredSize is true, the intent of this call is to
-            // set the desiredSize to (preDesiredSize - 1) on completion.
-            // however, setDesiredSize calls during the termination may cause
-            // the desiredSize to change, so let's remember the original intent.
-            int preDesiredSize;
-            synchronized (this.desiredSizeLock) {
-                preDesiredSize = getDesiredSize();
-            }
+        DetachCommand command = new DetachCommand(Arrays.asList(machineId), decrementDesiredSize);
+        this.commandQueue.submit(command);
+        return command.futureOf(machineId);
+    }
 
-            LOG.info("detaching {} from pool", machineId);
-            this.cloudDriver.detachMachine(machineId);
-            detachAlert(machineId);
+    @Override
+    public BatchOperationResult detachMachines(List<String> machineIds, boolean decrementDesiredSize)
+            throws CloudPoolException {
+        checkArgument(machineIds != null, "machineIds cannot be null");
+        ensurePoolReachable();
+        ensureDesiredSizeSet();
 
-            if (!decrementDesiredSize) {
-                return;
+        Map<String, String> failed = new LinkedHashMap<>();
+        List<String> detachees = evictableMembers(machineIds, failed);
+        DetachCommand command = new DetachCommand(detachees, decrementDesiredSize);
+        if (!detachees.isEmpty()) {
+            this.commandQueue.submit(command);
+        }
+        return awaitBatch(command, detachees, failed);
+    }
+
+    /**
+     * Returns the (distinct) machines among a list of machine ids that are
+     * evictable pool members. All machines are checked against the same pool
+     * observation. Machines that fail the check are added to {@code failed}.
+     *
+     * @param machineIds
+     * @param failed
+     *            Collects the machines that are not evictable pool members.
+     *            Keys are machine ids, values are error messages.
+     * @return
+     */
+    private List<String> evictableMembers(List<String> machineIds, Map<String, String> failed) {
+        MachinePool pool = getPool(this.config, false);
+        List<String> evictable = new ArrayList<>();
+        for (String machineId : new LinkedHashSet<>(machineIds)) {
+            try {
+                ensureEvictable(ensurePoolMember(pool, machineId));
+                evictable.add(machineId);
+            } catch (CloudPoolException e) {
+                failed.put(machineId, e.getMessage());
             }
+        }
+        return evictable;
+    }
 
-            // at this point, the desiredSize may have been updated by
-            // setDesiredSize calls made after this call. if so, those calls
-            // should reflect the most recent intent of the client and we should
-            // respect that. if the situation is unchanged compared to the start
-            // of this call, we carry through the original intent and decrement.
-            synchronized (this.desiredSizeLock) {
-                int postDesiredSize = getDesiredSize();
-                if (postDesiredSize != preDesiredSize) {
-                    LOG.debug("desiredSize changed during operation (was: {}, is: {}). skipping decrement.",
-                            preDesiredSize, postDesiredSize);
-                    return;
-                }
-                int newSize = max(preDesiredSize - 1, 0);
-                LOG.debug("decrementing desiredSize to {}", newSize);
-                setDesiredSize(newSize);
+    /**
+     * Waits for the machine removals in a batch to complete and collects the
+     * outcome. The whole batch shares a single deadline,
+     * {@link #MAX_BATCH_WAIT_SECONDS} from now. Removals that have not
+     * completed by then (or when the waiting thread is interrupted) are
+     * reported as pending: the command still carries them out.
+     *
+     * @param command
+     *            The command carrying out the batch.
+     * @param machineIds
+     *            The machines in the batch.
+     * @param failed
+     *            Machines that have already failed (and were never part of
+     *            the command).
+     * @return
+     */
+    private static BatchOperationResult awaitBatch(RemoveMachinesCommand command, List<String> machineIds,
+            Map<String, String> failed) {
+        List<String> succeeded = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(MAX_BATCH_WAIT_SECONDS);
+        boolean interrupted = false;
+        for (String machineId : machineIds) {
+            // once interrupted, only collect the removals that have completed
+            long timeout = interrupted ? 0 : max(0, deadline - System.nanoTime());
+            try {
+                command.futureOf(machineId).get(timeout, TimeUnit.NANOSECONDS);
+                succeeded.add(machineId);
+            } catch (TimeoutException e) {
+                pending.add(machineId);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                pending.add(machineId);
+            } catch (ExecutionException e) {
+                failed.put(machineId, e.getCause().getMessage());
+            } catch (CancellationException e) {
+                failed.put(machineId, "removal was cancelled");
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (!pending.isEmpty()) {
+            LOG.warn("{} machine removal(s) still pending after {} seconds: {}", pending.size(),
+                    MAX_BATCH_WAIT_SECONDS, pending);
+        }
+        return new BatchOperationResult(succeeded, failed, pending);
+    }
+
+    /**
+     * Queues a periodic pool update, without waiting for it to run. Unlike
+     * {@link #resize(BaseCloudPoolConfig)}, the update is queued in the
+     * {@link Lane#BACKGROUND} lane, behind any client-requested pool
+     * mutations. No update is queued while the previous one is still pending.
+     *
+     * @return The pending pool update.
+     */
+    synchronized CompletableFuture<Void> periodicResize() {
+        if (this.periodicResize != null && !this.periodicResize.isDone()) {
+            LOG.debug("previous periodic pool update still pending, skipping");
+            return this.periodicResize;
+        }
+        ResizeCommand command = new ResizeCommand(config());
+        this.commandQueue.submit(command, Lane.BACKGROUND);
+        this.periodicResize = command.future;
+        return this.periodicResize;
+    }
+
+    /**
+     * Waits for a pool mutation to complete. Any failure of the mutation is
+     * rethrown as-is if unchecked, otherwise wrapped in a
+     * {@link CloudPoolException}.
+     *
+     * @param future
+     * @throws CloudPoolException
+     */
+    private static void await(CompletableFuture<Void> future) throws CloudPoolException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CloudPoolException("interrupted while waiting for pool operation to complete", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
             }
+            throw new CloudPoolException(cause.getMessage(), cause);
         }
     }
 
+    /**
+     * Applies a desired size decrement, requested by an operation that started
+     * out when the desired size was at a given {@link Snapshot}.
+     * <p/>
+     * If the desired size has been updated since (for example, by a
+     * {@link #setDesiredSize(int)} call made while the operation was in
+     * progress) that update reflects the most recent intent of the client and
+     * the decrement is skipped.
+     *
+     * @param before
+     *            The desired size at the start of the operation.
+     * @param decrement
+     *            The number of machines to decrement the desired size by.
+     */
+    private void decrementDesiredSize(Snapshot before, int decrement) {
+        if (decrement == 0) {
+            return;
+        }
+        int newSize = max(before.getSize() - decrement, 0);
+        if (!this.desiredSize.compareAndSet(before, newSize)) {
+            LOG.debug("desiredSize changed during operation (was: {}, is: {}). skipping decrement.", before,
+                    this.desiredSize.get().get());
+            return;
+        }
+        LOG.debug("decrementing desiredSize to {}", newSize);
+    }
+
     /**
      * Ensures that the cloud pool can be reached. If not, a
      * {@link CloudPoolException} is thrown.
@@ -268,7 +497,7 @@ public class StandardPoolUpdater implements PoolUpdater {
      */
     private void ensurePoolReachable() throws CloudPoolException {
         try {
-            this.poolFetcher.get();
+            getPool(this.config, false);
         } catch (CloudPoolException e) {
             throw new CloudPoolException(
                     String.format("Cannot complete operation: cloud pool is unreachable: %s", e.getMessage()), e);
@@ -286,9 +515,20 @@ public class StandardPoolUpdater implements PoolUpdater {
      * @throws NotFoundException
      */
     private Machine ensurePoolMember(final String machineId) throws NotFoundException {
-        MachinePool pool = this.poolFetcher.get();
-        Optional<Machine> match = pool.getAllocatedMachines().stream().filter(m -> m.getId().equals(machineId))
-                .findFirst();
+        return ensurePoolMember(getPool(this.config, false), machineId);
+    }
+
+    /**
+     * Ensures that a given machine is a member of a given {@link MachinePool}
+     * observation.
+     *
+     * @param pool
+     * @param machineId
+     * @return The {@link Machine} metadata.
+     * @throws NotFoundException
+     */
+    private Machine ensurePoolMember(MachinePool pool, String machineId) throws NotFoundException {
+        Optional<Machine> match = pool.getMachine(machineId).filter(Machine.isAllocated());
         if (!match.isPresent()) {
             throw new NotFoundException(String.format("machine %s is not a pool member", machineId));
         }
@@ -320,7 +560,7 @@ public class StandardPoolUpdater implements PoolUpdater {
      *             If the desired size could not be determined.
      */
     private void ensureDesiredSizeSet() throws CloudPoolException {
-        if (this.desiredSize != null) {
+        if (this.desiredSize.get().isPresent()) {
             return;
         }
 
@@ -339,7 +579,8 @@ public class StandardPoolUpdater implements PoolUpdater {
      * size. This may involve terminating termination-due machines and placing
      * new server requests to replace terminated servers.
      * <p/>
-     * Waits for the {@link #poolUpdateLock} to avoid concurrent pool updates.
+     * Must only be called from the {@link #commandQueue} worker, to avoid
+     * concurrent pool updates.
      *
      * @param config
      *            Configuration that governs how to perform scaling actions.
@@ -348,25 +589,31 @@ public class StandardPoolUpdater implements PoolUpdater {
      */
     void updateMachinePool(BaseCloudPoolConfig config) throws CloudPoolException {
         LOG.debug("updating machine pool ...");
+        long start = System.nanoTime();
+        try {
+            doUpdateMachinePool(config);
+        } catch (RuntimeException e) {
+            this.metrics.counter("cloudpool_pool_update_errors_total", "Failed pool update iterations.", "exception",
+                    e.getClass().getSimpleName()).inc();
+            throw e;
+        } finally {
+            this.updateDuration.observeNanos(System.nanoTime() - start);
+        }
+    }
 
-        // prevent multiple threads from concurrently updating pool
-        synchronized (this.poolUpdateLock) {
-            // it is possible that while waiting for the lock, a different pool
-            // update operation changed the pool members and modified the
-            // desired size (for example, a terminateMachine call). we should
-            // therefore get a fresh pool snapshot and read the present
-            // desiredSize value
-            MachinePool pool = this.poolFetcher.get(FetchOption.FORCE_REFRESH);
-            // check if we need to determine desired size (it may not have been
-            // possible on startup, e.g., due to cloud API being unreachable)
-            int targetSize = 0;
-            synchronized (this.desiredSizeLock) {
-                setDesiredSizeIfUnset(pool);
-                targetSize = getDesiredSize();
-            }
+    private void doUpdateMachinePool(BaseCloudPoolConfig config) throws CloudPoolException {
 
-            doPoolUpdate(pool, config, targetSize);
-        }
+        // a previously executed command may have changed the pool members and
+        // modified the desired size (for example, a terminateMachine call). we
+        // should therefore get a fresh pool snapshot (one made after any such
+        // change) and read the present desiredSize value
+        MachinePool pool = getPool(config, true);
+        // check if we need to determine desired size (it may not have been
+        // possible on startup, e.g., due to cloud API being unreachable)
+        setDesiredSizeIfUnset(pool);
+        int targetSize = this.desiredSize.get().get().getSize();
+
+        doPoolUpdate(pool, config, targetSize);
     }
 
     /**
@@ -389,32 +636,109 @@ public class StandardPoolUpdater implements PoolUpdater {
         int activeSize = resizePlanner.getActiveSize();
 
         ResizePlan resizePlan = resizePlanner.calculateResizePlan(targetSize);
-        if (resizePlan.hasScaleOutActions()) {
-            scaleOut(resizePlan);
-        }
-        if (resizePlan.hasScaleInActions()) {
-            terminateMachines(resizePlan.getToTerminate());
-        }
+        // the warm pool is left alone if it cannot be listed, since it would
+        // otherwise be over-provisioned
+        Optional<WarmPoolConfig> warmPoolConfig = config.getWarmPool()
+                .filter(warmPool -> this.warmPool != null && this.warmPool.refresh());
         if (resizePlan.noChanges()) {
             LOG.info("pool is already properly sized ({})", activeSize);
         }
+        try {
+            if (resizePlan.hasScaleOutActions()) {
+                scaleOut(resizePlan, config, warmPoolConfig.isPresent());
+            }
+            if (resizePlan.hasScaleInActions()) {
+                List<Machine> victims = resizePlan.getToTerminate();
+                if (warmPoolConfig.isPresent() && warmPoolConfig.get().isDemoteOnScaleIn()) {
+                    victims = demoteMachines(victims, warmPoolConfig.get().getSize());
+                }
+                terminateMachines(victims);
+            }
+        } finally {
+            if (!resizePlan.noChanges()) {
+                // observations made before or during the resize may not
+                // reflect it, even if it failed part-way through (some
+                // machines may have been started before a failure)
+                this.poolFetcher.poolChangeExpected();
+            }
+        }
+        if (warmPoolConfig.isPresent()) {
+            this.warmPool.replenish(warmPoolConfig.get().getSize());
+        }
+    }
+
+    /**
+     * Returns a {@link MachinePool} observation to act on. If a
+     * {@link PoolUpdateConfig#getMaxPoolStaleness()} is configured, the
+     * observation is at most that old. Otherwise, a fresh observation is
+     * fetched if {@code refreshByDefault} is <code>true</code>, and any cached
+     * observation is used if not.
+     *
+     * @param config
+     * @param refreshByDefault
+     * @return
+     * @throws CloudPoolException
+     */
+    private MachinePool getPool(BaseCloudPoolConfig config, boolean refreshByDefault) throws CloudPoolException {
+        Optional<TimeInterval> maxStaleness = config.getPoolUpdate().getMaxPoolStaleness();
+        if (maxStaleness.isPresent()) {
+            return this.poolFetcher
+                    .get(TimeUnit.MILLISECONDS.convert(maxStaleness.get().getTime(), maxStaleness.get().getUnit()));
+        }
+        return refreshByDefault ? this.poolFetcher.get(FetchOption.FORCE_REFRESH) : this.poolFetcher.get();
     }
 
-    private List<Machine> scaleOut(ResizePlan resizePlan) throws StartMachinesException {
-        LOG.info("placing {} new machine requests", resizePlan.getToRequest());
+    private List<Machine> scaleOut(ResizePlan resizePlan, BaseCloudPoolConfig config, boolean useWarmPool)
+            throws StartMachinesException {
+        // promote warm machines before requesting any new ones
+        List<Machine> startedMachines = new ArrayList<>();
+        if (useWarmPool) {
+            startedMachines.addAll(this.warmPool.promote(resizePlan.getToRequest()));
+        }
+        int toRequest = resizePlan.getToRequest() - startedMachines.size();
+        if (toRequest == 0) {
+            startAlert(startedMachines);
+            return startedMachines;
+        }
+        LOG.info("placing {} new machine requests", toRequest);
 
         try {
-            List<Machine> startedMachines = this.cloudDriver.startMachines(resizePlan.getToRequest());
+            startedMachines.addAll(this.scaleOutExecutor.startMachines(this.cloudDriver, toRequest,
+                    config.getPoolUpdate().getMaxConcurrentStartRequests()));
             startAlert(startedMachines);
             return startedMachines;
         } catch (StartMachinesException e) {
             // may have failed part-way through. notify of machines that were
             // started before error occurred.
-            startAlert(e.getStartedMachines());
-            throw e;
+            startedMachines.addAll(e.getStartedMachines());
+            startAlert(startedMachines);
+            if (startedMachines.size() == e.getStartedMachines().size()) {
+                throw e;
+            }
+            // also report the promoted warm machines as started
+            throw new StartMachinesException(resizePlan.getToRequest(), startedMachines, e);
         }
     }
 
+    /**
+     * Demotes as many scale-in victims to the warm pool as it has room for.
+     *
+     * @param victims
+     *            The machines to be removed from the pool.
+     * @param warmPoolSize
+     *            The configured size of the warm pool.
+     * @return The victims that were not demoted, and are to be terminated.
+     */
+    private List<Machine> demoteMachines(List<Machine> victims, int warmPoolSize) {
+        List<Machine> demoted = this.warmPool.demote(victims, warmPoolSize);
+        if (demoted.isEmpty()) {
+            return victims;
+        }
+        List<String> demotedIds = demoted.stream().map(Machine::getId).collect(Collectors.toList());
+        demotionAlert(demotedIds);
+        return victims.stream().filter(victim -> !demotedIds.contains(victim.getId())).collect(Collectors.toList());
+    }
+
     /**
      * Attempts to terminate the given collection of victim {@link Machine}s.
      * The collection of {@link Machine}s that were successfully terminated are
@@ -489,16 +813,19 @@ public class StandardPoolUpdater implements PoolUpdater {
      *            An up-to-date {@link MachinePool} observation.
      */
     private void setDesiredSizeIfUnset(MachinePool pool) {
-        if (this.desiredSize != null) {
+        if (this.desiredSize.get().isPresent()) {
             return;
         }
 
         LOG.debug("determining initial desired size from pool: {}", pool);
         // exclude inactive instances since they aren't actually part
         // of the desiredSize (they are to be replaced)
-        int effectiveSize = pool.getActiveMachines().size();
-        int allocated = pool.getAllocatedMachines().size();
-        setDesiredSize(effectiveSize);
+        int effectiveSize = pool.getActiveSize();
+        int allocated = pool.getAllocatedSize();
+        if (!this.desiredSize.setIfUnset(effectiveSize)) {
+            // set concurrently
+            return;
+        }
         LOG.info("initial desiredSize set to {} (allocated: {}, effective: {})", effectiveSize, allocated,
                 effectiveSize);
     }
@@ -536,6 +863,24 @@ public class StandardPoolUpdater implements PoolUpdater {
                 .post(new Alert(AlertTopics.RESIZE.name(), AlertSeverity.INFO, UtcTime.now(), message, null, tags));
     }
 
+    /**
+     * Post an {@link Alert} that pool members have been demoted to the warm
+     * pool.
+     *
+     * @param demotedMachineIds
+     *            The machine instances that were demoted.
+     */
+    void demotionAlert(List<String> demotedMachineIds) {
+        String message = String.format("%d machine(s) were demoted to the warm pool: %s", demotedMachineIds.size(),
+                demotedMachineIds);
+        LOG.info(message);
+        Map<String, JsonElement> tags = new HashMap<>();
+        tags.put("demotedMachines", JsonUtils.toJson(demotedMachineIds));
+        tags.put("poolMembers", poolMembersTag());
+        this.eventBus
+                .post(new Alert(AlertTopics.RESIZE.name(), AlertSeverity.INFO, UtcTime.now(), message, null, tags));
+    }
+
     /**
      * Post an {@link Alert} that a machine was attached to the pool.
      *
@@ -560,6 +905,21 @@ public class StandardPoolUpdater implements PoolUpdater {
                 .post(new Alert(AlertTopics.RESIZE.name(), AlertSeverity.INFO, UtcTime.now(), message, null, tags));
     }
 
+    /**
+     * Post an {@link Alert} that machines were detached from the pool.
+     *
+     * @param detachedMachineIds
+     *            The machine instances that were detached.
+     */
+    void detachAlert(List<String> detachedMachineIds) {
+        String message = String.format("%d machine(s) were detached from cloud pool: %s", detachedMachineIds.size(),
+                detachedMachineIds);
+        LOG.info(message);
+        Map<String, JsonElement> tags = Maps.of("detachedMachines", JsonUtils.toJson(detachedMachineIds));
+        this.eventBus
+                .post(new Alert(AlertTopics.RESIZE.name(), AlertSeverity.INFO, UtcTime.now(), message, null, tags));
+    }
+
     /**
      * Post an {@link Alert} that a pool member had its {@link ServiceState}
      * set.
@@ -610,6 +970,313 @@ public class StandardPoolUpdater implements PoolUpdater {
         return this.config;
     }
 
+    /**
+     * A {@link Command} that completes a single {@link CompletableFuture}.
+     */
+    private abstract static class SingleCommand implements Command {
+        /** Completed when the command has been executed. */
+        protected final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        @Override
+        public void execute() throws Exception {
+            run();
+            this.future.complete(null);
+        }
+
+        @Override
+        public void fail(Throwable cause) {
+            this.future.completeExceptionally(cause);
+        }
+
+        protected abstract void run() throws Exception;
+    }
+
+    /**
+     * Resizes the pool to the desired size. Since a resize always targets the
+     * most recently set desired size, a resize queued directly behind another
+     * resize is merged into it (using the configuration of the later one).
+     */
+    private class ResizeCommand extends SingleCommand {
+        private BaseCloudPoolConfig config;
+
+        public ResizeCommand(BaseCloudPoolConfig config) {
+            this.config = config;
+        }
+
+        @Override
+        public boolean merge(Command next) {
+            if (!(next instanceof ResizeCommand)) {
+                return false;
+            }
+            ResizeCommand resize = (ResizeCommand) next;
+            this.config = resize.config;
+            this.future.whenComplete((result, error) -> {
+                if (error != null) {
+                    resize.future.completeExceptionally(error);
+                } else {
+                    resize.future.complete(result);
+                }
+            });
+            return true;
+        }
+
+        @Override
+        protected void run() throws CloudPoolException {
+            try {
+                updateMachinePool(this.config);
+            } catch (Throwable e) {
+                String message = format("failed to resize machine pool %s", this.config.getName());
+                String details = format("%s: %s", message, e.getMessage());
+                Alert alert = AlertBuilder.create().topic(RESIZE.name()).severity(AlertSeverity.WARN).message(message)
+                        .details(details).build();
+                StandardPoolUpdater.this.eventBus.post(alert);
+                LOG.warn(details, e);
+                throw new CloudPoolException(details, e);
+            }
+        }
+    }
+
+    /**
+     * Attaches a machine to the pool, implicitly incrementing the desired
+     * size.
+     */
+    private class AttachCommand extends SingleCommand {
+        private final String machineId;
+
+        public AttachCommand(String machineId) {
+            this.machineId = machineId;
+        }
+
+        @Override
+        protected void run() throws CloudPoolException {
+            LOG.info("attaching instance {} to pool", this.machineId);
+            StandardPoolUpdater.this.cloudDriver.attachMachine(this.machineId);
+            // implicitly increases pool size
+            Snapshot newSize = StandardPoolUpdater.this.desiredSize.update(size -> size + 1);
+            LOG.info("set desiredSize to {}", newSize.getSize());
+            attachAlert(this.machineId);
+            StandardPoolUpdater.this.poolFetcher.poolChangeExpected();
+        }
+    }
+
+    /**
+     * Removes one or more machines from the pool, optionally decrementing the
+     * desired size once per removed machine. Removals of the same kind that
+     * are queued directly behind each other are merged, so that they are
+     * carried out with a single driver call.
+     */
+    private abstract class RemoveMachinesCommand implements Command {
+        /** Requested removals, keyed on machine id. */
+        private final Map<String, Removal> removals = new LinkedHashMap<>();
+
+        public RemoveMachinesCommand(Collection<String> machineIds, boolean decrementDesiredSize) {
+            machineIds.forEach(machineId -> this.removals.put(machineId, new Removal(decrementDesiredSize)));
+        }
+
+        /**
+         * Returns the future that completes when a given machine has been
+         * removed.
+         *
+         * @param machineId
+         * @return
+         */
+        public CompletableFuture<Void> futureOf(String machineId) {
+            return this.removals.get(machineId).future;
+        }
+
+        @Override
+        public boolean merge(Command next) {
+            if (next.getClass() != getClass()) {
+                return false;
+            }
+            RemoveMachinesCommand other = (RemoveMachinesCommand) next;
+            // a repeated removal of the same machine is kept separate
+            if (!Collections.disjoint(this.removals.keySet(), other.removals.keySet())) {
+                return false;
+            }
+            this.removals.putAll(other.removals);
+            return true;
+        }
+
+        @Override
+        public void execute() throws CloudPoolException {
+            // if a removal has decrementDesiredSize set, its intent is to
+            // leave the desiredSize one lower on completion. however, the
+            // desiredSize may be set while removals are in progress, so let's
+            // remember the starting point.
+            Snapshot preDesiredSize = StandardPoolUpdater.this.desiredSize.get().get();
+
+            List<String> machineIds = new ArrayList<>(this.removals.keySet());
+            Map<String, Throwable> errors = new HashMap<>();
+            if (machineIds.size() == 1) {
+                // on failure, the caller gets the error as-is
+                removeMachine(machineIds.get(0));
+            } else {
+                try {
+                    errors.putAll(removeMachines(machineIds));
+                } catch (UnsupportedOperationException e) {
+                    // the driver cannot remove several machines in one call
+                    LOG.debug("batch removal not supported ({}), removing one at a time", e.getMessage());
+                    for (String machineId : machineIds) {
+                        try {
+                            removeMachine(machineId);
+                        } catch (RuntimeException machineError) {
+                            errors.put(machineId, machineError);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // per-machine failures (such as an unknown machine) are
+                    // reported by the driver, so the whole batch failed
+                    LOG.warn("batch removal of {} failed: {}", machineIds, e.getMessage());
+                    machineIds.forEach(machineId -> errors.put(machineId, e));
+                }
+            }
+
+            List<String> removed = new ArrayList<>();
+            int decrement = 0;
+            for (String machineId : machineIds) {
+                if (!errors.containsKey(machineId)) {
+                    removed.add(machineId);
+                    decrement += this.removals.get(machineId).decrementDesiredSize ? 1 : 0;
+                }
+            }
+            if (!removed.isEmpty()) {
+                removedAlert(removed);
+                StandardPoolUpdater.this.poolFetcher.poolChangeExpected();
+            }
+            decrementDesiredSize(preDesiredSize, decrement);
+
+            this.removals.forEach((machineId, removal) -> {
+                Throwable error = errors.get(machineId);
+                if (error == null) {
+                    removal.future.complete(null);
+                } else if (error instanceof CloudPoolException) {
+                    removal.future.completeExceptionally(error);
+                } else {
+                    removal.future.completeExceptionally(new CloudPoolDriverException(
+                            format("failed to remove machine %s: %s", machineId, error.getMessage()), error));
+                }
+            });
+        }
+
+        @Override
+        public void fail(Throwable cause) {
+            this.removals.values().forEach(removal -> removal.future.completeExceptionally(cause));
+        }
+
+        /**
+         * Removes a single machine from the pool.
+         *
+         * @param machineId
+         * @throws CloudPoolException
+         */
+        protected abstract void removeMachine(String machineId) throws CloudPoolException;
+
+        /**
+         * Removes several machines from the pool with a single driver call.
+         *
+         * @param machineIds
+         * @return The machines that could not be removed. Keys are machine
+         *         ids, values are the error that caused the removal to fail.
+         * @throws UnsupportedOperationException
+         *             If the driver cannot remove several machines in one
+         *             call, in which case they are removed one at a time.
+         * @throws CloudPoolException
+         *             If the call failed altogether.
+         */
+        protected abstract Map<String, Throwable> removeMachines(List<String> machineIds)
+                throws CloudPoolException;
+
+        /**
+         * Posts an {@link Alert} about removed machines.
+         *
+         * @param machineIds
+         */
+        protected abstract void removedAlert(List<String> machineIds);
+    }
+
+    /**
+     * A requested machine removal.
+     */
+    private static class Removal {
+        private final boolean decrementDesiredSize;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        public Removal(boolean decrementDesiredSize) {
+            this.decrementDesiredSize = decrementDesiredSize;
+        }
+    }
+
+    /**
+     * Terminates one or more machines.
+     */
+    private class TerminateCommand extends RemoveMachinesCommand {
+        public TerminateCommand(Collection<String> machineIds, boolean decrementDesiredSize) {
+            super(machineIds, decrementDesiredSize);
+        }
+
+        @Override
+        protected void removeMachine(String machineId) throws CloudPoolException {
+            LOG.info("terminating {}", machineId);
+            StandardPoolUpdater.this.cloudDriver.terminateMachines(Arrays.asList(machineId));
+        }
+
+        @Override
+        protected Map<String, Throwable> removeMachines(List<String> machineIds) throws CloudPoolException {
+            LOG.info("terminating {} machine(s): {}", machineIds.size(), machineIds);
+            try {
+                StandardPoolUpdater.this.cloudDriver.terminateMachines(machineIds);
+                return Collections.emptyMap();
+            } catch (TerminateMachinesException e) {
+                return e.getTerminationErrors();
+            }
+        }
+
+        @Override
+        protected void removedAlert(List<String> machineIds) {
+            if (machineIds.size() == 1) {
+                terminationAlert(machineIds.get(0));
+            } else {
+                terminationAlert(machineIds);
+            }
+        }
+    }
+
+    /**
+     * Detaches one or more machines from the pool.
+     */
+    private class DetachCommand extends RemoveMachinesCommand {
+        public DetachCommand(Collection<String> machineIds, boolean decrementDesiredSize) {
+            super(machineIds, decrementDesiredSize);
+        }
+
+        @Override
+        protected void removeMachine(String machineId) throws CloudPoolException {
+            LOG.info("detaching {} from pool", machineId);
+            StandardPoolUpdater.this.cloudDriver.detachMachine(machineId);
+        }
+
+        @Override
+        protected Map<String, Throwable> removeMachines(List<String> machineIds) throws CloudPoolException {
+            LOG.info("detaching {} machine(s) from pool: {}", machineIds.size(), machineIds);
+            try {
+                StandardPoolUpdater.this.cloudDriver.detachMachines(machineIds);
+                return Collections.emptyMap();
+            } catch (DetachMachinesException e) {
+                return e.getDetachErrors();
+            }
+        }
+
+        @Override
+        protected void removedAlert(List<String> machineIds) {
+            if (machineIds.size() == 1) {
+                detachAlert(machineIds.get(0));
+            } else {
+                detachAlert(machineIds);
+            }
+        }
+    }
+
     /**
      * Task that, when executed, asks the {@link PoolUpdater} to resize the
      * pool.
@@ -624,10 +1291,12 @@ public class StandardPoolUpdater implements PoolUpdater {
         @Override
         public void run() {
             try {
-                this.poolUpdater.resize(this.poolUpdater.config());
-            } catch (CloudPoolException e) {
+                // failures are reported by the resize itself
+                this.poolUpdater.periodicResize();
+            } catch (RuntimeException e) {
                 // just catch exception to prevent periodical execution from
                 // aborting
+                LOG.warn("failed to queue periodic pool update: {}", e.getMessage());
             }
         }
     }
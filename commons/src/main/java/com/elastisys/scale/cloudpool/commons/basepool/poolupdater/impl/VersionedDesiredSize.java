@@ -0,0 +1,138 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The desired size of a machine pool, tagged with a version that is bumped on
+ * every update.
+ * <p/>
+ * Operations that span (slow) cloud API calls and then adjust the desired size
+ * (such as terminating a machine without replacement) can take a
+ * {@link Snapshot} before the call and apply their adjustment with
+ * {@link #compareAndSet(Snapshot, int)}, which fails if the desired size was
+ * set in the meantime. Since the version, rather than the size, is compared,
+ * an intermediate update to the same size is also detected.
+ * <p/>
+ * All operations are lock-free.
+ */
+public class VersionedDesiredSize {
+
+    /** The current value. <code>null</code> until first set. */
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(null);
+
+    /**
+     * Returns the current desired size and version, if the desired size has
+     * been set.
+     *
+     * @return
+     */
+    public Optional<Snapshot> get() {
+        return Optional.ofNullable(this.current.get());
+    }
+
+    /**
+     * Sets the desired size.
+     *
+     * @param size
+     * @return The new {@link Snapshot}.
+     */
+    public Snapshot set(int size) {
+        checkArgument(size >= 0, "negative desired pool size");
+        return this.current.updateAndGet(previous -> next(previous, size));
+    }
+
+    /**
+     * Sets the desired size, unless it has already been set.
+     *
+     * @param size
+     * @return <code>true</code> if the desired size was set by this call.
+     */
+    public boolean setIfUnset(int size) {
+        checkArgument(size >= 0, "negative desired pool size");
+        return this.current.compareAndSet(null, new Snapshot(size, 1));
+    }
+
+    /**
+     * Sets the desired size, provided that it has not been updated since a
+     * given {@link Snapshot} was taken.
+     *
+     * @param expected
+     *            A {@link Snapshot} returned by this object.
+     * @param size
+     *            The new desired size.
+     * @return <code>true</code> if the desired size was updated,
+     *         <code>false</code> if it had been updated since the
+     *         {@link Snapshot} was taken.
+     */
+    public boolean compareAndSet(Snapshot expected, int size) {
+        checkArgument(expected != null, "expected snapshot cannot be null");
+        checkArgument(size >= 0, "negative desired pool size");
+        return this.current.compareAndSet(expected, next(expected, size));
+    }
+
+    /**
+     * Atomically updates the desired size with a given function of its current
+     * value.
+     *
+     * @param function
+     * @return The new {@link Snapshot}.
+     * @throws IllegalStateException
+     *             If the desired size has not been set.
+     */
+    public Snapshot update(IntUnaryOperator function) throws IllegalStateException {
+        return this.current.updateAndGet(previous -> {
+            if (previous == null) {
+                throw new IllegalStateException("desired size has not been set");
+            }
+            return next(previous, Math.max(function.applyAsInt(previous.getSize()), 0));
+        });
+    }
+
+    private static Snapshot next(Snapshot previous, int size) {
+        long version = previous == null ? 1 : previous.getVersion() + 1;
+        return new Snapshot(size, version);
+    }
+
+    /**
+     * An immutable observation of a {@link VersionedDesiredSize}.
+     */
+    public static class Snapshot {
+        /** The desired size. */
+        private final int size;
+        /** The version of the desired size. */
+        private final long version;
+
+        private Snapshot(int size, long version) {
+            this.size = size;
+            this.version = version;
+        }
+
+        /**
+         * Returns the desired size.
+         *
+         * @return
+         */
+        public int getSize() {
+            return this.size;
+        }
+
+        /**
+         * Returns the version of the desired size, which is incremented on
+         * every update.
+         *
+         * @return
+         */
+        public long getVersion() {
+            return this.version;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d (version %d)", this.size, this.version);
+        }
+    }
+}
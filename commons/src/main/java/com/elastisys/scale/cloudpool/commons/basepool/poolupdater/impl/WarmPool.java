@@ -0,0 +1,230 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.elastisys.scale.cloudpool.api.types.Machine.inState;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.metrics.Counter;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DetachMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+
+/**
+ * Carries out the warm pool operations of a {@link StandardPoolUpdater}:
+ * promoting warm machines to pool members on scale-out, demoting pool members
+ * to the warm pool on scale-in and replenishing the warm pool to its
+ * configured size.
+ * <p/>
+ * A {@link WarmPool} remembers the warm machines of the latest
+ * {@link #refresh()}, adjusted for the promotions, demotions and provisionings
+ * carried out since. Warm machines that failed to be provisioned
+ * ({@link MachineState#REJECTED}) are ignored. Machines that are stopped
+ * ({@link MachineState#TERMINATED}) are promoted before machines that are
+ * still being provisioned.
+ * <p/>
+ * Failed warm pool operations are logged but never propagated, since a
+ * scale-out can always fall back to requesting new machines and a scale-in to
+ * terminating machines.
+ * <p/>
+ * Must only be used from the pool update worker. Metrics may be read
+ * concurrently.
+ */
+public class WarmPool {
+    private static final Logger LOG = LoggerFactory.getLogger(WarmPool.class);
+
+    /** Promotes ready (stopped) warm machines first. */
+    private static final Comparator<Machine> READY_FIRST = Comparator
+            .comparing(machine -> machine.getMachineState() != MachineState.TERMINATED);
+
+    private final CloudPoolDriver driver;
+
+    /** The warm machines, as of the latest {@link #refresh()}. */
+    private List<Machine> machines = Collections.emptyList();
+    /** The number of warm machines. <code>-1</code> until first refresh. */
+    private volatile int size = -1;
+
+    /** Machines needed on scale-out that were promoted from the warm pool. */
+    private final Counter hits;
+    /** Machines needed on scale-out that had to be requested. */
+    private final Counter misses;
+
+    /**
+     * Creates a {@link WarmPool}.
+     *
+     * @param driver
+     *            The driver that manages the warm pool. Must support a warm
+     *            pool.
+     * @param metrics
+     *            Where warm pool metrics are recorded.
+     */
+    public WarmPool(CloudPoolDriver driver, MetricRegistry metrics) {
+        this.driver = requireNonNull(driver, "driver cannot be null");
+        requireNonNull(metrics, "metrics cannot be null");
+
+        this.hits = metrics.counter("cloudpool_warm_pool_hits_total",
+                "Machines needed on scale-out that were promoted from the warm pool.");
+        this.misses = metrics.counter("cloudpool_warm_pool_misses_total",
+                "Machines needed on scale-out that had to be requested since the warm pool was empty.");
+        metrics.gauge("cloudpool_warm_pool_size", "The number of machines in the warm pool.",
+                () -> this.size < 0 ? Double.NaN : this.size);
+        metrics.gauge("cloudpool_warm_pool_hit_ratio",
+                "The share of machines needed on scale-out that were promoted from the warm pool.", () -> {
+                    long total = this.hits.get() + this.misses.get();
+                    return total == 0 ? Double.NaN : (double) this.hits.get() / total;
+                });
+    }
+
+    /**
+     * Lists the warm machines.
+     *
+     * @return <code>true</code> on success, <code>false</code> if the warm
+     *         machines could not be listed, in which case the warm pool is
+     *         considered empty until the next refresh.
+     */
+    public boolean refresh() {
+        try {
+            setMachines(this.driver.listWarmMachines().stream().filter(inState(MachineState.REJECTED).negate())
+                    .collect(Collectors.toList()));
+            return true;
+        } catch (Exception e) {
+            LOG.warn("failed to list warm pool: {}", e.getMessage(), e);
+            setMachines(Collections.emptyList());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of warm machines.
+     *
+     * @return
+     */
+    public int size() {
+        return this.machines.size();
+    }
+
+    /**
+     * Promotes (at most) a number of warm machines to pool members.
+     *
+     * @param count
+     *            The number of machines needed by a scale-out.
+     * @return The promoted machines. May be fewer than requested, if the warm
+     *         pool holds fewer machines or some promotions failed.
+     */
+    public List<Machine> promote(int count) {
+        List<String> candidates = this.machines.stream().sorted(READY_FIRST).limit(count).map(Machine::getId)
+                .collect(Collectors.toList());
+        List<Machine> promoted = new ArrayList<>();
+        if (!candidates.isEmpty()) {
+            LOG.info("promoting {} machine(s) from warm pool: {}", candidates.size(), candidates);
+            try {
+                promoted.addAll(this.driver.promoteWarmMachines(candidates));
+            } catch (StartMachinesException e) {
+                LOG.warn("failed to promote {} of {} warm machine(s): {}", candidates.size()
+                        - e.getStartedMachines().size(), candidates.size(), e.getMessage());
+                promoted.addAll(e.getStartedMachines());
+            } catch (Exception e) {
+                LOG.warn("failed to promote warm machines: {}", e.getMessage(), e);
+            }
+            // failed promotions may have left machines in an unknown state
+            remove(candidates);
+        }
+        this.hits.inc(promoted.size());
+        this.misses.inc(count - promoted.size());
+        return promoted;
+    }
+
+    /**
+     * Demotes as many of a number of scale-in victims to the warm pool as it
+     * has room for. Only running pool members are demoted.
+     *
+     * @param victims
+     *            The machines to be removed from the pool.
+     * @param capacity
+     *            The configured size of the warm pool.
+     * @return The demoted machines. The remaining victims are to be
+     *         terminated.
+     */
+    public List<Machine> demote(List<Machine> victims, int capacity) {
+        int room = capacity - size();
+        List<Machine> candidates = victims.stream().filter(inState(MachineState.RUNNING))
+                .filter(Machine.isActiveMember()).limit(Math.max(room, 0)).collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> candidateIds = candidates.stream().map(Machine::getId).collect(Collectors.toList());
+        LOG.info("demoting {} machine(s) to warm pool: {}", candidateIds.size(), candidateIds);
+        List<Machine> demoted = new ArrayList<>();
+        try {
+            this.driver.demoteMachines(candidateIds);
+            demoted.addAll(candidates);
+        } catch (DetachMachinesException e) {
+            LOG.warn("failed to demote {} of {} machine(s): {}", e.getDetachErrors().size(), candidateIds.size(),
+                    e.getMessage());
+            Set<String> demotedIds = new HashSet<>(e.getDetachedMachines());
+            candidates.stream().filter(machine -> demotedIds.contains(machine.getId())).forEach(demoted::add);
+        } catch (Exception e) {
+            LOG.warn("failed to demote machines: {}", e.getMessage(), e);
+        }
+        add(demoted);
+        return demoted;
+    }
+
+    /**
+     * Provisions new warm machines until the warm pool holds (at least) a
+     * given number of machines.
+     *
+     * @param capacity
+     *            The configured size of the warm pool.
+     * @return The provisioned machines.
+     */
+    public List<Machine> replenish(int capacity) {
+        int missing = capacity - size();
+        if (missing <= 0) {
+            return Collections.emptyList();
+        }
+
+        LOG.info("provisioning {} machine(s) for warm pool", missing);
+        List<Machine> provisioned = new ArrayList<>();
+        try {
+            provisioned.addAll(this.driver.provisionWarmMachines(missing));
+        } catch (StartMachinesException e) {
+            LOG.warn("failed to provision {} of {} warm machine(s): {}", missing - e.getStartedMachines().size(),
+                    missing, e.getMessage());
+            provisioned.addAll(e.getStartedMachines());
+        } catch (Exception e) {
+            LOG.warn("failed to provision warm machines: {}", e.getMessage(), e);
+        }
+        add(provisioned);
+        return provisioned;
+    }
+
+    private void add(List<Machine> machines) {
+        List<Machine> updated = new ArrayList<>(this.machines);
+        updated.addAll(machines);
+        setMachines(updated);
+    }
+
+    private void remove(List<String> machineIds) {
+        setMachines(this.machines.stream().filter(machine -> !machineIds.contains(machine.getId()))
+                .collect(Collectors.toList()));
+    }
+
+    private void setMachines(List<Machine> machines) {
+        this.machines = machines;
+        this.size = machines.size();
+    }
+}
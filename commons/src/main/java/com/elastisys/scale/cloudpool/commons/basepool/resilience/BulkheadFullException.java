@@ -0,0 +1,22 @@
+package com.elastisys.scale.cloudpool.commons.basepool.resilience;
+
+/**
+ * Thrown when a call is rejected since the maximum number of concurrent calls
+ * for its operation are already in flight.
+ */
+public class BulkheadFullException extends CallRejectedException {
+    /** Default serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a {@link BulkheadFullException}.
+     *
+     * @param operation
+     *            The rejected operation.
+     * @param maxConcurrentCalls
+     *            The concurrency limit that was reached.
+     */
+    public BulkheadFullException(String operation, int maxConcurrentCalls) {
+        super(operation, String.format("too many concurrent %s calls (limit: %d)", operation, maxConcurrentCalls));
+    }
+}
@@ -0,0 +1,41 @@
+package com.elastisys.scale.cloudpool.commons.basepool.resilience;
+
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+
+/**
+ * Thrown by a {@link ResilientCloudPoolDriver} when a {@link CloudPoolDriver}
+ * call is rejected without ever reaching the cloud API. Retrying such a call
+ * right away is pointless.
+ *
+ * @see CircuitBreakerOpenException
+ * @see BulkheadFullException
+ */
+public abstract class CallRejectedException extends CloudPoolDriverException {
+    /** Default serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The rejected operation. */
+    private final String operation;
+
+    /**
+     * Creates a {@link CallRejectedException}.
+     *
+     * @param operation
+     *            The rejected operation.
+     * @param message
+     */
+    protected CallRejectedException(String operation, String message) {
+        super(message);
+        this.operation = operation;
+    }
+
+    /**
+     * The rejected operation.
+     *
+     * @return
+     */
+    public String getOperation() {
+        return this.operation;
+    }
+}
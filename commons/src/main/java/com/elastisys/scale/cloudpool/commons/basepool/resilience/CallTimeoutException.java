@@ -0,0 +1,42 @@
+package com.elastisys.scale.cloudpool.commons.basepool.resilience;
+
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * Thrown by a {@link ResilientCloudPoolDriver} when a {@link CloudPoolDriver}
+ * call does not complete within its deadline. The call has been interrupted
+ * and abandoned, but may already have had (some of) its effect on the cloud,
+ * or may still have it if the driver does not respond to the interrupt.
+ */
+public class CallTimeoutException extends CloudPoolDriverException {
+    /** Default serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The operation that timed out. */
+    private final String operation;
+
+    /**
+     * Creates a {@link CallTimeoutException}.
+     *
+     * @param operation
+     *            The operation that timed out.
+     * @param timeout
+     *            The deadline that was exceeded.
+     */
+    public CallTimeoutException(String operation, TimeInterval timeout) {
+        super(String.format("%s call did not complete within %d %s", operation, timeout.getTime(),
+                timeout.getUnit().name().toLowerCase()));
+        this.operation = operation;
+    }
+
+    /**
+     * The operation that timed out.
+     *
+     * @return
+     */
+    public String getOperation() {
+        return this.operation;
+    }
+}
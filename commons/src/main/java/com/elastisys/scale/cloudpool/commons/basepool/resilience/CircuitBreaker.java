@@ -0,0 +1,234 @@
+package com.elastisys.scale.cloudpool.commons.basepool.resilience;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.commons.basepool.config.CircuitBreakerConfig;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * A circuit breaker for a single operation, which tracks the outcome of the
+ * most recent calls in a count-based sliding window.
+ * <ul>
+ * <li>{@link State#CLOSED}: calls are let through. When the failure rate over
+ * the sliding window reaches the threshold, the breaker opens.</li>
+ * <li>{@link State#OPEN}: calls are rejected. When the open duration has
+ * passed, the breaker turns half-open.</li>
+ * <li>{@link State#HALF_OPEN}: a limited number of probe calls are let
+ * through. If they all succeed the breaker closes; the first failure opens it
+ * again.</li>
+ * </ul>
+ * Callers ask for permission with {@link #tryAcquirePermission()} and, when
+ * granted, report the outcome with {@link #onSuccess()} or
+ * {@link #onFailure(Throwable)}.
+ * <p/>
+ * Instances are thread-safe.
+ *
+ * @see CircuitBreakerConfig
+ */
+public class CircuitBreaker {
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /** The states of a {@link CircuitBreaker}. */
+    public static enum State {
+        CLOSED, OPEN, HALF_OPEN;
+    }
+
+    /** Receives {@link CircuitBreaker} state transitions. */
+    @FunctionalInterface
+    public static interface StateListener {
+        /**
+         * Called on every state transition, while holding the lock of the
+         * {@link CircuitBreaker}. Must not block.
+         *
+         * @param operation
+         *            The operation guarded by the circuit breaker.
+         * @param from
+         *            The previous state.
+         * @param to
+         *            The new state.
+         * @param reason
+         *            A human-readable explanation of the transition.
+         */
+        void stateChanged(String operation, State from, State to, String reason);
+    }
+
+    /** The operation guarded by this circuit breaker. */
+    private final String operation;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationMillis;
+    private final int halfOpenProbes;
+    private final StateListener listener;
+
+    /** Outcomes of the most recent calls (<code>true</code> = failure). */
+    private final boolean[] window;
+    /** Index in {@link #window} where the next outcome is written. */
+    private int next = 0;
+    /** Number of recorded outcomes in {@link #window}. */
+    private int recorded = 0;
+    /** Number of failures in {@link #window}. */
+    private int failures = 0;
+
+    private State state = State.CLOSED;
+    /** When the breaker was last opened. */
+    private DateTime openedAt;
+    /** Probes let through since turning half-open. */
+    private int probesPermitted;
+    /** Probes that have succeeded since turning half-open. */
+    private int probesSucceeded;
+
+    /**
+     * Creates a {@link CircuitBreaker}.
+     *
+     * @param operation
+     *            The operation guarded by the circuit breaker.
+     * @param config
+     *            Circuit breaker settings.
+     * @param listener
+     *            Receives state transitions.
+     */
+    public CircuitBreaker(String operation, CircuitBreakerConfig config, StateListener listener) {
+        this.operation = requireNonNull(operation, "operation cannot be null");
+        requireNonNull(config, "config cannot be null");
+        this.listener = requireNonNull(listener, "listener cannot be null");
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.minimumCalls = config.getMinimumCalls();
+        this.openDurationMillis = TimeUnit.MILLISECONDS.convert(config.getOpenDuration().getTime(),
+                config.getOpenDuration().getUnit());
+        this.halfOpenProbes = config.getHalfOpenProbes();
+        this.window = new boolean[config.getSlidingWindowSize()];
+    }
+
+    /**
+     * Asks for permission to make a call. Returns <code>false</code> if the
+     * call should fail fast. A call that is permitted must have its outcome
+     * reported.
+     *
+     * @return
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (this.state == State.OPEN) {
+            if (UtcTime.now().isBefore(this.openedAt.plus(this.openDurationMillis))) {
+                return false;
+            }
+            this.probesPermitted = 0;
+            this.probesSucceeded = 0;
+            transitionTo(State.HALF_OPEN, "open duration has passed, letting probes through");
+        }
+        if (this.state == State.HALF_OPEN) {
+            if (this.probesPermitted >= this.halfOpenProbes) {
+                return false;
+            }
+            this.probesPermitted++;
+        }
+        return true;
+    }
+
+    /**
+     * Reports that a permitted call succeeded.
+     */
+    public synchronized void onSuccess() {
+        switch (this.state) {
+        case CLOSED:
+            record(false);
+            break;
+        case HALF_OPEN:
+            this.probesSucceeded++;
+            if (this.probesSucceeded >= this.halfOpenProbes) {
+                resetWindow();
+                transitionTo(State.CLOSED, String.format("%d probe(s) succeeded", this.probesSucceeded));
+            }
+            break;
+        default:
+            // call was let through before the breaker opened
+            break;
+        }
+    }
+
+    /**
+     * Reports that a permitted call failed.
+     *
+     * @param error
+     *            The failure.
+     */
+    public synchronized void onFailure(Throwable error) {
+        switch (this.state) {
+        case CLOSED:
+            record(true);
+            if (this.recorded >= this.minimumCalls && failureRate() >= this.failureRateThreshold) {
+                open(String.format("%d out of the last %d calls failed (latest error: %s)", this.failures,
+                        this.recorded, error.getMessage()));
+            }
+            break;
+        case HALF_OPEN:
+            open(String.format("probe failed: %s", error.getMessage()));
+            break;
+        default:
+            // call was let through before the breaker opened
+            break;
+        }
+    }
+
+    /**
+     * Returns the current state.
+     *
+     * @return
+     */
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    /**
+     * Returns the failure rate over the current sliding window (0 if no calls
+     * have been recorded).
+     *
+     * @return
+     */
+    public synchronized double failureRate() {
+        return this.recorded == 0 ? 0.0 : (double) this.failures / this.recorded;
+    }
+
+    private void record(boolean failure) {
+        if (this.recorded == this.window.length) {
+            // evict oldest outcome
+            if (this.window[this.next]) {
+                this.failures--;
+            }
+        } else {
+            this.recorded++;
+        }
+        this.window[this.next] = failure;
+        if (failure) {
+            this.failures++;
+        }
+        this.next = (this.next + 1) % this.window.length;
+    }
+
+    private void resetWindow() {
+        this.next = 0;
+        this.recorded = 0;
+        this.failures = 0;
+    }
+
+    private void open(String reason) {
+        this.openedAt = UtcTime.now();
+        transitionTo(State.OPEN, reason);
+    }
+
+    private void transitionTo(State newState, String reason) {
+        State oldState = this.state;
+        this.state = newState;
+        LOG.debug("circuit breaker for {}: {} -> {}: {}", this.operation, oldState, newState, reason);
+        try {
+            this.listener.stateChanged(this.operation, oldState, newState, reason);
+        } catch (Exception e) {
+            LOG.warn("circuit breaker state listener failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.elastisys.scale.cloudpool.commons.basepool.resilience;
+
+/**
+ * Thrown when a call is rejected since the {@link CircuitBreaker} of its
+ * operation is open (or half-open with all probes already in flight).
+ */
+public class CircuitBreakerOpenException extends CallRejectedException {
+    /** Default serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a {@link CircuitBreakerOpenException}.
+     *
+     * @param operation
+     *            The rejected operation.
+     */
+    public CircuitBreakerOpenException(String operation) {
+        super(operation, String.format("circuit breaker for %s is open: failing fast", operation));
+    }
+}
@@ -0,0 +1,549 @@
+package com.elastisys.scale.cloudpool.commons.basepool.resilience;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertTopics.CIRCUIT_BREAKER;
+import static com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertTopics.DRIVER_TIMEOUT;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.config.CircuitBreakerConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.DriverTimeoutsConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DetachMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.resilience.CircuitBreaker.State;
+import com.elastisys.scale.commons.eventbus.EventBus;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.elastisys.scale.commons.net.alerter.Alert;
+import com.elastisys.scale.commons.net.alerter.AlertBuilder;
+import com.elastisys.scale.commons.net.alerter.AlertSeverity;
+
+/**
+ * A {@link CloudPoolDriver} decorator that guards every operation of the
+ * wrapped driver with a {@link CircuitBreaker} and a bulkhead (a limit on the
+ * number of concurrent calls), so that calls fail fast rather than pile up
+ * during a cloud API outage.
+ * <p/>
+ * Each operation ({@code listMachines}, {@code startMachines}, ...) has its
+ * own circuit breaker and bulkhead. Rejected calls fail with a
+ * {@link CallRejectedException}. Calls that fail with a
+ * {@link NotFoundException}, {@link IllegalArgumentException} or
+ * {@link IllegalStateException} indicate a client error rather than an
+ * unhealthy cloud API and count as successful. So do calls that fail with a
+ * {@link StartMachinesException}, {@link TerminateMachinesException} or
+ * {@link DetachMachinesException} after having partially succeeded, since the
+ * cloud API evidently still serves requests.
+ * <p/>
+ * Guarding is disabled until a {@link CircuitBreakerConfig} is set with
+ * {@link #setConfig(CircuitBreakerConfig)}. Circuit breakers opening and
+ * closing are reported as {@link Alert}s on the {@link EventBus}.
+ * <p/>
+ * Once a {@link DriverTimeoutsConfig} is set with
+ * {@link #setTimeouts(DriverTimeoutsConfig)}, calls are also given a deadline.
+ * The wrapped driver is then called from a separate thread, which is
+ * interrupted if the call does not complete in time. The waiting caller is
+ * released right away with a {@link CallTimeoutException} (which counts as a
+ * failure for the circuit breaker), regardless of whether the driver responds
+ * to the interrupt. The abandoned call may still complete (and have its effect
+ * on the cloud) later on. Its outcome is then logged. Until it does, it keeps
+ * holding its place in the bulkhead, so that calls stuck in the driver cannot
+ * add up to more than the bulkhead limit of threads per operation. Timeouts
+ * are reported as {@link Alert}s on the {@link EventBus}. Interrupting a
+ * waiting caller interrupts the driver call as well.
+ * <p/>
+ * Use {@link #wrap(CloudPoolDriver, EventBus)} to create instances, so that an
+ * {@link IncrementalCloudPoolDriver} remains one when wrapped.
+ */
+public class ResilientCloudPoolDriver implements CloudPoolDriver {
+    private static final Logger LOG = LoggerFactory.getLogger(ResilientCloudPoolDriver.class);
+
+    /** The wrapped driver. */
+    private final CloudPoolDriver delegate;
+    /** Where circuit breaker and timeout {@link Alert}s are posted. */
+    private final EventBus eventBus;
+    /**
+     * Runs driver calls that have a deadline. The number of threads is bounded
+     * by the bulkheads when guarding is enabled.
+     */
+    private final ExecutorService callExecutor;
+
+    /** The current guards. <code>null</code> when guarding is disabled. */
+    private volatile Guards guards = null;
+    /** The current call timeouts. <code>null</code> when calls have no deadline. */
+    private volatile DriverTimeoutsConfig timeouts = null;
+
+    /**
+     * Wraps a {@link CloudPoolDriver} in a guarding decorator. If the driver is
+     * an {@link IncrementalCloudPoolDriver}, so is the returned decorator.
+     *
+     * @param driver
+     *            The driver to guard.
+     * @param eventBus
+     *            Where circuit breaker and timeout {@link Alert}s are posted.
+     * @return
+     */
+    public static ResilientCloudPoolDriver wrap(CloudPoolDriver driver, EventBus eventBus) {
+        if (driver instanceof IncrementalCloudPoolDriver) {
+            return new ResilientIncrementalCloudPoolDriver((IncrementalCloudPoolDriver) driver, eventBus);
+        }
+        return new ResilientCloudPoolDriver(driver, eventBus);
+    }
+
+    protected ResilientCloudPoolDriver(CloudPoolDriver delegate, EventBus eventBus) {
+        this.delegate = requireNonNull(delegate, "delegate driver cannot be null");
+        this.eventBus = requireNonNull(eventBus, "eventBus cannot be null");
+        AtomicInteger threadCount = new AtomicInteger(0);
+        this.callExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "driver-call-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the circuit breaker and bulkhead settings. A changed configuration
+     * resets all circuit breakers. A <code>null</code> configuration disables
+     * guarding.
+     *
+     * @param config
+     */
+    public synchronized void setConfig(CircuitBreakerConfig config) {
+        Guards current = this.guards;
+        CircuitBreakerConfig currentConfig = current != null ? current.config : null;
+        if (Objects.equals(config, currentConfig)) {
+            return;
+        }
+        LOG.info("{} circuit breakers", config != null ? "enabling" : "disabling");
+        this.guards = config != null ? new Guards(config) : null;
+    }
+
+    /**
+     * Sets the call timeouts. A <code>null</code> configuration removes all
+     * deadlines. Calls in progress keep the deadline they were started with.
+     *
+     * @param config
+     */
+    public synchronized void setTimeouts(DriverTimeoutsConfig config) {
+        if (Objects.equals(config, this.timeouts)) {
+            return;
+        }
+        LOG.info("{} driver call timeouts", config != null ? "enabling" : "disabling");
+        this.timeouts = config;
+    }
+
+    /**
+     * Returns the current state of the circuit breaker of every operation that
+     * has been called since guarding was enabled, or
+     * {@link Optional#empty()} if guarding is disabled.
+     *
+     * @return
+     */
+    public Optional<Map<String, State>> getCircuitBreakerStates() {
+        Guards current = this.guards;
+        if (current == null) {
+            return Optional.empty();
+        }
+        Map<String, State> states = new TreeMap<>();
+        current.byOperation.forEach((operation, guard) -> states.put(operation, guard.breaker.getState()));
+        return Optional.of(Collections.unmodifiableMap(states));
+    }
+
+    /**
+     * Returns the state name ({@code CLOSED}, {@code OPEN} or
+     * {@code HALF_OPEN}) of the circuit breaker of every operation that has
+     * been called since guarding was enabled, or {@link Optional#empty()} if
+     * guarding is disabled.
+     * <p/>
+     * Unlike {@link #getCircuitBreakerStates()}, nothing is allocated: the
+     * returned map is kept up to date on every circuit breaker state change
+     * and is replaced, rather than modified, when a state changes. The same
+     * instance is therefore returned until the next state change.
+     *
+     * @return
+     */
+    public Optional<Map<String, String>> getCircuitBreakerStateNames() {
+        Guards current = this.guards;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return current.stateNames;
+    }
+
+    /**
+     * Returns the wrapped driver.
+     *
+     * @return
+     */
+    public CloudPoolDriver getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public void configure(DriverConfig configuration) throws IllegalArgumentException, CloudPoolDriverException {
+        this.delegate.configure(configuration);
+    }
+
+    @Override
+    public List<Machine> listMachines() throws IllegalStateException, CloudPoolDriverException {
+        return guard("listMachines", this.delegate::listMachines);
+    }
+
+    @Override
+    public List<Machine> startMachines(int count)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        return guard("startMachines", () -> this.delegate.startMachines(count));
+    }
+
+    @Override
+    public int getPreferredStartChunkSize() {
+        return this.delegate.getPreferredStartChunkSize();
+    }
+
+    @Override
+    public void terminateMachines(List<String> machineIds)
+            throws IllegalStateException, TerminateMachinesException, CloudPoolDriverException {
+        guard("terminateMachines", () -> this.delegate.terminateMachines(machineIds));
+    }
+
+    @Override
+    public void attachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        guard("attachMachine", () -> this.delegate.attachMachine(machineId));
+    }
+
+    @Override
+    public void detachMachine(String machineId)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        guard("detachMachine", () -> this.delegate.detachMachine(machineId));
+    }
+
+    @Override
+    public void detachMachines(List<String> machineIds)
+            throws IllegalStateException, DetachMachinesException, CloudPoolDriverException {
+        guard("detachMachines", () -> this.delegate.detachMachines(machineIds));
+    }
+
+    @Override
+    public boolean supportsWarmPool() {
+        return this.delegate.supportsWarmPool();
+    }
+
+    @Override
+    public List<Machine> listWarmMachines() throws IllegalStateException, CloudPoolDriverException {
+        return guard("listWarmMachines", this.delegate::listWarmMachines);
+    }
+
+    @Override
+    public List<Machine> provisionWarmMachines(int count)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        return guard("provisionWarmMachines", () -> this.delegate.provisionWarmMachines(count));
+    }
+
+    @Override
+    public List<Machine> promoteWarmMachines(List<String> machineIds)
+            throws IllegalStateException, StartMachinesException, CloudPoolDriverException {
+        return guard("promoteWarmMachines", () -> this.delegate.promoteWarmMachines(machineIds));
+    }
+
+    @Override
+    public void demoteMachines(List<String> machineIds)
+            throws IllegalStateException, DetachMachinesException, CloudPoolDriverException {
+        guard("demoteMachines", () -> this.delegate.demoteMachines(machineIds));
+    }
+
+    @Override
+    public void setServiceState(String machineId, ServiceState serviceState)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        guard("setServiceState", () -> this.delegate.setServiceState(machineId, serviceState));
+    }
+
+    @Override
+    public void setMembershipStatus(String machineId, MembershipStatus membershipStatus)
+            throws IllegalStateException, NotFoundException, CloudPoolDriverException {
+        guard("setMembershipStatus", () -> this.delegate.setMembershipStatus(machineId, membershipStatus));
+    }
+
+    @Override
+    public String getPoolName() throws IllegalStateException {
+        return this.delegate.getPoolName();
+    }
+
+    /**
+     * Calls the wrapped driver, unless the bulkhead is full or the circuit
+     * breaker of the operation is open, and reports the outcome to the
+     * circuit breaker.
+     *
+     * @param operation
+     *            The name of the called operation.
+     * @param call
+     * @return
+     * @throws CallRejectedException
+     *             If the call was rejected.
+     * @throws CallTimeoutException
+     *             If the call did not complete within its deadline.
+     */
+    protected <T> T guard(String operation, Supplier<T> call) throws CallRejectedException, CallTimeoutException {
+        Guards current = this.guards;
+        if (current == null) {
+            return callWithDeadline(operation, call, () -> {
+            });
+        }
+
+        Guard guard = current.get(operation);
+        if (!guard.bulkhead.tryAcquire()) {
+            throw new BulkheadFullException(operation, current.config.getMaxConcurrentCalls());
+        }
+        if (!guard.breaker.tryAcquirePermission()) {
+            guard.bulkhead.release();
+            throw new CircuitBreakerOpenException(operation);
+        }
+        try {
+            // the bulkhead permit is held until the driver call returns, even
+            // if the call is abandoned on timeout
+            T result = callWithDeadline(operation, call, guard.bulkhead::release);
+            guard.breaker.onSuccess();
+            return result;
+        } catch (NotFoundException | IllegalArgumentException | IllegalStateException e) {
+            guard.breaker.onSuccess();
+            throw e;
+        } catch (RuntimeException | Error e) {
+            if (isPartialSuccess(e)) {
+                guard.breaker.onSuccess();
+            } else {
+                guard.breaker.onFailure(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if a driver error reports that the call
+     * succeeded for some of the machines it was made for.
+     *
+     * @param error
+     * @return
+     */
+    private static boolean isPartialSuccess(Throwable error) {
+        if (error instanceof StartMachinesException) {
+            return !((StartMachinesException) error).getStartedMachines().isEmpty();
+        }
+        if (error instanceof TerminateMachinesException) {
+            return !((TerminateMachinesException) error).getTerminatedMachines().isEmpty();
+        }
+        if (error instanceof DetachMachinesException) {
+            return !((DetachMachinesException) error).getDetachedMachines().isEmpty();
+        }
+        return false;
+    }
+
+    protected void guard(String operation, Runnable call) throws CallRejectedException, CallTimeoutException {
+        guard(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Calls the wrapped driver under the deadline of the operation, if call
+     * timeouts are enabled. On timeout, the call is interrupted and abandoned.
+     *
+     * @param operation
+     *            The name of the called operation.
+     * @param call
+     * @param onReturn
+     *            Run once the driver call has returned (or, if it was
+     *            abandoned before it started, once it has been abandoned).
+     * @return
+     * @throws CallTimeoutException
+     *             If the call did not complete within its deadline.
+     */
+    private <T> T callWithDeadline(String operation, Supplier<T> call, Runnable onReturn)
+            throws CallTimeoutException {
+        DriverTimeoutsConfig config = this.timeouts;
+        if (config == null) {
+            try {
+                return call.get();
+            } finally {
+                onReturn.run();
+            }
+        }
+
+        TimeInterval timeout = config.getTimeout(operation);
+        DeadlineCall<T> deadlineCall = new DeadlineCall<>(operation, call, onReturn);
+        Future<T> result;
+        try {
+            result = this.callExecutor.submit(deadlineCall);
+        } catch (RuntimeException e) {
+            onReturn.run();
+            throw e;
+        }
+        try {
+            return result.get(timeout.getTime(), timeout.getUnit());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CloudPoolDriverException(cause);
+        } catch (TimeoutException e) {
+            deadlineCall.abandon();
+            result.cancel(true);
+            CallTimeoutException timeoutError = new CallTimeoutException(operation, timeout);
+            onTimeout(operation, timeoutError);
+            throw timeoutError;
+        } catch (InterruptedException e) {
+            deadlineCall.abandon();
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CloudPoolDriverException(String.format("interrupted while waiting for %s call", operation), e);
+        }
+    }
+
+    private void onTimeout(String operation, CallTimeoutException error) {
+        LOG.warn("{}: interrupting call", error.getMessage());
+        this.eventBus.post(AlertBuilder.create().topic(DRIVER_TIMEOUT.name()).severity(AlertSeverity.WARN)
+                .message(String.format("%s call timed out", operation)).details(error.getMessage()).build());
+    }
+
+    private void onStateChange(String operation, State from, State to, String reason) {
+        if (to == State.OPEN) {
+            LOG.warn("circuit breaker for {} opened: {}", operation, reason);
+            this.eventBus.post(AlertBuilder.create().topic(CIRCUIT_BREAKER.name()).severity(AlertSeverity.WARN)
+                    .message(String.format("circuit breaker for %s opened", operation)).details(reason).build());
+        } else if (to == State.CLOSED) {
+            LOG.info("circuit breaker for {} closed: {}", operation, reason);
+            this.eventBus.post(AlertBuilder.create().topic(CIRCUIT_BREAKER.name()).severity(AlertSeverity.INFO)
+                    .message(String.format("circuit breaker for %s closed", operation)).details(reason).build());
+        }
+    }
+
+    /**
+     * A driver call run by the {@link ResilientCloudPoolDriver#callExecutor},
+     * which logs the outcome of the call if it returns after having been
+     * abandoned.
+     */
+    private static class DeadlineCall<T> implements Callable<T> {
+        private final String operation;
+        private final Supplier<T> call;
+        private final Runnable onReturn;
+        /** Set when the call is started or abandoned, whichever comes first. */
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        /** Set when the caller stops waiting for the call. */
+        private volatile boolean abandoned = false;
+
+        DeadlineCall(String operation, Supplier<T> call, Runnable onReturn) {
+            this.operation = operation;
+            this.call = call;
+            this.onReturn = onReturn;
+        }
+
+        @Override
+        public T call() {
+            if (!this.claimed.compareAndSet(false, true)) {
+                // abandoned before it was started
+                return null;
+            }
+            try {
+                T result = this.call.get();
+                if (this.abandoned) {
+                    LOG.warn("{} call completed after its deadline: succeeded", this.operation);
+                }
+                return result;
+            } catch (RuntimeException | Error e) {
+                if (this.abandoned) {
+                    LOG.warn("{} call completed after its deadline: failed: {}", this.operation, e.getMessage());
+                }
+                throw e;
+            } finally {
+                this.onReturn.run();
+            }
+        }
+
+        /**
+         * Marks the call as abandoned by its caller. If the call has not been
+         * started yet, it never will be.
+         */
+        void abandon() {
+            this.abandoned = true;
+            if (this.claimed.compareAndSet(false, true)) {
+                this.onReturn.run();
+            }
+        }
+    }
+
+    /** The circuit breakers and bulkheads for a given configuration. */
+    private class Guards {
+        private final CircuitBreakerConfig config;
+        private final ConcurrentMap<String, Guard> byOperation = new ConcurrentHashMap<>();
+        /**
+         * The state name of each circuit breaker, sorted on operation. Updated
+         * from the state change callbacks (rather than by reading the circuit
+         * breakers, whose locks are held during callbacks) and replaced on
+         * every update.
+         */
+        private volatile Optional<Map<String, String>> stateNames = Optional.of(Collections.emptyMap());
+
+        Guards(CircuitBreakerConfig config) {
+            this.config = config;
+        }
+
+        Guard get(String operation) {
+            return this.byOperation.computeIfAbsent(operation, key -> {
+                CircuitBreaker breaker = new CircuitBreaker(operation, this.config, (op, from, to, reason) -> {
+                    setStateName(op, to);
+                    onStateChange(op, from, to, reason);
+                });
+                setStateName(operation, breaker.getState());
+                return new Guard(breaker, new Semaphore(this.config.getMaxConcurrentCalls()));
+            });
+        }
+
+        private synchronized void setStateName(String operation, State state) {
+            Map<String, String> updated = new TreeMap<>(this.stateNames.get());
+            updated.put(operation, state.name());
+            this.stateNames = Optional.of(Collections.unmodifiableMap(updated));
+        }
+    }
+
+    /** The circuit breaker and bulkhead of a single operation. */
+    private static class Guard {
+        private final CircuitBreaker breaker;
+        private final Semaphore bulkhead;
+
+        Guard(CircuitBreaker breaker, Semaphore bulkhead) {
+            this.breaker = breaker;
+            this.bulkhead = bulkhead;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.elastisys.scale.cloudpool.commons.basepool.resilience;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MachineChanges;
+import com.elastisys.scale.commons.eventbus.EventBus;
+
+/**
+ * A {@link ResilientCloudPoolDriver} for {@link IncrementalCloudPoolDriver}s,
+ * which also guards {@link #listMachineChanges(Optional)} calls.
+ *
+ * @see ResilientCloudPoolDriver#wrap
+ */
+class ResilientIncrementalCloudPoolDriver extends ResilientCloudPoolDriver implements IncrementalCloudPoolDriver {
+
+    private final IncrementalCloudPoolDriver delegate;
+
+    ResilientIncrementalCloudPoolDriver(IncrementalCloudPoolDriver delegate, EventBus eventBus) {
+        super(delegate, eventBus);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public MachineChanges listMachineChanges(Optional<String> sinceWatermark)
+            throws IllegalStateException, CloudPoolDriverException {
+        return guard("listMachineChanges", () -> this.delegate.listMachineChanges(sinceWatermark));
+    }
+
+    @Override
+    public List<Machine> listMachines() throws IllegalStateException, CloudPoolDriverException {
+        return super.listMachines();
+    }
+}
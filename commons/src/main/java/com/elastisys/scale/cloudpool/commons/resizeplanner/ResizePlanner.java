@@ -83,7 +83,7 @@ public class ResizePlanner {
      * @return
      */
     public int getActiveSize() {
-        return this.machinePool.getActiveMachines().size();
+        return this.machinePool.getActiveSize();
     }
 
     /**
@@ -100,9 +100,8 @@ public class ResizePlanner {
         int toRequest = 0;
         List<Machine> toTerminate = new ArrayList<>();
 
-        List<Machine> activeMachines = this.machinePool.getActiveMachines();
-        int active = activeMachines.size();
-        int allocated = this.machinePool.getAllocatedMachines().size();
+        int active = this.machinePool.getActiveSize();
+        int allocated = this.machinePool.getAllocatedSize();
 
         LOG.debug("desired pool size: {} (allocated: {}, active: {})", desiredSize, allocated, active);
 
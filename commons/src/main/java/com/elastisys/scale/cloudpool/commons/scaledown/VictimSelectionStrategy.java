@@ -1,6 +1,11 @@
 package com.elastisys.scale.cloudpool.commons.scaledown;
 
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import com.elastisys.scale.cloudpool.api.types.Machine;
 
@@ -20,4 +25,40 @@ public interface VictimSelectionStrategy {
      * @return The selected victim machine instance.
      */
     Machine selectVictim(Collection<Machine> candidates);
+
+    /**
+     * Selects a number of instances, from a collection of machine instances,
+     * to schedule for (eventual) termination. The victims are returned in
+     * order of selection, such that the first element is the machine that
+     * {@link #selectVictim(Collection)} would have picked from the full
+     * candidate set.
+     * <p/>
+     * The default implementation repeatedly calls
+     * {@link #selectVictim(Collection)} on a shrinking candidate set.
+     * Implementations are encouraged to override it with a more efficient
+     * batch selection.
+     *
+     * @param candidates
+     *            The collection of machines eligible for termination.
+     * @param numVictims
+     *            The number of victims to select. May not exceed the number
+     *            of candidates.
+     * @return The selected victim machine instances.
+     */
+    default List<Machine> selectVictims(Collection<Machine> candidates, int numVictims)
+            throws IllegalArgumentException {
+        requireNonNull(candidates, "null candidate set");
+        checkArgument(numVictims >= 0, "negative number of victims");
+        checkArgument(candidates.size() >= numVictims, "more victims than termination candidates");
+
+        // defensive copy
+        List<Machine> terminationCandidates = new ArrayList<>(candidates);
+        List<Machine> victims = new ArrayList<>(numVictims);
+        for (int i = 0; i < numVictims; i++) {
+            Machine victim = selectVictim(terminationCandidates);
+            victims.add(victim);
+            terminationCandidates.remove(victim);
+        }
+        return victims;
+    }
 }
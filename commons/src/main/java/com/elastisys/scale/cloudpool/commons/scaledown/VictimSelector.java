@@ -3,7 +3,6 @@ package com.elastisys.scale.cloudpool.commons.scaledown;
 import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -11,7 +10,7 @@ import com.elastisys.scale.cloudpool.api.types.Machine;
 
 /**
  * Selects a number of victim machines to terminate from a set of candidates by
- * using a {@link VictimSelectionStrategy} to select each machine.
+ * using a {@link VictimSelectionStrategy} to select the machines.
  *
  * @see VictimSelectionStrategy
  */
@@ -51,18 +50,8 @@ public class VictimSelector {
         checkArgument(numVictims >= 0, "negative number of victims");
         checkArgument(candidates.size() >= numVictims, "more victims than termination candidates");
 
-        // defensive copy
-        List<Machine> terminationCandidates = new ArrayList<>(candidates);
-
-        List<Machine> victims = new ArrayList<>();
-        for (int i = 0; i < numVictims; i++) {
-            // use victim selection strategy to pick a victim
-            Machine victim = this.victimSelectionStrategy.selectVictim(terminationCandidates);
-            victims.add(victim);
-            terminationCandidates.remove(victim);
-        }
-
-        return victims;
+        // let the strategy pick all victims in one go
+        return this.victimSelectionStrategy.selectVictims(candidates, (int) numVictims);
     }
 
 }
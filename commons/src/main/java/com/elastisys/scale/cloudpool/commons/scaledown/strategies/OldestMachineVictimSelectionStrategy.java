@@ -4,7 +4,9 @@ import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgume
 import static java.util.Objects.requireNonNull;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.commons.scaledown.VictimSelectionStrategy;
@@ -24,7 +26,17 @@ public enum OldestMachineVictimSelectionStrategy implements VictimSelectionStrat
         requireNonNull(candidates, "null candidate set");
         checkArgument(!candidates.isEmpty(), "empty candidate set");
 
-        return Machine.sort(candidates, new OldestFirstOrder()).get(0);
+        return Collections.min(candidates, new OldestFirstOrder());
+    }
+
+    @Override
+    public List<Machine> selectVictims(Collection<Machine> candidates, int numVictims)
+            throws IllegalArgumentException {
+        requireNonNull(candidates, "null candidate set");
+        checkArgument(numVictims >= 0, "negative number of victims");
+        checkArgument(candidates.size() >= numVictims, "more victims than termination candidates");
+
+        return PartialSort.smallest(candidates, numVictims, new OldestFirstOrder());
     }
 
     /**
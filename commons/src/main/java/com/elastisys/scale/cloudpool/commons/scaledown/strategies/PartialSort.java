@@ -0,0 +1,96 @@
+package com.elastisys.scale.cloudpool.commons.scaledown.strategies;
+
+import static com.elastisys.scale.commons.util.precond.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Partial sorting utilities used by the built-in victim selection strategies
+ * to pick the first {@code k} elements of a collection (according to some
+ * order) without sorting the entire collection.
+ */
+public class PartialSort {
+
+    private PartialSort() {
+        throw new IllegalStateException("Not instantiable.");
+    }
+
+    /**
+     * Returns the {@code k} smallest elements of a collection according to a
+     * given {@link Comparator}, in ascending order. Equal elements are ordered
+     * as in the collection's iteration order, so this is equivalent to (but
+     * cheaper than) stably sorting the full collection and taking its first
+     * {@code k} elements: a bounded max-heap is used, which makes the
+     * operation {@code O(n log k)} in time and {@code O(k)} in space.
+     *
+     * @param elements
+     *            The elements to select from.
+     * @param k
+     *            The number of elements to select. Must be in the range
+     *            {@code [0, elements.size()]}.
+     * @param order
+     *            The order by which elements are compared.
+     * @return The {@code k} smallest elements, in ascending order.
+     */
+    public static <T> List<T> smallest(Collection<? extends T> elements, int k, Comparator<? super T> order) {
+        requireNonNull(elements, "null elements");
+        requireNonNull(order, "null order");
+        checkArgument(k >= 0, "negative k");
+        checkArgument(k <= elements.size(), "k exceeds number of elements");
+
+        if (k == 0) {
+            return new ArrayList<>(0);
+        }
+        if (k == elements.size()) {
+            // List.sort is stable
+            List<T> all = new ArrayList<>(elements);
+            all.sort(order);
+            return all;
+        }
+
+        // ties are broken by position, so that the heap holds (and evicts)
+        // the same elements that a stable sort would put first (and last)
+        Comparator<Indexed<T>> stableOrder = Comparator.<Indexed<T>, T> comparing(indexed -> indexed.element, order)
+                .thenComparingInt(indexed -> indexed.index);
+
+        // max-heap (with respect to order) holding the k smallest elements
+        // seen so far. its head is the largest of those, and the element to
+        // evict when a smaller one is encountered.
+        PriorityQueue<Indexed<T>> heap = new PriorityQueue<>(k, stableOrder.reversed());
+        int index = 0;
+        for (T element : elements) {
+            if (heap.size() < k) {
+                heap.add(new Indexed<>(element, index));
+            } else if (order.compare(element, heap.peek().element) < 0) {
+                // a later element only displaces a strictly larger one
+                heap.poll();
+                heap.add(new Indexed<>(element, index));
+            }
+            index++;
+        }
+
+        List<Indexed<T>> selected = new ArrayList<>(heap);
+        selected.sort(stableOrder);
+        List<T> result = new ArrayList<>(k);
+        for (Indexed<T> indexed : selected) {
+            result.add(indexed.element);
+        }
+        return result;
+    }
+
+    /** An element together with its position in the input collection. */
+    private static class Indexed<T> {
+        private final T element;
+        private final int index;
+
+        Indexed(T element, int index) {
+            this.element = element;
+            this.index = index;
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.elastisys.scale.cloudpool.commons.basepool;
 
-import static java.lang.String.format;
-
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.hamcrest.Description;
@@ -11,29 +12,43 @@ import org.hamcrest.TypeSafeMatcher;
 
 import com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertTopics;
 import com.elastisys.scale.commons.net.alerter.Alert;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
 
 public class IsDetachAlert extends TypeSafeMatcher<Alert> {
 
-    private final String machineId;
+    private final List<String> machineIds;
 
-    public IsDetachAlert(String machineId) {
-        this.machineId = machineId;
+    public IsDetachAlert(List<String> machineIds) {
+        this.machineIds = machineIds;
     }
 
     @Override
     public boolean matchesSafely(Alert someAlert) {
-        String messagePattern = format("Detached machine %s", this.machineId);
-        return Objects.equals(AlertTopics.RESIZE.name(), someAlert.getTopic())
-                && someAlert.getMessage().contains(messagePattern);
+        if (!Objects.equals(AlertTopics.RESIZE.name(), someAlert.getTopic())) {
+            return false;
+        }
+        for (String machineId : this.machineIds) {
+            Map<String, JsonElement> alertTags = someAlert.getMetadata();
+            if (alertTags == null || !alertTags.containsKey("detachedMachines")) {
+                return false;
+            }
+            JsonArray detached = alertTags.get("detachedMachines").getAsJsonArray();
+            if (!detached.contains(new JsonPrimitive(machineId))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public void describeTo(Description description) {
-        description.appendText(String.format("detach alert for %s", this.machineId));
+        description.appendText(String.format("detach alert for %s", this.machineIds));
     }
 
     @Factory
-    public static <T> Matcher<Alert> isDetachAlert(String machineId) {
-        return new IsDetachAlert(machineId);
+    public static <T> Matcher<Alert> isDetachAlert(String... machineIds) {
+        return new IsDetachAlert(Arrays.asList(machineIds));
     }
-}
\ No newline at end of file
+}
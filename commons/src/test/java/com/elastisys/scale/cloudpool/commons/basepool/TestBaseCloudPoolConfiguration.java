@@ -8,7 +8,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -296,6 +298,19 @@ public class TestBaseCloudPoolConfiguration {
         assertThat(this.cloudPool.isStarted(), is(false));
     }
 
+    /**
+     * Modifying a returned configuration must not affect the configuration
+     * held by the {@link BaseCloudPool}.
+     */
+    @Test
+    public void testGetConfigurationReturnsCopy() {
+        JsonObject config = JsonUtils.parseJsonResource("config/valid-cloudpool-config-minimal.json").getAsJsonObject();
+        this.cloudPool.configure(config);
+
+        this.cloudPool.getConfiguration().get().addProperty("name", "tampered");
+        assertEquals(config, this.cloudPool.getConfiguration().get());
+    }
+
     /**
      * Configuring a stared {@link BaseCloudPool} should leave it in that state.
      */
@@ -337,6 +352,40 @@ public class TestBaseCloudPoolConfiguration {
         assertFalse(oldConfig.equals(newConfig));
     }
 
+    /**
+     * Re-configuring a started {@link BaseCloudPool} should be done in place:
+     * the desired size should be kept, the pool should be served throughout
+     * and the driver should only be re-configured if its settings changed.
+     */
+    @Test
+    public void testReConfigureStartedInPlace() {
+        JsonObject config = JsonUtils.parseJsonResource("config/valid-cloudpool-config-minimal.json").getAsJsonObject();
+        this.cloudPool.configure(config);
+        this.cloudPool.start();
+        this.cloudPool.setDesiredSize(2);
+
+        // new update interval
+        JsonObject newConfig = JsonUtils.parseJsonResource("config/valid-cloudpool-config-minimal.json")
+                .getAsJsonObject();
+        newConfig.add("poolUpdate",
+                JsonUtils.parseJsonString("{\"updateInterval\": {\"time\": 2, \"unit\": \"minutes\"}}"));
+        this.cloudPool.configure(newConfig);
+
+        assertThat(this.cloudPool.isStarted(), is(true));
+        assertThat(this.cloudPool.config().getPoolUpdate().getUpdateInterval(),
+                is(new TimeInterval(2L, TimeUnit.MINUTES)));
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(2));
+        assertThat(this.cloudPool.getMachinePool().getMachines().isEmpty(), is(true));
+        verify(this.driverMock, times(1)).configure(any(DriverConfig.class));
+
+        // new cloud API settings
+        newConfig = JsonUtils.parseJsonResource("config/valid-cloudpool-config-minimal.json").getAsJsonObject();
+        newConfig.getAsJsonObject("cloudApiSettings").addProperty("region", "RegionTwo");
+        this.cloudPool.configure(newConfig);
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(2));
+        verify(this.driverMock, times(2)).configure(any(DriverConfig.class));
+    }
+
     /**
      * When the cloud pool is configured, it should only throw exceptions in
      * case the configuration is invalid (not adhering to schema or obvious
@@ -23,16 +23,20 @@ import static com.elastisys.scale.commons.net.alerter.AlertSeverity.INFO;
 import static com.elastisys.scale.commons.net.alerter.AlertSeverity.WARN;
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.any;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -42,12 +46,15 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -55,6 +62,12 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 
 import org.joda.time.DateTime;
 import org.junit.Before;
@@ -69,16 +82,26 @@ import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotEvictableException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.NotStartedException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.metrics.MetricSample;
+import com.elastisys.scale.cloudpool.api.restapi.impl.CloudPoolRestApiImpl;
+import com.elastisys.scale.cloudpool.api.restapi.types.AttachMachineRequest;
+import com.elastisys.scale.cloudpool.api.restapi.types.TerminateMachineRequest;
+import com.elastisys.scale.cloudpool.api.types.BatchOperationResult;
+import com.elastisys.scale.cloudpool.api.types.CloudPoolStatus;
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.PoolMutationStatus;
 import com.elastisys.scale.cloudpool.api.types.PoolSizeSummary;
 import com.elastisys.scale.cloudpool.api.types.ServiceState;
 import com.elastisys.scale.cloudpool.commons.basepool.config.BaseCloudPoolConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.PoolFetchConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.PoolUpdateConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.RetriesConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.config.ScaleInConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.WarmPoolConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
@@ -177,6 +200,23 @@ public class TestBaseCloudPoolOperation {
         assertThat(this.cloudPool.getStatus().isStarted(), is(true));
     }
 
+    /**
+     * {@link CloudPool#getStatus()} is called on every REST API request and
+     * should not build a new {@link CloudPoolStatus} unless the status has
+     * changed.
+     */
+    @Test
+    public void getStatusReusedUntilChanged() {
+        this.cloudPool.configure(poolConfig(OLDEST));
+        CloudPoolStatus stopped = this.cloudPool.getStatus();
+        assertSame(stopped, this.cloudPool.getStatus());
+
+        this.cloudPool.start();
+        CloudPoolStatus started = this.cloudPool.getStatus();
+        assertThat(started.isStarted(), is(true));
+        assertSame(started, this.cloudPool.getStatus());
+    }
+
     /**
      * Should not be possible to start a {@link CloudPool} before being
      * configured.
@@ -323,6 +363,35 @@ public class TestBaseCloudPoolOperation {
         verify(this.eventBusMock).post(argThat(IsStartAlert.isStartAlert("i-5")));
     }
 
+    /**
+     * Driver calls, pool refreshes and pool updates should be recorded in the
+     * {@link MetricRegistry} of the {@link BaseCloudPool}.
+     */
+    @Test
+    public void recordMetrics() throws Exception {
+        Machine active = machine("i-1", MachineState.RUNNING);
+        when(this.driverMock.listMachines()).thenReturn(machines(active));
+        when(this.driverMock.startMachines(1)).thenReturn(machines(machine("i-2", MachineState.PENDING)));
+
+        this.cloudPool.configure(poolConfig(OLDEST));
+        this.cloudPool.start();
+        this.cloudPool.setDesiredSize(2).get();
+
+        MetricRegistry metrics = this.cloudPool.getMetrics().get();
+        // driver calls
+        assertThat(metric(metrics, "cloudpool_driver_request_duration_seconds_count{operation=\"startMachines\"}"),
+                is(1.0));
+        assertTrue(
+                metric(metrics, "cloudpool_driver_request_duration_seconds_count{operation=\"listMachines\"}") >= 1);
+        // pool updater
+        assertTrue(metric(metrics, "cloudpool_pool_update_duration_seconds_count") >= 1);
+        assertThat(metric(metrics, "cloudpool_desired_size"), is(2.0));
+        assertThat(metric(metrics, "cloudpool_pool_command_queue_depth"), is(0.0));
+        // pool fetcher
+        assertTrue(metric(metrics, "cloudpool_pool_refresh_duration_seconds_count") >= 1);
+        assertThat(metric(metrics, "cloudpool_pool_refresh_errors_total"), is(0.0));
+    }
+
     @Test
     public void multiMachineScaleUpOfMachinePool() throws Exception {
         // set up initial pool
@@ -485,6 +554,89 @@ public class TestBaseCloudPoolOperation {
         verify(this.eventBusMock).post(argThat(isAlert(RESIZE.name(), WARN)));
     }
 
+    /**
+     * When new machines fail to start after warm machines were promoted on
+     * scale-out, the resulting {@link StartMachinesException} should report
+     * both the promoted and the newly started machines.
+     */
+    @Test
+    public void partiallyFailedScaleUpFromWarmPool() throws Exception {
+        // set up initial pool and a warm pool with a single machine
+        Machine active1 = machine("i-1", MachineState.RUNNING);
+        when(this.driverMock.listMachines()).thenReturn(machines(active1));
+        when(this.driverMock.supportsWarmPool()).thenReturn(true);
+        when(this.driverMock.listWarmMachines()).thenReturn(machines(machine("w-1", MachineState.TERMINATED)));
+        when(this.driverMock.promoteWarmMachines(asList("w-1")))
+                .thenReturn(machines(machine("w-1", MachineState.PENDING)));
+        // when asked to start two machines, only one is started before an error
+        // occurs
+        Throwable partialFault = new StartMachinesException(2, machines(machine("i-2", MachineState.PENDING)),
+                new Exception("failed to start second machine"));
+        when(this.driverMock.startMachines(2)).thenThrow(partialFault);
+
+        JsonObject config = poolConfig(OLDEST);
+        config.add("warmPool", JsonUtils.toJson(new WarmPoolConfig(1, false)));
+        this.cloudPool.configure(config);
+        this.cloudPool.start();
+
+        try {
+            this.cloudPool.setDesiredSize(4).get();
+            fail("cloud pool expected to fail when startMachines fail");
+        } catch (ExecutionException e) {
+            // expected
+            assertThat(e.getCause().getCause(), instanceOf(StartMachinesException.class));
+            StartMachinesException startFailure = (StartMachinesException) e.getCause().getCause();
+            assertThat(startFailure.getRequestedMachines(), is(3));
+            assertThat(startFailure.getStartedMachines().stream().map(Machine::getId).collect(Collectors.toList()),
+                    is(asList("w-1", "i-2")));
+            assertThat(startFailure.getCause(), is(partialFault));
+        }
+
+        verify(this.eventBusMock).post(argThat(isStartAlert("w-1", "i-2")));
+    }
+
+    /**
+     * When {@link CloudPoolDriver#startMachines} fails after starting a subset
+     * of the requested machines, pool observations made before the scale-out
+     * must not be acted on, or the started machines would be requested again.
+     */
+    @Test
+    public void noDuplicateStartsAfterPartiallyFailedScaleUp() throws Exception {
+        // set up initial pool
+        Machine active1 = machine("i-1", MachineState.RUNNING);
+        Machine active2 = machine("i-2", MachineState.RUNNING);
+        List<Machine> members = new ArrayList<>(asList(active1, active2));
+        when(this.driverMock.listMachines()).thenAnswer(invocation -> new ArrayList<>(members));
+        // when asked to start two machines, only one is started before an error
+        // occurs
+        Machine newMachine = machine("i-3", MachineState.PENDING);
+        doAnswer(invocation -> {
+            members.add(newMachine);
+            throw new StartMachinesException(2, machines(newMachine), new Exception("failed to start second machine"));
+        }).when(this.driverMock).startMachines(2);
+        when(this.driverMock.startMachines(1)).thenReturn(machines(machine("i-4", MachineState.PENDING)));
+
+        // allow pool updates to act on (time-frozen) cached pool observations
+        JsonObject config = poolConfig(OLDEST);
+        config.add("poolUpdate", JsonUtils.toJson(new PoolUpdateConfig(new TimeInterval(60L, TimeUnit.SECONDS), null,
+                new TimeInterval(10L, TimeUnit.MINUTES))));
+        this.cloudPool.configure(config);
+        this.cloudPool.start();
+
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(2));
+        try {
+            this.cloudPool.setDesiredSize(4).get();
+            fail("cloud pool expected to fail when startMachines fail");
+        } catch (ExecutionException e) {
+            // expected
+        }
+
+        // the next pool update should only request the missing machine
+        this.cloudPool.setDesiredSize(4).get();
+        verify(this.driverMock).startMachines(2);
+        verify(this.driverMock).startMachines(1);
+    }
+
     /**
      * Verify cloud pool behavior when scaling down machine pool by a single
      * machine.
@@ -1137,6 +1289,184 @@ public class TestBaseCloudPoolOperation {
         assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(1));
     }
 
+    /**
+     * Verifies that a batch of machines is terminated with a single driver
+     * call, that machines that cannot be terminated are reported per machine,
+     * and that the desired size is decremented once per terminated machine.
+     */
+    @Test
+    public void terminateMachinesInBatch() {
+        // set up initial pool
+        DateTime now = UtcTime.now();
+        Machine running1 = machine("i-1", RUNNING, MembershipStatus.defaultStatus(), now.minus(3));
+        Machine running2 = machine("i-2", RUNNING, MembershipStatus.defaultStatus(), now.minus(2));
+        // note: machine is not evictable
+        Machine running3 = machine("i-3", RUNNING, MembershipStatus.blessed(), now.minus(1));
+        when(this.driverMock.listMachines()).thenReturn(machines(running1, running2, running3));
+        this.cloudPool.configure(poolConfig(OLDEST));
+        this.cloudPool.start();
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(3));
+
+        doNothing().when(this.driverMock).terminateMachines(asList("i-1", "i-2"));
+
+        boolean decrementDesiredSize = true;
+        BatchOperationResult result = this.cloudPool.terminateMachines(asList("i-1", "i-2", "i-3", "i-X"),
+                decrementDesiredSize);
+
+        assertThat(result.getSucceeded(), is(asList("i-1", "i-2")));
+        assertThat(result.getFailed().keySet(), is(new HashSet<>(asList("i-3", "i-X"))));
+        // a single driver call should have been made
+        verify(this.driverMock).terminateMachines(asList("i-1", "i-2"));
+        verify(this.driverMock, times(1)).terminateMachines(Matchers.anyList());
+        verify(this.eventBusMock).post(argThat(isTerminationAlert("i-1", "i-2")));
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(1));
+    }
+
+    /**
+     * When a batch termination partially fails, only machines that were
+     * terminated should be reported as such and count towards the desired
+     * size decrement.
+     */
+    @Test
+    public void terminateMachinesInBatchWithPartialFailure() {
+        // set up initial pool
+        DateTime now = UtcTime.now();
+        Machine running1 = machine("i-1", RUNNING, MembershipStatus.defaultStatus(), now.minus(2));
+        Machine running2 = machine("i-2", RUNNING, MembershipStatus.defaultStatus(), now.minus(1));
+        when(this.driverMock.listMachines()).thenReturn(machines(running1, running2));
+        this.cloudPool.configure(poolConfig(OLDEST));
+        this.cloudPool.start();
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(2));
+
+        // driver fails to terminate i-2
+        Map<String, Throwable> terminationErrors = Maps.of("i-2", new RuntimeException("api error"));
+        doThrow(new TerminateMachinesException(asList("i-1"), terminationErrors)).when(this.driverMock)
+                .terminateMachines(asList("i-1", "i-2"));
+
+        BatchOperationResult result = this.cloudPool.terminateMachines(asList("i-1", "i-2"), true);
+
+        assertThat(result.getSucceeded(), is(asList("i-1")));
+        assertThat(result.getFailed().keySet(), is(Collections.singleton("i-2")));
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(1));
+    }
+
+    /**
+     * When a batch termination fails altogether, every machine in the batch
+     * should be reported as failed, without retrying them one at a time.
+     */
+    @Test
+    public void terminateMachinesInBatchOnDriverError() {
+        // set up initial pool
+        DateTime now = UtcTime.now();
+        Machine running1 = machine("i-1", RUNNING, MembershipStatus.defaultStatus(), now.minus(2));
+        Machine running2 = machine("i-2", RUNNING, MembershipStatus.defaultStatus(), now.minus(1));
+        when(this.driverMock.listMachines()).thenReturn(machines(running1, running2));
+        this.cloudPool.configure(poolConfig(OLDEST));
+        this.cloudPool.start();
+
+        doThrow(new CloudPoolDriverException("api outage")).when(this.driverMock)
+                .terminateMachines(asList("i-1", "i-2"));
+
+        BatchOperationResult result = this.cloudPool.terminateMachines(asList("i-1", "i-2"), true);
+
+        assertThat(result.getSucceeded(), is(Collections.emptyList()));
+        assertThat(result.getFailed().keySet(), is(new HashSet<>(asList("i-1", "i-2"))));
+        verify(this.driverMock, times(1)).terminateMachines(Matchers.anyList());
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(2));
+    }
+
+    /**
+     * A batch termination whose caller is interrupted while waiting should
+     * report the machines whose termination has not yet completed as pending
+     * (rather than failed), since they are still being terminated.
+     */
+    @Test
+    public void terminateMachinesInBatchWhenInterrupted() throws Exception {
+        // set up initial pool
+        DateTime now = UtcTime.now();
+        Machine running1 = machine("i-1", RUNNING, MembershipStatus.defaultStatus(), now.minus(2));
+        Machine running2 = machine("i-2", RUNNING, MembershipStatus.defaultStatus(), now.minus(1));
+        when(this.driverMock.listMachines()).thenReturn(machines(running1, running2));
+        this.cloudPool.configure(poolConfig(OLDEST));
+        this.cloudPool.start();
+
+        // driver call does not return until released
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            called.countDown();
+            release.await();
+            return null;
+        }).when(this.driverMock).terminateMachines(asList("i-1", "i-2"));
+
+        AtomicReference<BatchOperationResult> result = new AtomicReference<>();
+        AtomicBoolean interruptRestored = new AtomicBoolean(false);
+        Thread caller = new Thread(() -> {
+            result.set(this.cloudPool.terminateMachines(asList("i-1", "i-2"), true));
+            interruptRestored.set(Thread.currentThread().isInterrupted());
+        });
+        caller.start();
+        assertTrue(called.await(10, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(TimeUnit.SECONDS.toMillis(10));
+        release.countDown();
+
+        assertThat(result.get(),
+                is(new BatchOperationResult(Collections.emptyList(), Collections.emptyMap(), asList("i-1", "i-2"))));
+        assertThat(interruptRestored.get(), is(true));
+    }
+
+    /**
+     * A driver that cannot detach several machines in one call should have
+     * them detached one at a time.
+     */
+    @Test
+    public void detachMachinesInBatchWhenUnsupported() {
+        // set up initial pool
+        DateTime now = UtcTime.now();
+        Machine running1 = machine("i-1", RUNNING, MembershipStatus.defaultStatus(), now.minus(2));
+        Machine running2 = machine("i-2", RUNNING, MembershipStatus.defaultStatus(), now.minus(1));
+        when(this.driverMock.listMachines()).thenReturn(machines(running1, running2));
+        this.cloudPool.configure(poolConfig(OLDEST));
+        this.cloudPool.start();
+
+        doThrow(new UnsupportedOperationException("no batch detach")).when(this.driverMock)
+                .detachMachines(asList("i-1", "i-2"));
+
+        BatchOperationResult result = this.cloudPool.detachMachines(asList("i-1", "i-2"), false);
+
+        assertThat(result, is(new BatchOperationResult(asList("i-1", "i-2"), Collections.emptyMap())));
+        verify(this.driverMock).detachMachine("i-1");
+        verify(this.driverMock).detachMachine("i-2");
+    }
+
+    /**
+     * Verifies that a batch of machines is detached with a single driver call,
+     * and reported in a single alert.
+     */
+    @Test
+    public void detachMachinesInBatch() {
+        // set up initial pool
+        DateTime now = UtcTime.now();
+        Machine running1 = machine("i-1", RUNNING, MembershipStatus.defaultStatus(), now.minus(2));
+        Machine running2 = machine("i-2", RUNNING, MembershipStatus.defaultStatus(), now.minus(1));
+        when(this.driverMock.listMachines()).thenReturn(machines(running1, running2));
+        this.cloudPool.configure(poolConfig(OLDEST));
+        this.cloudPool.start();
+
+        doNothing().when(this.driverMock).detachMachines(asList("i-1", "i-2"));
+
+        BatchOperationResult result = this.cloudPool.detachMachines(asList("i-1", "i-2"), false);
+
+        assertThat(result, is(new BatchOperationResult(asList("i-1", "i-2"), Collections.emptyMap())));
+        verify(this.driverMock).detachMachines(asList("i-1", "i-2"));
+        // a single alert should be posted for the batch
+        verify(this.eventBusMock, times(1)).post(argThat(isDetachAlert("i-1", "i-2")));
+        verify(this.eventBusMock, times(1)).post(argThat(isDetachAlert("i-1")));
+        // replacements are desired
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(2));
+    }
+
     /**
      * It should not be possible to detach a non-member machine. That should
      * result in a {@link NotFoundException}.
@@ -1329,7 +1659,8 @@ public class TestBaseCloudPoolOperation {
         // use an executor that works normally until cloudpool has been started
         // and then halt its progress to simulate a slow pool update operation
         HaltableScheduledExecutorService haltableExecutor = new HaltableScheduledExecutorService(this.executor);
-        this.cloudPool = new BaseCloudPool(STATE_STORAGE, this.driverMock, haltableExecutor, this.eventBusMock);
+        this.cloudPool = new BaseCloudPool(STATE_STORAGE, this.driverMock, haltableExecutor, haltableExecutor,
+                this.eventBusMock);
         reset(this.eventBusMock);
 
         // set up initial pool
@@ -1459,6 +1790,50 @@ public class TestBaseCloudPoolOperation {
         verify(this.eventBusMock).post(argThat(isAttachAlert("i-1")));
     }
 
+    /**
+     * Attaching a machine that does not exist must be reported with a
+     * {@code 404} by the REST API, even though the attach is carried out
+     * asynchronously (possibly after the request has been answered). The
+     * desired size should be left as-is.
+     */
+    @Test
+    public void attachUnknownMachineViaRestApi() throws Exception {
+        DateTime now = UtcTime.now();
+        Machine running1 = machine("i-1", RUNNING, MembershipStatus.defaultStatus(), now.minus(1));
+        when(this.driverMock.listMachines()).thenReturn(machines(running1));
+        this.cloudPool.configure(poolConfig(OLDEST));
+        this.cloudPool.start();
+
+        doThrow(new NotFoundException("no such machine: i-X")).when(this.driverMock).attachMachine("i-X");
+
+        CloudPoolRestApiImpl restApi = restApi();
+        Response response = restApi.attachMachine(new AttachMachineRequest("i-X"));
+        assertThat(outcome(restApi, response), is(Status.NOT_FOUND.getStatusCode()));
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(1));
+        verify(this.eventBusMock, never()).post(argThat(isAttachAlert("i-X")));
+    }
+
+    /**
+     * A cloud error that occurs while terminating a machine must be reported
+     * to REST API clients, even though the termination is carried out
+     * asynchronously.
+     */
+    @Test
+    public void terminateMachineOnDriverErrorViaRestApi() throws Exception {
+        DateTime now = UtcTime.now();
+        Machine running1 = machine("i-1", RUNNING, MembershipStatus.defaultStatus(), now.minus(1));
+        when(this.driverMock.listMachines()).thenReturn(machines(running1));
+        this.cloudPool.configure(poolConfig(OLDEST));
+        this.cloudPool.start();
+
+        doThrow(new CloudPoolDriverException("api outage")).when(this.driverMock).terminateMachines(asList("i-1"));
+
+        CloudPoolRestApiImpl restApi = restApi();
+        Response response = restApi.terminateMachine(new TerminateMachineRequest("i-1", true));
+        assertThat(outcome(restApi, response), is(Status.BAD_GATEWAY.getStatusCode()));
+        assertThat(this.cloudPool.getPoolSize().getDesiredSize(), is(1));
+    }
+
     /**
      * Verifies proper behavior when a machine instance in the group is detached
      * via {@link CloudPool#detachMachine(String, boolean)} and a replacement
@@ -1688,6 +2063,50 @@ public class TestBaseCloudPoolOperation {
         }
     }
 
+    private static double metric(MetricRegistry metrics, String key) {
+        for (MetricSample sample : metrics.getSamples()) {
+            if (sample.getKey().equals(key)) {
+                return sample.getValue();
+            }
+        }
+        throw new AssertionError("no such metric: " + key);
+    }
+
+    /**
+     * Creates a {@link CloudPoolRestApiImpl} in front of the
+     * {@link BaseCloudPool} under test.
+     *
+     * @return
+     */
+    private CloudPoolRestApiImpl restApi() {
+        return new CloudPoolRestApiImpl(this.cloudPool, new File(STATE_STORAGE_DIR, "rest").getPath());
+    }
+
+    /**
+     * Returns the HTTP status code of the outcome of a terminate, detach or
+     * attach request. A request that was answered before its pool mutation
+     * had completed is followed until the mutation completes.
+     */
+    private static int outcome(CloudPoolRestApiImpl restApi, Response response) throws InterruptedException {
+        if (response.getStatus() != Status.ACCEPTED.getStatusCode()) {
+            return response.getStatus();
+        }
+        String id = mutationStatus(response).getId();
+        PoolMutationStatus status = mutationStatus(restApi.getPoolMutation(id));
+        while (status.getState() == PoolMutationStatus.State.PENDING) {
+            Thread.sleep(10);
+            status = mutationStatus(restApi.getPoolMutation(id));
+        }
+        if (status.getState() == PoolMutationStatus.State.FAILED) {
+            return status.getErrorCode();
+        }
+        return Status.OK.getStatusCode();
+    }
+
+    private static PoolMutationStatus mutationStatus(Response response) {
+        return JsonUtils.toObject((JsonObject) response.getEntity(), PoolMutationStatus.class);
+    }
+
     /**
      * A {@link ScheduledExecutorService} that simply delegates all actions to a
      * {@link ScheduledExecutorService} instance given on creation until its
@@ -1803,5 +2222,4 @@ public class TestBaseCloudPoolOperation {
         }
 
     }
-
 }
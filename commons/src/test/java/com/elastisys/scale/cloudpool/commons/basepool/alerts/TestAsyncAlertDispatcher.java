@@ -0,0 +1,187 @@
+package com.elastisys.scale.cloudpool.commons.basepool.alerts;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.net.alerter.Alert;
+import com.elastisys.scale.commons.net.alerter.AlertBuilder;
+import com.elastisys.scale.commons.net.alerter.AlertSeverity;
+import com.elastisys.scale.commons.net.alerter.Alerter;
+
+/**
+ * Exercises the {@link AsyncAlertDispatcher}.
+ */
+public class TestAsyncAlertDispatcher {
+
+    /** Collects all {@link Alert}s that reach the sink. */
+    private final List<Alert> sinkAlerts = new CopyOnWriteArrayList<>();
+
+    /**
+     * Posted {@link Alert}s should eventually be delivered to the sink.
+     */
+    @Test
+    public void dispatchAlerts() throws Exception {
+        AsyncAlertDispatcher dispatcher = new AsyncAlertDispatcher(alert -> this.sinkAlerts.add(alert));
+
+        dispatcher.handleAlert(alert("machine i-1 started"));
+        dispatcher.handleAlert(alert("machine i-2 started"));
+        dispatcher.handleAlert(alert("machine i-3 started"));
+
+        awaitDispatched(dispatcher, 3);
+        assertThat(this.sinkAlerts.size(), is(3));
+        assertThat(dispatcher.getQueueDepth(), is(0));
+        assertThat(dispatcher.getDroppedCount(), is(0L));
+    }
+
+    /**
+     * A slow sink must not hold up the posting thread. When the queue fills
+     * up, alerts should be coalesced with queued duplicates or dropped.
+     */
+    @Test
+    public void coalesceOrDropWhenQueueIsFull() throws Exception {
+        CountDownLatch sinkEntered = new CountDownLatch(1);
+        CountDownLatch releaseSink = new CountDownLatch(1);
+        Alerter slowSink = alert -> {
+            sinkEntered.countDown();
+            await(releaseSink);
+            this.sinkAlerts.add(alert);
+        };
+        AsyncAlertDispatcher dispatcher = new AsyncAlertDispatcher(slowSink, 2, 10);
+
+        // first alert is picked up by the dispatcher, which gets stuck in sink
+        dispatcher.handleAlert(alert("alert-1"));
+        assertTrue(sinkEntered.await(5, TimeUnit.SECONDS));
+
+        // fill up queue
+        dispatcher.handleAlert(alert("alert-2"));
+        dispatcher.handleAlert(alert("alert-3"));
+        assertThat(dispatcher.getQueueDepth(), is(2));
+
+        // duplicate of queued alert: coalesced
+        dispatcher.handleAlert(alert("alert-2"));
+        assertThat(dispatcher.getCoalescedCount(), is(1L));
+        // new alert: dropped
+        dispatcher.handleAlert(alert("alert-4"));
+        assertThat(dispatcher.getDroppedCount(), is(1L));
+
+        releaseSink.countDown();
+        awaitDispatched(dispatcher, 3);
+        assertThat(this.sinkAlerts.size(), is(3));
+    }
+
+    /**
+     * Identical alerts that end up in the same dispatch batch should only be
+     * delivered once.
+     */
+    @Test
+    public void coalesceDuplicatesWithinBatch() throws Exception {
+        CountDownLatch sinkEntered = new CountDownLatch(1);
+        CountDownLatch releaseSink = new CountDownLatch(1);
+        Alerter slowSink = alert -> {
+            sinkEntered.countDown();
+            await(releaseSink);
+            this.sinkAlerts.add(alert);
+        };
+        AsyncAlertDispatcher dispatcher = new AsyncAlertDispatcher(slowSink, 10, 10);
+
+        dispatcher.handleAlert(alert("alert-1"));
+        assertTrue(sinkEntered.await(5, TimeUnit.SECONDS));
+        // these are queued up while the dispatcher is busy
+        dispatcher.handleAlert(alert("pool refresh failed"));
+        dispatcher.handleAlert(alert("pool refresh failed"));
+        dispatcher.handleAlert(alert("pool refresh failed"));
+
+        releaseSink.countDown();
+        awaitDispatched(dispatcher, 2);
+        assertThat(this.sinkAlerts.size(), is(2));
+        assertThat(dispatcher.getCoalescedCount(), is(2L));
+    }
+
+    /**
+     * Alerts with the same message but different metadata (such as the ids of
+     * the requested machines) carry different information and should all be
+     * delivered.
+     */
+    @Test
+    public void doNotCoalesceAlertsWithDifferentMetadata() throws Exception {
+        CountDownLatch sinkEntered = new CountDownLatch(1);
+        CountDownLatch releaseSink = new CountDownLatch(1);
+        Alerter slowSink = alert -> {
+            sinkEntered.countDown();
+            await(releaseSink);
+            this.sinkAlerts.add(alert);
+        };
+        AsyncAlertDispatcher dispatcher = new AsyncAlertDispatcher(slowSink, 10, 10);
+
+        dispatcher.handleAlert(alert("alert-1"));
+        assertTrue(sinkEntered.await(5, TimeUnit.SECONDS));
+        // queued up in the same batch while the dispatcher is busy
+        dispatcher.handleAlert(alert("1 machine(s) were requested from cloud pool", "i-2"));
+        dispatcher.handleAlert(alert("1 machine(s) were requested from cloud pool", "i-3"));
+
+        releaseSink.countDown();
+        awaitDispatched(dispatcher, 3);
+        assertThat(this.sinkAlerts.size(), is(3));
+        assertThat(dispatcher.getCoalescedCount(), is(0L));
+    }
+
+    /**
+     * A sink that fails with an {@link Error} (rather than an
+     * {@link Exception}) should not stop later alerts from being delivered.
+     */
+    @Test
+    public void dispatchAfterSinkError() throws Exception {
+        Alerter failingSink = alert -> {
+            if (alert.getMessage().equals("alert-1")) {
+                throw new NoClassDefFoundError("javax/mail/Transport");
+            }
+            this.sinkAlerts.add(alert);
+        };
+        AsyncAlertDispatcher dispatcher = new AsyncAlertDispatcher(failingSink);
+
+        dispatcher.handleAlert(alert("alert-1"));
+        dispatcher.handleAlert(alert("alert-2"));
+        awaitDispatched(dispatcher, 1);
+        // the dispatcher should still be able to dispatch new alerts
+        dispatcher.handleAlert(alert("alert-3"));
+        awaitDispatched(dispatcher, 2);
+
+        assertThat(this.sinkAlerts.size(), is(2));
+        assertThat(dispatcher.getQueueDepth(), is(0));
+    }
+
+    private static Alert alert(String message, String requestedMachine) {
+        return AlertBuilder.create().topic(AlertTopics.RESIZE.name()).severity(AlertSeverity.INFO).message(message)
+                .addMetadata("requestedMachines", JsonUtils.toJson(requestedMachine)).build();
+    }
+
+    private static Alert alert(String message) {
+        return AlertBuilder.create().topic(AlertTopics.RESIZE.name()).severity(AlertSeverity.INFO).message(message)
+                .build();
+    }
+
+    private static void awaitDispatched(AsyncAlertDispatcher dispatcher, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getDispatchedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(dispatcher.getDispatchedCount(), is(count));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
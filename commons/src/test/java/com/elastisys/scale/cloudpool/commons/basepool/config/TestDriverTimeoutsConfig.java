@@ -0,0 +1,52 @@
+package com.elastisys.scale.cloudpool.commons.basepool.config;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * Exercise {@link DriverTimeoutsConfig}.
+ */
+public class TestDriverTimeoutsConfig {
+
+    @Test
+    public void basicSanity() {
+        TimeInterval defaultTimeout = new TimeInterval(60L, TimeUnit.SECONDS);
+        TimeInterval listTimeout = new TimeInterval(10L, TimeUnit.SECONDS);
+        DriverTimeoutsConfig config = new DriverTimeoutsConfig(defaultTimeout,
+                Collections.singletonMap("listMachines", listTimeout));
+
+        config.validate();
+
+        assertThat(config.getTimeout("listMachines"), is(listTimeout));
+        assertThat(config.getTimeout("terminateMachines"), is(defaultTimeout));
+    }
+
+    @Test
+    public void defaults() {
+        DriverTimeoutsConfig config = new DriverTimeoutsConfig(null, null);
+        config.validate();
+        assertThat(config.getTimeout("listMachines"), is(DriverTimeoutsConfig.DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * A misspelled operation name would otherwise silently leave the
+     * operation with the default timeout.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOperation() {
+        new DriverTimeoutsConfig(null,
+                Collections.singletonMap("listMachine", new TimeInterval(10L, TimeUnit.SECONDS))).validate();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveTimeout() {
+        new DriverTimeoutsConfig(new TimeInterval(0L, TimeUnit.SECONDS), null).validate();
+    }
+}
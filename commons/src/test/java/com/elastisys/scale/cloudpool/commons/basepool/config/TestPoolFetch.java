@@ -26,6 +26,35 @@ public class TestPoolFetch {
         assertThat(config.getRetries(), is(new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS))));
         assertThat(config.getRefreshInterval(), is(new TimeInterval(30L, TimeUnit.SECONDS)));
         assertThat(config.getReachabilityTimeout(), is(new TimeInterval(10L, TimeUnit.MINUTES)));
+        // freshness window defaults to zero
+        assertThat(config.getFreshnessWindow(), is(PoolFetchConfig.DEFAULT_FRESHNESS_WINDOW));
+    }
+
+    @Test
+    public void withFreshnessWindow() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        TimeInterval freshnessWindow = new TimeInterval(5L, TimeUnit.SECONDS);
+        PoolFetchConfig config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, freshnessWindow, null);
+
+        config.validate();
+
+        assertThat(config.getFreshnessWindow(), is(new TimeInterval(5L, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    public void withWarmStart() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        // warm start defaults to false
+        assertThat(new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout).isWarmStart(), is(false));
+
+        PoolFetchConfig config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null, null, null,
+                true);
+        config.validate();
+        assertThat(config.isWarmStart(), is(true));
     }
 
     /**
@@ -71,4 +100,70 @@ public class TestPoolFetch {
 
         new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout).validate();
     }
+
+    /**
+     * freshnessWindow must be shorter than reachabilityTimeout
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void freshnessWindowLongerThanReachabilityTimeout() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        TimeInterval freshnessWindow = new TimeInterval(10L, TimeUnit.MINUTES);
+
+        new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, freshnessWindow, null).validate();
+    }
+
+    @Test
+    public void withAdaptiveRefresh() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        AdaptiveRefreshConfig adaptiveRefresh = new AdaptiveRefreshConfig(new TimeInterval(5L, TimeUnit.SECONDS),
+                new TimeInterval(2L, TimeUnit.MINUTES), null);
+        PoolFetchConfig config = new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null, null,
+                adaptiveRefresh);
+
+        config.validate();
+
+        assertThat(config.getAdaptiveRefresh().get(), is(adaptiveRefresh));
+        // backoff factor defaults to 2
+        assertThat(config.getAdaptiveRefresh().get().getBackoffFactor(),
+                is(AdaptiveRefreshConfig.DEFAULT_BACKOFF_FACTOR));
+        // adaptive refresh is off by default
+        assertThat(new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout).getAdaptiveRefresh()
+                .isPresent(), is(false));
+    }
+
+    /**
+     * adaptiveRefresh maxInterval must be shorter than reachabilityTimeout
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void adaptiveRefreshMaxIntervalLongerThanReachabilityTimeout() {
+        RetriesConfig retries = new RetriesConfig(5, new TimeInterval(2L, TimeUnit.SECONDS));
+        TimeInterval refreshInterval = new TimeInterval(30L, TimeUnit.SECONDS);
+        TimeInterval reachabilityTimeout = new TimeInterval(10L, TimeUnit.MINUTES);
+        AdaptiveRefreshConfig adaptiveRefresh = new AdaptiveRefreshConfig(new TimeInterval(5L, TimeUnit.SECONDS),
+                new TimeInterval(10L, TimeUnit.MINUTES), null);
+
+        new PoolFetchConfig(retries, refreshInterval, reachabilityTimeout, null, null, adaptiveRefresh).validate();
+    }
+
+    /**
+     * adaptiveRefresh maxInterval cannot be shorter than minInterval
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void adaptiveRefreshMaxIntervalShorterThanMinInterval() {
+        new AdaptiveRefreshConfig(new TimeInterval(30L, TimeUnit.SECONDS), new TimeInterval(10L, TimeUnit.SECONDS),
+                null).validate();
+    }
+
+    /**
+     * adaptiveRefresh backoffFactor must not shrink the interval
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void adaptiveRefreshBackoffFactorBelowOne() {
+        new AdaptiveRefreshConfig(new TimeInterval(5L, TimeUnit.SECONDS), new TimeInterval(1L, TimeUnit.MINUTES),
+                0.5).validate();
+    }
 }
@@ -1,6 +1,7 @@
 package com.elastisys.scale.cloudpool.commons.basepool.driver;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import org.junit.Test;
@@ -79,6 +80,26 @@ public class TestDriverConfig {
         assertThat(parsedObject.apiPassword, is("secret"));
     }
 
+    /**
+     * Each document should only be parsed once per type, so that drivers can
+     * ask for their typed settings as often as they need to.
+     */
+    @Test
+    public void parseOnlyOnce() {
+        DriverConfig driverConfig = new DriverConfig(NAME, CLOUD_API_SETTINGS, PROVISIONING_TEMPLATE);
+
+        SampleCloudApiSettingsType settings = driverConfig.parseCloudApiSettings(SampleCloudApiSettingsType.class);
+        assertThat(driverConfig.parseCloudApiSettings(SampleCloudApiSettingsType.class), is(sameInstance(settings)));
+        SampleProvisioningTemplateType template = driverConfig
+                .parseProvisioningTemplate(SampleProvisioningTemplateType.class);
+        assertThat(driverConfig.parseProvisioningTemplate(SampleProvisioningTemplateType.class),
+                is(sameInstance(template)));
+
+        // parsed objects are not part of the configuration
+        assertThat(driverConfig, is(new DriverConfig(NAME, CLOUD_API_SETTINGS, PROVISIONING_TEMPLATE)));
+        assertThat(JsonUtils.toJson(driverConfig).getAsJsonObject().has("parsedCloudApiSettings"), is(false));
+    }
+
     private static class SampleCloudApiSettingsType {
         private String apiUser;
         private String apiPassword;
@@ -0,0 +1,187 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.replay;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.replay.ReplayCloudPoolDriver.Playback;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.simulated.SimulatedCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.simulated.SimulationSettings;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.simulated.UniformDelay;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.elastisys.scale.commons.util.time.FrozenTime;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.gson.JsonObject;
+
+/**
+ * Exercises the {@link RecordingCloudPoolDriver} and the
+ * {@link ReplayCloudPoolDriver} by recording calls to a
+ * {@link SimulatedCloudPoolDriver} and playing them back.
+ */
+public class TestRecordAndReplay {
+
+    private final ByteArrayOutputStream traceBytes = new ByteArrayOutputStream();
+
+    @Before
+    public void beforeTestMethod() {
+        FrozenTime.setFixed(UtcTime.parse("2018-01-01T12:00:00.000Z"));
+    }
+
+    @After
+    public void afterTestMethod() {
+        FrozenTime.resumeSystemTime();
+    }
+
+    /**
+     * A replay should return the recorded listings and call outcomes
+     * (including failures) in the order they were recorded.
+     */
+    @Test
+    public void replayRecordedCalls() throws IOException {
+        TraceWriter writer = new TraceWriter(this.traceBytes);
+        RecordingCloudPoolDriver recorder = new RecordingCloudPoolDriver(new SimulatedCloudPoolDriver(), writer);
+        recorder.configure(driverConfig(settings(2, null)));
+        List<Machine> listing1 = recorder.listMachines();
+        List<Machine> started = recorder.startMachines(1);
+        FrozenTime.tick(1);
+        List<Machine> listing2 = recorder.listMachines();
+        recorder.terminateMachines(Arrays.asList(listing1.get(0).getId()));
+        try {
+            recorder.attachMachine("unknown");
+            fail("expected to fail");
+        } catch (NotFoundException e) {
+            // expected
+        }
+        FrozenTime.tick(1);
+        List<Machine> listing3 = recorder.listMachines();
+        writer.close();
+
+        ReplayCloudPoolDriver replayer = replayer();
+        replayer.configure(driverConfig(settings(0, null)));
+        assertThat(ids(replayer.listMachines()), is(ids(listing1)));
+        assertThat(ids(replayer.startMachines(1)), is(ids(started)));
+        assertThat(ids(replayer.listMachines()), is(ids(listing2)));
+        assertThat(states(replayer.listMachines()), is(states(listing3)));
+        // calls are matched with the outcomes recorded before the listing
+        replayer.terminateMachines(Arrays.asList(listing1.get(0).getId()));
+        try {
+            replayer.attachMachine("unknown");
+            fail("expected to fail");
+        } catch (NotFoundException e) {
+            // expected
+        }
+        // the last listing is repeated at the end of the trace
+        assertThat(states(replayer.listMachines()), is(states(listing3)));
+        assertThat(replayer.isFinished(), is(true));
+        assertThat(replayer.getUnmatchedCalls(), is(0L));
+    }
+
+    /**
+     * A partially failed call should be replayed with its partial result.
+     */
+    @Test
+    public void replayPartialFailure() throws IOException {
+        TraceWriter writer = new TraceWriter(this.traceBytes);
+        RecordingCloudPoolDriver recorder = new RecordingCloudPoolDriver(new SimulatedCloudPoolDriver(), writer);
+        recorder.configure(driverConfig(settings(0, 1.0)));
+        StartMachinesException recorded = null;
+        try {
+            recorder.startMachines(3);
+            fail("expected to fail");
+        } catch (StartMachinesException e) {
+            recorded = e;
+        }
+        writer.close();
+
+        ReplayCloudPoolDriver replayer = replayer();
+        replayer.configure(driverConfig(settings(0, null)));
+        try {
+            replayer.startMachines(3);
+            fail("expected to fail");
+        } catch (StartMachinesException e) {
+            assertThat(e.getRequestedMachines(), is(3));
+            assertThat(ids(e.getStartedMachines()), is(ids(recorded.getStartedMachines())));
+        }
+    }
+
+    /**
+     * Calls without a recorded outcome should succeed without effect and be
+     * counted.
+     */
+    @Test
+    public void unmatchedCalls() throws IOException {
+        TraceWriter writer = new TraceWriter(this.traceBytes);
+        RecordingCloudPoolDriver recorder = new RecordingCloudPoolDriver(new SimulatedCloudPoolDriver(), writer);
+        recorder.configure(driverConfig(settings(1, null)));
+        recorder.listMachines();
+        writer.close();
+
+        ReplayCloudPoolDriver replayer = replayer();
+        replayer.configure(driverConfig(settings(0, null)));
+        assertThat(replayer.listMachines().size(), is(1));
+        List<Machine> placeholders = replayer.startMachines(2);
+        assertThat(states(placeholders), is(Arrays.asList(MachineState.REQUESTED, MachineState.REQUESTED)));
+        replayer.terminateMachines(Arrays.asList("sim-1"));
+        assertThat(replayer.getUnmatchedCalls(), is(2L));
+    }
+
+    /**
+     * A trace whose writer was never closed should be readable up to its last
+     * event.
+     */
+    @Test
+    public void readUnclosedTrace() throws IOException {
+        TraceWriter writer = new TraceWriter(this.traceBytes);
+        RecordingCloudPoolDriver recorder = new RecordingCloudPoolDriver(new SimulatedCloudPoolDriver(), writer);
+        recorder.configure(driverConfig(settings(1, null)));
+        recorder.listMachines();
+        recorder.startMachines(1);
+
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(this.traceBytes.toByteArray()));
+        assertThat(reader.next().get().getOperation(), is(TraceEvent.CONFIGURE));
+        assertThat(reader.next().get().getOperation(), is(TraceEvent.LIST_MACHINES));
+        assertThat(reader.next().get().getOperation(), is(TraceEvent.START_MACHINES));
+        assertThat(reader.next().isPresent(), is(false));
+    }
+
+    private ReplayCloudPoolDriver replayer() throws IOException {
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(this.traceBytes.toByteArray()));
+        return new ReplayCloudPoolDriver(reader, Playback.AS_FAST_AS_POSSIBLE);
+    }
+
+    private static SimulationSettings settings(int initialSize, Double partialFailureRate) {
+        return new SimulationSettings(42L, initialSize, null, UniformDelay.millis(1000, 1000),
+                UniformDelay.millis(1000, 1000), UniformDelay.millis(1000, 1000),
+                new TimeInterval(60L, TimeUnit.SECONDS), null, partialFailureRate, null);
+    }
+
+    private static DriverConfig driverConfig(SimulationSettings settings) {
+        return new DriverConfig("pool", JsonUtils.toJson(settings).getAsJsonObject(), new JsonObject());
+    }
+
+    private static List<String> ids(List<Machine> machines) {
+        return machines.stream().map(Machine::getId).collect(Collectors.toList());
+    }
+
+    private static List<MachineState> states(List<Machine> machines) {
+        return machines.stream().map(Machine::getMachineState).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,188 @@
+package com.elastisys.scale.cloudpool.commons.basepool.driver.simulated;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.elastisys.scale.commons.util.time.FrozenTime;
+import com.elastisys.scale.commons.util.time.UtcTime;
+import com.google.gson.JsonObject;
+
+/**
+ * Exercises the {@link SimulatedCloudPoolDriver}.
+ */
+public class TestSimulatedCloudPoolDriver {
+
+    private final SimulatedCloudPoolDriver driver = new SimulatedCloudPoolDriver();
+
+    @Before
+    public void beforeTestMethod() {
+        FrozenTime.setFixed(UtcTime.parse("2018-01-01T12:00:00.000Z"));
+    }
+
+    @After
+    public void afterTestMethod() {
+        FrozenTime.resumeSystemTime();
+    }
+
+    /**
+     * Started machines should be {@code REQUESTED}, then {@code PENDING} and
+     * then {@code RUNNING}. Terminated machines should be
+     * {@code TERMINATING}, then {@code TERMINATED} and then disappear.
+     */
+    @Test
+    public void machineLifecycle() {
+        this.driver.configure(driverConfig(settings(0, null, null, null)));
+
+        List<Machine> started = this.driver.startMachines(2);
+        assertThat(started.size(), is(2));
+        assertThat(states(this.driver.listMachines()),
+                is(Arrays.asList(MachineState.REQUESTED, MachineState.REQUESTED)));
+
+        FrozenTime.tick(1);
+        assertThat(states(this.driver.listMachines()), is(Arrays.asList(MachineState.PENDING, MachineState.PENDING)));
+        FrozenTime.tick(2);
+        assertThat(states(this.driver.listMachines()), is(Arrays.asList(MachineState.RUNNING, MachineState.RUNNING)));
+
+        this.driver.terminateMachines(Arrays.asList(started.get(0).getId()));
+        assertThat(states(this.driver.listMachines()),
+                is(Arrays.asList(MachineState.TERMINATING, MachineState.RUNNING)));
+        FrozenTime.tick(1);
+        assertThat(states(this.driver.listMachines()),
+                is(Arrays.asList(MachineState.TERMINATED, MachineState.RUNNING)));
+        FrozenTime.tick(5);
+        assertThat(states(this.driver.listMachines()), is(Arrays.asList(MachineState.RUNNING)));
+    }
+
+    /**
+     * The simulated cloud should be able to start out with a large pool.
+     */
+    @Test
+    public void largeInitialPool() {
+        this.driver.configure(driverConfig(settings(100000, null, null, null)));
+
+        List<Machine> machines = this.driver.listMachines();
+        assertThat(machines.size(), is(100000));
+        assertThat(machines.get(99999).getMachineState(), is(MachineState.RUNNING));
+        assertThat(machines.get(99999).getServiceState(), is(ServiceState.IN_SERVICE));
+    }
+
+    /**
+     * With a failure rate of 1, every API call should fail.
+     */
+    @Test
+    public void failingApi() {
+        this.driver.configure(driverConfig(settings(1, 1.0, null, null)));
+        try {
+            this.driver.listMachines();
+            fail("expected to fail");
+        } catch (CloudPoolDriverException e) {
+            // expected
+        }
+    }
+
+    /**
+     * With a partial failure rate of 1, no machines should be started or
+     * terminated, and the errors should be reported per machine.
+     */
+    @Test
+    public void partialFailures() {
+        this.driver.configure(driverConfig(settings(1, null, 1.0, null)));
+        try {
+            this.driver.startMachines(3);
+            fail("expected to fail");
+        } catch (StartMachinesException e) {
+            assertThat(e.getStartedMachines().size(), is(0));
+        }
+        try {
+            this.driver.terminateMachines(Arrays.asList("sim-1"));
+            fail("expected to fail");
+        } catch (TerminateMachinesException e) {
+            assertThat(e.getTerminationErrors().keySet().contains("sim-1"), is(true));
+        }
+    }
+
+    /**
+     * Calls beyond the request rate limit should be throttled.
+     */
+    @Test
+    public void throttling() {
+        this.driver.configure(driverConfig(settings(0, null, null, 2.0)));
+        this.driver.listMachines();
+        this.driver.listMachines();
+        try {
+            this.driver.listMachines();
+            fail("expected to be throttled");
+        } catch (CloudPoolDriverException e) {
+            // expected
+        }
+
+        FrozenTime.tick(1);
+        this.driver.listMachines();
+    }
+
+    /**
+     * Detached machines should no longer be listed but should be possible to
+     * attach again.
+     */
+    @Test
+    public void detachAndAttach() {
+        this.driver.configure(driverConfig(settings(2, null, null, null)));
+
+        this.driver.detachMachine("sim-1");
+        assertThat(this.driver.listMachines().size(), is(1));
+        this.driver.attachMachine("sim-1");
+        assertThat(this.driver.listMachines().size(), is(2));
+
+        try {
+            this.driver.attachMachine("sim-3");
+            fail("expected NotFoundException");
+        } catch (NotFoundException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void useBeforeConfigure() {
+        this.driver.listMachines();
+    }
+
+    /**
+     * Machines spend 1 second in {@code REQUESTED}, 2 seconds in
+     * {@code PENDING}, 1 second in {@code TERMINATING} and are listed for 5
+     * seconds after terminating.
+     */
+    private static SimulationSettings settings(int initialSize, Double failureRate, Double partialFailureRate,
+            Double maxRequestsPerSecond) {
+        return new SimulationSettings(42L, initialSize, null, UniformDelay.millis(1000, 1000),
+                UniformDelay.millis(2000, 2000), UniformDelay.millis(1000, 1000),
+                new TimeInterval(5L, TimeUnit.SECONDS), failureRate, partialFailureRate, maxRequestsPerSecond);
+    }
+
+    private static DriverConfig driverConfig(SimulationSettings settings) {
+        return new DriverConfig("pool", JsonUtils.toJson(settings).getAsJsonObject(), new JsonObject());
+    }
+
+    private static List<MachineState> states(List<Machine> machines) {
+        return machines.stream().map(Machine::getMachineState).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,190 @@
+package com.elastisys.scale.cloudpool.commons.basepool.metrics;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.metrics.MetricSample;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MachineChanges;
+
+/**
+ * Exercises the {@link InstrumentedCloudPoolDriver}.
+ */
+public class TestInstrumentedCloudPoolDriver {
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final FakeDriver driver = new FakeDriver();
+
+    /**
+     * Every call should be counted and its latency recorded, per operation.
+     */
+    @Test
+    public void recordCallCountsAndLatencies() {
+        CloudPoolDriver instrumentedDriver = InstrumentedCloudPoolDriver.wrap(this.driver, this.metrics);
+
+        this.driver.latencyMillis = 50;
+        instrumentedDriver.listMachines();
+        instrumentedDriver.listMachines();
+        this.driver.latencyMillis = 0;
+        instrumentedDriver.terminateMachines(Collections.singletonList("i-1"));
+
+        assertThat(value("cloudpool_driver_request_duration_seconds_count{operation=\"listMachines\"}"), is(2.0));
+        assertThat(value("cloudpool_driver_request_duration_seconds_count{operation=\"terminateMachines\"}"),
+                is(1.0));
+        double listLatency = value("cloudpool_driver_request_duration_seconds_sum{operation=\"listMachines\"}");
+        assertTrue("unexpected latency sum: " + listLatency, listLatency >= 0.1 && listLatency < 5.0);
+        // a 50 ms call does not fall in the 10 ms bucket
+        assertThat(value("cloudpool_driver_request_duration_seconds_bucket{operation=\"listMachines\",le=\"0.01\"}"),
+                is(0.0));
+        assertThat(value("cloudpool_driver_request_duration_seconds_bucket{operation=\"listMachines\",le=\"+Inf\"}"),
+                is(2.0));
+        assertFalse(hasSample("cloudpool_driver_errors_total"));
+    }
+
+    /**
+     * Failed calls should be counted by operation and exception type, and the
+     * error should be passed on to the caller.
+     */
+    @Test
+    public void recordErrors() {
+        CloudPoolDriver instrumentedDriver = InstrumentedCloudPoolDriver.wrap(this.driver, this.metrics);
+
+        this.driver.failing = true;
+        for (int i = 0; i < 2; i++) {
+            try {
+                instrumentedDriver.listMachines();
+                fail("expected CloudPoolDriverException");
+            } catch (CloudPoolDriverException e) {
+                // expected
+            }
+        }
+        try {
+            instrumentedDriver.attachMachine("i-missing");
+            fail("expected NotFoundException");
+        } catch (NotFoundException e) {
+            // expected
+        }
+
+        assertThat(value("cloudpool_driver_errors_total{operation=\"listMachines\","
+                + "exception=\"CloudPoolDriverException\"}"), is(2.0));
+        assertThat(value("cloudpool_driver_errors_total{operation=\"attachMachine\",exception=\"NotFoundException\"}"),
+                is(1.0));
+        // failed calls are timed too
+        assertThat(value("cloudpool_driver_request_duration_seconds_count{operation=\"listMachines\"}"), is(2.0));
+    }
+
+    /**
+     * An {@link IncrementalCloudPoolDriver} should remain one when wrapped, and
+     * its {@code listMachineChanges} calls should be recorded.
+     */
+    @Test
+    public void wrapIncrementalDriver() {
+        CloudPoolDriver instrumentedDriver = InstrumentedCloudPoolDriver.wrap(new FakeIncrementalDriver(),
+                this.metrics);
+        assertThat(instrumentedDriver, instanceOf(IncrementalCloudPoolDriver.class));
+        assertFalse(InstrumentedCloudPoolDriver.wrap(this.driver, this.metrics) instanceof IncrementalCloudPoolDriver);
+
+        ((IncrementalCloudPoolDriver) instrumentedDriver).listMachineChanges(Optional.empty());
+        instrumentedDriver.listMachines();
+
+        assertThat(value("cloudpool_driver_request_duration_seconds_count{operation=\"listMachineChanges\"}"),
+                is(1.0));
+        assertThat(value("cloudpool_driver_request_duration_seconds_count{operation=\"listMachines\"}"), is(1.0));
+    }
+
+    private double value(String key) {
+        for (MetricSample sample : this.metrics.getSamples()) {
+            if (sample.getKey().equals(key)) {
+                return sample.getValue();
+            }
+        }
+        throw new AssertionError("no such sample: " + key);
+    }
+
+    private boolean hasSample(String name) {
+        return this.metrics.getSamples().stream().anyMatch(sample -> sample.getName().equals(name));
+    }
+
+    private static class FakeDriver implements CloudPoolDriver {
+        volatile long latencyMillis = 0;
+        volatile boolean failing = false;
+
+        @Override
+        public List<Machine> listMachines() {
+            if (this.latencyMillis > 0) {
+                try {
+                    Thread.sleep(this.latencyMillis);
+                } catch (InterruptedException e) {
+                    throw new CloudPoolDriverException(e);
+                }
+            }
+            if (this.failing) {
+                throw new CloudPoolDriverException("cloud API unavailable");
+            }
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void attachMachine(String machineId) throws NotFoundException {
+            throw new NotFoundException("no such machine: " + machineId);
+        }
+
+        @Override
+        public void terminateMachines(List<String> machineIds) {
+        }
+
+        @Override
+        public void configure(DriverConfig configuration) {
+        }
+
+        @Override
+        public List<Machine> startMachines(int count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void detachMachine(String machineId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setServiceState(String machineId, ServiceState serviceState) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setMembershipStatus(String machineId, MembershipStatus membershipStatus) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getPoolName() {
+            return "pool";
+        }
+    }
+
+    private static class FakeIncrementalDriver extends FakeDriver implements IncrementalCloudPoolDriver {
+        @Override
+        public MachineChanges listMachineChanges(Optional<String> sinceWatermark) {
+            return MachineChanges.fullListing(Collections.emptyList(), "1");
+        }
+    }
+}
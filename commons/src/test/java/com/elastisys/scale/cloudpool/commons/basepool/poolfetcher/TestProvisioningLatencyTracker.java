@@ -0,0 +1,162 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machine;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachinePoolDiff;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.TransitionLatency;
+import com.elastisys.scale.cloudpool.commons.basepool.alerts.AlertTopics;
+import com.elastisys.scale.commons.eventbus.EventBus;
+import com.elastisys.scale.commons.eventbus.Subscriber;
+import com.elastisys.scale.commons.eventbus.impl.SynchronousEventBus;
+import com.elastisys.scale.commons.net.alerter.Alert;
+import com.elastisys.scale.commons.util.time.FrozenTime;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * Exercises the {@link ProvisioningLatencyTracker}.
+ */
+public class TestProvisioningLatencyTracker {
+    private static final Logger LOG = LoggerFactory.getLogger(TestProvisioningLatencyTracker.class);
+
+    private static final DateTime LAUNCH_TIME = UtcTime.parse("2018-01-01T11:00:00.000Z");
+
+    private final EventBus eventBus = new SynchronousEventBus(LOG);
+    private final List<Alert> alerts = new ArrayList<>();
+    private final ProvisioningLatencyTracker tracker = new ProvisioningLatencyTracker(this.eventBus,
+            new MetricRegistry());
+
+    /** The latest observed pool. */
+    private MachinePool pool = null;
+
+    @Before
+    public void beforeTestMethod() {
+        FrozenTime.setFixed(UtcTime.parse("2018-01-01T12:00:00.000Z"));
+        this.eventBus.register(this.tracker);
+        this.eventBus.register(this);
+    }
+
+    @After
+    public void afterTestMethod() {
+        FrozenTime.resumeSystemTime();
+    }
+
+    @Subscriber
+    public void onAlert(Alert alert) {
+        this.alerts.add(alert);
+    }
+
+    /**
+     * Transitions should be measured from the first observation of a machine
+     * in each state.
+     */
+    @Test
+    public void trackProvisioning() {
+        observe();
+        observe(machine("i-1", MachineState.REQUESTED, LAUNCH_TIME));
+        FrozenTime.tick(10);
+        observe(machine("i-1", MachineState.PENDING, LAUNCH_TIME));
+        FrozenTime.tick(10);
+        // unchanged state: first observation is kept
+        observe(machine("i-1", MachineState.PENDING, LAUNCH_TIME), machine("i-2", MachineState.REQUESTED, LAUNCH_TIME));
+        FrozenTime.tick(30);
+        observe(machine("i-1", MachineState.RUNNING, LAUNCH_TIME), machine("i-2", MachineState.RUNNING, LAUNCH_TIME));
+
+        Map<String, TransitionLatency> latencies = latencies();
+        assertThat(latencies.keySet(), is(new TreeSet<>(
+                asList("PENDING->RUNNING", "REQUESTED->PENDING", "REQUESTED->RUNNING"))));
+        assertThat(latencies.get("REQUESTED->PENDING").getP50(), is(10.0));
+        assertThat(latencies.get("PENDING->RUNNING").getP50(), is(40.0));
+        assertThat(latencies.get("REQUESTED->RUNNING").getCount(), is(2L));
+        assertThat(latencies.get("REQUESTED->RUNNING").getP50(), is(30.0));
+        assertThat(latencies.get("REQUESTED->RUNNING").getMax(), is(50.0));
+        assertThat(latencies.get("REQUESTED->RUNNING").getCloudProvider(), is("AWS-EC2"));
+        assertThat(latencies.get("REQUESTED->RUNNING").getMachineSize(), is("m1.small"));
+    }
+
+    /**
+     * Machines in the first observed pool entered their states at unknown
+     * times and must not give rise to any transition durations.
+     */
+    @Test
+    public void firstPoolIsBaseline() {
+        observe(machine("i-1", MachineState.PENDING, LAUNCH_TIME));
+        FrozenTime.tick(10);
+        observe(machine("i-1", MachineState.RUNNING, LAUNCH_TIME));
+        assertThat(latencies().isEmpty(), is(true));
+
+        FrozenTime.tick(10);
+        observe(machine("i-1", MachineState.TERMINATING, LAUNCH_TIME));
+        FrozenTime.tick(20);
+        observe(machine("i-1", MachineState.TERMINATED, LAUNCH_TIME));
+        assertThat(latencies().get("TERMINATING->TERMINATED").getP50(), is(20.0));
+    }
+
+    /**
+     * A transition that takes far longer than earlier ones should be alerted
+     * on, once enough transitions have been observed.
+     */
+    @Test
+    public void alertOnSlowTransition() {
+        observe();
+        for (int i = 0; i < ProvisioningLatencyTracker.MIN_SAMPLES_FOR_ALERT; i++) {
+            provision("i-" + i, 30);
+        }
+        assertThat(this.alerts.isEmpty(), is(true));
+
+        provision("slow", 61);
+        assertThat(this.alerts.size(), is(1));
+        assertThat(this.alerts.get(0).getTopic(), is(AlertTopics.PROVISIONING_LATENCY.name()));
+        assertThat(latencies().get("REQUESTED->RUNNING").getMax(), is(61.0));
+    }
+
+    /**
+     * Adds a machine to the pool and observes it being provisioned after a
+     * given number of seconds. The machine is then removed from the pool.
+     */
+    private void provision(String machineId, int seconds) {
+        observe(machine(machineId, MachineState.REQUESTED, LAUNCH_TIME));
+        FrozenTime.tick(seconds);
+        observe(machine(machineId, MachineState.RUNNING, LAUNCH_TIME));
+        observe();
+    }
+
+    private void observe(Machine... machines) {
+        MachinePool previous = this.pool;
+        this.pool = new MachinePool(asList(machines), UtcTime.now());
+        MachinePoolDiff diff = MachinePoolDiff.between(previous, this.pool);
+        if (!diff.isEmpty()) {
+            this.eventBus.post(diff);
+        }
+    }
+
+    /**
+     * Returns the tracked latencies keyed by transition.
+     */
+    private Map<String, TransitionLatency> latencies() {
+        return this.tracker.getLatencies().getLatencies().stream().collect(Collectors.toMap(
+                latency -> latency.getFromState() + "->" + latency.getToState(), Function.identity(), (a, b) -> a,
+                TreeMap::new));
+    }
+}
@@ -0,0 +1,85 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machine;
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machines;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.config.AdaptiveRefreshConfig;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * Exercises the {@link AdaptiveRefreshInterval}.
+ */
+public class TestAdaptiveRefreshInterval {
+
+    private static final AdaptiveRefreshConfig CONFIG = new AdaptiveRefreshConfig(
+            new TimeInterval(5L, TimeUnit.SECONDS), new TimeInterval(60L, TimeUnit.SECONDS), 2.0);
+
+    /**
+     * The interval should start at its minimum and grow geometrically up to its
+     * maximum while the pool is stable.
+     */
+    @Test
+    public void backOffWhileStable() {
+        AdaptiveRefreshInterval interval = new AdaptiveRefreshInterval(CONFIG);
+        assertThat(interval.currentMillis(), is(5000L));
+
+        MachinePool stable = pool(machine("i-1", MachineState.RUNNING));
+        assertThat(interval.next(stable), is(10000L));
+        assertThat(interval.next(stable), is(20000L));
+        assertThat(interval.next(stable), is(40000L));
+        assertThat(interval.next(stable), is(60000L));
+        assertThat(interval.next(stable), is(60000L));
+        assertThat(interval.current(), is(new TimeInterval(60000L, TimeUnit.MILLISECONDS)));
+    }
+
+    /**
+     * Machines in a transitional state should drop the interval to its
+     * minimum.
+     */
+    @Test
+    public void refreshQuicklyWhileInTransition() {
+        AdaptiveRefreshInterval interval = new AdaptiveRefreshInterval(CONFIG);
+        MachinePool stable = pool(machine("i-1", MachineState.RUNNING));
+        interval.next(stable);
+        interval.next(stable);
+        assertThat(interval.currentMillis(), is(20000L));
+
+        for (MachineState state : new MachineState[] { MachineState.REQUESTED, MachineState.PENDING,
+                MachineState.TERMINATING }) {
+            interval.next(stable);
+            MachinePool changing = pool(machine("i-1", MachineState.RUNNING), machine("i-2", state));
+            assertThat(interval.next(changing), is(5000L));
+        }
+        // terminated and rejected machines are not expected to change
+        MachinePool settled = pool(machine("i-1", MachineState.TERMINATED), machine("i-2", MachineState.REJECTED));
+        assertThat(interval.next(settled), is(10000L));
+    }
+
+    /**
+     * An expected pool change should drop the interval to its minimum.
+     */
+    @Test
+    public void reset() {
+        AdaptiveRefreshInterval interval = new AdaptiveRefreshInterval(CONFIG);
+        MachinePool stable = pool(machine("i-1", MachineState.RUNNING));
+        interval.next(stable);
+        interval.next(stable);
+
+        assertThat(interval.reset(), is(5000L));
+        assertThat(interval.currentMillis(), is(5000L));
+    }
+
+    private static MachinePool pool(Machine... machines) {
+        return new MachinePool(machines(machines), UtcTime.now());
+    }
+}
@@ -9,7 +9,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -21,7 +23,10 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -32,9 +37,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.elastisys.scale.cloudpool.api.CloudPoolException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.metrics.MetricSample;
 import com.elastisys.scale.cloudpool.api.types.CloudProviders;
 import com.elastisys.scale.cloudpool.api.types.Machine;
 import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachinePoolDiff;
 import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
 import com.elastisys.scale.cloudpool.commons.basepool.config.PoolFetchConfig;
@@ -117,6 +125,43 @@ public class TestCachingPoolFetcher {
         fetcher.close();
     }
 
+    /**
+     * The {@link CachingPoolFetcher} should record the latency and outcome of
+     * refreshes, and expose the size and age of the cached machine pool.
+     */
+    @Test
+    public void recordMetrics() {
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1", "i-2")))
+                .thenThrow(new CloudPoolException("api outage"));
+
+        MetricRegistry metrics = new MetricRegistry();
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus, metrics);
+        fetcher.awaitFirstFetch();
+
+        assertThat(metric(metrics, "cloudpool_pool_refresh_duration_seconds_count"), is(1.0));
+        assertThat(metric(metrics, "cloudpool_pool_refresh_errors_total"), is(0.0));
+        assertThat(metric(metrics, "cloudpool_active_size"), is(2.0));
+        assertThat(metric(metrics, "cloudpool_allocated_size"), is(2.0));
+        assertThat(metric(metrics, "cloudpool_pool_cache_age_seconds"), is(0.0));
+        assertThat(metric(metrics, "cloudpool_pool_refresh_interval_seconds"), is(30.0));
+
+        // a failed refresh is counted and the stale cache is kept
+        FrozenTime.tick(10);
+        try {
+            fetcher.get(FORCE_REFRESH);
+            fail("expected refresh to fail");
+        } catch (CloudPoolException e) {
+            // expected
+        }
+        assertThat(metric(metrics, "cloudpool_pool_refresh_duration_seconds_count"), is(2.0));
+        assertThat(metric(metrics, "cloudpool_pool_refresh_errors_total"), is(1.0));
+        assertThat(metric(metrics, "cloudpool_active_size"), is(2.0));
+        assertThat(metric(metrics, "cloudpool_pool_cache_age_seconds"), is(10.0));
+
+        fetcher.close();
+    }
+
     /**
      * If attempts have been made to fetch the pool, but none has been
      * successful yet, the {@link CachingPoolFetcher} should fail with a
@@ -229,6 +274,82 @@ public class TestCachingPoolFetcher {
         fetcher.close();
     }
 
+    /**
+     * A {@link FetchOption#FORCE_REFRESH} request that arrives within the
+     * freshness window of a successful refresh should be served from cache.
+     */
+    @Test
+    public void forceRefreshWithinFreshnessWindow() {
+        PoolFetchConfig fetchConfig = new PoolFetchConfig(
+                new RetriesConfig(3, new TimeInterval(10L, TimeUnit.MILLISECONDS)), REFRESH_INTERVAL,
+                REACHABILITY_TIMEOUT, new TimeInterval(10L, TimeUnit.SECONDS), null);
+        MachinePool initialPool = pool(machines("i-1", "i-2"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(initialPool);
+
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, fetchConfig, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+
+        MachinePool newPool = pool(machines("i-1", "i-2", "i-3"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(newPool);
+        // last refresh is fresh enough: should not call through to delegate
+        FrozenTime.tick(5);
+        assertThat(fetcher.get(FORCE_REFRESH), is(initialPool));
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+
+        // freshness window passed: should call through to delegate
+        FrozenTime.tick(6);
+        assertThat(fetcher.get(FORCE_REFRESH), is(newPool));
+        verify(this.delegate, times(2)).get(FORCE_REFRESH);
+        fetcher.close();
+    }
+
+    /**
+     * Concurrent {@link FetchOption#FORCE_REFRESH} requests should join a
+     * single ongoing refresh rather than each calling through to the delegate.
+     */
+    @Test
+    public void concurrentForcedRefreshesShareOngoingRefresh() throws Exception {
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1", "i-2")));
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+
+        // the delegate is slow to respond to the next refresh
+        MachinePool newPool = pool(machines("i-1", "i-2", "i-3"));
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefresh = new CountDownLatch(1);
+        when(this.delegate.get(FORCE_REFRESH)).thenAnswer(invocation -> {
+            refreshStarted.countDown();
+            releaseRefresh.await();
+            return newPool;
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<MachinePool>> results = new ArrayList<>();
+            results.add(clients.submit(() -> fetcher.get(FORCE_REFRESH)));
+            refreshStarted.await();
+            for (int i = 0; i < 4; i++) {
+                results.add(clients.submit(() -> fetcher.get(FORCE_REFRESH)));
+            }
+            // give clients time to join the ongoing refresh
+            Sleep.forTime(200, TimeUnit.MILLISECONDS);
+            releaseRefresh.countDown();
+
+            for (Future<MachinePool> result : results) {
+                assertThat(result.get(), is(newPool));
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        // only a single call through to the delegate should have been made
+        verify(this.delegate, times(2)).get(FORCE_REFRESH);
+        fetcher.close();
+    }
+
     /**
      * Should respond with cached {@link MachinePool} until the cached value is
      * older than {@code reachabilityTimeout} (then it should respond with a
@@ -290,6 +411,34 @@ public class TestCachingPoolFetcher {
         fetcher.close();
     }
 
+    /**
+     * Every refresh that observes a changed {@link MachinePool} should post
+     * the {@link MachinePoolDiff} on the {@link EventBus}.
+     */
+    @Test
+    public void postPoolChanges() {
+        MachinePool initialPool = pool(machines("i-1", "i-2"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(initialPool);
+
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+        // no earlier observation: all machines added
+        verify(this.mockEventbus).post(MachinePoolDiff.between(null, initialPool));
+
+        // unchanged pool: nothing posted
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1", "i-2")));
+        fetcher.get(FORCE_REFRESH);
+        verify(this.mockEventbus, times(1)).post(isA(MachinePoolDiff.class));
+
+        MachinePool newPool = pool(machines("i-2", "i-3"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(newPool);
+        fetcher.get(FORCE_REFRESH);
+        verify(this.mockEventbus).post(MachinePoolDiff.between(initialPool, newPool));
+        verify(this.mockEventbus, times(2)).post(isA(MachinePoolDiff.class));
+        fetcher.close();
+    }
+
     /**
      * Verify that machine pool observations get written to disk and are
      * properly restored on re-instantiation of the {@link CachingPoolFetcher}.
@@ -321,6 +470,86 @@ public class TestCachingPoolFetcher {
         fetcher.close();
     }
 
+    /**
+     * A reconfigured {@link CachingPoolFetcher} should fetch with its new
+     * delegate, but keep serving the cached pool meanwhile.
+     */
+    @Test
+    public void reconfigureKeepsCache() {
+        MachinePool initialPool = pool(machines("i-1", "i-2"));
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(initialPool);
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+
+        PoolFetcher newDelegate = mock(PoolFetcher.class);
+        when(newDelegate.get(FORCE_REFRESH)).thenThrow(new CloudPoolException("api outage"));
+        PoolFetchConfig newConfig = new PoolFetchConfig(FETCH_CONFIG.getRetries(),
+                new TimeInterval(10L, TimeUnit.SECONDS), REACHABILITY_TIMEOUT);
+        fetcher.reconfigure(newDelegate, newConfig);
+        assertThat(fetcher.getCurrentRefreshInterval(), is(new TimeInterval(10L, TimeUnit.SECONDS)));
+
+        try {
+            fetcher.get(FORCE_REFRESH);
+            fail("expected to fail");
+        } catch (CloudPoolException e) {
+            // expected
+        }
+        assertThat(fetcher.get(), is(initialPool));
+        verify(newDelegate, atLeast(1)).get(FORCE_REFRESH);
+        fetcher.close();
+    }
+
+    /**
+     * A request with a maximum staleness should be served from cache if the
+     * cached pool is recent enough, and refresh the cache otherwise.
+     */
+    @Test
+    public void getWithMaxStaleness() {
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1")));
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+        MachinePool cachedPool = fetcher.get();
+
+        FrozenTime.tick(10);
+        assertThat(fetcher.get(30000L), is(cachedPool));
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+
+        // cache too old
+        assertThat(fetcher.get(5000L), is(pool(machines("i-1"))));
+        verify(this.delegate, times(2)).get(FORCE_REFRESH);
+
+        // zero staleness is a forced refresh
+        fetcher.get(0L);
+        verify(this.delegate, times(3)).get(FORCE_REFRESH);
+        fetcher.close();
+    }
+
+    /**
+     * A cached pool that was fetched before an expected pool change may not
+     * reflect that change, and should not be served to a request with a
+     * maximum staleness.
+     */
+    @Test
+    public void poolChangeExpectedInvalidatesCacheForMaxStaleness() {
+        when(this.delegate.get(FORCE_REFRESH)).thenReturn(pool(machines("i-1")));
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        fetcher.awaitFirstFetch();
+
+        fetcher.poolChangeExpected();
+        // plain reads are still served from cache
+        fetcher.get();
+        verify(this.delegate, times(1)).get(FORCE_REFRESH);
+        fetcher.get(60000L);
+        verify(this.delegate, times(2)).get(FORCE_REFRESH);
+        // the refreshed pool reflects the change
+        fetcher.get(60000L);
+        verify(this.delegate, times(2)).get(FORCE_REFRESH);
+        fetcher.close();
+    }
+
     /**
      * Verify that the {@link CachingPoolFetcher} restores its cache (if one
      * exists) on creation.
@@ -359,6 +588,52 @@ public class TestCachingPoolFetcher {
         fetcher.close();
     }
 
+    /**
+     * A {@link MachinePool} restored from cache should be servable before the
+     * first fetch completes, but the {@link CachingPoolFetcher} should not
+     * report itself as ready until a fetch has succeeded.
+     */
+    @Test
+    public void readinessWithRestoredCache() throws IOException {
+        MachinePool cachedPool = pool(machines("i-1", "i-2"));
+        save(cachedPool, STATE_STORAGE.getCachedMachinePoolFile());
+        when(this.delegate.get(FORCE_REFRESH)).thenThrow(new CloudPoolException("api outage"))
+                .thenReturn(pool(machines("i-1", "i-2", "i-3")));
+
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        assertTrue(fetcher.hasServableCache());
+        fetcher.awaitFirstFetch();
+        // first fetch failed: recovered pool is served, but not ready
+        assertFalse(fetcher.isReady());
+        assertThat(fetcher.get(), is(cachedPool));
+
+        fetcher.get(FORCE_REFRESH);
+        assertTrue(fetcher.isReady());
+        assertThat(fetcher.get(), is(pool(machines("i-1", "i-2", "i-3"))));
+        fetcher.close();
+    }
+
+    /**
+     * Without a restored cache, or with one older than the reachability
+     * timeout, there is nothing that can be served before the first fetch.
+     */
+    @Test
+    public void noServableCache() throws IOException {
+        when(this.delegate.get(FORCE_REFRESH)).thenThrow(new CloudPoolException("api outage"));
+        CachingPoolFetcher fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        assertFalse(fetcher.hasServableCache());
+        fetcher.close();
+
+        DateTime cachedTimestamp = FrozenTime.now().minusMinutes(REACHABILITY_TIMEOUT_MINUTES + 1);
+        save(new MachinePool(machines("i-1"), cachedTimestamp), STATE_STORAGE.getCachedMachinePoolFile());
+        fetcher = new CachingPoolFetcher(STATE_STORAGE, this.delegate, FETCH_CONFIG, this.executor,
+                this.mockEventbus);
+        assertFalse(fetcher.hasServableCache());
+        fetcher.close();
+    }
+
     private void save(MachinePool pool, File destination) throws IOException {
         Files.createDirectories(destination.getParentFile().toPath());
         Files.write(destination.toPath(), JsonUtils.toPrettyString(JsonUtils.toJson(pool)).getBytes());
@@ -374,6 +649,15 @@ public class TestCachingPoolFetcher {
         return JsonUtils.toObject(JsonUtils.parseJsonFile(machinePoolCacheFile), MachinePool.class);
     }
 
+    private static double metric(MetricRegistry metrics, String key) {
+        for (MetricSample sample : metrics.getSamples()) {
+            if (sample.getKey().equals(key)) {
+                return sample.getValue();
+            }
+        }
+        throw new AssertionError("no such metric: " + key);
+    }
+
     private MachinePool pool(List<Machine> machines) {
         return new MachinePool(machines, UtcTime.now());
     }
@@ -0,0 +1,196 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.types.CloudProviders;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage.PersistenceMode;
+import com.elastisys.scale.commons.json.JsonUtils;
+import com.elastisys.scale.commons.util.file.FileUtils;
+import com.elastisys.scale.commons.util.time.FrozenTime;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * Exercises the {@link PersistentMachinePool}.
+ */
+public class TestPersistentMachinePool {
+
+    private static final File STATE_STORAGE_DIR = new File(
+            "target/state-" + TestPersistentMachinePool.class.getSimpleName());
+
+    private static final StateStorage JSON_STORAGE = StateStorage.builder(STATE_STORAGE_DIR).build();
+    private static final StateStorage COMPACT_STORAGE = StateStorage.builder(STATE_STORAGE_DIR)
+            .withPersistenceMode(PersistenceMode.COMPACT).build();
+
+    @Before
+    public void beforeTestMethod() throws IOException {
+        if (STATE_STORAGE_DIR.exists()) {
+            FileUtils.deleteRecursively(STATE_STORAGE_DIR);
+        }
+        FrozenTime.setFixed(UtcTime.parse("2015-11-16T12:00:00.000Z"));
+    }
+
+    /**
+     * Without a persisted snapshot, the store should start out empty.
+     */
+    @Test
+    public void emptyOnMissingFile() {
+        assertThat(new PersistentMachinePool(JSON_STORAGE).get(), is(Optional.empty()));
+    }
+
+    /**
+     * A pool should be readable as plain JSON in the default mode and be
+     * restored by a new instance.
+     */
+    @Test
+    public void jsonRoundTrip() throws IOException {
+        MachinePool pool = pool(machines("i-1", "i-2"));
+        new PersistentMachinePool(JSON_STORAGE).update(pool);
+
+        File file = JSON_STORAGE.getCachedMachinePoolFile();
+        assertThat(file.getName(), is(StateStorage.DEFAULT_CACHED_MACHINE_POOL_FILENAME));
+        assertThat(MachinePool.fromJson(new String(Files.readAllBytes(file.toPath()))), is(pool));
+        assertThat(new PersistentMachinePool(JSON_STORAGE).get(), is(Optional.of(pool)));
+    }
+
+    /**
+     * In compact mode, a pool should be written gzip-compressed and be
+     * restored by a new instance.
+     */
+    @Test
+    public void compactRoundTrip() throws IOException {
+        MachinePool pool = pool(machines("i-1", "i-2"));
+        new PersistentMachinePool(COMPACT_STORAGE).update(pool);
+
+        File file = COMPACT_STORAGE.getCachedMachinePoolFile();
+        assertThat(file.getName(), is(StateStorage.DEFAULT_COMPACT_CACHED_MACHINE_POOL_FILENAME));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            assertThat(in.read() != -1, is(true));
+        }
+        assertThat(new PersistentMachinePool(COMPACT_STORAGE).get(), is(Optional.of(pool)));
+    }
+
+    /**
+     * In compact mode, a plain JSON snapshot written by an earlier version
+     * should be restored if no compact snapshot exists.
+     */
+    @Test
+    public void compactModeRestoresLegacyJsonSnapshot() throws IOException {
+        MachinePool pool = pool(machines("i-1"));
+        save(pool, JSON_STORAGE.getCachedMachinePoolFile());
+
+        assertThat(new PersistentMachinePool(COMPACT_STORAGE).get(), is(Optional.of(pool)));
+    }
+
+    /**
+     * A pool whose machines are unchanged since the last write should not be
+     * written again until {@link PersistentMachinePool#MAX_UNCHANGED_WRITE_INTERVAL}
+     * has passed.
+     */
+    @Test
+    public void skipWriteOfUnchangedPool() throws IOException {
+        File file = JSON_STORAGE.getCachedMachinePoolFile();
+        PersistentMachinePool store = new PersistentMachinePool(JSON_STORAGE);
+        store.update(pool(machines("i-1", "i-2")));
+        assertTrue(file.delete());
+
+        // unchanged: no write
+        FrozenTime.tick(10);
+        MachinePool unchanged = pool(machines("i-1", "i-2"));
+        store.update(unchanged);
+        assertFalse(file.exists());
+        // in-memory value is still updated
+        assertThat(store.get(), is(Optional.of(unchanged)));
+
+        // changed: write
+        store.update(pool(machines("i-1")));
+        assertTrue(file.exists());
+        assertTrue(file.delete());
+
+        // unchanged, but last write too old: write
+        FrozenTime.tick((int) PersistentMachinePool.MAX_UNCHANGED_WRITE_INTERVAL.getStandardSeconds());
+        store.update(pool(machines("i-1")));
+        assertTrue(file.exists());
+    }
+
+    /**
+     * The persisted snapshot should not be read until asked for, and should
+     * never be read if a newer snapshot is set before then.
+     */
+    @Test
+    public void lazyRestore() throws IOException {
+        File file = JSON_STORAGE.getCachedMachinePoolFile();
+
+        PersistentMachinePool store = new PersistentMachinePool(JSON_STORAGE);
+        // file written after creation should still be picked up
+        MachinePool persisted = pool(machines("i-1"));
+        save(persisted, file);
+        assertThat(store.get(), is(Optional.of(persisted)));
+
+        // an update before first get shadows the persisted snapshot
+        store = new PersistentMachinePool(JSON_STORAGE);
+        MachinePool updated = pool(machines("i-2"));
+        store.update(updated);
+        assertThat(store.get(), is(Optional.of(updated)));
+    }
+
+    /**
+     * A corrupt snapshot should be ignored.
+     */
+    @Test
+    public void ignoreCorruptSnapshot() throws IOException {
+        File file = JSON_STORAGE.getCachedMachinePoolFile();
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), "{\"timestamp\": ".getBytes());
+
+        assertThat(new PersistentMachinePool(JSON_STORAGE).get(), is(Optional.empty()));
+    }
+
+    /**
+     * Writes should go through a temporary file that does not linger.
+     */
+    @Test
+    public void noTemporaryFilesLeftBehind() {
+        PersistentMachinePool store = new PersistentMachinePool(JSON_STORAGE);
+        store.update(pool(machines("i-1")));
+        store.update(pool(machines("i-1", "i-2")));
+
+        assertThat(STATE_STORAGE_DIR.list().length, is(1));
+    }
+
+    private static void save(MachinePool pool, File destination) throws IOException {
+        Files.createDirectories(destination.getParentFile().toPath());
+        Files.write(destination.toPath(), JsonUtils.toPrettyString(JsonUtils.toJson(pool)).getBytes());
+    }
+
+    private static MachinePool pool(List<Machine> machines) {
+        return new MachinePool(machines, UtcTime.now());
+    }
+
+    private static List<Machine> machines(String... machineIds) {
+        List<Machine> machines = new ArrayList<>();
+        for (String id : machineIds) {
+            machines.add(Machine.builder().id(id).machineSize("m1.medium").machineState(MachineState.RUNNING)
+                    .cloudProvider(CloudProviders.AWS_EC2).region("us-east-1").build());
+        }
+        return machines;
+    }
+}
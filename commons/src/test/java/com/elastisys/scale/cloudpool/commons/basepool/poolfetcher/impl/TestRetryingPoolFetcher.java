@@ -1,5 +1,6 @@
 package com.elastisys.scale.cloudpool.commons.basepool.poolfetcher.impl;
 
+import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -11,6 +12,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.time.StopWatch;
@@ -25,6 +27,8 @@ import com.elastisys.scale.cloudpool.api.types.MachineState;
 import com.elastisys.scale.cloudpool.commons.basepool.config.RetriesConfig;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
 import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MachineChanges;
 import com.elastisys.scale.commons.json.types.TimeInterval;
 import com.elastisys.scale.commons.util.time.FrozenTime;
 import com.elastisys.scale.commons.util.time.UtcTime;
@@ -133,6 +137,99 @@ public class TestRetryingPoolFetcher {
         verify(this.mockDriver, times(1)).listMachines();
     }
 
+    /**
+     * With an {@link IncrementalCloudPoolDriver}, a full listing should be
+     * made on the first fetch, after which only changes are fetched and merged
+     * into the previous pool.
+     */
+    @Test
+    public void incrementalFetch() {
+        IncrementalCloudPoolDriver incrementalDriver = mock(IncrementalCloudPoolDriver.class);
+        this.fetcher = new RetryingPoolFetcher(incrementalDriver, RETRIES_CONFIG.getMaxRetries(),
+                RETRIES_CONFIG.getInitialBackoffDelay(), new TimeInterval(10L, TimeUnit.MINUTES));
+
+        when(incrementalDriver.listMachineChanges(Optional.empty()))
+                .thenReturn(MachineChanges.fullListing(machines("i-1", "i-2"), "1"));
+        when(incrementalDriver.listMachineChanges(Optional.of("1")))
+                .thenReturn(MachineChanges.delta(machines("i-3"), asList("i-1"), "2"));
+        when(incrementalDriver.listMachineChanges(Optional.of("2")))
+                .thenReturn(MachineChanges.delta(machines(), asList(), "2"));
+
+        MachinePool pool = this.fetcher.get();
+        assertThat(pool.getMachines(), is(machines("i-1", "i-2")));
+
+        FrozenTime.tick(30);
+        pool = this.fetcher.get();
+        assertThat(pool.getMachines(), is(machines("i-2", "i-3")));
+        assertThat(pool.getTimestamp(), is(UtcTime.now()));
+
+        // no changes: same members, new timestamp
+        FrozenTime.tick(30);
+        pool = this.fetcher.get();
+        assertThat(pool.getMachines(), is(machines("i-2", "i-3")));
+        assertThat(pool.getTimestamp(), is(UtcTime.now()));
+
+        verify(incrementalDriver, times(1)).listMachineChanges(Optional.empty());
+        verify(incrementalDriver, times(1)).listMachineChanges(Optional.of("1"));
+        verify(incrementalDriver, times(1)).listMachineChanges(Optional.of("2"));
+        verify(incrementalDriver, times(0)).listMachines();
+    }
+
+    /**
+     * A full listing should be made when the full listing interval has passed
+     * since the last full listing.
+     */
+    @Test
+    public void incrementalFetchWithPeriodicFullListing() {
+        IncrementalCloudPoolDriver incrementalDriver = mock(IncrementalCloudPoolDriver.class);
+        this.fetcher = new RetryingPoolFetcher(incrementalDriver, RETRIES_CONFIG.getMaxRetries(),
+                RETRIES_CONFIG.getInitialBackoffDelay(), new TimeInterval(10L, TimeUnit.MINUTES));
+
+        when(incrementalDriver.listMachineChanges(Optional.empty()))
+                .thenReturn(MachineChanges.fullListing(machines("i-1"), "1"));
+        when(incrementalDriver.listMachineChanges(Optional.of("1")))
+                .thenReturn(MachineChanges.delta(machines(), asList(), "1"));
+
+        this.fetcher.get();
+        FrozenTime.tick(9 * 60);
+        this.fetcher.get();
+        verify(incrementalDriver, times(1)).listMachineChanges(Optional.empty());
+
+        // full listing interval passed
+        FrozenTime.tick(60);
+        this.fetcher.get();
+        verify(incrementalDriver, times(2)).listMachineChanges(Optional.empty());
+    }
+
+    /**
+     * After a failed incremental fetch, the next fetch should be a full
+     * listing.
+     */
+    @Test
+    public void incrementalFetchFallsBackToFullListingAfterFailure() {
+        IncrementalCloudPoolDriver incrementalDriver = mock(IncrementalCloudPoolDriver.class);
+        this.fetcher = new RetryingPoolFetcher(incrementalDriver, 0, new TimeInterval(0L, TimeUnit.MILLISECONDS),
+                new TimeInterval(10L, TimeUnit.MINUTES));
+
+        when(incrementalDriver.listMachineChanges(Optional.empty()))
+                .thenReturn(MachineChanges.fullListing(machines("i-1"), "1"))
+                .thenReturn(MachineChanges.fullListing(machines("i-1", "i-2"), "2"));
+        when(incrementalDriver.listMachineChanges(Optional.of("1")))
+                .thenThrow(new CloudPoolDriverException("api outage"));
+
+        this.fetcher.get();
+        try {
+            this.fetcher.get();
+            fail("should not succeed");
+        } catch (CloudPoolException e) {
+            // expected
+        }
+
+        MachinePool pool = this.fetcher.get();
+        assertThat(pool.getMachines(), is(machines("i-1", "i-2")));
+        verify(incrementalDriver, times(2)).listMachineChanges(Optional.empty());
+    }
+
     private List<Machine> machines(String... machineIds) {
         List<Machine> machines = new ArrayList<>();
         for (String id : machineIds) {
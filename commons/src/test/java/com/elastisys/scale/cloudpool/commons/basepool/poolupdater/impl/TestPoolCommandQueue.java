@@ -0,0 +1,274 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl.PoolCommandQueue.Command;
+import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl.PoolCommandQueue.Lane;
+
+/**
+ * Exercises the {@link PoolCommandQueue}.
+ */
+public class TestPoolCommandQueue {
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final PoolCommandQueue queue = new PoolCommandQueue("test-queue", this.metrics);
+
+    /** Records the labels of executed commands (one entry per execution). */
+    private final List<List<String>> executions = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void afterTestMethod() {
+        this.queue.close();
+    }
+
+    /**
+     * Commands should be executed in submission order.
+     */
+    @Test
+    public void executeInOrder() throws Exception {
+        List<TestCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TestCommand command = new TestCommand("c" + i, false);
+            commands.add(command);
+            this.queue.submit(command);
+        }
+        for (TestCommand command : commands) {
+            command.future.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(this.executions.size(), is(10));
+        for (int i = 0; i < 10; i++) {
+            assertThat(this.executions.get(i), is(Arrays.asList("c" + i)));
+        }
+    }
+
+    /**
+     * Mergeable commands queued behind a running command should be merged into
+     * a single execution.
+     */
+    @Test
+    public void mergeQueuedCommands() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingCommand blocker = new BlockingCommand(started, release);
+        this.queue.submit(blocker);
+        started.await();
+
+        TestCommand a = new TestCommand("a", true);
+        TestCommand b = new TestCommand("b", true);
+        TestCommand c = new TestCommand("c", false);
+        TestCommand d = new TestCommand("d", true);
+        this.queue.submit(a);
+        this.queue.submit(b);
+        this.queue.submit(c);
+        this.queue.submit(d);
+        assertThat(this.queue.getQueueDepth(), is(4));
+
+        release.countDown();
+        d.future.get(5, TimeUnit.SECONDS);
+        a.future.get(5, TimeUnit.SECONDS);
+        b.future.get(5, TimeUnit.SECONDS);
+        c.future.get(5, TimeUnit.SECONDS);
+
+        // c does not accept merges, so d is executed on its own
+        assertThat(this.executions, is(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c"), Arrays.asList("d"))));
+    }
+
+    /**
+     * Commands in the interactive lane should be executed ahead of background
+     * commands that were queued before them, and commands should only be
+     * merged with commands in the same lane.
+     */
+    @Test
+    public void interactiveLaneFirst() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        this.queue.submit(new BlockingCommand(started, release), Lane.BACKGROUND);
+        started.await();
+
+        TestCommand background1 = new TestCommand("background1", true);
+        TestCommand background2 = new TestCommand("background2", true);
+        TestCommand interactive1 = new TestCommand("interactive1", true);
+        TestCommand interactive2 = new TestCommand("interactive2", true);
+        this.queue.submit(background1, Lane.BACKGROUND);
+        this.queue.submit(interactive1);
+        this.queue.submit(background2, Lane.BACKGROUND);
+        this.queue.submit(interactive2, Lane.INTERACTIVE);
+        assertThat(this.queue.getQueueDepth(), is(4));
+
+        release.countDown();
+        background2.future.get(5, TimeUnit.SECONDS);
+        interactive2.future.get(5, TimeUnit.SECONDS);
+
+        assertThat(this.executions, is(Arrays.asList(Arrays.asList("interactive1", "interactive2"),
+                Arrays.asList("background1", "background2"))));
+        assertThat(waitTimeCount(Lane.INTERACTIVE), is(2L));
+        assertThat(waitTimeCount(Lane.BACKGROUND), is(3L));
+    }
+
+    /**
+     * A failing command should not prevent later commands from executing.
+     */
+    @Test
+    public void failingCommand() throws Exception {
+        TestCommand failing = new TestCommand("fail", false);
+        TestCommand next = new TestCommand("next", false);
+        this.queue.submit(failing);
+        this.queue.submit(next);
+
+        try {
+            failing.future.get(5, TimeUnit.SECONDS);
+            fail("expected to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+        next.future.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Closing the queue should fail queued commands as well as commands
+     * submitted after close.
+     */
+    @Test
+    public void closeFailsPendingCommands() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        BlockingCommand blocker = new BlockingCommand(started, new CountDownLatch(1));
+        this.queue.submit(blocker);
+        started.await();
+        TestCommand pending = new TestCommand("pending", false);
+        this.queue.submit(pending);
+
+        this.queue.close();
+        assertFailedOnClose(pending.future);
+
+        TestCommand late = new TestCommand("late", false);
+        this.queue.submit(late);
+        assertFailedOnClose(late.future);
+    }
+
+    /**
+     * A command that has been merged into another command before the queue
+     * is closed should be carried out by that command, not failed by the
+     * close.
+     */
+    @Test
+    public void closeWhileMerging() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        this.queue.submit(new BlockingCommand(started, release));
+        started.await();
+
+        // closes the queue when offered a command to merge
+        TestCommand a = new TestCommand("a", true) {
+            @Override
+            public boolean merge(Command next) {
+                TestPoolCommandQueue.this.queue.close();
+                return super.merge(next);
+            }
+        };
+        TestCommand b = new TestCommand("b", true);
+        this.queue.submit(a);
+        this.queue.submit(b);
+
+        release.countDown();
+        a.future.get(5, TimeUnit.SECONDS);
+        b.future.get(5, TimeUnit.SECONDS);
+        assertThat(this.executions, is(Arrays.asList(Arrays.asList("a", "b"))));
+    }
+
+    private long waitTimeCount(Lane lane) {
+        return this.metrics.histogram("cloudpool_pool_command_queue_wait_seconds", "", "lane",
+                lane.name().toLowerCase()).getCount();
+    }
+
+    private static void assertFailedOnClose(CompletableFuture<Void> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("expected to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+        }
+    }
+
+    /**
+     * A command that records its (merged) labels on execution. A command
+     * labeled "fail" throws.
+     */
+    private class TestCommand implements Command {
+        private final List<String> labels = new ArrayList<>();
+        private final List<TestCommand> merged = new ArrayList<>();
+        private final boolean mergeable;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        public TestCommand(String label, boolean mergeable) {
+            this.labels.add(label);
+            this.mergeable = mergeable;
+        }
+
+        @Override
+        public void execute() throws Exception {
+            if (this.labels.contains("fail")) {
+                throw new IllegalStateException("failed");
+            }
+            TestPoolCommandQueue.this.executions.add(new ArrayList<>(this.labels));
+            this.future.complete(null);
+            this.merged.forEach(command -> command.future.complete(null));
+        }
+
+        @Override
+        public void fail(Throwable cause) {
+            this.future.completeExceptionally(cause);
+            this.merged.forEach(command -> command.future.completeExceptionally(cause));
+        }
+
+        @Override
+        public boolean merge(Command next) {
+            if (!this.mergeable || !(next instanceof TestCommand) || !((TestCommand) next).mergeable) {
+                return false;
+            }
+            TestCommand other = (TestCommand) next;
+            this.labels.addAll(other.labels);
+            this.merged.add(other);
+            return true;
+        }
+    }
+
+    /**
+     * A command that blocks until released.
+     */
+    private static class BlockingCommand implements Command {
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        public BlockingCommand(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public void execute() throws Exception {
+            this.started.countDown();
+            this.release.await();
+        }
+
+        @Override
+        public void fail(Throwable cause) {
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.CloudPoolException;
+
+/**
+ * Exercises the {@link ResizeScheduler}.
+ */
+public class TestResizeScheduler {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void afterTestMethod() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * A single resize request should result in a single resize.
+     */
+    @Test
+    public void singleRequest() throws Exception {
+        AtomicInteger resizes = new AtomicInteger(0);
+        ResizeScheduler scheduler = new ResizeScheduler(this.executor, () -> resizes.incrementAndGet());
+
+        scheduler.requestResize().get(5, TimeUnit.SECONDS);
+        assertThat(resizes.get(), is(1));
+
+        scheduler.requestResize().get(5, TimeUnit.SECONDS);
+        assertThat(resizes.get(), is(2));
+    }
+
+    /**
+     * A burst of requests arriving while a resize is running should be
+     * coalesced into a single pending resize, which is run once the running
+     * resize completes. Requests that arrived during the running resize must
+     * not be completed by it.
+     */
+    @Test
+    public void coalesceBurstOfRequests() throws Exception {
+        AtomicInteger resizes = new AtomicInteger(0);
+        CountDownLatch firstResizeStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstResize = new CountDownLatch(1);
+        ResizeScheduler scheduler = new ResizeScheduler(this.executor, () -> {
+            if (resizes.incrementAndGet() == 1) {
+                firstResizeStarted.countDown();
+                await(releaseFirstResize);
+            }
+        });
+
+        Future<?> first = scheduler.requestResize();
+        firstResizeStarted.await();
+
+        // burst of requests while first resize is running
+        List<Future<?>> burst = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            burst.add(scheduler.requestResize());
+        }
+        assertFalse(first.isDone());
+        for (Future<?> request : burst) {
+            assertFalse(request.isDone());
+        }
+
+        releaseFirstResize.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        for (Future<?> request : burst) {
+            request.get(5, TimeUnit.SECONDS);
+        }
+
+        // the burst should have been served by a single additional resize
+        assertThat(resizes.get(), is(2));
+    }
+
+    /**
+     * A failed resize should fail all requests that it covers.
+     */
+    @Test
+    public void propagateResizeFailure() throws Exception {
+        ResizeScheduler scheduler = new ResizeScheduler(this.executor, () -> {
+            throw new CloudPoolException("api outage");
+        });
+
+        try {
+            scheduler.requestResize().get(5, TimeUnit.SECONDS);
+            fail("expected resize to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(CloudPoolException.class));
+        }
+
+        // scheduler should still accept new requests after a failure
+        try {
+            scheduler.requestResize().get(5, TimeUnit.SECONDS);
+            fail("expected resize to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(CloudPoolException.class));
+        }
+    }
+
+    /**
+     * Cancelling one request should not affect other requests waiting for the
+     * same resize.
+     */
+    @Test
+    public void cancelOneOfSeveralCoalescedRequests() throws Exception {
+        CountDownLatch firstResizeStarted = new CountDownLatch(1);
+        CountDownLatch releaseResize = new CountDownLatch(1);
+        ResizeScheduler scheduler = new ResizeScheduler(this.executor, () -> {
+            firstResizeStarted.countDown();
+            await(releaseResize);
+        });
+
+        scheduler.requestResize();
+        firstResizeStarted.await();
+        Future<?> cancelled = scheduler.requestResize();
+        Future<?> other = scheduler.requestResize();
+        cancelled.cancel(true);
+        releaseResize.countDown();
+
+        other.get(5, TimeUnit.SECONDS);
+        assertTrue(cancelled.isCancelled());
+        assertFalse(other.isCancelled());
+    }
+
+    /**
+     * If the executor rejects the resize, the request should fail.
+     */
+    @Test
+    public void rejectedResize() throws Exception {
+        this.executor.shutdown();
+        ResizeScheduler scheduler = new ResizeScheduler(this.executor, () -> {
+        });
+
+        try {
+            scheduler.requestResize().get(5, TimeUnit.SECONDS);
+            fail("expected resize to be rejected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machine;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+
+/**
+ * Exercises the {@link ScaleOutExecutor}.
+ */
+public class TestScaleOutExecutor {
+
+    private final ScaleOutExecutor executor = new ScaleOutExecutor("test-scale-out");
+
+    @After
+    public void afterTestMethod() {
+        this.executor.close();
+    }
+
+    /**
+     * A machine count should be split into chunks of at most the preferred
+     * size.
+     */
+    @Test
+    public void chunks() {
+        assertThat(ScaleOutExecutor.chunks(0, 3), is(Collections.emptyList()));
+        assertThat(ScaleOutExecutor.chunks(2, 3), is(asList(2)));
+        assertThat(ScaleOutExecutor.chunks(7, 3), is(asList(3, 3, 1)));
+        assertThat(ScaleOutExecutor.chunks(5, Integer.MAX_VALUE), is(asList(5)));
+    }
+
+    /**
+     * A driver without a preferred chunk size should be asked to start all
+     * machines in a single call.
+     */
+    @Test
+    public void singleCallWithoutPreferredChunkSize() throws Exception {
+        FakeDriver driver = new FakeDriver(Integer.MAX_VALUE, 0);
+        List<Machine> started = this.executor.startMachines(driver, 10, 4);
+
+        assertThat(started.size(), is(10));
+        assertThat(driver.requests, is(asList(10)));
+    }
+
+    /**
+     * A large scale-out should be split into chunks that are started
+     * concurrently, without exceeding the in-flight limit.
+     */
+    @Test
+    public void concurrentChunks() throws Exception {
+        FakeDriver driver = new FakeDriver(2, 50);
+        List<Machine> started = this.executor.startMachines(driver, 15, 3);
+
+        assertThat(started.size(), is(15));
+        assertThat(driver.requests.size(), is(8));
+        assertThat(driver.requests.stream().mapToInt(Integer::intValue).sum(), is(15));
+        assertThat(driver.maxInFlight.get(), is(3));
+    }
+
+    /**
+     * With an in-flight limit of one, chunks should be started one at a time.
+     */
+    @Test
+    public void sequentialChunks() throws Exception {
+        FakeDriver driver = new FakeDriver(1, 10);
+        List<Machine> started = this.executor.startMachines(driver, 4, 1);
+
+        assertThat(started.size(), is(4));
+        assertThat(driver.maxInFlight.get(), is(1));
+    }
+
+    /**
+     * When a chunk fails, no more chunks should be started and the thrown
+     * exception should report the machines started by all chunks.
+     */
+    @Test
+    public void partialFailure() throws Exception {
+        FakeDriver driver = new FakeDriver(2, 50);
+        // third request starts one machine and then fails
+        driver.failingRequest = 3;
+        try {
+            this.executor.startMachines(driver, 20, 2);
+            fail("expected to fail");
+        } catch (StartMachinesException e) {
+            assertThat(e.getRequestedMachines(), is(20));
+            assertThat(e.getCause().getMessage(), is("quota exceeded"));
+            // the failed chunk's own message is kept
+            assertThat(e.getMessage(),
+                    containsString("failure to complete request to start 2 machine(s) (1 machine(s) were launched)"));
+            // requests in flight at the time of failure complete, but the
+            // remaining chunks are never requested
+            assertTrue(driver.requests.size() < 10);
+            int expectedStarted = 2 * (driver.requests.size() - 1) + 1;
+            assertThat(e.getStartedMachines().size(), is(expectedStarted));
+        }
+    }
+
+    /**
+     * Starts machines after a delay, tracks the number of concurrent requests
+     * and optionally fails one request (by order of arrival).
+     */
+    private static class FakeDriver implements CloudPoolDriver {
+        private final int chunkSize;
+        private final long delayMillis;
+        private final AtomicInteger machineIds = new AtomicInteger(0);
+        private final AtomicInteger inFlight = new AtomicInteger(0);
+
+        final AtomicInteger maxInFlight = new AtomicInteger(0);
+        final List<Integer> requests = Collections.synchronizedList(new ArrayList<>());
+        volatile int failingRequest = -1;
+
+        public FakeDriver(int chunkSize, long delayMillis) {
+            this.chunkSize = chunkSize;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public int getPreferredStartChunkSize() {
+            return this.chunkSize;
+        }
+
+        @Override
+        public List<Machine> startMachines(int count) throws StartMachinesException {
+            int requestNumber;
+            synchronized (this.requests) {
+                this.requests.add(count);
+                requestNumber = this.requests.size();
+            }
+            this.maxInFlight.accumulateAndGet(this.inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(this.delayMillis);
+                List<Machine> started = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    started.add(machine("i-" + this.machineIds.incrementAndGet()));
+                    if (requestNumber == this.failingRequest) {
+                        throw new StartMachinesException(count, started, new RuntimeException("quota exceeded"));
+                    }
+                }
+                return started;
+            } catch (InterruptedException e) {
+                throw new StartMachinesException(count, Collections.emptyList(), e);
+            } finally {
+                this.inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void configure(DriverConfig configuration) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Machine> listMachines() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void terminateMachines(List<String> machineIds)
+                throws IllegalStateException, TerminateMachinesException, CloudPoolDriverException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void attachMachine(String machineId) throws NotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void detachMachine(String machineId) throws NotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setServiceState(String machineId, ServiceState serviceState) throws NotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setMembershipStatus(String machineId, MembershipStatus membershipStatus)
+                throws NotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getPoolName() {
+            return "test-pool";
+        }
+    }
+}
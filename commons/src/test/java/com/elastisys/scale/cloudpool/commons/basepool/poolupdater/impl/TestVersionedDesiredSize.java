@@ -0,0 +1,89 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl.VersionedDesiredSize.Snapshot;
+
+/**
+ * Exercises the {@link VersionedDesiredSize}.
+ */
+public class TestVersionedDesiredSize {
+
+    /**
+     * The desired size should be unset until set, and every update should bump
+     * the version.
+     */
+    @Test
+    public void setAndGet() {
+        VersionedDesiredSize desiredSize = new VersionedDesiredSize();
+        assertFalse(desiredSize.get().isPresent());
+
+        Snapshot first = desiredSize.set(2);
+        assertThat(first.getSize(), is(2));
+        assertThat(desiredSize.get().get(), is(first));
+
+        Snapshot second = desiredSize.set(2);
+        assertThat(second.getSize(), is(2));
+        assertTrue(second.getVersion() > first.getVersion());
+    }
+
+    /**
+     * {@link VersionedDesiredSize#setIfUnset(int)} should only set the desired
+     * size the first time.
+     */
+    @Test
+    public void setIfUnset() {
+        VersionedDesiredSize desiredSize = new VersionedDesiredSize();
+        assertTrue(desiredSize.setIfUnset(3));
+        assertFalse(desiredSize.setIfUnset(5));
+        assertThat(desiredSize.get().get().getSize(), is(3));
+    }
+
+    /**
+     * A compare-and-set should fail if the desired size has been set since
+     * the snapshot was taken, even if it was set to the same value.
+     */
+    @Test
+    public void compareAndSet() {
+        VersionedDesiredSize desiredSize = new VersionedDesiredSize();
+        Snapshot before = desiredSize.set(2);
+        assertTrue(desiredSize.compareAndSet(before, 1));
+        assertThat(desiredSize.get().get().getSize(), is(1));
+
+        // stale snapshot
+        assertFalse(desiredSize.compareAndSet(before, 0));
+        assertThat(desiredSize.get().get().getSize(), is(1));
+
+        // intermediate update to the same size
+        Snapshot snapshot = desiredSize.get().get();
+        desiredSize.set(1);
+        assertFalse(desiredSize.compareAndSet(snapshot, 0));
+        assertThat(desiredSize.get().get().getSize(), is(1));
+    }
+
+    /**
+     * An update should never bring the desired size below zero.
+     */
+    @Test
+    public void update() {
+        VersionedDesiredSize desiredSize = new VersionedDesiredSize();
+        desiredSize.set(1);
+        assertThat(desiredSize.update(size -> size + 1).getSize(), is(2));
+        assertThat(desiredSize.update(size -> size - 3).getSize(), is(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void updateWhenUnset() {
+        new VersionedDesiredSize().update(size -> size + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setNegative() {
+        new VersionedDesiredSize().set(-1);
+    }
+}
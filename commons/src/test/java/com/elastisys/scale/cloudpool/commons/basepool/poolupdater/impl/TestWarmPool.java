@@ -0,0 +1,242 @@
+package com.elastisys.scale.cloudpool.commons.basepool.poolupdater.impl;
+
+import static com.elastisys.scale.cloudpool.commons.basepool.BasePoolTestUtils.machine;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.metrics.MetricRegistry;
+import com.elastisys.scale.cloudpool.api.metrics.MetricSample;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MachineState;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DetachMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.StartMachinesException;
+
+/**
+ * Exercises the {@link WarmPool}.
+ */
+public class TestWarmPool {
+
+    private final FakeDriver driver = new FakeDriver();
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final WarmPool warmPool = new WarmPool(this.driver, this.metrics);
+
+    /**
+     * Stopped warm machines should be promoted before machines that are still
+     * being provisioned.
+     */
+    @Test
+    public void promoteReadyMachinesFirst() {
+        this.driver.warmMachines.addAll(asList(machine("w1", MachineState.PENDING),
+                machine("w2", MachineState.TERMINATED), machine("w3", MachineState.TERMINATED)));
+        this.warmPool.refresh();
+
+        List<Machine> promoted = this.warmPool.promote(2);
+
+        assertThat(ids(promoted), is(asList("w2", "w3")));
+        assertThat(this.driver.promoteRequests, is(asList(asList("w2", "w3"))));
+        assertThat(this.warmPool.size(), is(1));
+        assertThat(sample("cloudpool_warm_pool_hits_total"), is(2.0));
+        assertThat(sample("cloudpool_warm_pool_size"), is(1.0));
+    }
+
+    /**
+     * When the warm pool holds fewer machines than needed, all should be
+     * promoted and the remainder should count as misses.
+     */
+    @Test
+    public void promoteFromTooSmallWarmPool() {
+        this.driver.warmMachines.add(machine("w1", MachineState.TERMINATED));
+        // machines that failed to be provisioned are ignored
+        this.driver.warmMachines.add(machine("w2", MachineState.REJECTED));
+        this.warmPool.refresh();
+
+        assertThat(ids(this.warmPool.promote(4)), is(asList("w1")));
+        assertThat(sample("cloudpool_warm_pool_hits_total"), is(1.0));
+        assertThat(sample("cloudpool_warm_pool_misses_total"), is(3.0));
+        assertThat(sample("cloudpool_warm_pool_hit_ratio"), is(0.25));
+    }
+
+    /**
+     * A partially failed promotion should return the machines that were
+     * promoted and drop all attempted machines from the warm pool.
+     */
+    @Test
+    public void partiallyFailedPromotion() {
+        this.driver.warmMachines.addAll(asList(machine("w1", MachineState.TERMINATED),
+                machine("w2", MachineState.TERMINATED), machine("w3", MachineState.TERMINATED)));
+        this.driver.failPromotionAfter = 1;
+        this.warmPool.refresh();
+
+        assertThat(ids(this.warmPool.promote(2)), is(asList("w1")));
+        assertThat(this.warmPool.size(), is(1));
+    }
+
+    /**
+     * Only running victims should be demoted, and no more than the warm pool
+     * has room for.
+     */
+    @Test
+    public void demoteUpToCapacity() {
+        this.driver.warmMachines.add(machine("w1", MachineState.TERMINATED));
+        this.warmPool.refresh();
+
+        List<Machine> victims = asList(machine("m1", MachineState.PENDING), machine("m2", MachineState.RUNNING),
+                machine("m3", MachineState.RUNNING));
+        List<Machine> demoted = this.warmPool.demote(victims, 2);
+
+        assertThat(ids(demoted), is(asList("m2")));
+        assertThat(this.driver.demoteRequests, is(asList(asList("m2"))));
+        assertThat(this.warmPool.size(), is(2));
+
+        // warm pool is full
+        assertThat(this.warmPool.demote(victims, 2), is(Collections.emptyList()));
+    }
+
+    /**
+     * The warm pool should be replenished up to its size, but only once it has
+     * been listed.
+     */
+    @Test
+    public void replenish() {
+        this.driver.warmMachines.add(machine("w1", MachineState.TERMINATED));
+        this.warmPool.refresh();
+
+        assertThat(this.warmPool.replenish(3).size(), is(2));
+        assertThat(this.driver.provisionRequests, is(asList(2)));
+        assertThat(this.warmPool.size(), is(3));
+        assertThat(this.warmPool.replenish(3).size(), is(0));
+    }
+
+    /**
+     * A warm pool that cannot be listed should be reported as such.
+     */
+    @Test
+    public void refreshFailure() {
+        this.driver.listFails = true;
+        assertThat(this.warmPool.refresh(), is(false));
+        assertThat(this.warmPool.size(), is(0));
+    }
+
+    private double sample(String name) {
+        return this.metrics.getSamples().stream().filter(sample -> sample.getName().equals(name))
+                .map(MetricSample::getValue).findFirst().get();
+    }
+
+    private static List<String> ids(List<Machine> machines) {
+        return machines.stream().map(Machine::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Keeps a list of warm machines and records warm pool requests.
+     */
+    private static class FakeDriver implements CloudPoolDriver {
+        final List<Machine> warmMachines = new ArrayList<>();
+        final List<List<String>> promoteRequests = new ArrayList<>();
+        final List<List<String>> demoteRequests = new ArrayList<>();
+        final List<Integer> provisionRequests = new ArrayList<>();
+        boolean listFails = false;
+        int failPromotionAfter = -1;
+
+        @Override
+        public boolean supportsWarmPool() {
+            return true;
+        }
+
+        @Override
+        public List<Machine> listWarmMachines() {
+            if (this.listFails) {
+                throw new CloudPoolDriverException("api unreachable");
+            }
+            return new ArrayList<>(this.warmMachines);
+        }
+
+        @Override
+        public List<Machine> provisionWarmMachines(int count) {
+            this.provisionRequests.add(count);
+            List<Machine> provisioned = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                provisioned.add(machine("new-" + i, MachineState.PENDING));
+            }
+            return provisioned;
+        }
+
+        @Override
+        public List<Machine> promoteWarmMachines(List<String> machineIds) throws StartMachinesException {
+            this.promoteRequests.add(machineIds);
+            List<Machine> promoted = new ArrayList<>();
+            for (String machineId : machineIds) {
+                if (promoted.size() == this.failPromotionAfter) {
+                    throw new StartMachinesException(machineIds.size(), promoted,
+                            new RuntimeException("failed to start " + machineId));
+                }
+                promoted.add(machine(machineId, MachineState.PENDING));
+            }
+            return promoted;
+        }
+
+        @Override
+        public void demoteMachines(List<String> machineIds) throws DetachMachinesException {
+            this.demoteRequests.add(machineIds);
+        }
+
+        @Override
+        public void configure(DriverConfig configuration) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Machine> listMachines() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Machine> startMachines(int count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void terminateMachines(List<String> machineIds) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void attachMachine(String machineId) throws NotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void detachMachine(String machineId) throws NotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setServiceState(String machineId, ServiceState serviceState) throws NotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setMembershipStatus(String machineId, MembershipStatus membershipStatus)
+                throws NotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getPoolName() {
+            return "test-pool";
+        }
+    }
+}
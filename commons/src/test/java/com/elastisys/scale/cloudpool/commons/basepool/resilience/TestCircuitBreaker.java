@@ -0,0 +1,145 @@
+package com.elastisys.scale.cloudpool.commons.basepool.resilience;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.commons.basepool.config.CircuitBreakerConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.resilience.CircuitBreaker.State;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+import com.elastisys.scale.commons.util.time.FrozenTime;
+import com.elastisys.scale.commons.util.time.UtcTime;
+
+/**
+ * Exercises the {@link CircuitBreaker}.
+ */
+public class TestCircuitBreaker {
+
+    /**
+     * Opens at 50% failures over the last 4 calls (once 4 calls have been
+     * made), stays open for 10 seconds and closes after 2 successful probes.
+     */
+    private static final CircuitBreakerConfig CONFIG = new CircuitBreakerConfig(0.5, 4, 4,
+            new TimeInterval(10L, TimeUnit.SECONDS), 2, 1);
+
+    /** Recorded state transitions. */
+    private final List<State> transitions = new ArrayList<>();
+    private CircuitBreaker breaker;
+
+    @Before
+    public void beforeTestMethod() {
+        FrozenTime.setFixed(UtcTime.parse("2018-01-01T12:00:00.000Z"));
+        this.breaker = new CircuitBreaker("listMachines", CONFIG,
+                (operation, from, to, reason) -> this.transitions.add(to));
+    }
+
+    @After
+    public void afterTestMethod() {
+        FrozenTime.resumeSystemTime();
+    }
+
+    /**
+     * The failure rate should not be considered until the minimum number of
+     * calls have been made.
+     */
+    @Test
+    public void staysClosedBelowMinimumCalls() {
+        fail(3);
+        assertThat(this.breaker.getState(), is(State.CLOSED));
+        assertTrue(this.breaker.tryAcquirePermission());
+    }
+
+    /**
+     * Only the most recent calls in the sliding window should count.
+     */
+    @Test
+    public void oldOutcomesAreEvicted() {
+        fail(1);
+        succeed(4);
+        // window: [ok, ok, ok, ok] -> one more failure gives 25%
+        fail(1);
+        assertThat(this.breaker.getState(), is(State.CLOSED));
+        assertThat(this.breaker.failureRate(), is(0.25));
+    }
+
+    /**
+     * Once the failure rate threshold is reached, the breaker should open and
+     * reject calls until the open duration has passed.
+     */
+    @Test
+    public void opensAtFailureRateThreshold() {
+        succeed(2);
+        fail(2);
+        assertThat(this.breaker.getState(), is(State.OPEN));
+        assertFalse(this.breaker.tryAcquirePermission());
+
+        FrozenTime.tick(9);
+        assertFalse(this.breaker.tryAcquirePermission());
+        assertThat(this.transitions, is(Arrays.asList(State.OPEN)));
+    }
+
+    /**
+     * After the open duration, a limited number of probes should be let
+     * through, and the breaker should close when they all succeed.
+     */
+    @Test
+    public void closesAfterSuccessfulProbes() {
+        fail(4);
+        FrozenTime.tick(10);
+
+        assertTrue(this.breaker.tryAcquirePermission());
+        assertThat(this.breaker.getState(), is(State.HALF_OPEN));
+        assertTrue(this.breaker.tryAcquirePermission());
+        // all probes in flight
+        assertFalse(this.breaker.tryAcquirePermission());
+
+        this.breaker.onSuccess();
+        assertThat(this.breaker.getState(), is(State.HALF_OPEN));
+        this.breaker.onSuccess();
+        assertThat(this.breaker.getState(), is(State.CLOSED));
+        assertThat(this.breaker.failureRate(), is(0.0));
+        assertThat(this.transitions, is(Arrays.asList(State.OPEN, State.HALF_OPEN, State.CLOSED)));
+    }
+
+    /**
+     * A failed probe should open the breaker again.
+     */
+    @Test
+    public void reopensOnFailedProbe() {
+        fail(4);
+        FrozenTime.tick(10);
+
+        assertTrue(this.breaker.tryAcquirePermission());
+        this.breaker.onFailure(new RuntimeException("still down"));
+        assertThat(this.breaker.getState(), is(State.OPEN));
+        assertFalse(this.breaker.tryAcquirePermission());
+
+        FrozenTime.tick(10);
+        assertTrue(this.breaker.tryAcquirePermission());
+        assertThat(this.transitions, is(Arrays.asList(State.OPEN, State.HALF_OPEN, State.OPEN, State.HALF_OPEN)));
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(this.breaker.tryAcquirePermission());
+            this.breaker.onSuccess();
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(this.breaker.tryAcquirePermission());
+            this.breaker.onFailure(new RuntimeException("cloud API unavailable"));
+        }
+    }
+}
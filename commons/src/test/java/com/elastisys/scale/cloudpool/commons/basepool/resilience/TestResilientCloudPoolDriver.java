@@ -0,0 +1,403 @@
+package com.elastisys.scale.cloudpool.commons.basepool.resilience;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.elastisys.scale.cloudpool.api.NotFoundException;
+import com.elastisys.scale.cloudpool.api.types.Machine;
+import com.elastisys.scale.cloudpool.api.types.MembershipStatus;
+import com.elastisys.scale.cloudpool.api.types.ServiceState;
+import com.elastisys.scale.cloudpool.commons.basepool.config.CircuitBreakerConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.config.DriverTimeoutsConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.CloudPoolDriverException;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.DriverConfig;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.IncrementalCloudPoolDriver;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.MachineChanges;
+import com.elastisys.scale.cloudpool.commons.basepool.driver.TerminateMachinesException;
+import com.elastisys.scale.cloudpool.commons.basepool.resilience.CircuitBreaker.State;
+import com.elastisys.scale.commons.eventbus.EventBus;
+import com.elastisys.scale.commons.json.types.TimeInterval;
+
+/**
+ * Exercises the {@link ResilientCloudPoolDriver}.
+ */
+public class TestResilientCloudPoolDriver {
+
+    /** Opens after 2 failed calls and allows 1 concurrent call. */
+    private static final CircuitBreakerConfig CONFIG = new CircuitBreakerConfig(1.0, 2, 2,
+            new TimeInterval(60L, TimeUnit.SECONDS), 1, 1);
+
+    private final EventBus eventBus = mock(EventBus.class);
+    private final FakeDriver driver = new FakeDriver();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void afterTestMethod() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Without a configuration, calls should simply be passed through.
+     */
+    @Test
+    public void disabledByDefault() {
+        ResilientCloudPoolDriver resilientDriver = ResilientCloudPoolDriver.wrap(this.driver, this.eventBus);
+        this.driver.failing = true;
+        for (int i = 0; i < 5; i++) {
+            listMachinesIgnoringErrors(resilientDriver);
+        }
+        assertThat(this.driver.calls.get(), is(5));
+        assertFalse(resilientDriver.getCircuitBreakerStates().isPresent());
+    }
+
+    /**
+     * Once the circuit breaker opens, calls should fail fast without reaching
+     * the wrapped driver. Other operations should not be affected.
+     */
+    @Test
+    public void failFastWhenOpen() {
+        ResilientCloudPoolDriver resilientDriver = ResilientCloudPoolDriver.wrap(this.driver, this.eventBus);
+        resilientDriver.setConfig(CONFIG);
+
+        this.driver.failing = true;
+        listMachinesIgnoringErrors(resilientDriver);
+        listMachinesIgnoringErrors(resilientDriver);
+        try {
+            resilientDriver.listMachines();
+            fail("expected to fail fast");
+        } catch (CircuitBreakerOpenException e) {
+            assertThat(e.getOperation(), is("listMachines"));
+        }
+        assertThat(this.driver.calls.get(), is(2));
+
+        resilientDriver.terminateMachines(Collections.singletonList("i-1"));
+        Map<String, State> states = resilientDriver.getCircuitBreakerStates().get();
+        assertThat(states.get("listMachines"), is(State.OPEN));
+        assertThat(states.get("terminateMachines"), is(State.CLOSED));
+    }
+
+    /**
+     * The circuit breaker state names should be served from a map that is
+     * only replaced when a circuit breaker changes state.
+     */
+    @Test
+    public void stateNamesUpdatedOnStateChange() {
+        ResilientCloudPoolDriver resilientDriver = ResilientCloudPoolDriver.wrap(this.driver, this.eventBus);
+        assertFalse(resilientDriver.getCircuitBreakerStateNames().isPresent());
+        resilientDriver.setConfig(CONFIG);
+        assertThat(resilientDriver.getCircuitBreakerStateNames().get(), is(Collections.emptyMap()));
+
+        this.driver.failing = true;
+        listMachinesIgnoringErrors(resilientDriver);
+        Map<String, String> closed = resilientDriver.getCircuitBreakerStateNames().get();
+        assertThat(closed, is(Collections.singletonMap("listMachines", "CLOSED")));
+        // no state change: same instance
+        assertSame(closed, resilientDriver.getCircuitBreakerStateNames().get());
+
+        listMachinesIgnoringErrors(resilientDriver);
+        Map<String, String> open = resilientDriver.getCircuitBreakerStateNames().get();
+        assertThat(open, is(Collections.singletonMap("listMachines", "OPEN")));
+        assertSame(open, resilientDriver.getCircuitBreakerStateNames().get());
+    }
+
+    /**
+     * Client errors (such as {@link NotFoundException}) do not indicate an
+     * unhealthy cloud API and should not open the circuit breaker.
+     */
+    @Test
+    public void clientErrorsDoNotCount() {
+        ResilientCloudPoolDriver resilientDriver = ResilientCloudPoolDriver.wrap(this.driver, this.eventBus);
+        resilientDriver.setConfig(CONFIG);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                resilientDriver.attachMachine("i-missing");
+                fail("expected NotFoundException");
+            } catch (NotFoundException e) {
+                // expected
+            }
+        }
+        assertThat(resilientDriver.getCircuitBreakerStates().get().get("attachMachine"), is(State.CLOSED));
+    }
+
+    /**
+     * A call that partially succeeds shows that the cloud API still serves
+     * requests and should not count as a failure. A call that fails for all
+     * machines should.
+     */
+    @Test
+    public void partialSuccessDoesNotCount() {
+        ResilientCloudPoolDriver resilientDriver = ResilientCloudPoolDriver.wrap(this.driver, this.eventBus);
+        resilientDriver.setConfig(CONFIG);
+
+        this.driver.terminateError = new TerminateMachinesException(Collections.singletonList("i-1"),
+                Collections.singletonMap("i-2", new RuntimeException("cloud API hiccup")));
+        for (int i = 0; i < 3; i++) {
+            terminateMachinesIgnoringErrors(resilientDriver);
+        }
+        assertThat(resilientDriver.getCircuitBreakerStates().get().get("terminateMachines"), is(State.CLOSED));
+
+        this.driver.terminateError = new TerminateMachinesException(Collections.emptyList(),
+                Collections.singletonMap("i-2", new RuntimeException("cloud API unavailable")));
+        for (int i = 0; i < 2; i++) {
+            terminateMachinesIgnoringErrors(resilientDriver);
+        }
+        assertThat(resilientDriver.getCircuitBreakerStates().get().get("terminateMachines"), is(State.OPEN));
+    }
+
+    /**
+     * Calls beyond the concurrency limit of an operation should be rejected.
+     */
+    @Test
+    public void bulkhead() throws Exception {
+        ResilientCloudPoolDriver resilientDriver = ResilientCloudPoolDriver.wrap(this.driver, this.eventBus);
+        resilientDriver.setConfig(CONFIG);
+
+        this.driver.blocker = new CountDownLatch(1);
+        Future<List<Machine>> blockedCall = this.executor.submit(() -> resilientDriver.listMachines());
+        while (this.driver.calls.get() == 0) {
+            Thread.sleep(10);
+        }
+        try {
+            resilientDriver.listMachines();
+            fail("expected bulkhead to be full");
+        } catch (BulkheadFullException e) {
+            // expected
+        }
+        this.driver.blocker.countDown();
+        blockedCall.get(5, TimeUnit.SECONDS);
+
+        // room for another call
+        resilientDriver.listMachines();
+        assertThat(this.driver.calls.get(), is(2));
+    }
+
+    /**
+     * A call that does not complete within its deadline should be interrupted
+     * and the caller released, leaving room for later calls.
+     */
+    @Test
+    public void callTimeout() throws Exception {
+        ResilientCloudPoolDriver resilientDriver = ResilientCloudPoolDriver.wrap(this.driver, this.eventBus);
+        resilientDriver.setTimeouts(new DriverTimeoutsConfig(new TimeInterval(60L, TimeUnit.SECONDS),
+                Collections.singletonMap("listMachines", new TimeInterval(100L, TimeUnit.MILLISECONDS))));
+
+        this.driver.blocker = new CountDownLatch(1);
+        try {
+            resilientDriver.listMachines();
+            fail("expected call to time out");
+        } catch (CallTimeoutException e) {
+            assertThat(e.getOperation(), is("listMachines"));
+        }
+        this.driver.interrupted.await(5, TimeUnit.SECONDS);
+        assertThat(this.driver.interrupted.getCount(), is(0L));
+
+        // other operations use the default timeout
+        resilientDriver.terminateMachines(Collections.singletonList("i-1"));
+
+        this.driver.blocker = null;
+        assertThat(resilientDriver.listMachines(), is(Collections.emptyList()));
+        assertThat(this.driver.calls.get(), is(2));
+    }
+
+    /**
+     * Timed out calls indicate an unhealthy cloud API and should open the
+     * circuit breaker. Driver errors should be passed on as-is.
+     */
+    @Test
+    public void callTimeoutCountsAsFailure() throws Exception {
+        ResilientCloudPoolDriver resilientDriver = ResilientCloudPoolDriver.wrap(this.driver, this.eventBus);
+        // room in the bulkhead for both timed out calls, which hold their
+        // permits until the interrupted driver calls have returned
+        resilientDriver.setConfig(new CircuitBreakerConfig(1.0, 2, 2, new TimeInterval(60L, TimeUnit.SECONDS), 1, 2));
+        resilientDriver.setTimeouts(new DriverTimeoutsConfig(new TimeInterval(100L, TimeUnit.MILLISECONDS), null));
+
+        try {
+            resilientDriver.attachMachine("i-missing");
+            fail("expected NotFoundException");
+        } catch (NotFoundException e) {
+            // expected
+        }
+
+        this.driver.blocker = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            try {
+                resilientDriver.listMachines();
+                fail("expected call to time out");
+            } catch (CallTimeoutException e) {
+                // expected
+            }
+        }
+        assertThat(resilientDriver.getCircuitBreakerStates().get().get("listMachines"), is(State.OPEN));
+    }
+
+    /**
+     * A timed out call that does not respond to the interrupt should keep its
+     * place in the bulkhead until it returns, so that hung calls cannot use up
+     * more threads than the bulkhead allows.
+     */
+    @Test
+    public void timedOutCallHoldsBulkheadUntilItReturns() throws Exception {
+        ResilientCloudPoolDriver resilientDriver = ResilientCloudPoolDriver.wrap(this.driver, this.eventBus);
+        resilientDriver.setConfig(CONFIG);
+        resilientDriver.setTimeouts(new DriverTimeoutsConfig(new TimeInterval(100L, TimeUnit.MILLISECONDS), null));
+
+        this.driver.blocker = new CountDownLatch(1);
+        this.driver.ignoreInterrupts = true;
+        try {
+            resilientDriver.listMachines();
+            fail("expected call to time out");
+        } catch (CallTimeoutException e) {
+            // expected
+        }
+        this.driver.interrupted.await(5, TimeUnit.SECONDS);
+        try {
+            resilientDriver.listMachines();
+            fail("expected bulkhead to be full");
+        } catch (BulkheadFullException e) {
+            // expected
+        }
+        assertThat(this.driver.calls.get(), is(1));
+
+        // once the abandoned call returns, there is room for another call
+        this.driver.blocker.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            try {
+                assertThat(resilientDriver.listMachines(), is(Collections.emptyList()));
+                break;
+            } catch (BulkheadFullException e) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+        }
+        assertThat(this.driver.calls.get(), is(2));
+    }
+
+    /**
+     * An {@link IncrementalCloudPoolDriver} should remain one when wrapped.
+     */
+    @Test
+    public void wrapIncrementalDriver() {
+        CloudPoolDriver incrementalDriver = new FakeIncrementalDriver();
+        CloudPoolDriver resilientDriver = ResilientCloudPoolDriver.wrap(incrementalDriver, this.eventBus);
+        assertThat(resilientDriver, instanceOf(IncrementalCloudPoolDriver.class));
+        assertTrue(ResilientCloudPoolDriver.wrap(this.driver, this.eventBus) instanceof ResilientCloudPoolDriver);
+        assertFalse(ResilientCloudPoolDriver.wrap(this.driver, this.eventBus) instanceof IncrementalCloudPoolDriver);
+    }
+
+    private static void listMachinesIgnoringErrors(CloudPoolDriver driver) {
+        try {
+            driver.listMachines();
+        } catch (CloudPoolDriverException e) {
+            // expected
+        }
+    }
+
+    private static void terminateMachinesIgnoringErrors(CloudPoolDriver driver) {
+        try {
+            driver.terminateMachines(Arrays.asList("i-1", "i-2"));
+        } catch (CloudPoolDriverException e) {
+            // expected
+        }
+    }
+
+    private static class FakeDriver implements CloudPoolDriver {
+        final AtomicInteger calls = new AtomicInteger(0);
+        volatile boolean failing = false;
+        volatile CountDownLatch blocker = null;
+        volatile boolean ignoreInterrupts = false;
+        volatile RuntimeException terminateError = null;
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public List<Machine> listMachines() {
+            this.calls.incrementAndGet();
+            while (this.blocker != null) {
+                try {
+                    this.blocker.await();
+                    break;
+                } catch (InterruptedException e) {
+                    this.interrupted.countDown();
+                    if (!this.ignoreInterrupts) {
+                        throw new CloudPoolDriverException(e);
+                    }
+                }
+            }
+            if (this.failing) {
+                throw new CloudPoolDriverException("cloud API unavailable");
+            }
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void attachMachine(String machineId) throws NotFoundException {
+            throw new NotFoundException("no such machine: " + machineId);
+        }
+
+        @Override
+        public void terminateMachines(List<String> machineIds) {
+            if (this.terminateError != null) {
+                throw this.terminateError;
+            }
+        }
+
+        @Override
+        public void configure(DriverConfig configuration) {
+        }
+
+        @Override
+        public List<Machine> startMachines(int count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void detachMachine(String machineId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setServiceState(String machineId, ServiceState serviceState) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setMembershipStatus(String machineId, MembershipStatus membershipStatus) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getPoolName() {
+            return "pool";
+        }
+    }
+
+    private static class FakeIncrementalDriver extends FakeDriver implements IncrementalCloudPoolDriver {
+        @Override
+        public MachineChanges listMachineChanges(Optional<String> sinceWatermark) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
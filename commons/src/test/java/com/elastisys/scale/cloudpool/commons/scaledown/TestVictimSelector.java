@@ -4,8 +4,10 @@ import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -67,4 +69,45 @@ public class TestVictimSelector extends AbstractScaledownTest {
         assertThat(victims.get(0), is(instance1));
     }
 
+    /**
+     * Verifies that the batch victim selection of the built-in strategies
+     * agrees with selecting victims one at a time.
+     */
+    @Test
+    public void batchSelectionAgreesWithIterativeSelection() {
+        Random random = new Random(1234L);
+        List<Machine> candidates = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // include some duplicate and missing launch times to exercise tie
+            // breaking on machine id
+            String launchTime = random.nextInt(10) == 0 ? null
+                    : String.format("2012-06-01T%02d:%02d:00", random.nextInt(24), random.nextInt(6) * 10);
+            candidates.add(instance("i-" + i, launchTime));
+        }
+
+        for (VictimSelectionPolicy policy : VictimSelectionPolicy.values()) {
+            VictimSelectionStrategy strategy = policy.getVictimSelectionStrategy();
+            for (int numVictims : asList(0, 1, 17, 100, 199, 200)) {
+                List<Machine> expected = iterativeSelection(strategy, candidates, numVictims);
+                List<Machine> actual = new VictimSelector(strategy).selectVictims(candidates, numVictims);
+                assertThat(actual, is(expected));
+            }
+        }
+    }
+
+    /**
+     * Selects victims one at a time (the way victims were selected prior to
+     * the introduction of batch selection).
+     */
+    private static List<Machine> iterativeSelection(VictimSelectionStrategy strategy, List<Machine> candidates,
+            int numVictims) {
+        List<Machine> remaining = new ArrayList<>(candidates);
+        List<Machine> victims = new ArrayList<>();
+        for (int i = 0; i < numVictims; i++) {
+            Machine victim = strategy.selectVictim(remaining);
+            victims.add(victim);
+            remaining.remove(victim);
+        }
+        return victims;
+    }
 }
@@ -96,4 +96,27 @@ public class TestOldestMachineVictimSelectionStrategy extends AbstractScaledownT
         set = asList(instance3, instance1, instance2);
         assertThat(this.strategy.selectVictim(set), is(instance1));
     }
+
+    /**
+     * Batch selection should pick the same victims, in the same order, as
+     * repeated single-victim selection.
+     */
+    @Test
+    public void selectMultipleVictims() {
+        Machine instance1 = instance("i-1", "2012-06-01T09:15:00");
+        Machine instance2 = instance("i-2", "2012-06-01T09:30:00");
+        Machine instance3 = instance("i-3", "2012-06-01T09:45:00");
+        Machine instance4 = instance("i-4", null);
+
+        List<Machine> set = asList(instance3, instance1, instance4, instance2);
+        assertThat(this.strategy.selectVictims(set, 0), is(asList()));
+        assertThat(this.strategy.selectVictims(set, 2), is(asList(instance1, instance2)));
+        assertThat(this.strategy.selectVictims(set, 4).size(), is(4));
+        assertThat(this.strategy.selectVictims(set, 4).get(0), is(this.strategy.selectVictim(set)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void selectMoreVictimsThanCandidates() {
+        this.strategy.selectVictims(asList(instance("i-1", "2012-06-01T09:15:00")), 2);
+    }
 }
@@ -0,0 +1,64 @@
+package com.elastisys.scale.cloudpool.commons.scaledown.strategies;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Exercises {@link PartialSort}.
+ */
+public class TestPartialSort {
+
+    /** Orders strings on their first character only. */
+    private static final Comparator<String> FIRST_CHAR = Comparator.comparing(s -> s.charAt(0));
+
+    @Test
+    public void smallest() {
+        List<Integer> elements = asList(5, 3, 9, 1, 7);
+        assertThat(PartialSort.smallest(elements, 0, Comparator.naturalOrder()), is(asList()));
+        assertThat(PartialSort.smallest(elements, 2, Comparator.naturalOrder()), is(asList(1, 3)));
+        assertThat(PartialSort.smallest(elements, 5, Comparator.naturalOrder()), is(asList(1, 3, 5, 7, 9)));
+    }
+
+    /**
+     * Equal elements should be selected and ordered as a stable sort of the
+     * full collection would.
+     */
+    @Test
+    public void tiesKeepInputOrder() {
+        List<String> elements = asList("b1", "a1", "b2", "a2", "b3", "a3", "c1");
+        assertThat(PartialSort.smallest(elements, 2, FIRST_CHAR), is(asList("a1", "a2")));
+        assertThat(PartialSort.smallest(elements, 4, FIRST_CHAR), is(asList("a1", "a2", "a3", "b1")));
+        assertThat(PartialSort.smallest(elements, 5, FIRST_CHAR), is(asList("a1", "a2", "a3", "b1", "b2")));
+    }
+
+    /**
+     * Results should match a stable sort of the full collection for any k.
+     */
+    @Test
+    public void sameAsStableSort() {
+        Random random = new Random(1);
+        List<String> elements = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            elements.add((char) ('a' + random.nextInt(5)) + Integer.toString(i));
+        }
+        List<String> sorted = new ArrayList<>(elements);
+        sorted.sort(FIRST_CHAR);
+
+        for (int k = 0; k <= elements.size(); k++) {
+            assertThat(PartialSort.smallest(elements, k, FIRST_CHAR), is(sorted.subList(0, k)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void kExceedingNumberOfElements() {
+        PartialSort.smallest(asList(1, 2), 3, Comparator.naturalOrder());
+    }
+}
@@ -7,6 +7,7 @@ import com.elastisys.scale.cloudpool.api.server.CloudPoolOptions;
 import com.elastisys.scale.cloudpool.api.server.CloudPoolServer;
 import com.elastisys.scale.cloudpool.commons.basepool.BaseCloudPool;
 import com.elastisys.scale.cloudpool.commons.basepool.StateStorage;
+import com.elastisys.scale.cloudpool.commons.basepool.StateStorage.PersistenceMode;
 import com.elastisys.scale.cloudpool.google.commons.api.compute.impl.StandardComputeClient;
 import com.elastisys.scale.cloudpool.google.compute.driver.GoogleComputeEnginePoolDriver;
 
@@ -17,7 +18,8 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
         CloudPoolOptions options = CloudPoolServer.parseArgs(args);
-        StateStorage stateStorage = StateStorage.builder(options.storageDir).build();
+        StateStorage stateStorage = StateStorage.builder(options.storageDir)
+                .withPersistenceMode(options.compactState ? PersistenceMode.COMPACT : PersistenceMode.JSON).build();
         ScheduledExecutorService executor = Executors.newScheduledThreadPool(5);
 
         CloudPoolServer.main(new BaseCloudPool(stateStorage,
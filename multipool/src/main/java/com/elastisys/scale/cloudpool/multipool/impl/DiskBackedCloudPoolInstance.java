@@ -160,6 +160,11 @@ class DiskBackedCloudPoolInstance implements CloudPoolInstance {
         return this.cloudPool.getMachinePool();
     }
 
+    @Override
+    public MachinePool getMachinePool(long maxStalenessMillis) throws CloudPoolException, NotStartedException {
+        return this.cloudPool.getMachinePool(maxStalenessMillis);
+    }
+
     @Override
     public PoolSizeSummary getPoolSize() throws CloudPoolException, NotStartedException {
         return this.cloudPool.getPoolSize();
@@ -7,6 +7,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -122,7 +123,8 @@ public interface MultiCloudPoolRestApi {
 
     @GET
     @Path("/cloudpools/{cloudPoolName}/pool")
-    Response getPool(@PathParam("cloudPoolName") String cloudPoolName);
+    Response getPool(@PathParam("cloudPoolName") String cloudPoolName,
+            @QueryParam("maxStaleness") Long maxStalenessMillis);
 
     @POST
     @Path("/cloudpools/{cloudPoolName}/pool/size")
@@ -21,6 +21,7 @@ import com.elastisys.scale.cloudpool.api.CloudPoolException;
 import com.elastisys.scale.cloudpool.api.NotConfiguredException;
 import com.elastisys.scale.cloudpool.api.NotFoundException;
 import com.elastisys.scale.cloudpool.api.NotStartedException;
+import com.elastisys.scale.cloudpool.api.types.MachinePool;
 import com.elastisys.scale.cloudpool.api.restapi.types.AttachMachineRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.DetachMachineRequest;
 import com.elastisys.scale.cloudpool.api.restapi.types.SetDesiredSizeRequest;
@@ -125,10 +126,14 @@ public class MultiCloudPoolRestApiImpl implements MultiCloudPoolRestApi {
     }
 
     @Override
-    public Response getPool(final String cloudPoolName) {
+    public Response getPool(final String cloudPoolName, final Long maxStalenessMillis) {
         return handleRequest(() -> {
+            checkArgument(maxStalenessMillis == null || maxStalenessMillis >= 0,
+                    "illegal input: maxStaleness must be non-negative");
             CloudPoolInstance instance = getMultiCloudPool().get(cloudPoolName);
-            return Response.ok().entity(instance.getMachinePool()).build();
+            MachinePool machinePool = maxStalenessMillis != null ? instance.getMachinePool(maxStalenessMillis)
+                    : instance.getMachinePool();
+            return Response.ok().entity(machinePool).build();
         });
     }
 
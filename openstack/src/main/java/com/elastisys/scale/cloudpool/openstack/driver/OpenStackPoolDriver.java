@@ -42,6 +42,12 @@ import com.google.common.collect.ImmutableMap;
 public class OpenStackPoolDriver implements CloudPoolDriver {
     private static Logger LOG = LoggerFactory.getLogger(OpenStackPoolDriver.class);
 
+    /**
+     * The number of servers to launch per {@link #startMachines(int)} call in
+     * a large scale-out.
+     */
+    private static final int START_CHUNK_SIZE = 5;
+
     /** The current driver configuration. */
     private DriverConfig config;
 
@@ -125,6 +131,18 @@ public class OpenStackPoolDriver implements CloudPoolDriver {
         return startedMachines;
     }
 
+    /**
+     * Servers are launched (and assigned floating IPs) one at a time, so large
+     * scale-outs are split into chunks of {@value #START_CHUNK_SIZE} that can
+     * be carried out concurrently. Chunks of that size keep each
+     * {@link #startMachines(int)} call well within its deadline while keeping
+     * the number of calls through the circuit breaker small.
+     */
+    @Override
+    public int getPreferredStartChunkSize() {
+        return START_CHUNK_SIZE;
+    }
+
     @Override
     public void terminateMachines(List<String> machineIds)
             throws IllegalStateException, TerminateMachinesException, CloudPoolDriverException {